@@ -15,6 +15,8 @@ package de.qaware.ekg.awb.application.base.module;
 import de.qaware.ekg.awb.application.base.adapter.ChartPanelAdapter;
 import de.qaware.ekg.awb.common.ui.events.FinishEvent;
 import de.qaware.ekg.awb.metricanalyzer.ui.MetricAnalyzerUiModule;
+import de.qaware.ekg.awb.repository.bl.migration.SeriesDataMigrationService;
+import de.qaware.ekg.awb.repository.bl.repositories.SolrEmbeddedRepository;
 import de.qaware.ekg.awb.sdk.core.events.EkgEventBus;
 import de.qaware.ekg.awb.sdk.core.events.ProgressEvent;
 import de.qaware.ekg.awb.sdk.core.lookup.EkgLookup;
@@ -38,6 +40,10 @@ public class MetricAnalyzerModule extends MetricAnalyzerUiModule implements Modu
             EkgLookup.lookup(ChartPanelAdapter.ChartPanelManager.class).getClass();
             eventBus.publish(new ProgressEvent("Finished starting local Solr Server...", 1, this));
 
+            // re-encode records of older formats in background
+            EkgLookup.lookup(SeriesDataMigrationService.class)
+                    .startMigration(EkgLookup.lookup(SolrEmbeddedRepository.class).getRepositoryClient());
+
             super.preload();
 
         } catch (InterruptedException e) {
@@ -7,6 +7,7 @@ import de.qaware.ekg.awb.repository.api.dataobject.facet.FacetParams;
 import de.qaware.ekg.awb.repository.api.dataobject.search.SearchParams;
 import de.qaware.ekg.awb.repository.api.dataobject.search.SortField;
 import de.qaware.ekg.awb.repository.api.schema.Field;
+import org.apache.commons.lang3.NotImplementedException;
 import org.elasticsearch.action.ActionRequest;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchScrollRequest;
@@ -51,6 +52,10 @@ public class ElasticSearchQueryFactory {
 
     public SearchRequest createFacetQuery(FacetParams facetParams, String elasticSearchIndex) {
 
+        if (!facetParams.getDimensionFilters().isEmpty() || !facetParams.getPivotFields().isEmpty()) {
+            throw new NotImplementedException("Dimension filters and pivot facets are not implemented yet");
+        }
+
         // we limit it to one index, wildcard patterns are working
         SearchRequest searchRequest = new SearchRequest(elasticSearchIndex);
 
@@ -9,11 +9,14 @@ import de.qaware.ekg.awb.repository.api.dataobject.facet.Facet;
 import de.qaware.ekg.awb.repository.api.dataobject.facet.FacetEntry;
 import de.qaware.ekg.awb.repository.api.dataobject.facet.FacetParams;
 import de.qaware.ekg.awb.repository.api.dataobject.facet.FacetResult;
+import de.qaware.ekg.awb.repository.api.dataobject.facet.StatsFacetParams;
+import de.qaware.ekg.awb.repository.api.dataobject.facet.StatsFacetResult;
 import de.qaware.ekg.awb.repository.api.dataobject.search.ExportParams;
 import de.qaware.ekg.awb.repository.api.dataobject.search.SearchParams;
 import de.qaware.ekg.awb.repository.api.dataobject.search.SearchResult;
 import de.qaware.ekg.awb.repository.api.dataobject.search.SortField;
 import de.qaware.ekg.awb.repository.api.dataobject.status.QueryStatus;
+import de.qaware.ekg.awb.repository.api.schema.DimensionDictionary;
 import de.qaware.ekg.awb.repository.api.schema.EkgSchemaField;
 import de.qaware.ekg.awb.repository.api.schema.Field;
 import de.qaware.ekg.awb.sdk.awbapi.repository.RepositoryException;
@@ -76,6 +79,8 @@ public class ElasticSearchRepositoryClient implements RepositoryClient {
 
     private RestHighLevelClient elasticSearchClient;
 
+    private final DimensionDictionary dimensionDictionary = new DimensionDictionary();
+
     public ElasticSearchRepositoryClient(RestHighLevelClient elasticClient, String dbIndex) {
         this.elasticSearchIndex = dbIndex;
         this.elasticSearchClient = elasticClient;
@@ -102,7 +107,7 @@ public class ElasticSearchRepositoryClient implements RepositoryClient {
                         "response status: " + response.status().name());
             }
 
-            List<T> documents = ObjectBinder.mapToBeans(type, response.getHits());
+            List<T> documents = ObjectBinder.mapToBeans(type, response.getHits(), dimensionDictionary);
             return new SearchResult<>(documents, createSearchQueryStatus(response));
 
         } catch (Exception e) {
@@ -126,12 +131,17 @@ public class ElasticSearchRepositoryClient implements RepositoryClient {
         return -1;
     }
 
+    @Override
+    public StatsFacetResult statsFacet(StatsFacetParams statsFacetParams) {
+        throw new NotImplementedException("Not implemented yet");
+    }
+
     @Override
     public FacetResult facet(FacetParams facetParams) throws RepositoryException {
 
         try {
             Validate.notNull(facetParams);
-            Validate.notEmpty(facetParams.getFacetFields());
+            Validate.isTrue(!facetParams.getFacetFields().isEmpty() || !facetParams.getPivotFields().isEmpty());
             Validate.notNull(facetParams.getFacetMissing());
             Validate.notNull(facetParams.getFilterQueries());
 
@@ -145,6 +155,9 @@ public class ElasticSearchRepositoryClient implements RepositoryClient {
 
             return new FacetResult(extractFacets(response), createSearchQueryStatus(response));
 
+        } catch (UnsupportedOperationException e) {
+            // unsupported facet params aren't an error of the repository, the callers fall back to simpler queries
+            throw e;
         } catch (Exception e) {
             LOGGER.error("Exception at Solr persistence layer occurred: ", e);
             throw new RepositoryException(IO_ERROR_MESSAGE, e);
@@ -237,6 +250,11 @@ public class ElasticSearchRepositoryClient implements RepositoryClient {
         }
     }
 
+    @Override
+    public DimensionDictionary getDimensionDictionary() {
+        return dimensionDictionary;
+    }
+
     @Override
     public void deleteAll() throws RepositoryException {
         delete(null);
@@ -333,9 +351,12 @@ public class ElasticSearchRepositoryClient implements RepositoryClient {
         for (Aggregation facetAggregation : aggregations.asList()) {
             ParsedStringTerms facets = (ParsedStringTerms) facetAggregation;
 
+            boolean isDimension = DimensionDictionary.isDimensionField(facets.getName());
             List<FacetEntry> facetEntries = new ArrayList<>();
             for (Terms.Bucket facetBucket : facets.getBuckets()) {
-                facetEntries.add(new FacetEntry(facetBucket.getKey().toString(), facetBucket.getDocCount()));
+                String name = facetBucket.getKey().toString();
+                facetEntries.add(new FacetEntry(isDimension ? dimensionDictionary.intern(name) : name,
+                        facetBucket.getDocCount()));
             }
 
             facetList.add(new Facet(facets.getName(), facetEntries));
@@ -14,7 +14,9 @@ public enum FieldType {
 
     LONG("long"),
 
-    INT("int");
+    INT("int"),
+
+    DOUBLE("double");
 
     private String type;
 
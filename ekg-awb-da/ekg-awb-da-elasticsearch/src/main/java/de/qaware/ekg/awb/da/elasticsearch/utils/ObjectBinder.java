@@ -1,5 +1,6 @@
 package de.qaware.ekg.awb.da.elasticsearch.utils;
 
+import de.qaware.ekg.awb.repository.api.schema.DimensionDictionary;
 import de.qaware.ekg.awb.repository.api.schema.FieldReader;
 import org.apache.commons.lang3.reflect.ConstructorUtils;
 import org.apache.commons.lang3.reflect.FieldUtils;
@@ -43,7 +44,17 @@ public class ObjectBinder {
         return jsonMap;
     }
 
-    public static <T> List<T> mapToBeans(Class<T> type, SearchHits hits) {
+    /**
+     * Maps the hits of a search response to beans of the given type. String values of dimension
+     * fields (like host or metric names) will be interned with the given dictionary.
+     *
+     * @param type the type of the beans
+     * @param hits the hits of the search response
+     * @param dictionary the dictionary used to intern the dimension values
+     * @param <T> the type of the beans
+     * @return the beans in order of the hits
+     */
+    public static <T> List<T> mapToBeans(Class<T> type, SearchHits hits, DimensionDictionary dictionary) {
         try {
             Map<String, Field> fieldMap = FieldReader.getSchemaFields(type);
 
@@ -72,6 +83,8 @@ public class ObjectBinder {
 
                     if (beanField.getType() == byte[].class && value instanceof String) {
                         value = Base64.getDecoder().decode(value.toString());
+                    } else if (value instanceof String && DimensionDictionary.isDimensionField(fieldNameSolr)) {
+                        value = dictionary.intern((String) value);
                     }
 
                     FieldUtils.writeField(beanField, bean, value, true);
@@ -149,6 +149,16 @@ public class SchemaBuilder {
 
                     defineField(builder, TS_DATA_AMOUNT_VALUES, INT, false, true, false);
 
+                    // summary of the series values used for aggregations without decoding TS_DATA
+                    defineField(builder, TS_DATA_MIN, DOUBLE, true, true, true);
+                    defineField(builder, TS_DATA_MAX, DOUBLE, true, true, true);
+                    defineField(builder, TS_DATA_SUM, DOUBLE, true, true, true);
+                    defineField(builder, TS_DATA_COUNT, INT, true, true, true);
+                    defineField(builder, TS_DATA_FIRST, DOUBLE, true, true, true);
+                    defineField(builder, TS_DATA_LAST, DOUBLE, true, true, true);
+
+                    defineField(builder, TS_DATA_FORMAT_VERSION, INT, true, true, true);
+
                     defineField(builder, TS_START, LONG, true, true, true);
 
                     defineField(builder, TS_STOP, LONG, true, true, true);
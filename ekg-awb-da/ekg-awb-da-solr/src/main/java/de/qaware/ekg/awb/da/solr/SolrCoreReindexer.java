@@ -0,0 +1,231 @@
+package de.qaware.ekg.awb.da.solr;
+
+import de.qaware.ekg.awb.sdk.awbapi.repository.RepositoryException;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.embedded.EmbeddedSolrServer;
+import org.apache.solr.client.solrj.impl.HttpSolrClient;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.params.CursorMarkParams;
+import org.apache.solr.core.CoreContainer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Utility that reindexes all documents of an existing core or collection in place, for example after the
+ * schema was changed from Trie to point fields or docValues were added to fields.
+ * <p>
+ * Lucene doesn't allow to change the way a field is indexed as long as segments that use the former
+ * way exist. That's why the reindexer first spools all stored documents to a file, deletes the whole
+ * index (that also resets the field information of the index) and afterwards adds the spooled documents
+ * again, so they will indexed with the current schema.
+ * <p>
+ * The spool file will be written completely before the index is deleted. If the reindex is aborted after
+ * that, a new run with the same spool file resumes with adding the documents of the file.
+ * <p>
+ * All fields of the schema must be stored, otherwise their values get lost.
+ */
+public class SolrCoreReindexer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SolrCoreReindexer.class);
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    private static final String IO_ERROR_MESSAGE = "I/O error during reindex of Solr core.";
+
+    private static final String VERSION_FIELD = "_version_";
+
+    private static final String SPOOL_IN_PROGRESS_SUFFIX = ".part";
+
+    private final SolrClient solrClient;
+
+    private final String collection;
+
+    private final int batchSize;
+
+    /**
+     * Constructs a new reindexer for the given core or collection.
+     *
+     * @param solrClient the client used to access the documents
+     * @param collection the name of the core/collection or null if the client is bound to one
+     */
+    public SolrCoreReindexer(SolrClient solrClient, String collection) {
+        this(solrClient, collection, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Constructs a new reindexer for the given core or collection.
+     *
+     * @param solrClient the client used to access the documents
+     * @param collection the name of the core/collection or null if the client is bound to one
+     * @param batchSize  the amount of documents read and written at once
+     */
+    public SolrCoreReindexer(SolrClient solrClient, String collection, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("The batch size must be greater than zero");
+        }
+
+        this.solrClient = solrClient;
+        this.collection = collection;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Reindexes all documents of the core.
+     *
+     * @param spoolFile the file the documents will spooled to while the index is rebuilt
+     * @return the amount of reindexed documents
+     * @throws RepositoryException if the documents couldn't read or written
+     */
+    public long reindex(Path spoolFile) throws RepositoryException {
+        try {
+            if (Files.exists(spoolFile)) {
+                LOGGER.info("Resume reindex with the documents of the existing spool file {}", spoolFile);
+            } else {
+                long amountOfDocuments = spoolDocuments(spoolFile);
+                LOGGER.info("Spooled {} documents to {}", amountOfDocuments, spoolFile);
+            }
+
+            // deleting all documents drops all segments and the former field information of the index
+            solrClient.deleteByQuery(collection, "*:*");
+            solrClient.commit(collection);
+
+            long amountOfDocuments = restoreDocuments(spoolFile);
+            solrClient.commit(collection);
+
+            Files.delete(spoolFile);
+            LOGGER.info("Reindexed {} documents", amountOfDocuments);
+
+            return amountOfDocuments;
+        } catch (SolrServerException | IOException | ClassNotFoundException e) {
+            throw new RepositoryException(IO_ERROR_MESSAGE, e);
+        }
+    }
+
+    /**
+     * Writes all documents page by page to the spool file. The file is written under a temporary
+     * name first, so an existing spool file is always complete.
+     */
+    private long spoolDocuments(Path spoolFile) throws IOException, SolrServerException {
+        Path partFile = spoolFile.resolveSibling(spoolFile.getFileName() + SPOOL_IN_PROGRESS_SUFFIX);
+        long amountOfDocuments = 0;
+
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(partFile)))) {
+            SolrQuery query = new SolrQuery("*:*")
+                    .setRows(batchSize)
+                    .setSort(SolrQuery.SortClause.asc("id"));
+
+            String cursorMark = CursorMarkParams.CURSOR_MARK_START;
+
+            while (true) {
+                query.set(CursorMarkParams.CURSOR_MARK_PARAM, cursorMark);
+                QueryResponse response = solrClient.query(collection, query);
+
+                ArrayList<SolrInputDocument> page = new ArrayList<>(response.getResults().size());
+                for (SolrDocument document : response.getResults()) {
+                    page.add(toInputDocument(document));
+                }
+
+                if (!page.isEmpty()) {
+                    out.writeObject(page);
+                    out.reset();
+                    amountOfDocuments += page.size();
+                }
+
+                String nextCursorMark = response.getNextCursorMark();
+                if (page.isEmpty() || cursorMark.equals(nextCursorMark)) {
+                    break;
+                }
+
+                cursorMark = nextCursorMark;
+            }
+
+            // marks the end of the pages
+            out.writeObject(null);
+        }
+
+        Files.move(partFile, spoolFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        return amountOfDocuments;
+    }
+
+    @SuppressWarnings("unchecked")
+    private long restoreDocuments(Path spoolFile) throws IOException, ClassNotFoundException, SolrServerException {
+        long amountOfDocuments = 0;
+
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(spoolFile)))) {
+            List<SolrInputDocument> page;
+
+            while ((page = (List<SolrInputDocument>) in.readObject()) != null) {
+                solrClient.add(collection, page);
+                amountOfDocuments += page.size();
+            }
+        }
+
+        return amountOfDocuments;
+    }
+
+    /**
+     * Converts the stored fields of the given document to an input document. The version
+     * field is maintained by Solr and will skipped.
+     *
+     * @param document the document read from the index
+     * @return the input document with the same field values
+     */
+    /* package-private */ static SolrInputDocument toInputDocument(SolrDocument document) {
+        SolrInputDocument inputDocument = new SolrInputDocument();
+
+        for (Map.Entry<String, Object> field : document.entrySet()) {
+            if (!VERSION_FIELD.equals(field.getKey())) {
+                inputDocument.addField(field.getKey(), field.getValue());
+            }
+        }
+
+        return inputDocument;
+    }
+
+    /**
+     * Reindexes an existing core. The core is either addressed by the Solr home directory of the embedded
+     * Solr (that contains the solr.xml) or the base url of a Solr server and the core name.
+     * <p>
+     * Usage: {@code SolrCoreReindexer <solr home dir | solr base url> <core name> [spool file]}
+     *
+     * @param args the command line arguments
+     * @throws Exception if the reindex fails
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: SolrCoreReindexer <solr home dir | solr base url> <core name> [spool file]");
+            System.exit(1);
+        }
+
+        String location = args[0];
+        String coreName = args[1];
+        Path spoolFile = args.length > 2 ? Paths.get(args[2]) : Paths.get(coreName + "-reindex.spool");
+
+        if (location.startsWith("http://") || location.startsWith("https://")) {
+            try (SolrClient client = new HttpSolrClient.Builder(location).build()) {
+                new SolrCoreReindexer(client, coreName).reindex(spoolFile);
+            }
+        } else {
+            Path solrHome = Paths.get(location);
+            CoreContainer coreContainer = CoreContainer.createAndLoad(solrHome, solrHome.resolve("solr.xml"));
+
+            try (SolrClient client = new EmbeddedSolrServer(coreContainer, coreName)) {
+                new SolrCoreReindexer(client, null).reindex(spoolFile);
+            }
+        }
+    }
+}
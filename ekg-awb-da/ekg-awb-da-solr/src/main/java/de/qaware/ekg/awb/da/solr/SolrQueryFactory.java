@@ -1,8 +1,10 @@
 package de.qaware.ekg.awb.da.solr;
 
 import de.qaware.ekg.awb.da.solr.expression.SolrExpressionRenderer;
+import de.qaware.ekg.awb.repository.api.dataobject.expr.AndExpression;
 import de.qaware.ekg.awb.repository.api.dataobject.expr.Expression;
 import de.qaware.ekg.awb.repository.api.dataobject.facet.FacetParams;
+import de.qaware.ekg.awb.repository.api.dataobject.facet.StatsFacetParams;
 import de.qaware.ekg.awb.repository.api.dataobject.search.ExportParams;
 import de.qaware.ekg.awb.repository.api.dataobject.search.SearchParams;
 import de.qaware.ekg.awb.repository.api.dataobject.search.SortField;
@@ -15,6 +17,7 @@ import org.apache.solr.common.params.CommonParams;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * A factory for Solr export, facet, or select queries.
@@ -26,6 +29,11 @@ import java.util.stream.Collectors;
      */
     private static final ConcurrentHashMap<Class<?>, Set<String>> cachedSolrFields = new ConcurrentHashMap<>();
 
+    /**
+     * The name of the nested terms facet that holds the statistics per group in a stats facet query.
+     */
+    /* package-private */ static final String STATS_GROUP_FACET_NAME = "groups";
+
     private final SolrExpressionRenderer renderer;
 
     /**
@@ -50,9 +58,17 @@ import java.util.stream.Collectors;
      * @return The Solr query.
      */
     public SolrQuery createExportQuery(Class<?> type, ExportParams exportParams) {
+        Set<String> excludedFields = exportParams.getExcludedFields().stream()
+                .map(Field::getName)
+                .collect(Collectors.toSet());
+
+        String[] fields = Arrays.stream(getFieldList(type, exportParams.getSortFields()))
+                .filter(field -> !excludedFields.contains(field))
+                .toArray(String[]::new);
+
         return createBasicSolrQuery()
                 .setRequestHandler("/export")
-                .setFields(getFieldList(type, exportParams.getSortFields()))
+                .setFields(fields)
                 .setSorts(getSortClauses(exportParams.getSortFields()))
                 .setFilterQueries(getFilterQueries(exportParams.getFilterQueries()));
     }
@@ -70,9 +86,25 @@ import java.util.stream.Collectors;
                 .setFacetSort(facetParams.getFacetSort())
                 .setFacetLimit(facetParams.getLimit())
                 .setFacetMinCount(facetParams.getMinCount())
-                .addFacetField(extractFieldNames(facetParams.getFacetFields()))
                 .setFilterQueries(getFilterQueries(facetParams.getFilterQueries()));
 
+        // dimension filters are tagged with their field name and excluded from the facet of this field
+        Map<Field, Expression> dimensionFilters = facetParams.getDimensionFilters();
+        dimensionFilters.forEach((field, filter) ->
+                solrQuery.addFilterQuery(renderer.renderFilterQuery(filter, field.getName())));
+
+        for (Field field : facetParams.getFacetFields()) {
+            solrQuery.addFacetField(dimensionFilters.containsKey(field)
+                    ? "{!ex=" + field.getName() + "}" + field.getName()
+                    : field.getName());
+        }
+
+        if (!facetParams.getPivotFields().isEmpty()) {
+            solrQuery.addFacetPivotField(facetParams.getPivotFields().stream()
+                    .map(Field::getName)
+                    .collect(Collectors.joining(",")));
+        }
+
         // include a count of all documents missing the the following facets
         for (Field field : facetParams.getFacetMissing()) {
             String param = String.format("f.%s.%s", field.getName(),
@@ -114,6 +146,39 @@ import java.util.stream.Collectors;
         return solrQuery;
     }
 
+    /**
+     * Creates a Solr query with a JSON facet that computes the statistics of the given stats facet parameters
+     * over all matching documents and (if a group field is set) per group in a nested terms facet.
+     *
+     * @param statsFacetParams The stats facet parameters.
+     * @return The Solr query.
+     */
+    public SolrQuery createStatsFacetQuery(StatsFacetParams statsFacetParams) {
+        SolrQuery solrQuery = createBasicSolrQuery()
+                .setRows(0)
+                .setFilterQueries(getFilterQueries(statsFacetParams.getFilterQueries()));
+
+        StringJoiner facet = new StringJoiner(",", "{", "}");
+        renderStats(statsFacetParams, facet);
+
+        Field groupField = statsFacetParams.getGroupField();
+        if (groupField != null) {
+            StringJoiner groupStats = new StringJoiner(",", "{", "}");
+            renderStats(statsFacetParams, groupStats);
+
+            String sort = statsFacetParams.getSortStat() != null ? statsFacetParams.getSortStat() + " desc" : "count desc";
+
+            facet.add(STATS_GROUP_FACET_NAME + ":{type:terms,field:" + groupField.getName()
+                    + ",limit:" + statsFacetParams.getLimit()
+                    + ",sort:'" + sort + "'"
+                    + ",facet:" + groupStats + "}");
+        }
+
+        solrQuery.set("json.facet", facet.toString());
+
+        return solrQuery;
+    }
+
     /**
      * Creates a basic "match all" Solr query.
      *
@@ -169,6 +234,10 @@ import java.util.stream.Collectors;
 
     /**
      * Renders the given filter expressions into Solr filter queries.
+     * <p/>
+     * The parts of conjunctions are rendered as filter queries of their own. Solr intersects all filter queries
+     * anyway, but caches each of them separately, so queries sharing a part (e.g. the project) reuse it from the
+     * filter cache and disjunctions of exact values can be rendered as terms queries.
      *
      * @param expressions The filter expressions or {@code null}.
      * @return The filter queries.
@@ -179,24 +248,37 @@ import java.util.stream.Collectors;
         }
 
         return expressions.stream()
-                .map(renderer::render)
+                .flatMap(SolrQueryFactory::splitConjunction)
+                .map(renderer::renderFilterQuery)
                 .toArray(String[]::new);
     }
 
     /**
-     * Extracts the names of the given PSMG-Hub fields.
+     * Splits the given expression into the parts of its (nested) conjunctions.
      *
-     * @param fields The fields or {@code null}.
-     * @return The field names.
+     * @param expression The filter expression.
+     * @return The parts or the expression itself if it isn't a conjunction.
      */
-    private String[] extractFieldNames(Collection<Field> fields) {
-        if (fields == null) {
-            return new String[0];
+    private static Stream<Expression> splitConjunction(Expression expression) {
+        if (expression instanceof AndExpression) {
+            return ((AndExpression) expression).getExpressions().stream()
+                    .flatMap(SolrQueryFactory::splitConjunction);
         }
 
-        return fields.stream()
-                .map(Field::getName)
-                .toArray(String[]::new);
+        return Stream.of(expression);
+    }
+
+    /**
+     * Renders the statistics of the given stats facet parameters as JSON facet functions.
+     *
+     * @param statsFacetParams The stats facet parameters.
+     * @param facet The joiner to add the rendered functions to.
+     */
+    private void renderStats(StatsFacetParams statsFacetParams, StringJoiner facet) {
+        for (Map.Entry<String, StatsFacetParams.Stat> entry : statsFacetParams.getStats().entrySet()) {
+            StatsFacetParams.Stat stat = entry.getValue();
+            facet.add(entry.getKey() + ":'" + stat.getFunction().getName() + "(" + stat.getField().getName() + ")'");
+        }
     }
 
     /**
@@ -12,11 +12,16 @@ import de.qaware.ekg.awb.repository.api.dataobject.facet.Facet;
 import de.qaware.ekg.awb.repository.api.dataobject.facet.FacetEntry;
 import de.qaware.ekg.awb.repository.api.dataobject.facet.FacetParams;
 import de.qaware.ekg.awb.repository.api.dataobject.facet.FacetResult;
+import de.qaware.ekg.awb.repository.api.dataobject.facet.PivotFacetEntry;
+import de.qaware.ekg.awb.repository.api.dataobject.facet.StatsFacetEntry;
+import de.qaware.ekg.awb.repository.api.dataobject.facet.StatsFacetParams;
+import de.qaware.ekg.awb.repository.api.dataobject.facet.StatsFacetResult;
 import de.qaware.ekg.awb.repository.api.dataobject.search.ExportParams;
 import de.qaware.ekg.awb.repository.api.dataobject.search.SearchParams;
 import de.qaware.ekg.awb.repository.api.dataobject.search.SearchResult;
 import de.qaware.ekg.awb.repository.api.dataobject.search.SortField;
 import de.qaware.ekg.awb.repository.api.dataobject.status.QueryStatus;
+import de.qaware.ekg.awb.repository.api.schema.DimensionDictionary;
 import de.qaware.ekg.awb.repository.api.schema.EkgSchemaField;
 import de.qaware.ekg.awb.repository.api.schema.Field;
 import de.qaware.ekg.awb.sdk.awbapi.repository.RepositoryException;
@@ -34,7 +39,11 @@ import org.apache.solr.client.solrj.io.stream.StreamContext;
 import org.apache.solr.client.solrj.request.QueryRequest;
 import org.apache.solr.client.solrj.request.UpdateRequest;
 import org.apache.solr.client.solrj.response.FacetField;
+import org.apache.solr.client.solrj.response.PivotField;
 import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.client.solrj.response.json.BucketBasedJsonFacet;
+import org.apache.solr.client.solrj.response.json.BucketJsonFacet;
+import org.apache.solr.client.solrj.response.json.NestableJsonFacet;
 import org.apache.solr.common.SolrInputDocument;
 import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.params.CursorMarkParams;
@@ -43,6 +52,7 @@ import org.apache.solr.common.util.SimpleOrderedMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.net.ConnectException;
 import java.util.*;
@@ -81,6 +91,7 @@ public final class SolrRepositoryClient implements RepositoryClient {
     private final SolrClient solrClient;
     private final SolrQueryFactory queryFactory;
     private final SolrExportIteratorFactory exportIteratorFactory;
+    private final DimensionDictionary dimensionDictionary = new DimensionDictionary();
 
     /**
      * Constructs a {@link SolrRepositoryClient} bound to the given Solr collection, i.e. all queries will be directed
@@ -170,7 +181,20 @@ public final class SolrRepositoryClient implements RepositoryClient {
         Validate.notEmpty(exportParams.getSortFields(), "Exporting requires at least one sort field");
 
         Iterator<T> it = createExportIterator(type, exportParams);
-        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(it, Spliterator.ORDERED), false);
+        Stream<T> stream = StreamSupport.stream(Spliterators.spliteratorUnknownSize(it, Spliterator.ORDERED), false);
+
+        // closing the stream releases the Solr stream even if the export isn't read completely
+        if (it instanceof Closeable) {
+            stream = stream.onClose(() -> {
+                try {
+                    ((Closeable) it).close();
+                } catch (IOException e) {
+                    throw new IllegalStateException("Error closing SolrStream", e);
+                }
+            });
+        }
+
+        return stream;
     }
 
     @Override
@@ -228,13 +252,44 @@ public final class SolrRepositoryClient implements RepositoryClient {
     public FacetResult facet(FacetParams facetParams) throws RepositoryException {
         try {
             Validate.notNull(facetParams);
-            Validate.notEmpty(facetParams.getFacetFields());
+            Validate.isTrue(!facetParams.getFacetFields().isEmpty() || !facetParams.getPivotFields().isEmpty());
             Validate.notNull(facetParams.getFacetMissing());
             Validate.notNull(facetParams.getFilterQueries());
 
             SolrQuery solrQuery = queryFactory.createFacetQuery(facetParams);
             QueryResponse response = executeSolrQuery(solrQuery);
-            return new FacetResult(extractFacets(response), createQueryStatus(response));
+            return new FacetResult(extractFacets(response), extractPivotEntries(response), createQueryStatus(response));
+        } catch (SolrServerException | IOException e) {
+            throw new RepositoryException(IO_ERROR_MESSAGE, e);
+        }
+    }
+
+    @Override
+    public StatsFacetResult statsFacet(StatsFacetParams statsFacetParams) throws RepositoryException {
+        try {
+            Validate.notNull(statsFacetParams);
+            Validate.notEmpty(statsFacetParams.getStats());
+            Validate.notNull(statsFacetParams.getFilterQueries());
+
+            SolrQuery solrQuery = queryFactory.createStatsFacetQuery(statsFacetParams);
+            QueryResponse response = executeSolrQuery(solrQuery);
+            NestableJsonFacet jsonFacet = response.getJsonFacetingResponse();
+
+            StatsFacetEntry total = extractStatsFacetEntry(null, jsonFacet, statsFacetParams);
+            List<StatsFacetEntry> groups = new ArrayList<>();
+
+            if (statsFacetParams.getGroupField() != null) {
+                BucketBasedJsonFacet groupFacet = jsonFacet.getBucketBasedFacets(SolrQueryFactory.STATS_GROUP_FACET_NAME);
+
+                // the nested facet is missing if no document matches
+                if (groupFacet != null) {
+                    for (BucketJsonFacet bucket : groupFacet.getBuckets()) {
+                        groups.add(extractStatsFacetEntry(String.valueOf(bucket.getVal()), bucket, statsFacetParams));
+                    }
+                }
+            }
+
+            return new StatsFacetResult(total, groups, createQueryStatus(response));
         } catch (SolrServerException | IOException e) {
             throw new RepositoryException(IO_ERROR_MESSAGE, e);
         }
@@ -327,6 +382,11 @@ public final class SolrRepositoryClient implements RepositoryClient {
         }
     }
 
+    @Override
+    public DimensionDictionary getDimensionDictionary() {
+        return dimensionDictionary;
+    }
+
     @Override
     public void commit() throws RepositoryException {
         try {
@@ -361,7 +421,7 @@ public final class SolrRepositoryClient implements RepositoryClient {
     private <T> SearchResult<T> executeSearchQuery(Class<T> type, SolrQuery solrQuery)
             throws SolrServerException, IOException {
         QueryResponse response = executeSolrQuery(solrQuery);
-        List<T> documents = ObjectBinder.mapToBean(type, response.getResults());
+        List<T> documents = ObjectBinder.mapToBean(type, response.getResults(), dimensionDictionary);
         return new SearchResult<>(documents, createQueryStatus(response));
     }
 
@@ -397,8 +457,10 @@ public final class SolrRepositoryClient implements RepositoryClient {
         for (FacetField facetField : facetFields) {
             List<FacetField.Count> values = facetField.getValues();
             List<FacetEntry> facetEntries = new ArrayList<>(values.size());
+            boolean isDimension = DimensionDictionary.isDimensionField(facetField.getName());
             for (FacetField.Count value : values) {
-                facetEntries.add(new FacetEntry(value.getName(), value.getCount()));
+                String name = isDimension ? dimensionDictionary.intern(value.getName()) : value.getName();
+                facetEntries.add(new FacetEntry(name, value.getCount()));
             }
             facets.add(new Facet(facetField.getName(), facetEntries));
         }
@@ -406,6 +468,62 @@ public final class SolrRepositoryClient implements RepositoryClient {
         return facets;
     }
 
+    /**
+     * Extracts the entries of the (single) pivot facet of the given response.
+     *
+     * @param response the response of a facet query
+     * @return the entries of the first pivot field with the entries of the following fields as children
+     */
+    private List<PivotFacetEntry> extractPivotEntries(QueryResponse response) {
+        if (response.getFacetPivot() == null || response.getFacetPivot().size() == 0) {
+            return Collections.emptyList();
+        }
+
+        return extractPivotEntries(response.getFacetPivot().getVal(0));
+    }
+
+    private List<PivotFacetEntry> extractPivotEntries(List<PivotField> pivotFields) {
+        if (pivotFields == null) {
+            return Collections.emptyList();
+        }
+
+        List<PivotFacetEntry> entries = new ArrayList<>(pivotFields.size());
+
+        for (PivotField pivotField : pivotFields) {
+            String name = pivotField.getValue() == null ? null : pivotField.getValue().toString();
+            if (name != null && DimensionDictionary.isDimensionField(pivotField.getField())) {
+                name = dimensionDictionary.intern(name);
+            }
+
+            entries.add(new PivotFacetEntry(name, pivotField.getCount(), extractPivotEntries(pivotField.getPivot())));
+        }
+
+        return entries;
+    }
+
+    /**
+     * Extracts the statistics of a stats facet query from the given (nested) JSON facet.
+     *
+     * @param name the name of the group or null for the statistics over all documents
+     * @param jsonFacet the JSON facet of the response or a group bucket
+     * @param statsFacetParams the requested statistics
+     * @return the {@link StatsFacetEntry}
+     */
+    private StatsFacetEntry extractStatsFacetEntry(String name, NestableJsonFacet jsonFacet,
+                                                   StatsFacetParams statsFacetParams) {
+        Map<String, Double> stats = new HashMap<>();
+
+        for (String statName : statsFacetParams.getStats().keySet()) {
+            // statistics are omitted by Solr if no document has a value for the field
+            Object value = jsonFacet.getStatValue(statName);
+            if (value instanceof Number) {
+                stats.put(statName, ((Number) value).doubleValue());
+            }
+        }
+
+        return new StatsFacetEntry(name, jsonFacet.getCount(), stats);
+    }
+
     /**
      * Executes the given {@link SolrQuery}.
      *
@@ -511,9 +629,10 @@ public final class SolrRepositoryClient implements RepositoryClient {
         streamContext.setSolrClientCache(solrClientCache);
 
         if (solrClient != null) {
-            return exportIteratorFactory.create(solrClient, type, solrParams, streamContext);
+            return exportIteratorFactory.create(solrClient, type, solrParams, streamContext, dimensionDictionary);
         } else {
-            return exportIteratorFactory.create(collection, type, solrParams, streamContext, zkHost, baseUrl, username, password);
+            return exportIteratorFactory.create(collection, type, solrParams, streamContext, zkHost, baseUrl, username,
+                    password, dimensionDictionary);
         }
     }
 }
@@ -1,6 +1,7 @@
 package de.qaware.ekg.awb.da.solr.export;
 
 import de.qaware.ekg.awb.da.solr.utils.LoggingUtils;
+import de.qaware.ekg.awb.repository.api.schema.DimensionDictionary;
 import de.qaware.ekg.awb.sdk.awbapi.repository.RepositoryException;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.solr.client.solrj.SolrClient;
@@ -13,6 +14,7 @@ import org.apache.solr.common.params.SolrParams;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
@@ -23,7 +25,7 @@ import java.util.NoSuchElementException;
  *
  * @param <T> matching documents will be converted to entities of this type
  */
-/* package-private */ class SolrExportIterator<T> implements Iterator<T> {
+/* package-private */ class SolrExportIterator<T> implements Iterator<T>, Closeable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SolrExportIterator.class);
 
@@ -35,6 +37,8 @@ import java.util.NoSuchElementException;
     // Because the SolrStream has no next() or peek() functionality, read one Tuple ahead in this iterator.
     private Tuple nextTuple;
 
+    private boolean closed = false;
+
     /**
      * Constructs a {@link SolrExportIterator}.
      *
@@ -51,20 +55,23 @@ import java.util.NoSuchElementException;
      *                      from outside the cluster (e.g. from a test driver in module tests).
      * @param username      the username for BasicAuth authentication or null if no authentication required
      * @param password      the password for BasicAuth authentication or null if no authentication required
+     * @param dictionary    the dictionary used to intern the values of dimension fields
      *
      * @throws RepositoryException on errors opening the Solr stream
      */
     /* package-private */ SolrExportIterator(Class<T> type, String collection, SolrParams solrParams,
                                              StreamContext streamContext, String zkHost, String baseUrl,
-                                             String username, String password) throws RepositoryException {
+                                             String username, String password,
+                                             DimensionDictionary dictionary) throws RepositoryException {
 
         this(type, collection, zkHost, solrParams, streamContext,
-                createTupleStream(collection, solrParams, zkHost, baseUrl, username, password));
+                createTupleStream(collection, solrParams, zkHost, baseUrl, username, password), dictionary);
     }
 
-    /* package-private */ SolrExportIterator(Class<T> type, SolrParams solrParams,
-                                             StreamContext streamContext, SolrClient solrClient) throws RepositoryException {
-        this(type, "-none-", "-none-", solrParams, streamContext, new BasicAuthSolrStream(solrClient, solrParams));
+    /* package-private */ SolrExportIterator(Class<T> type, SolrParams solrParams, StreamContext streamContext,
+                                             SolrClient solrClient, DimensionDictionary dictionary) throws RepositoryException {
+        this(type, "-none-", "-none-", solrParams, streamContext, new BasicAuthSolrStream(solrClient, solrParams),
+                dictionary);
     }
 
 
@@ -79,13 +86,15 @@ import java.util.NoSuchElementException;
      * @param solrParams    Parameters for the Solr query, e.g. filters
      * @param streamContext stream context containing a {@link org.apache.solr.client.solrj.impl.CloudSolrClient} to be reused
      * @param tupleStream   The stream to process the response
+     * @param dictionary    the dictionary used to intern the values of dimension fields
      *
      * @throws RepositoryException on errors opening the Solr stream
      */
     /* package-private */ SolrExportIterator(Class<T> type, String collection, String zkHost, SolrParams solrParams,
-                                             StreamContext streamContext, TupleStream tupleStream) throws RepositoryException {
+                                             StreamContext streamContext, TupleStream tupleStream,
+                                             DimensionDictionary dictionary) throws RepositoryException {
         try {
-            tupleObjectBinder = new TupleObjectBinder();
+            tupleObjectBinder = new TupleObjectBinder(dictionary);
             binderConfig = tupleObjectBinder.getBinderConfig(type);
 
             if (LOGGER.isDebugEnabled()) {
@@ -115,12 +124,7 @@ import java.util.NoSuchElementException;
         boolean hasNext = !nextTuple.EOF;
         if (!hasNext) {
             try {
-                tupleStream.close();
-
-                if (LOGGER.isDebugEnabled()) {
-                    long tsClosed = System.currentTimeMillis();
-                    LOGGER.debug("Closed Solr export stream after {} ms", tsClosed - tsOpened);
-                }
+                close();
             } catch (IOException e) {
                 throw new IllegalStateException("Error closing SolrStream", e);
             }
@@ -128,6 +132,27 @@ import java.util.NoSuchElementException;
         return hasNext;
     }
 
+    /**
+     * Closes the underlying stream. This is only necessary if the iterator isn't consumed
+     * completely, because the stream will closed automatically after the last element.
+     *
+     * @throws IOException on errors closing the Solr stream
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        tupleStream.close();
+
+        if (LOGGER.isDebugEnabled()) {
+            long tsClosed = System.currentTimeMillis();
+            LOGGER.debug("Closed Solr export stream after {} ms", tsClosed - tsOpened);
+        }
+    }
+
     /**
      * Reads and returns the next entity from the stream.
      *
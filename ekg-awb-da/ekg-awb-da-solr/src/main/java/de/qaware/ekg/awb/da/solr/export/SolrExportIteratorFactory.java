@@ -1,5 +1,6 @@
 package de.qaware.ekg.awb.da.solr.export;
 
+import de.qaware.ekg.awb.repository.api.schema.DimensionDictionary;
 import de.qaware.ekg.awb.sdk.awbapi.repository.RepositoryException;
 import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.io.stream.StreamContext;
@@ -29,17 +30,20 @@ public class SolrExportIteratorFactory {
      *                      from outside the cluster (e.g. from a test driver in module tests).
      * @param username      the username for BasicAuth authentication or null if no authentication required
      * @param password      the password for BasicAuth authentication or null if no authentication required
+     * @param dictionary    the dictionary used to intern the values of dimension fields
      *
      * @return the {@link SolrExportIterator}
      * @throws RepositoryException on errors opening the Solr stream
      */
     public <T> Iterator<T> create(String collection, Class<T> type, SolrParams solrParams, StreamContext streamContext,
-                                  String zkHost, String baseUrl, String username, String password) throws RepositoryException {
-        return new SolrExportIterator<>(type, collection, solrParams, streamContext, zkHost, baseUrl, username, password);
+                                  String zkHost, String baseUrl, String username, String password,
+                                  DimensionDictionary dictionary) throws RepositoryException {
+        return new SolrExportIterator<>(type, collection, solrParams, streamContext, zkHost, baseUrl, username, password,
+                dictionary);
     }
 
     public <T> Iterator<T> create(SolrClient solrClient, Class<T> type, SolrParams solrParams,
-                                  StreamContext streamContext) throws RepositoryException {
-        return new SolrExportIterator<>(type, solrParams, streamContext, solrClient);
+                                  StreamContext streamContext, DimensionDictionary dictionary) throws RepositoryException {
+        return new SolrExportIterator<>(type, solrParams, streamContext, solrClient, dictionary);
     }
 }
@@ -1,5 +1,6 @@
 package de.qaware.ekg.awb.da.solr.export;
 
+import de.qaware.ekg.awb.repository.api.schema.DimensionDictionary;
 import org.apache.solr.client.solrj.io.Tuple;
 
 import java.lang.reflect.Field;
@@ -36,7 +37,10 @@ import java.util.List;
     /* package-private */ static TupleField create(String name, Field field, Class<?> type) {
         field.setAccessible(true);
 
-        if (type.equals(String.class)) {
+        if (type.equals(String.class) && DimensionDictionary.isDimensionField(name)) {
+            return new DimensionTupleField(field, name);
+
+        } else if (type.equals(String.class)) {
             return new StringTupleField(field, name);
 
         } else if (type.equals(Boolean.class) || type.equals(boolean.class)) {
@@ -72,12 +76,13 @@ import java.util.List;
     /**
      * Injects the value of this field of the given {@link Tuple} into the given {@link Object}.
      *
-     * @param to   the target Object into which the field value is injected
-     * @param from the source {@link Tuple} from which the field value is taken
+     * @param to         the target Object into which the field value is injected
+     * @param from       the source {@link Tuple} from which the field value is taken
+     * @param dictionary the dictionary used to intern the values of dimension fields
      * @throws IllegalAccessException if the field can't be set via reflection
      */
-    /* package-private */ void inject(Object to, Tuple from) throws IllegalAccessException {
-        field.set(to, getValue(from));
+    /* package-private */ void inject(Object to, Tuple from, DimensionDictionary dictionary) throws IllegalAccessException {
+        field.set(to, getValue(from, dictionary));
     }
 
     /**
@@ -88,6 +93,18 @@ import java.util.List;
      */
     protected abstract Object getValue(Tuple from);
 
+    /**
+     * Extracts the value of this field from the given {@link Tuple}. Only the values of dimension
+     * fields are interned with the given dictionary.
+     *
+     * @param from       the source {@link Tuple} from which the field value is taken
+     * @param dictionary the dictionary used to intern the values of dimension fields
+     * @return the field's value
+     */
+    protected Object getValue(Tuple from, DimensionDictionary dictionary) {
+        return getValue(from);
+    }
+
     private static final class DateTupleField extends TupleField {
 
         private final String name;
@@ -204,6 +221,26 @@ import java.util.List;
         }
     }
 
+    private static final class DimensionTupleField extends TupleField {
+
+        private final String name;
+
+        private DimensionTupleField(Field field, String name) {
+            super(field);
+            this.name = name;
+        }
+
+        @Override
+        protected String getValue(Tuple from) {
+            return (String) from.get(name);
+        }
+
+        @Override
+        protected String getValue(Tuple from, DimensionDictionary dictionary) {
+            return dictionary.intern(getValue(from));
+        }
+    }
+
     private static final class ByteArrayTupleField extends TupleField {
 
         private final String name;
@@ -1,5 +1,6 @@
 package de.qaware.ekg.awb.da.solr.export;
 
+import de.qaware.ekg.awb.repository.api.schema.DimensionDictionary;
 import org.apache.solr.client.solrj.beans.BindingException;
 import org.apache.solr.client.solrj.io.Tuple;
 
@@ -14,6 +15,18 @@ import java.util.concurrent.ConcurrentHashMap;
 
     private final Map<Class, BinderConfig> fieldCache = new ConcurrentHashMap<>();
 
+    private final DimensionDictionary dictionary;
+
+    /**
+     * Constructs a binder that interns the values of dimension fields (like host or metric names)
+     * with the given dictionary, like the results of search queries.
+     *
+     * @param dictionary the dictionary used to intern the dimension values
+     */
+    /* package-private */ TupleObjectBinder(DimensionDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
     /**
      * Creates a new bean (POJO) filled with the values from the given {@link Tuple}.
      *
@@ -27,7 +40,7 @@ import java.util.concurrent.ConcurrentHashMap;
         try {
             T obj = binderConfig.getClazz().newInstance();
             for (TupleField tupleField : binderConfig.getTupleFields()) {
-                tupleField.inject(obj, tuple);
+                tupleField.inject(obj, tuple, dictionary);
             }
             return obj;
         } catch (IllegalAccessException | InstantiationException e) {
@@ -3,8 +3,10 @@ package de.qaware.ekg.awb.da.solr.expression;
 import de.qaware.ekg.awb.repository.api.dataobject.expr.*;
 import org.apache.commons.lang3.Validate;
 
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -13,6 +15,11 @@ import java.util.stream.Collectors;
  */
 public class SolrExpressionRenderer {
 
+    /**
+     * The separator of the values of a terms filter query
+     */
+    private static final String TERMS_SEPARATOR = ",";
+
     /**
      * Renders the given {@link Expression} as a string to be used in a filter query (Solr fq-parameter).
      *
@@ -49,6 +56,40 @@ public class SolrExpressionRenderer {
         }
     }
 
+    /**
+     * Renders the given {@link Expression} as a complete filter query (Solr fq-parameter). Disjunctions of exact
+     * values of a single field, e.g. many selected hosts, are rendered as terms query. Solr matches them with a
+     * single lookup per value instead of a boolean query with a clause per value, which neither scores the values
+     * nor is limited by the maximum amount of boolean clauses.
+     *
+     * @param expression the {@link Expression}
+     * @return the filter query as String
+     */
+    public String renderFilterQuery(Expression expression) {
+        return renderFilterQuery(expression, null);
+    }
+
+    /**
+     * Renders the given {@link Expression} as a complete filter query (Solr fq-parameter) like
+     * {@link #renderFilterQuery(Expression)} and tags it, e.g. to exclude it from a facet.
+     *
+     * @param expression the {@link Expression}
+     * @param tag the tag of the filter query or null
+     * @return the filter query as String
+     */
+    public String renderFilterQuery(Expression expression, String tag) {
+        Validate.notNull(expression);
+
+        TermsFilter termsFilter = new TermsFilter();
+
+        if (termsFilter.collect(expression) && termsFilter.values.size() > 1) {
+            return "{!terms f=" + termsFilter.field + (tag != null ? " tag=" + tag : "") + "}"
+                    + String.join(TERMS_SEPARATOR, termsFilter.values);
+        }
+
+        return tag != null ? "{!tag=" + tag + "}" + render(expression) : render(expression);
+    }
+
     private String renderAndExpression(AndExpression expression) {
         Validate.noNullElements(expression.getExpressions());
 
@@ -120,4 +161,58 @@ public class SolrExpressionRenderer {
                 .map(escapeFunction)
                 .collect(Collectors.joining(" ", "(", ")"));
     }
+
+    /**
+     * Collects the values of a disjunction of exact values of a single field. Local parameters like those of the
+     * terms query are only supported at the beginning of a filter query, so only complete filters are collected.
+     */
+    private static final class TermsFilter {
+
+        private String field;
+
+        private final Set<String> values = new LinkedHashSet<>();
+
+        /**
+         * Collects the field and values of the given expression.
+         *
+         * @param expression the {@link Expression}
+         * @return false if the expression isn't a disjunction of exact values of a single field
+         */
+        private boolean collect(Expression expression) {
+            if (expression instanceof OrExpression) {
+                return ((OrExpression) expression).getExpressions().stream().allMatch(this::collect);
+
+            } else if (expression instanceof ExactFilterExpression) {
+                ExactFilterExpression exactFilter = (ExactFilterExpression) expression;
+                return collect(exactFilter.getField().getName(), exactFilter.getValues());
+
+            } else if (expression instanceof WildcardFilterExpression) {
+                // wildcard filters without wildcards (e.g. a selected metric name) are exact values as well
+                WildcardFilterExpression wildcardFilter = (WildcardFilterExpression) expression;
+                boolean hasWildcards = wildcardFilter.getValues().stream()
+                        .anyMatch(value -> value != null && (value.contains("*") || value.contains("?")));
+
+                return !hasWildcards && collect(wildcardFilter.getField().getName(), wildcardFilter.getValues());
+            }
+
+            return false;
+        }
+
+        private boolean collect(String fieldName, List<String> fieldValues) {
+            if (field != null && !field.equals(fieldName)) {
+                return false;
+            }
+
+            // missing and empty values are matched with special queries and the separator can't be escaped
+            for (String value : fieldValues) {
+                if (value == null || value.isEmpty() || value.contains(TERMS_SEPARATOR)) {
+                    return false;
+                }
+            }
+
+            field = fieldName;
+            values.addAll(fieldValues);
+            return !fieldValues.isEmpty();
+        }
+    }
 }
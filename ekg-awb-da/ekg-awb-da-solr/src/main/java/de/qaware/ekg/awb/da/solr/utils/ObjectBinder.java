@@ -1,5 +1,6 @@
 package de.qaware.ekg.awb.da.solr.utils;
 
+import de.qaware.ekg.awb.repository.api.schema.DimensionDictionary;
 import de.qaware.ekg.awb.repository.api.schema.FieldReader;
 import org.apache.commons.lang3.reflect.ConstructorUtils;
 import org.apache.commons.lang3.reflect.FieldUtils;
@@ -43,7 +44,17 @@ public class ObjectBinder {
         return inputDocument;
     }
 
-    public static <T> List<T> mapToBean(Class<T> type, SolrDocumentList results) {
+    /**
+     * Maps the documents of a Solr result to beans of the given type. String values of dimension
+     * fields (like host or metric names) will be interned with the given dictionary.
+     *
+     * @param type the type of the beans
+     * @param results the documents of the Solr result
+     * @param dictionary the dictionary used to intern the dimension values
+     * @param <T> the type of the beans
+     * @return the beans in order of the documents
+     */
+    public static <T> List<T> mapToBean(Class<T> type, SolrDocumentList results, DimensionDictionary dictionary) {
         try {
             Map<String, Field> fieldMap = FieldReader.getSchemaFields(type);
 
@@ -55,7 +66,13 @@ public class ObjectBinder {
                 for (Map.Entry<String, Field> beanFieldEntry : fieldMap.entrySet()) {
                     String fieldNameSolr = beanFieldEntry.getKey();
                     Field beanField = beanFieldEntry.getValue();
-                    FieldUtils.writeField(beanField, bean, document.getFieldValue(fieldNameSolr), true);
+                    Object value = document.getFieldValue(fieldNameSolr);
+
+                    if (value instanceof String && DimensionDictionary.isDimensionField(fieldNameSolr)) {
+                        value = dictionary.intern((String) value);
+                    }
+
+                    FieldUtils.writeField(beanField, bean, value, true);
                 }
 
                 resultList.add(bean);
@@ -0,0 +1,116 @@
+package de.qaware.ekg.awb.da.solr;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.embedded.EmbeddedSolrServer;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.core.CoreContainer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Unit test for the {@link SolrCoreReindexer} that runs against an embedded core with the shipped schema.
+ */
+public class SolrCoreReindexerTest {
+
+    private static final String CORE_NAME = "ekgdata";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private SolrClient solrClient;
+
+    @Before
+    public void beforeEachTest() throws Exception {
+        File solrHome = temporaryFolder.newFolder("solr");
+        FileUtils.copyFile(new File("src/test/resources/solr/solr.xml"), new File(solrHome, "solr.xml"));
+        FileUtils.copyDirectory(new File("src/main/solr/ekgdata/conf"), new File(solrHome, CORE_NAME + "/conf"));
+        FileUtils.copyFile(new File("src/main/solr/ekgdata/core.properties"),
+                new File(solrHome, CORE_NAME + "/core.properties"));
+
+        CoreContainer coreContainer = CoreContainer.createAndLoad(solrHome.toPath(),
+                solrHome.toPath().resolve("solr.xml"));
+        solrClient = new EmbeddedSolrServer(coreContainer, CORE_NAME);
+
+        for (int i = 1; i <= 5; i++) {
+            solrClient.add(createSeriesDocument(i));
+        }
+        solrClient.commit();
+    }
+
+    @After
+    public void afterEachTest() throws Exception {
+        solrClient.close();
+    }
+
+    @Test
+    public void testRangeFilterAndSortOnPointFields() throws Exception {
+        SolrQuery query = new SolrQuery("*:*")
+                .addFilterQuery("ts_start:[" + new Date(2000).toInstant() + " TO *]")
+                .addFilterQuery("project_name:TestProject")
+                .setSort(SolrQuery.SortClause.desc("ts_start"));
+
+        SolrDocumentList results = solrClient.query(query).getResults();
+
+        assertThat(results.getNumFound(), is(4L));
+        assertThat(results.get(0).getFieldValue("ts_start"), equalTo(new Date(5000)));
+        assertThat(results.get(3).getFieldValue("ts_start"), equalTo(new Date(2000)));
+    }
+
+    @Test
+    public void testReindex() throws Exception {
+        Path spoolFile = temporaryFolder.getRoot().toPath().resolve("ekgdata.spool");
+
+        long amountOfDocuments = new SolrCoreReindexer(solrClient, null, 2).reindex(spoolFile);
+
+        assertThat(amountOfDocuments, is(5L));
+        assertThat(Files.exists(spoolFile), is(false));
+
+        SolrDocumentList results = solrClient.query(new SolrQuery("ts_metricName:metric-3")).getResults();
+        assertThat(results.getNumFound(), is(1L));
+
+        SolrDocument document = results.get(0);
+        assertThat(document.getFieldValue("ts_start"), equalTo(new Date(3000)));
+        assertThat(document.getFieldValue("ts_data_amountValues"), equalTo(3));
+        assertThat((byte[]) document.getFieldValue("ts_data"), equalTo(new byte[]{1, 2, 3}));
+    }
+
+    @Test
+    public void testToInputDocumentSkipsVersion() {
+        SolrDocument document = new SolrDocument();
+        document.setField("id", "1");
+        document.setField("_version_", 42L);
+
+        SolrInputDocument inputDocument = SolrCoreReindexer.toInputDocument(document);
+
+        assertThat(inputDocument.getFieldNames(), contains("id"));
+    }
+
+    private static SolrInputDocument createSeriesDocument(int index) {
+        SolrInputDocument document = new SolrInputDocument();
+        document.addField("id", UUID.randomUUID().toString());
+        document.addField("type", "TIME_SERIES");
+        document.addField("project_name", "TestProject");
+        document.addField("ts_metricName", "metric-" + index);
+        document.addField("ts_start", new Date(index * 1000L));
+        document.addField("ts_end", new Date(index * 1000L + 500));
+        document.addField("ts_data", new byte[]{1, 2, (byte) index});
+        document.addField("ts_data_amountValues", index);
+        return document;
+    }
+}
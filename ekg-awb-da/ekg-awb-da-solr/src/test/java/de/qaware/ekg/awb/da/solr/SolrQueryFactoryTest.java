@@ -0,0 +1,134 @@
+package de.qaware.ekg.awb.da.solr;
+
+import de.qaware.ekg.awb.repository.api.dataobject.facet.FacetParams;
+import de.qaware.ekg.awb.repository.api.dataobject.facet.StatsFacetParams;
+import de.qaware.ekg.awb.repository.api.dataobject.facet.StatsFacetParams.StatsFunction;
+import de.qaware.ekg.awb.repository.api.dataobject.search.ExportParams;
+import de.qaware.ekg.awb.repository.api.dataobject.search.SearchParams;
+import de.qaware.ekg.awb.repository.api.dataobject.search.SortField;
+import de.qaware.ekg.awb.repository.api.schema.PersistedField;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.junit.Test;
+
+import static de.qaware.ekg.awb.repository.api.dataobject.expr.ExprFactory.*;
+import static de.qaware.ekg.awb.repository.api.schema.EkgSchemaField.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Unit test for the {@link SolrQueryFactory}.
+ */
+public class SolrQueryFactoryTest {
+
+    private SolrQueryFactory queryFactory = new SolrQueryFactory();
+
+    @Test
+    public void testCreateFacetQueryWithDimensionFilters() {
+        FacetParams params = new FacetParams()
+                .withFilterQueries(exactFilter(PROJECT_NAME, "OWID"))
+                .withDimensionFilter(TS_HOST_NAME, exactFilter(TS_HOST_NAME, "host1"))
+                .withFacetFields(TS_HOST_NAME, TS_METRIC_NAME);
+
+        SolrQuery solrQuery = queryFactory.createFacetQuery(params);
+
+        assertThat(solrQuery.getFilterQueries(), arrayContaining("project_name:(OWID)", "{!tag=ts_host}ts_host:(host1)"));
+        assertThat(solrQuery.getFacetFields(), arrayContaining("{!ex=ts_host}ts_host", "ts_metricName"));
+    }
+
+    @Test
+    public void testCreateFacetQueryWithTermsDimensionFilter() {
+        FacetParams params = new FacetParams()
+                .withDimensionFilter(TS_HOST_NAME, or(wildcardFilter(TS_HOST_NAME, "host1"),
+                        wildcardFilter(TS_HOST_NAME, "host2")))
+                .withFacetFields(TS_HOST_NAME);
+
+        SolrQuery solrQuery = queryFactory.createFacetQuery(params);
+
+        assertThat(solrQuery.getFilterQueries(), arrayContaining("{!terms f=ts_host tag=ts_host}host1,host2"));
+    }
+
+    @Test
+    public void testCreateSelectQueryWithTermsFilters() {
+        SearchParams params = new SearchParams()
+                .withFilterQueries(and(exactFilter(PROJECT_NAME, "OWID"),
+                        or(wildcardFilter(TS_HOST_NAME, "Germany"), wildcardFilter(TS_HOST_NAME, "United States")),
+                        or(exactFilter(TS_METRIC_NAME, "cases", "deaths"), exactFilter(TS_METRIC_NAME, "tests"))));
+
+        SolrQuery solrQuery = queryFactory.createSelectQuery(ExportEntity.class, params);
+
+        // each part of the conjunction gets its own filter query
+        assertThat(solrQuery.getFilterQueries(), arrayContaining("project_name:(OWID)",
+                "{!terms f=ts_host}Germany,United States", "{!terms f=ts_metricName}cases,deaths,tests"));
+    }
+
+    @Test
+    public void testCreateSelectQueryWithoutTermsFilters() {
+        SearchParams params = new SearchParams()
+                .withFilterQueries(
+                        or(wildcardFilter(TS_HOST_NAME, "host*"), wildcardFilter(TS_HOST_NAME, "other")),
+                        or(exactFilter(TS_HOST_NAME, "host1"), exactFilter(TS_METRIC_NAME, "cases")),
+                        or(exactFilter(TS_HOST_NAME, "a,b"), exactFilter(TS_HOST_NAME, "c")),
+                        not(or(exactFilter(TS_HOST_NAME, "host1"), exactFilter(TS_HOST_NAME, "host2"))));
+
+        SolrQuery solrQuery = queryFactory.createSelectQuery(ExportEntity.class, params);
+
+        assertThat(solrQuery.getFilterQueries(), arrayContaining(
+                "(ts_host:(host*) OR ts_host:(other))",
+                "(ts_host:(host1) OR ts_metricName:(cases))",
+                "(ts_host:(a,b) OR ts_host:(c))",
+                "(*:* AND NOT (ts_host:(host1) OR ts_host:(host2)))"));
+    }
+
+    @Test
+    public void testCreateStatsFacetQuery() {
+        StatsFacetParams params = new StatsFacetParams()
+                .withFilterQueries(exactFilter(PROJECT_NAME, "OWID"))
+                .withStat("max", StatsFunction.MAX, TS_DATA_MAX)
+                .withStat("sum", StatsFunction.SUM, TS_DATA_SUM)
+                .withGroupField(TS_METRIC_NAME)
+                .withSort("sum")
+                .withLimit(10);
+
+        SolrQuery solrQuery = queryFactory.createStatsFacetQuery(params);
+
+        assertThat(solrQuery.getRows(), is(0));
+        assertThat(solrQuery.getFilterQueries(), arrayWithSize(1));
+        assertThat(solrQuery.get("json.facet"), is("{max:'max(ts_data_max)',sum:'sum(ts_data_sum)',"
+                + "groups:{type:terms,field:ts_metricName,limit:10,sort:'sum desc',"
+                + "facet:{max:'max(ts_data_max)',sum:'sum(ts_data_sum)'}}}"));
+    }
+
+    @Test
+    public void testCreateStatsFacetQueryWithoutGroups() {
+        StatsFacetParams params = new StatsFacetParams()
+                .withStat("min", StatsFunction.MIN, TS_DATA_MIN);
+
+        SolrQuery solrQuery = queryFactory.createStatsFacetQuery(params);
+
+        assertThat(solrQuery.get("json.facet"), is("{min:'min(ts_data_min)'}"));
+    }
+
+    @Test
+    public void testCreateExportQueryWithExcludedFields() {
+        ExportParams params = new ExportParams()
+                .withSortField(TS_START, SortField.SortMode.ASC)
+                .withExcludedFields(TS_DATA);
+
+        SolrQuery solrQuery = queryFactory.createExportQuery(ExportEntity.class, params);
+
+        assertThat(solrQuery.getRequestHandler(), is("/export"));
+        assertThat(solrQuery.getFields().split(","), arrayContainingInAnyOrder("id", "ts_start"));
+    }
+
+    public static class ExportEntity {
+
+        @PersistedField(ID)
+        private String id;
+
+        @PersistedField(TS_START)
+        private long start;
+
+        @PersistedField(TS_DATA)
+        private byte[] data;
+    }
+}
@@ -0,0 +1,136 @@
+package de.qaware.ekg.awb.da.solr;
+
+import de.qaware.ekg.awb.repository.api.dataobject.facet.FacetEntry;
+import de.qaware.ekg.awb.repository.api.dataobject.facet.FacetParams;
+import de.qaware.ekg.awb.repository.api.dataobject.facet.FacetResult;
+import de.qaware.ekg.awb.repository.api.dataobject.facet.PivotFacetEntry;
+import de.qaware.ekg.awb.repository.api.dataobject.facet.StatsFacetEntry;
+import de.qaware.ekg.awb.repository.api.dataobject.facet.StatsFacetParams;
+import de.qaware.ekg.awb.repository.api.dataobject.facet.StatsFacetParams.StatsFunction;
+import org.apache.commons.io.FileUtils;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.embedded.EmbeddedSolrServer;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.core.CoreContainer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.List;
+import java.util.UUID;
+
+import static de.qaware.ekg.awb.repository.api.dataobject.expr.ExprFactory.*;
+import static de.qaware.ekg.awb.repository.api.schema.EkgSchemaField.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Unit test for the facet queries of the {@link SolrRepositoryClient} that runs against an embedded core.
+ */
+public class SolrRepositoryClientFacetTest {
+
+    private static final String CORE_NAME = "ekgdata";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private SolrClient solrClient;
+
+    private SolrRepositoryClient repositoryClient;
+
+    @Before
+    public void beforeEachTest() throws Exception {
+        File solrHome = temporaryFolder.newFolder("solr");
+        FileUtils.copyFile(new File("src/test/resources/solr/solr.xml"), new File(solrHome, "solr.xml"));
+        FileUtils.copyDirectory(new File("src/main/solr/ekgdata/conf"), new File(solrHome, CORE_NAME + "/conf"));
+        FileUtils.copyFile(new File("src/main/solr/ekgdata/core.properties"),
+                new File(solrHome, CORE_NAME + "/core.properties"));
+
+        CoreContainer coreContainer = CoreContainer.createAndLoad(solrHome.toPath(),
+                solrHome.toPath().resolve("solr.xml"));
+        solrClient = new EmbeddedSolrServer(coreContainer, CORE_NAME);
+        repositoryClient = new SolrRepositoryClient(solrClient);
+
+        solrClient.add(createSeriesDocument("host-a", "cpu"));
+        solrClient.add(createSeriesDocument("host-a", "memory"));
+        solrClient.add(createSeriesDocument(null, "cpu"));
+        solrClient.commit();
+    }
+
+    @After
+    public void afterEachTest() throws Exception {
+        solrClient.close();
+    }
+
+    @Test
+    public void testPivotFacetWithMissingValues() throws Exception {
+        FacetParams facetParams = new FacetParams()
+                .withFilterQueries(exactFilter(PROJECT_NAME, "TestProject"))
+                .withPivotFields(TS_HOST_NAME, TS_METRIC_NAME)
+                .withFacetMissing(TS_HOST_NAME, TS_METRIC_NAME)
+                .withMinCount(1);
+
+        FacetResult result = repositoryClient.facet(facetParams);
+
+        List<PivotFacetEntry> hosts = result.getPivotEntries();
+        assertThat(hosts, hasSize(2));
+
+        assertThat(hosts.get(0).getName(), is("host-a"));
+        assertThat(hosts.get(0).getCount(), is(2L));
+        assertThat(hosts.get(0).getChildren(), contains(
+                new PivotFacetEntry("cpu", 1, List.of()), new PivotFacetEntry("memory", 1, List.of())));
+
+        // the series without a host are counted by the entry without a name
+        assertThat(hosts.get(1).getName(), nullValue());
+        assertThat(hosts.get(1).getChildren(), contains(new PivotFacetEntry("cpu", 1, List.of())));
+    }
+
+    @Test
+    public void testFacetWithTermsFilters() throws Exception {
+        FacetParams facetParams = new FacetParams()
+                .withFilterQueries(and(exactFilter(PROJECT_NAME, "TestProject"),
+                        or(wildcardFilter(TS_METRIC_NAME, "cpu"), wildcardFilter(TS_METRIC_NAME, "disk"))))
+                .withDimensionFilter(TS_HOST_NAME, or(exactFilter(TS_HOST_NAME, "host-a"),
+                        exactFilter(TS_HOST_NAME, "host-b")))
+                .withFacetFields(TS_HOST_NAME, TS_METRIC_NAME)
+                .withMinCount(1);
+
+        FacetResult result = repositoryClient.facet(facetParams);
+
+        // the host filter is excluded from the facet of the hosts
+        assertThat(result.getQueryStatus().getNumberOfHits(), is(1L));
+        assertThat(result.getFacets().get(0).getEntries(), contains(new FacetEntry("host-a", 1)));
+        assertThat(result.getFacets().get(1).getEntries(), contains(new FacetEntry("cpu", 1)));
+    }
+
+    @Test
+    public void testStatsFacetCountsDocumentsWithValue() throws Exception {
+        StatsFacetParams statsFacetParams = new StatsFacetParams()
+                .withFilterQueries(exactFilter(PROJECT_NAME, "TestProject"))
+                .withStat("series", StatsFunction.UNIQUE, TS_GROUP_KEY_HASH)
+                .withStat("hashed", StatsFunction.COUNT, TS_GROUP_KEY_HASH);
+
+        StatsFacetEntry total = repositoryClient.statsFacet(statsFacetParams).getTotal();
+
+        // the series without a host has no group key hash
+        assertThat(total.getCount(), is(3L));
+        assertThat(total.getStat("series"), is(2.0));
+        assertThat(total.getStat("hashed"), is(2.0));
+    }
+
+    private static SolrInputDocument createSeriesDocument(String host, String metric) {
+        SolrInputDocument document = new SolrInputDocument();
+        document.addField("id", UUID.randomUUID().toString());
+        document.addField("type", "TIME_SERIES");
+        document.addField("project_name", "TestProject");
+        if (host != null) {
+            document.addField("ts_host", host);
+            document.addField("ts_groupKeyHash", (host + metric).hashCode());
+        }
+        document.addField("ts_metricName", metric);
+        return document;
+    }
+}
@@ -0,0 +1,61 @@
+package de.qaware.ekg.awb.da.solr.export;
+
+import de.qaware.ekg.awb.repository.api.schema.DimensionDictionary;
+import de.qaware.ekg.awb.repository.api.schema.PersistedField;
+import org.apache.solr.client.solrj.io.Tuple;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static de.qaware.ekg.awb.repository.api.schema.EkgSchemaField.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Unit test for the {@link TupleObjectBinder}.
+ */
+public class TupleObjectBinderTest {
+
+    @Test
+    public void testGetBeanInternsDimensionValues() {
+        DimensionDictionary dictionary = new DimensionDictionary();
+        TupleObjectBinder binder = new TupleObjectBinder(dictionary);
+        BinderConfig<TestEntity> binderConfig = binder.getBinderConfig(TestEntity.class);
+
+        TestEntity first = binder.getBean(binderConfig, createTuple("id-1"));
+        TestEntity second = binder.getBean(binderConfig, createTuple("id-2"));
+
+        assertThat(first.metricName, equalTo("cases"));
+        assertThat(first.metricName, sameInstance(second.metricName));
+        assertThat(first.host, sameInstance(second.host));
+        assertThat(second.groupKeyHash, is(42));
+
+        // the id isn't a dimension and must not be part of the dictionary
+        assertThat(dictionary.size(), is(2));
+        assertThat(second.id, equalTo("id-2"));
+    }
+
+    private static Tuple createTuple(String id) {
+        // new instances like the ones delivered by the export stream
+        return new Tuple(Map.of(
+                ID.getName(), id,
+                TS_HOST_NAME.getName(), new String("Germany"),
+                TS_METRIC_NAME.getName(), new String("cases"),
+                TS_GROUP_KEY_HASH.getName(), 42L));
+    }
+
+    public static class TestEntity {
+
+        @PersistedField(ID)
+        private String id;
+
+        @PersistedField(TS_HOST_NAME)
+        private String host;
+
+        @PersistedField(TS_METRIC_NAME)
+        private String metricName;
+
+        @PersistedField(TS_GROUP_KEY_HASH)
+        private Integer groupKeyHash;
+    }
+}
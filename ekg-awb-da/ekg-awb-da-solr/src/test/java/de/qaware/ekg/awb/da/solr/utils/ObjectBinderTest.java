@@ -0,0 +1,79 @@
+package de.qaware.ekg.awb.da.solr.utils;
+
+import de.qaware.ekg.awb.repository.api.schema.DimensionDictionary;
+import de.qaware.ekg.awb.repository.api.schema.PersistedField;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.junit.Test;
+
+import java.util.List;
+
+import static de.qaware.ekg.awb.repository.api.schema.EkgSchemaField.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Unit test for the {@link ObjectBinder}.
+ */
+public class ObjectBinderTest {
+
+    @Test
+    public void testMapToBeanInternsDimensionValues() {
+        SolrDocumentList results = new SolrDocumentList();
+        results.add(createDocument("id-1"));
+        results.add(createDocument("id-2"));
+
+        DimensionDictionary dictionary = new DimensionDictionary();
+        List<TestEntity> entities = ObjectBinder.mapToBean(TestEntity.class, results, dictionary);
+
+        assertThat(entities, hasSize(2));
+        assertThat(entities.get(0).metricName, equalTo("cases"));
+        assertThat(entities.get(0).metricName, sameInstance(entities.get(1).metricName));
+        assertThat(entities.get(0).host, sameInstance(entities.get(1).host));
+
+        // the id isn't a dimension and must not be part of the dictionary
+        assertThat(dictionary.size(), is(2));
+        assertThat(entities.get(1).id, equalTo("id-2"));
+    }
+
+    @Test
+    public void testDictionaryLimit() {
+        DimensionDictionary dictionary = new DimensionDictionary(2);
+
+        String first = dictionary.intern(new String("first"));
+        String second = dictionary.intern(new String("second"));
+
+        // the first value is used again, so the second one is the least recently used
+        assertThat(dictionary.intern(new String("first")), sameInstance(first));
+
+        String third = new String("third");
+        assertThat(dictionary.intern(third), sameInstance(third));
+        assertThat(dictionary.intern(new String("third")), sameInstance(third));
+        assertThat(dictionary.intern(new String("first")), sameInstance(first));
+        assertThat(dictionary.intern(new String("second")), not(sameInstance(second)));
+
+        assertThat(dictionary.intern(null), nullValue());
+        assertThat(dictionary.size(), is(2));
+    }
+
+    private static SolrDocument createDocument(String id) {
+        SolrDocument document = new SolrDocument();
+        // new instances like the ones delivered by the response parser
+        document.setField(ID.getName(), id);
+        document.setField(TS_HOST_NAME.getName(), new String("Germany"));
+        document.setField(TS_METRIC_NAME.getName(), new String("cases"));
+        return document;
+    }
+
+    public static class TestEntity {
+
+        @PersistedField(ID)
+        private String id;
+
+        @PersistedField(TS_HOST_NAME)
+        private String host;
+
+        @PersistedField(TS_METRIC_NAME)
+        private String metricName;
+    }
+}
@@ -8,6 +8,7 @@ import de.qaware.ekg.awb.metricanalyzer.bl.bookmarks.et.MetricBookmark;
 import de.qaware.ekg.awb.project.api.ProjectConfiguration;
 import de.qaware.ekg.awb.project.api.ProjectDataAccessService;
 import de.qaware.ekg.awb.project.api.model.Project;
+import de.qaware.ekg.awb.repository.bl.migration.SeriesDataMigrationService;
 import de.qaware.ekg.awb.repository.bl.repositories.SolrEmbeddedRepository;
 import de.qaware.ekg.awb.sdk.awbapi.project.CloudPlatformType;
 import de.qaware.ekg.awb.sdk.awbapi.project.ProjectFlavor;
@@ -138,6 +139,9 @@ public class DownloadAndImportTask extends Task<Void> {
             return;
         }
 
+        // the background migration must not write back records of the deleted project
+        EkgLookup.lookup(SeriesDataMigrationService.class).awaitMigration();
+
         // delete and create the project.
         Project project = recreateProject(date);
 
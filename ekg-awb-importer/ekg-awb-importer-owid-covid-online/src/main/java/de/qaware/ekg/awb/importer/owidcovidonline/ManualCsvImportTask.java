@@ -8,6 +8,7 @@ import de.qaware.ekg.awb.metricanalyzer.bl.bookmarks.et.MetricBookmark;
 import de.qaware.ekg.awb.project.api.ProjectConfiguration;
 import de.qaware.ekg.awb.project.api.ProjectDataAccessService;
 import de.qaware.ekg.awb.project.api.model.Project;
+import de.qaware.ekg.awb.repository.bl.migration.SeriesDataMigrationService;
 import de.qaware.ekg.awb.repository.bl.repositories.SolrEmbeddedRepository;
 import de.qaware.ekg.awb.sdk.awbapi.project.CloudPlatformType;
 import de.qaware.ekg.awb.sdk.awbapi.project.ProjectFlavor;
@@ -91,6 +92,9 @@ public class ManualCsvImportTask extends Task<Void> {
 
         eventBus.publish(new ImportProgressEvent(this, String.format("Importing data from '%s'", csvFile.getName())));
 
+        // the background migration must not write back records of the deleted project
+        EkgLookup.lookup(SeriesDataMigrationService.class).awaitMigration();
+
         // Create the project
         Project project = recreateProject(date, csvFile.getName());
 
@@ -0,0 +1,191 @@
+package de.qaware.ekg.awb.metricanalyzer.bl.tsquery;
+
+import de.qaware.ekg.awb.repository.api.dataobject.facet.Facet;
+import de.qaware.ekg.awb.repository.api.dataobject.facet.FacetParams;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+
+import java.util.*;
+
+/**
+ * LRU cache of facet query results (the values of the filter dimensions like hosts, processes or metrics).
+ * The size of the cache is limited by the sum of the entries of all cached results. If the limit is exceeded,
+ * the least recently used results will be dropped.
+ * <p>
+ * The results are cached per project and have to be invalidated as soon as the series of the project
+ * are changed (see {@link #invalidateProject(String)}).
+ * <p>
+ * The cache is thread safe.
+ */
+class FacetResultCache {
+
+    /**
+     * The default maximum sum of the entries of all cached results
+     */
+    static final long DEFAULT_MAX_ENTRIES = 250_000;
+
+    private final long maxEntries;
+
+    private final LinkedHashMap<Key, List<Facet>> results = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long cachedEntries = 0;
+
+    // incremented on each invalidation, so results queried before can be detected
+    private long generation = 0;
+
+    /**
+     * Constructs a new cache with the default size limit.
+     */
+    FacetResultCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Constructs a new cache.
+     *
+     * @param maxEntries the maximum sum of the entries of all cached results
+     */
+    FacetResultCache(long maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("The maximum amount of entries must be greater than zero");
+        }
+
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns the cached result of the given facet query.
+     *
+     * @param projectName the name of the project the query is restricted to
+     * @param facetParams the facet query
+     * @return the cached facets or null if the result isn't cached
+     */
+    synchronized List<Facet> get(String projectName, FacetParams facetParams) {
+        return results.get(new Key(projectName, facetParams));
+    }
+
+    /**
+     * Returns the current generation of the cache. The generation has to be read before the
+     * query is sent to the repository and passed to {@link #put(String, FacetParams, List, long)}.
+     *
+     * @return the current generation
+     */
+    synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Puts the result of the given facet query to the cache. Results that exceed the size limit
+     * of the cache on their own won't be cached. Also results will be ignored if the cache was
+     * invalidated while they were queried, because they may be outdated.
+     *
+     * @param projectName the name of the project the query is restricted to
+     * @param facetParams the facet query
+     * @param facets      the facets of the query result, they must not be modified afterwards
+     * @param generation  the generation of the cache read before the query was sent
+     */
+    synchronized void put(String projectName, FacetParams facetParams, List<Facet> facets, long generation) {
+        long entries = countEntries(facets);
+        if (entries > maxEntries || generation != this.generation) {
+            return;
+        }
+
+        List<Facet> replaced = results.put(new Key(projectName, facetParams),
+                Collections.unmodifiableList(new ArrayList<>(facets)));
+
+        cachedEntries += entries - (replaced == null ? 0 : countEntries(replaced));
+
+        Iterator<List<Facet>> iterator = results.values().iterator();
+        while (cachedEntries > maxEntries && iterator.hasNext()) {
+            cachedEntries -= countEntries(iterator.next());
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Drops all cached results of the given project.
+     *
+     * @param projectName the name of the project
+     */
+    synchronized void invalidateProject(String projectName) {
+        generation++;
+
+        Iterator<Map.Entry<Key, List<Facet>>> iterator = results.entrySet().iterator();
+
+        while (iterator.hasNext()) {
+            Map.Entry<Key, List<Facet>> entry = iterator.next();
+
+            if (Objects.equals(entry.getKey().projectName, projectName)) {
+                cachedEntries -= countEntries(entry.getValue());
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Drops all cached results.
+     */
+    synchronized void clear() {
+        generation++;
+        results.clear();
+        cachedEntries = 0;
+    }
+
+    /**
+     * @return the sum of the entries of all cached results
+     */
+    synchronized long getCachedEntries() {
+        return cachedEntries;
+    }
+
+    private static long countEntries(List<Facet> facets) {
+        return facets.stream().mapToLong(Facet::getEntryCount).sum();
+    }
+
+    /**
+     * The key of a cached result. The sort of the facet params is added explicitly
+     * because it isn't part of their equals.
+     */
+    private static final class Key {
+
+        private final String projectName;
+
+        private final FacetParams facetParams;
+
+        private final String facetSort;
+
+        private Key(String projectName, FacetParams facetParams) {
+            this.projectName = projectName;
+            this.facetParams = facetParams;
+            this.facetSort = facetParams.getFacetSort();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            Key that = (Key) o;
+
+            return new EqualsBuilder()
+                    .append(projectName, that.projectName)
+                    .append(facetParams, that.facetParams)
+                    .append(facetSort, that.facetSort)
+                    .isEquals();
+        }
+
+        @Override
+        public int hashCode() {
+            return new HashCodeBuilder(17, 37)
+                    .append(projectName)
+                    .append(facetParams)
+                    .append(facetSort)
+                    .toHashCode();
+        }
+    }
+}
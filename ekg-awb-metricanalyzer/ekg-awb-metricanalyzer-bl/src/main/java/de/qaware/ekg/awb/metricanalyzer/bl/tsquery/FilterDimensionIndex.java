@@ -0,0 +1,109 @@
+package de.qaware.ekg.awb.metricanalyzer.bl.tsquery;
+
+import de.qaware.ekg.awb.repository.api.dataobject.facet.FacetEntry;
+import de.qaware.ekg.awb.repository.api.dataobject.facet.FacetParams.FacetSort;
+import de.qaware.ekg.awb.repository.api.dataobject.facet.PivotFacetEntry;
+import de.qaware.ekg.awb.repository.api.schema.EkgSchemaField;
+
+import java.util.*;
+
+/**
+ * In-memory tree of the filter dimension values of a project, built from a pivot facet over all
+ * filter dimensions. The tree answers facet queries that only restrict the dimensions to exact values
+ * (like the queries of the explorer tree) without a request to the repository.
+ * <p>
+ * The index is immutable and thread safe.
+ */
+class FilterDimensionIndex {
+
+    private final List<EkgSchemaField> levels;
+
+    private final List<PivotFacetEntry> roots;
+
+    /**
+     * Constructs a new index.
+     *
+     * @param levels the dimension fields of the pivot facet in the order of nesting
+     * @param roots  the entries of the first pivot field, the series without a value must be counted
+     *               by entries without a name
+     */
+    FilterDimensionIndex(List<EkgSchemaField> levels, List<PivotFacetEntry> roots) {
+        this.levels = List.copyOf(levels);
+        this.roots = List.copyOf(roots);
+    }
+
+    /**
+     * @param dimension a filter dimension field
+     * @return true if the index contains the values of the given dimension
+     */
+    boolean containsDimension(EkgSchemaField dimension) {
+        return levels.contains(dimension);
+    }
+
+    /**
+     * Returns the facet entries of the given dimension for all series that match the given filters.
+     *
+     * @param dimension the dimension of the facet
+     * @param filters   the exact values the dimensions are restricted to
+     * @param sort      the sort of the entries
+     * @param limit     the maximum amount of entries, a negative value means unlimited
+     * @return the facet entries with the amount of matching series
+     */
+    List<FacetEntry> getFacetEntries(EkgSchemaField dimension, Map<EkgSchemaField, String> filters,
+                                     FacetSort sort, int limit) {
+
+        int targetLevel = levels.indexOf(dimension);
+        if (targetLevel < 0 || !levels.containsAll(filters.keySet())) {
+            throw new IllegalArgumentException("The index doesn't contain all requested dimensions");
+        }
+
+        String[] levelFilters = new String[levels.size()];
+        int lastFilterLevel = -1;
+        for (Map.Entry<EkgSchemaField, String> filter : filters.entrySet()) {
+            int level = levels.indexOf(filter.getKey());
+            levelFilters[level] = filter.getValue();
+            lastFilterLevel = Math.max(lastFilterLevel, level);
+        }
+
+        Map<String, Long> counts = new HashMap<>();
+        collect(roots, 0, levelFilters, Math.max(targetLevel, lastFilterLevel), targetLevel, null, counts);
+
+        Comparator<FacetEntry> comparator = sort == FacetSort.LEXICOGRAPHIC
+                ? Comparator.comparing(FacetEntry::getName)
+                : Comparator.comparingLong(FacetEntry::getCount).reversed().thenComparing(FacetEntry::getName);
+
+        List<FacetEntry> entries = new ArrayList<>(counts.size());
+        counts.forEach((name, count) -> entries.add(new FacetEntry(name, count)));
+        entries.sort(comparator);
+
+        return limit >= 0 && entries.size() > limit ? new ArrayList<>(entries.subList(0, limit)) : entries;
+    }
+
+    /**
+     * Walks down the tree and sums up the counts per value of the target level. Below the last level
+     * that is restricted or the target level the count of an entry covers all of its children.
+     */
+    private static void collect(List<PivotFacetEntry> entries, int level, String[] levelFilters, int lastLevel,
+                                int targetLevel, String targetValue, Map<String, Long> counts) {
+
+        for (PivotFacetEntry entry : entries) {
+            if (levelFilters[level] != null && !levelFilters[level].equals(entry.getName())) {
+                continue;
+            }
+
+            String value = targetValue;
+            if (level == targetLevel) {
+                if (entry.getName() == null) {
+                    continue;
+                }
+                value = entry.getName();
+            }
+
+            if (level >= lastLevel) {
+                counts.merge(value, entry.getCount(), Long::sum);
+            } else {
+                collect(entry.getChildren(), level + 1, levelFilters, lastLevel, targetLevel, value, counts);
+            }
+        }
+    }
+}
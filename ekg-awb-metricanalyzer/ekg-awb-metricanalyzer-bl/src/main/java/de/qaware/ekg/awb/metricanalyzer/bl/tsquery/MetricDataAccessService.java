@@ -1,5 +1,6 @@
 package de.qaware.ekg.awb.metricanalyzer.bl.tsquery;
 
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.ColumnarTimeSeries;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.Measurement;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.Metric;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.MetricGroup;
@@ -10,14 +11,19 @@ import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.logical.Pod;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.logical.Service;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.physical.Host;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.physical.HostGroup;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.DimensionFacets;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.MetricQuery;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryCostEstimate;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.TimeSeriesQuery;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.TimeSeriesQueryResponse;
 import de.qaware.ekg.awb.repository.api.RepositoryClientAware;
+import de.qaware.ekg.awb.repository.api.schema.EkgSchemaField;
+import de.qaware.ekg.awb.repository.bl.rollup.RollupLevel;
 import de.qaware.ekg.awb.sdk.awbapi.repository.RepositoryException;
 import de.qaware.ekg.awb.sdk.datamodel.TimeSeries;
 
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 /**
@@ -63,6 +69,42 @@ public interface MetricDataAccessService extends RepositoryClientAware {
      */
     TimeSeriesQueryResponse queryTimeSeriesData(TimeSeriesQuery query) throws RepositoryException ;
 
+    /**
+     * Fetches all time series data that matches to the specified filters in the given query and hands
+     * them over one by one to the consumer instead of collecting them in pages. Large results are streamed
+     * via the export of the repository, so only a few records are in memory at the same time.
+     * The streaming stops early if the calling thread is interrupted.
+     *
+     * @param query a query instance that defines the filter parameters for time series search
+     * @param consumer the consumer that will receive the time series in the order of their group key hash
+     * @return a response with the amount of distinct series (not records) and the aborted flag but without data
+     * @throws RepositoryException thrown if the repository isn't accessible
+     */
+    TimeSeriesQueryResponse streamTimeSeriesData(TimeSeriesQuery query, Consumer<ColumnarTimeSeries> consumer)
+            throws RepositoryException;
+
+    /**
+     * Checks if the project with the specified name has rollup records of the given level.
+     * Projects that are imported before rollups are introduced (or with disabled rollups) have none.
+     *
+     * @param projectName the name of the project to check
+     * @param level the rollup level to look for
+     * @return true if rollup records of the level exists, otherwise false
+     * @throws RepositoryException thrown if the repository isn't accessible
+     */
+    boolean isRollupLevelAvailable(String projectName, RollupLevel level) throws RepositoryException;
+
+    /**
+     * Estimates the costs of fetching the series that matches to the filters of the given query.
+     * The estimate is computed from the statistics stored at each series record with a single request,
+     * so no series data has to be fetched. It covers the raw series as well as all rollup levels.
+     *
+     * @param query the query with the filters of the series
+     * @return the amount of series and the amount of records and values per level
+     * @throws RepositoryException thrown if the repository isn't accessible
+     */
+    QueryCostEstimate estimateQueryCost(MetricQuery query) throws RepositoryException;
+
     //==================================================================================================================
     // facet methods for classic / physical time series filter dimensions
     //==================================================================================================================
@@ -179,6 +221,22 @@ public interface MetricDataAccessService extends RepositoryClientAware {
 
     List<Metric> getMetricsNames(MetricQuery metricQuery);
 
+    /**
+     * Fetches and returns the facet data of several filter dimensions with a single request.
+     * Like the single dimension methods (e.g. {@link #getHosts(MetricQuery)}) each facet respects
+     * all query filters except the filter restrictions of its own dimension.
+     * <p>
+     * If the repository can't exclude the filter of a dimension from its facet, the facets are fetched
+     * with one request per dimension instead.
+     *
+     * @param query      the filter query that will used to find the right set of facet that matches to the filter set.
+     * @param dimensions the fields of the filter dimensions (e.g. {@link EkgSchemaField#TS_HOST_NAME}) to fetch
+     * @return the facets of the requested dimensions sorted in the way defined by the FacetParams.FacetSort property
+     * @throws RepositoryException if the facets couldn't be fetched from the repository
+     * @throws IllegalArgumentException if one of the fields isn't a filter dimension
+     */
+    DimensionFacets getDimensionFacets(MetricQuery query, EkgSchemaField... dimensions) throws RepositoryException;
+
     /**
      *
      */
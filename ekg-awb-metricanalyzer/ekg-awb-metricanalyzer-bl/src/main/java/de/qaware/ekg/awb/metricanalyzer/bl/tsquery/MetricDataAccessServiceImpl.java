@@ -8,11 +8,15 @@ import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.logical.Pod;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.logical.Service;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.physical.Host;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.physical.HostGroup;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.DimensionFacets;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.MetricQuery;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryCostEstimate;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryFilterParams;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.TimeSeriesQuery;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.TimeSeriesQueryResponse;
+import de.qaware.ekg.awb.project.api.ProjectDataAccessService;
 import de.qaware.ekg.awb.project.api.model.Project;
+import de.qaware.ekg.awb.repository.api.CancellationToken;
 import de.qaware.ekg.awb.repository.api.RepositoryClient;
 import de.qaware.ekg.awb.repository.api.dataobject.delete.DeleteParams;
 import de.qaware.ekg.awb.repository.api.dataobject.expr.ExprFactory;
@@ -20,31 +24,63 @@ import de.qaware.ekg.awb.repository.api.dataobject.expr.Expression;
 import de.qaware.ekg.awb.repository.api.dataobject.facet.Facet;
 import de.qaware.ekg.awb.repository.api.dataobject.facet.FacetEntry;
 import de.qaware.ekg.awb.repository.api.dataobject.facet.FacetParams;
+import de.qaware.ekg.awb.repository.api.dataobject.facet.PivotFacetEntry;
+import de.qaware.ekg.awb.repository.api.dataobject.facet.StatsFacetEntry;
+import de.qaware.ekg.awb.repository.api.dataobject.facet.StatsFacetParams;
+import de.qaware.ekg.awb.repository.api.dataobject.facet.StatsFacetParams.StatsFunction;
+import de.qaware.ekg.awb.repository.api.dataobject.facet.StatsFacetResult;
+import de.qaware.ekg.awb.repository.api.dataobject.search.ExportParams;
 import de.qaware.ekg.awb.repository.api.dataobject.search.SearchParams;
 import de.qaware.ekg.awb.repository.api.dataobject.search.SearchResult;
 import de.qaware.ekg.awb.repository.api.dataobject.search.SortField;
+import de.qaware.ekg.awb.repository.api.events.SeriesDataChangedEvent;
 import de.qaware.ekg.awb.repository.api.schema.DocumentType;
 import de.qaware.ekg.awb.repository.api.schema.EkgSchemaField;
 import de.qaware.ekg.awb.repository.bl.BinaryTimeSeries;
+import de.qaware.ekg.awb.repository.bl.codec.SeriesDataView;
+import de.qaware.ekg.awb.repository.bl.mapper.BinaryTimeSeriesMapper;
+import de.qaware.ekg.awb.repository.bl.migration.SeriesDataMigrationService;
+import de.qaware.ekg.awb.repository.bl.rollup.RollupDataCodec;
+import de.qaware.ekg.awb.repository.bl.rollup.RollupLevel;
 import de.qaware.ekg.awb.sdk.awbapi.repository.ImporterSourceRepository;
 import de.qaware.ekg.awb.sdk.awbapi.repository.RepositoryException;
-import de.qaware.ekg.awb.sdk.core.DateValuePairMapper;
+import de.qaware.ekg.awb.sdk.core.events.EkgEventBus;
 import de.qaware.ekg.awb.sdk.core.log.EkgLogger;
 import de.qaware.ekg.awb.sdk.core.lookup.EkgLookup;
+import de.qaware.ekg.awb.sdk.core.lookup.ServiceDiscovery;
 import de.qaware.ekg.awb.sdk.datamodel.TimeSeries;
 import de.qaware.ekg.awb.sdk.datamodel.Value;
 import de.qaware.ekg.awb.sdk.importer.api.RemoteSeriesDataFetcher;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.slf4j.Logger;
 
+import javax.inject.Inject;
+
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static de.qaware.ekg.awb.repository.api.dataobject.expr.ExprFactory.*;
@@ -59,12 +95,123 @@ public class MetricDataAccessServiceImpl implements MetricDataAccessService {
 
     private static final Logger LOGGER = EkgLogger.get();
 
-    private SeriesDataFetcherRegistry fetcherRegistry = EkgLookup.lookup(SeriesDataFetcherRegistry.class);
+    // looked up on first use, only split source projects need it
+    private SeriesDataFetcherRegistry fetcherRegistry;
 
     private RepositoryClient repositoryClient;
 
+    // looked up on first use, stores the value and series counts of the projects
+    private ProjectDataAccessService projectDataAccess;
+
+    @Inject
+    protected EkgEventBus eventBus;
+
+    // the writes have to wait for the migration of the records of older formats
+    @Inject
+    protected SeriesDataMigrationService migrationService;
+
+    // the facets are requested again and again by the explorer and the chart header
+    private final FacetResultCache facetCache = new FacetResultCache();
+
+    // the dimension trees of the projects, empty if the tree of a project is too large
+    private final Map<String, Optional<FilterDimensionIndex>> dimensionIndexes = new ConcurrentHashMap<>();
+
+    // projects with series added since the last commit
+    private final Set<String> changedProjects = ConcurrentHashMap.newKeySet();
+
+    private static final String STAT_VALUES = "amountValues";
+    private static final String STAT_SERIES = "series";
+    private static final String STAT_HASHED = "hashedRecords";
+
     private static Map<ImporterSourceRepository, RemoteSeriesDataFetcher> FETCHER_CACHE = new ConcurrentHashMap<>();
 
+    // fetches the series of split source projects in parallel, limited per remote data source
+    private static final RemoteSeriesFetchExecutor REMOTE_FETCH_EXECUTOR = RemoteSeriesFetchExecutor.create();
+
+    // the fetched series of split source projects, so repeated charts don't download them again
+    private static final RemoteSeriesCache REMOTE_SERIES_CACHE = RemoteSeriesCache.create();
+
+    /**
+     * The fields of the filter dimensions that can be fetched as facets
+     */
+    private static final Set<EkgSchemaField> FILTER_DIMENSIONS = EnumSet.of(
+            TS_HOST_GROUP_NAME, TS_HOST_NAME, TS_NAMESPACE_NAME, TS_SERVICE_NAME, TS_POD_NAME, TS_CONTAINER_NAME,
+            TS_MEASUREMENT, TS_PROCESS_NAME, TS_METRIC_GROUP, TS_METRIC_NAME);
+
+    /**
+     * The maximum amount of values per facet of a filter dimension
+     */
+    private static final int FACET_LIMIT = 2500;
+
+    /**
+     * The nesting of the pivot facet of the dimension tree
+     */
+    private static final List<EkgSchemaField> DIMENSION_INDEX_LEVELS = List.of(
+            TS_HOST_GROUP_NAME, TS_HOST_NAME, TS_NAMESPACE_NAME, TS_SERVICE_NAME, TS_POD_NAME, TS_CONTAINER_NAME,
+            TS_MEASUREMENT, TS_PROCESS_NAME, TS_METRIC_GROUP, TS_METRIC_NAME);
+
+    /**
+     * Projects with more nodes in the dimension tree are served by facet queries
+     */
+    private static final long MAX_DIMENSION_INDEX_ENTRIES = 200_000;
+
+    /**
+     * Queries with more matching records than this will be streamed via the export instead of cursor paging
+     */
+    private static final long EXPORT_THRESHOLD = 1_000;
+
+    /**
+     * The amount of records that will be read at once when streaming the series, small batches
+     * let the reading of the next batch overlap with the decoding of the current one
+     */
+    private static final int RECORD_BATCH_SIZE = 100;
+
+    /**
+     * The amount of records of an export batch. The export can only stream docValues fields, so the payloads
+     * (ts_data is a stored binary field) of each batch are fetched with an additional query by id. Larger batches
+     * than the pages keep the amount of these queries low, the ids of a batch stay below the max boolean clauses.
+     */
+    private static final int EXPORT_BATCH_SIZE = 500;
+
+    /**
+     * The amount of batches (pages or export batches) the reader may read ahead of the decoding
+     */
+    private static final int BATCH_QUEUE_CAPACITY = 4;
+
+    /**
+     * The interval in milliseconds the consumer of the batches checks the cancellation of the query while it waits
+     */
+    private static final long BATCH_POLL_INTERVAL = 10;
+
+    /**
+     * The name of the system property to set the amount of threads used to decode the series payloads.
+     * If unset, one thread per available processor will be used.
+     */
+    private static final String PROP_DECODE_THREADS = "ekg.metricanalyzer.decodeThreads";
+
+    /**
+     * The upper bound of the amount of decode threads that can be set via {@value #PROP_DECODE_THREADS}
+     */
+    private static final int MAX_DECODE_THREADS = 256;
+
+    /**
+     * The amount of decode tasks that may wait for a thread, further tasks will run in the submitting thread
+     */
+    private static final int DECODE_QUEUE_CAPACITY = 4 * RECORD_BATCH_SIZE;
+
+    /**
+     * Our own bounded thread pool that decodes the series payloads in parallel. The common ForkJoin pool
+     * isn't used because the smoothers already use it via parallel streams.
+     */
+    private static final ExecutorService DECODE_EXECUTOR = createDecodeExecutor();
+
+    // sorting by the group key hash delivers all records of a series adjacent
+    private static final List<SortField> SERIES_SORT_FIELDS = List.of(
+            new SortField(TS_GROUP_KEY_HASH, SortField.SortMode.ASC),
+            new SortField(TS_START, SortField.SortMode.ASC),
+            new SortField(ID, SortField.SortMode.ASC)
+    );
+
     //=================================================================================================================
     //  various constructors
     //=================================================================================================================
@@ -87,6 +234,18 @@ public class MetricDataAccessServiceImpl implements MetricDataAccessService {
         this.repositoryClient = client;
     }
 
+    /**
+     * Parameterized constructor of this services that will use the given
+     * RepositoryClient and ProjectDataAccessService for it's work.
+     *
+     * @param client the repository client to use
+     * @param projectDataAccess the service that stores the value and series counts of the projects
+     */
+    MetricDataAccessServiceImpl(RepositoryClient client, ProjectDataAccessService projectDataAccess) {
+        this.repositoryClient = client;
+        this.projectDataAccess = projectDataAccess;
+    }
+
     //=================================================================================================================
     // API of the MetricDataAccessService interface and MetricDataAccessServiceImpl class itself
     //=================================================================================================================
@@ -95,11 +254,17 @@ public class MetricDataAccessServiceImpl implements MetricDataAccessService {
     public void deleteTimeSeriesByProjectName(String projectName) {
 
         try {
+            awaitMigration();
+
             DeleteParams deleteQuery = new DeleteParams();
             deleteQuery.addFilter(DOC_TYPE, DocumentType.TIME_SERIES.toString());
             deleteQuery.addFilter(PROJECT_NAME, projectName);
             repositoryClient.delete(deleteQuery);
             repositoryClient.commit();
+
+            getProjectDataAccess().setSeriesStatistics(projectName, 0, 0);
+
+            publishSeriesDataChanged(projectName);
         } catch (RepositoryException ex) {
             LOGGER.error("Exception raised while trying to delete time series data.", ex);
             throw new IllegalStateException(ex);
@@ -123,15 +288,8 @@ public class MetricDataAccessServiceImpl implements MetricDataAccessService {
 
             // prepare time series query
             SearchParams searchParams = new SearchParams();
-            List<Expression> filterExpressions = new ArrayList<>();
-            populateFilter(filterExpressions, queryParams);
-
-            searchParams.withFilterQueries(filterExpressions.toArray(new Expression[0]));
-            searchParams.withSortFields(List.of(
-                    new SortField(TS_START, SortField.SortMode.ASC),
-                    new SortField(ID, SortField.SortMode.ASC)
-            ));
-
+            searchParams.withFilterQueries(createSeriesFilter(query).toArray(new Expression[0]));
+            searchParams.withSortFields(SERIES_SORT_FIELDS);
             searchParams.withCursor(query.getCursorId());
 
             // fetch time series with filter query as export stream
@@ -153,33 +311,46 @@ public class MetricDataAccessServiceImpl implements MetricDataAccessService {
             // payload from remote data sources using a RemoteSeriesDataFetcher
             TimeSeriesQueryResponse response = new TimeSeriesQueryResponse(nextCursor, totalHits, false);
             final RemoteSeriesDataFetcher fetcher = retrieveFetcher(queryParams, project);
+            final boolean isRemote = project.useSplitSource() && fetcher != null;
 
-            for (BinaryTimeSeries binaryTimeSeries : timeSeriesList) {
-                // create new TimeSeries based on public API POJO's
-                TimeSeries timeSeries = mapToTimeSeries(binaryTimeSeries);
+            List<ColumnarTimeSeries> seriesList = timeSeriesList.stream()
+                    .map(this::createColumnarTimeSeries)
+                    .collect(Collectors.toList());
 
-                // fetch data from remote data source if required
-                if (project.useSplitSource() && fetcher != null) {
+            // the series of the page are fetched in parallel from the remote data source
+            Map<String, Value[]> remoteData = null;
+            if (isRemote) {
+                List<String> seriesKeys = seriesList.stream()
+                        .map(timeSeries -> timeSeries.getMetaData().getRemoteSeriesKey())
+                        .collect(Collectors.toList());
 
-                    Value[] data = fetcher.fetchSeriesData(timeSeries.getRemoteSeriesKey(),
-                            queryParams.getStart(), queryParams.getEnd());
+                remoteData = fetchRemoteSeriesData(fetcher, queryParams.getProjectName(),
+                        queryParams.getImporterSourceRepository(), seriesKeys, queryParams.getStart(),
+                        queryParams.getEnd(), query.getCancellationToken());
 
-                    if (data == null) {
-                        // this occurs in error cases for example if remote repository isn't available
-                        response.addTimeSeries(timeSeries);
-                        response.setRequestAborted(true);
-                        return response;
-                    }
+                if (isStopped(query)) {
+                    return new TimeSeriesQueryResponse(null, totalHits, false);
+                }
+
+                if (remoteData == null) {
+                    // this occurs in error cases for example if remote repository isn't available
+                    response.setRequestAborted(true);
+                    return response;
+                }
+            }
 
-                    Stream.of(data).forEach(timeSeries::addValue);
+            for (int index = 0; index < timeSeriesList.size(); index++) {
+                BinaryTimeSeries binaryTimeSeries = timeSeriesList.get(index);
+                ColumnarTimeSeries timeSeries = seriesList.get(index);
+
+                // take the data from remote data source if required
+                if (isRemote) {
+                    for (Value value : remoteData.get(timeSeries.getMetaData().getRemoteSeriesKey())) {
+                        timeSeries.add(value.getTimestamp(), value.getValue());
+                    }
 
                 } else {
-                    // post filter data and addAndSum all remaining tuples Value instance to the TimeSeries
-                    DateValuePairMapper.uncompressAndDecodePlainBytes(binaryTimeSeries.getData(), (timeStamp, value) -> {
-                        if(insideInterval(timeStamp, queryParams.getStart(), queryParams.getEnd())) {
-                            timeSeries.addValue(new Value(timeStamp, value));
-                        }
-                    });
+                    decodeSeriesData(binaryTimeSeries.getData(), query, timeSeries);
                 }
 
                 response.addTimeSeries(timeSeries);
@@ -194,18 +365,417 @@ public class MetricDataAccessServiceImpl implements MetricDataAccessService {
     }
 
     @Override
-    public long getAmountMeasuredPointsInProject(String projectName) {
+    public TimeSeriesQueryResponse streamTimeSeriesData(TimeSeriesQuery query, Consumer<ColumnarTimeSeries> consumer)
+            throws RepositoryException {
+
+        Project project = query.getQueryParams().getProject();
+        List<Expression> seriesFilter = createSeriesFilter(query);
+
+        SearchParams countParams = new SearchParams()
+                .withFilterQueries(seriesFilter.toArray(new Expression[0]))
+                .withMaxRows(0);
+        long totalHits = repositoryClient.search(BinaryTimeSeries.class, countParams)
+                .getQueryStatus().getNumberOfHits();
+
+        // a series is stored in several chunk records, so the series are only counted if the records exceed the limit
+        if (totalHits > query.getMaxMetricLimit()) {
+            long seriesCount = countSeries(seriesFilter, totalHits);
+
+            if (seriesCount > query.getMaxMetricLimit()) {
+                return new TimeSeriesQueryResponse(null, seriesCount, true);
+            }
+        }
+
+        SeriesCounter seriesCounter = new SeriesCounter(consumer);
+        TimeSeriesQueryResponse response;
+
+        if (project.useSplitSource()) {
+            response = streamRemoteTimeSeriesData(query, seriesCounter);
+
+        } else {
+            // large results are streamed, the paging overhead doesn't matter for small ones
+            RecordBatchSource source = totalHits > EXPORT_THRESHOLD
+                    ? new ExportBatchSource(query)
+                    : new CursorBatchSource(query);
+
+            response = streamLocalTimeSeriesData(query, source, totalHits, seriesCounter);
+        }
+
+        if (response.isRequestAborted()) {
+            return response;
+        }
+
+        return new TimeSeriesQueryResponse(null, seriesCounter.getSeriesCount(), false);
+    }
+
+    /**
+     * Counts the distinct series of the records that match the given filter. Records without group key
+     * hash (not migrated yet) can't be grouped, each of them is counted as a series of its own.
+     *
+     * @param filterQueries the filter of the records
+     * @param recordCount the amount of matching records, the upper bound of the amount of series
+     * @return the amount of series
+     * @throws RepositoryException thrown if the repository isn't accessible
+     */
+    private long countSeries(List<Expression> filterQueries, long recordCount) throws RepositoryException {
+        StatsFacetResult result;
+        try {
+            result = repositoryClient.statsFacet(new StatsFacetParams()
+                    .withFilterQueries(filterQueries)
+                    .withStat(STAT_SERIES, StatsFunction.UNIQUE, TS_GROUP_KEY_HASH)
+                    .withStat(STAT_HASHED, StatsFunction.COUNT, TS_GROUP_KEY_HASH));
+        } catch (UnsupportedOperationException e) {
+            return recordCount;
+        }
+
+        return getSeriesCount(result.getTotal(), recordCount);
+    }
+
+    /**
+     * Returns the amount of distinct series of the records counted by the given stats facet entry with the
+     * statistics {@value #STAT_SERIES} and {@value #STAT_HASHED}.
+     *
+     * @param entry the statistics of the records
+     * @param maxSeriesCount the upper bound of the amount of series
+     * @return the distinct group key hashes plus the records without hash, but at most the given upper bound
+     */
+    private static long getSeriesCount(StatsFacetEntry entry, long maxSeriesCount) {
+        long recordsWithoutHash = Math.max(0, entry.getCount() - getLongStat(entry, STAT_HASHED));
+        return Math.min(getLongStat(entry, STAT_SERIES) + recordsWithoutHash, maxSeriesCount);
+    }
+
+    /**
+     * Fetches the values of the given series from the remote data source. The values cached from former
+     * queries are reused, only the ranges that aren't cached are fetched.
+     *
+     * @param fetcher the fetcher of the remote data source
+     * @param projectName the name of the split source project
+     * @param source the definition of the remote data source
+     * @param seriesKeys the remote keys of the series
+     * @param start the exclusive start of the time range or a negative value for no lower bound
+     * @param end the exclusive end of the time range or a value <= 0 for no upper bound
+     * @param cancellationToken the token that stops the fetching
+     * @return the values by series key or null if a series couldn't be fetched, incomplete if cancelled
+     */
+    private Map<String, Value[]> fetchRemoteSeriesData(RemoteSeriesDataFetcher fetcher, String projectName,
+                                                       ImporterSourceRepository source, List<String> seriesKeys,
+                                                       long start, long end, CancellationToken cancellationToken) {
+
+        Map<String, RemoteSeriesCache.Lookup> lookups = new HashMap<>();
+        Map<RemoteSeriesCache.TimeRange, List<String>> missingSeries = new LinkedHashMap<>();
+
+        for (String seriesKey : seriesKeys) {
+            RemoteSeriesCache.Lookup lookup = REMOTE_SERIES_CACHE.lookup(projectName, source, seriesKey, start, end);
+            lookups.put(seriesKey, lookup);
+
+            for (RemoteSeriesCache.TimeRange range : lookup.getMissingRanges()) {
+                missingSeries.computeIfAbsent(range, key -> new ArrayList<>()).add(seriesKey);
+            }
+        }
+
+        // series with the same missing range are fetched together, usually all series of the page
+        for (Map.Entry<RemoteSeriesCache.TimeRange, List<String>> missing : missingSeries.entrySet()) {
+            RemoteSeriesCache.TimeRange range = missing.getKey();
+
+            Map<String, Value[]> fetched = REMOTE_FETCH_EXECUTOR.fetch(fetcher, missing.getValue(),
+                    range.getBegin(), range.getEnd(), cancellationToken);
+
+            if (fetched == null || cancellationToken.isCancelled()) {
+                return fetched;
+            }
+
+            for (String seriesKey : missing.getValue()) {
+                Value[] values = fetched.get(seriesKey);
+
+                REMOTE_SERIES_CACHE.put(projectName, source, seriesKey, range.getBegin(), range.getEnd(), values);
+                lookups.get(seriesKey).addFetchedValues(range, values);
+            }
+        }
+
+        Map<String, Value[]> result = new HashMap<>();
+        lookups.forEach((seriesKey, lookup) -> result.put(seriesKey, lookup.getValues()));
+
+        return result;
+    }
+
+    /**
+     * Streams the series of a split source project page by page. The payloads of these
+     * series are fetched from the remote data source of the project.
+     */
+    private TimeSeriesQueryResponse streamRemoteTimeSeriesData(TimeSeriesQuery query,
+                                                               Consumer<ColumnarTimeSeries> consumer)
+            throws RepositoryException {
+
+        String cursorId = TimeSeriesQuery.INITIAL_CURSOR_ID;
+        while (true) {
+            query.setCursorId(cursorId);
+            TimeSeriesQueryResponse response = queryTimeSeriesData(query);
+
+            if (response.isRequestAborted()) {
+                return new TimeSeriesQueryResponse(null, response.getTotalHits(), true);
+            }
+
+            for (ColumnarTimeSeries timeSeries : response.getData()) {
+                if (isStopped(query)) {
+                    return new TimeSeriesQueryResponse(null, response.getTotalHits(), false);
+                }
+
+                consumer.accept(timeSeries);
+            }
+
+            if (response.isConsumed()) {
+                return new TimeSeriesQueryResponse(null, response.getTotalHits(), false);
+            }
+
+            cursorId = response.getCursorId();
+        }
+    }
+
+    /**
+     * Streams the series stored in the repository as pipeline: a reader thread fetches the records
+     * batch by batch from the given source and puts them to a bounded queue, while the calling thread
+     * takes the batches, lets the decode pool decode the payloads in parallel and hands over the series
+     * to the consumer. This way the waiting for the repository overlaps with the decoding and only a few
+     * batches are in memory at the same time.
+     */
+    private TimeSeriesQueryResponse streamLocalTimeSeriesData(TimeSeriesQuery query, RecordBatchSource source,
+                                                              long totalHits, Consumer<ColumnarTimeSeries> consumer)
+            throws RepositoryException {
+
+        CancellationToken cancellationToken = query.getCancellationToken();
+
+        RecordBatchReader reader = new RecordBatchReader(source);
+        Thread readerThread = new Thread(reader, "series-batch-reader");
+        readerThread.setDaemon(true);
+        readerThread.start();
+
+        // aborts the running request of the reader immediately
+        Runnable stopReader = readerThread::interrupt;
+        cancellationToken.addCancelListener(stopReader);
+
+        try {
+            while (true) {
+                List<BinaryTimeSeries> batch = reader.takeBatch(cancellationToken);
+
+                if (batch.isEmpty()) {
+                    return new TimeSeriesQueryResponse(null, totalHits, false);
+                }
+
+                if (!decodeBatch(batch, query, consumer)) {
+                    return new TimeSeriesQueryResponse(null, totalHits, false);
+                }
+            }
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new TimeSeriesQueryResponse(null, totalHits, false);
+
+        } finally {
+            // stops the reader if the consumption ended early
+            cancellationToken.removeCancelListener(stopReader);
+            readerThread.interrupt();
+        }
+    }
+
+    /**
+     * Decodes the records of the batch in parallel and hands over the series to the consumer in the
+     * order of the batch. The consumer is called by the calling thread only.
+     *
+     * @return false if the calling thread was interrupted or the query was cancelled before all series are consumed
+     */
+    private boolean decodeBatch(List<BinaryTimeSeries> batch, TimeSeriesQuery query,
+                                Consumer<ColumnarTimeSeries> consumer) throws RepositoryException {
+
+        List<Future<ColumnarTimeSeries>> decodedSeries = new ArrayList<>(batch.size());
+
+        for (BinaryTimeSeries binaryTimeSeries : batch) {
+            decodedSeries.add(DECODE_EXECUTOR.submit(() -> {
+                if (query.getCancellationToken().isCancelled()) {
+                    return null;
+                }
+
+                ColumnarTimeSeries timeSeries = createColumnarTimeSeries(binaryTimeSeries);
+                decodeSeriesData(binaryTimeSeries.getData(), query, timeSeries);
+                return timeSeries;
+            }));
+        }
+
         try {
-            if (StringUtils.isNotBlank(projectName)) {
-                return repositoryClient.sumFieldValue(TS_DATA_AMOUNT_VALUES,
-                        List.of(ExprFactory.exactFilter(PROJECT_NAME, projectName)));
+            for (Future<ColumnarTimeSeries> future : decodedSeries) {
+                ColumnarTimeSeries timeSeries = isStopped(query) ? null : future.get();
+
+                // tasks that started after the cancellation return no series
+                if (timeSeries == null) {
+                    return false;
+                }
+
+                consumer.accept(timeSeries);
             }
 
-            repositoryClient.sumFieldValue(TS_DATA_AMOUNT_VALUES, new ArrayList<>());
+            return true;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+
+        } catch (ExecutionException e) {
+            throw new RepositoryException("Exception raised while decoding time series.", e.getCause());
+
+        } finally {
+            // no-op for the consumed ones, prevents decoding of the rest if the consumption ended early
+            decodedSeries.forEach(timeSeries -> timeSeries.cancel(false));
+        }
+    }
+
+    /**
+     * @return true if the calling thread was interrupted or the given query was cancelled
+     */
+    private static boolean isStopped(TimeSeriesQuery query) {
+        return Thread.currentThread().isInterrupted() || query.getCancellationToken().isCancelled();
+    }
+
+    /**
+     * Fetches the payloads of the given records and sets them at the records.
+     */
+    private void fetchSeriesData(List<BinaryTimeSeries> batch) throws RepositoryException {
+        String[] ids = batch.stream().map(BinaryTimeSeries::getId).toArray(String[]::new);
+
+        SearchParams searchParams = new SearchParams()
+                .withFilterQueries(exactFilter(ID, ids))
+                .withMaxRows(ids.length);
+
+        Map<String, byte[]> payloads = new HashMap<>();
+        for (BinaryTimeSeries record : repositoryClient.search(BinaryTimeSeries.class, searchParams).getRows()) {
+            payloads.put(record.getId(), record.getData());
+        }
+
+        for (BinaryTimeSeries record : batch) {
+            record.setData(payloads.get(record.getId()), record.getAmountOfSeriesValues());
+        }
+    }
+
+    /**
+     * Creates an empty columnar time series with the meta data of the given record.
+     */
+    private ColumnarTimeSeries createColumnarTimeSeries(BinaryTimeSeries binaryTimeSeries) {
+        // the meta data of the series based on public API POJO's, the values are stored column wise
+        TimeSeries metaData = mapToTimeSeries(binaryTimeSeries);
+        ColumnarTimeSeries timeSeries = new ColumnarTimeSeries(metaData, binaryTimeSeries.getAmountOfSeriesValues());
+        timeSeries.setGroupKeyHash(binaryTimeSeries.getGroupKeyHash());
+
+        return timeSeries;
+    }
+
+    /**
+     * Decodes the values of the requested interval from the given payload into the series.
+     */
+    private static void decodeSeriesData(byte[] data, TimeSeriesQuery query, ColumnarTimeSeries timeSeries) {
+        if (data == null) {
+            return;
+        }
+
+        QueryFilterParams queryParams = query.getQueryParams();
+
+        if (query.getRollupLevel() != null) {
+            // rollup records provide one value per bucket (the requested aggregate). Only the buckets that
+            // lies completely inside of the interval are used, the partial ones at the edges would bring
+            // in values from outside of it.
+            long first = firstTimestampOf(queryParams.getStart());
+            long last = lastBucketStartOf(queryParams.getEnd(), query.getRollupLevel());
+
+            RollupDataCodec.decode(data, query.getRollupAggregate(), (timeStamp, value) -> {
+                if (first <= timeStamp && timeStamp <= last) {
+                    timeSeries.add(timeStamp, value);
+                }
+            });
+
+        } else {
+            // decode only the tuples of the requested interval directly into the columns of the series
+            SeriesDataView.of(data).forEachInRange(
+                    firstTimestampOf(queryParams.getStart()), lastTimestampOf(queryParams.getEnd()),
+                    timeSeries::add);
+        }
+    }
+
+    /**
+     * Creates the filter for the series records (raw or rollups) of the given query.
+     */
+    private List<Expression> createSeriesFilter(TimeSeriesQuery query) {
+        List<Expression> filterExpressions = new ArrayList<>();
+        populateFilter(filterExpressions, query.getQueryParams());
+        filterExpressions.add(createAggregationLevelFilter(query.getRollupLevel()));
+
+        return filterExpressions;
+    }
+
+    @Override
+    public boolean isRollupLevelAvailable(String projectName, RollupLevel level) throws RepositoryException {
+        SearchParams searchParams = new SearchParams();
+        searchParams.withFilterQueries(
+                exactFilter(DOC_TYPE, DocumentType.TIME_SERIES.toString()),
+                exactFilter(PROJECT_NAME, projectName),
+                createAggregationLevelFilter(level));
+        searchParams.withMaxRows(1);
+
+        return repositoryClient.search(BinaryTimeSeries.class, searchParams).getQueryStatus().getNumberOfHits() > 0;
+    }
+
+    @Override
+    public QueryCostEstimate estimateQueryCost(MetricQuery query) throws RepositoryException {
+
+        List<Expression> andExpressions = new ArrayList<>();
+        populateFilter(andExpressions, query.getQueryParams());
+
+        // the raw records have no aggregation level, so they are only part of the total
+        StatsFacetParams statsFacetParams = new StatsFacetParams()
+                .withFilterQueries(and(andExpressions.toArray(new Expression[0])))
+                .withStat(STAT_VALUES, StatsFunction.SUM, TS_DATA_AMOUNT_VALUES)
+                .withStat(STAT_SERIES, StatsFunction.UNIQUE, TS_GROUP_KEY_HASH)
+                .withStat(STAT_HASHED, StatsFunction.COUNT, TS_GROUP_KEY_HASH)
+                .withGroupField(TS_AGGREGATION_LEVEL);
+
+        StatsFacetResult result = repositoryClient.statsFacet(statsFacetParams);
+        long rawRecords = result.getTotal().getCount();
+
+        // records imported before the group key hash was introduced are counted as a series of their own
+        QueryCostEstimate estimate = new QueryCostEstimate();
+        estimate.setSeriesCount(getSeriesCount(result.getTotal(), rawRecords));
+
+        long rawValues = getLongStat(result.getTotal(), STAT_VALUES);
+
+        for (StatsFacetEntry entry : result.getGroups()) {
+            long values = getLongStat(entry, STAT_VALUES);
+            estimate.setLevelCosts(RollupLevel.valueOf(entry.getName()), entry.getCount(), values);
+
+            rawRecords -= entry.getCount();
+            rawValues -= values;
+        }
+
+        estimate.setLevelCosts(null, rawRecords, rawValues);
+
+        return estimate;
+    }
+
+    @Override
+    public long getAmountMeasuredPointsInProject(String projectName) {
+        if (StringUtils.isBlank(projectName)) {
+            return 0;
+        }
 
+        // the counts are maintained at import and deletion of series
+        Project project = getProjectDataAccess().getProject(projectName);
+        if (project == null) {
             return 0;
+        }
+
+        if (project.hasSeriesStatistics()) {
+            return project.getAmountOfValues();
+        }
+
+        try {
+            return initializeSeriesStatistics(projectName);
         } catch (RepositoryException ex) {
-            LOGGER.error("Exception raised while trying to delete time series data.", ex);
+            LOGGER.error("Exception raised while counting the values of the project.", ex);
             throw new IllegalStateException(ex);
         }
     }
@@ -213,7 +783,7 @@ public class MetricDataAccessServiceImpl implements MetricDataAccessService {
     @Override
     public List<Process> getProcesses(MetricQuery query) {
         QueryFilterParams queryClone = new QueryFilterParams.Builder(query.getQueryParams()).withProcess("*").build();
-        return queryFacets(queryClone, TS_PROCESS_NAME,
+        return queryFacets(queryClone, TS_PROCESS_NAME, query.isDimensionIndexPreferred(),
                 new Process("*", "all"), facetEntry -> new Process(facetEntry.getName(), facetEntry.getName()));
     }
 
@@ -221,21 +791,21 @@ public class MetricDataAccessServiceImpl implements MetricDataAccessService {
     public List<HostGroup> getHostGroups(MetricQuery query) {
         QueryFilterParams queryClone = new QueryFilterParams.Builder(query.getQueryParams()).withHostGroup("*").build();
         return queryFacets(queryClone,
-                TS_HOST_GROUP_NAME, new HostGroup("*"), facetEntry -> new HostGroup(facetEntry.getName()));
+                TS_HOST_GROUP_NAME, query.isDimensionIndexPreferred(), new HostGroup("*"), facetEntry -> new HostGroup(facetEntry.getName()));
 
     }
 
     @Override
     public List<Host> getHosts(MetricQuery query) {
         QueryFilterParams queryClone = new QueryFilterParams.Builder(query.getQueryParams()).withHost("*").build();
-        return queryFacets(queryClone, TS_HOST_NAME,
+        return queryFacets(queryClone, TS_HOST_NAME, query.isDimensionIndexPreferred(),
                 new Host("*"), facetEntry -> new Host(facetEntry.getName()));
     }
 
     @Override
     public List<Namespace> getNamespaces(MetricQuery query) {
         QueryFilterParams queryClone = new QueryFilterParams.Builder(query.getQueryParams()).withNamespace("*").build();
-        return queryFacets(query.getQueryParams(), TS_NAMESPACE_NAME,
+        return queryFacets(query.getQueryParams(), TS_NAMESPACE_NAME, query.isDimensionIndexPreferred(),
                 new Namespace("*"), facetEntry -> new Namespace(facetEntry.getName()));
 
     }
@@ -243,92 +813,140 @@ public class MetricDataAccessServiceImpl implements MetricDataAccessService {
     @Override
     public List<Service> getServices(MetricQuery query) {
         QueryFilterParams queryClone = new QueryFilterParams.Builder(query.getQueryParams()).withService("*").build();
-        return queryFacets(query.getQueryParams(), TS_SERVICE_NAME,
+        return queryFacets(query.getQueryParams(), TS_SERVICE_NAME, query.isDimensionIndexPreferred(),
                 new Service("*"), facetEntry -> new Service(facetEntry.getName()));
     }
 
     @Override
     public List<Pod> getPods(MetricQuery query) {
         QueryFilterParams queryClone = new QueryFilterParams.Builder(query.getQueryParams()).withPod("*").build();
-        return queryFacets(queryClone, TS_POD_NAME,
+        return queryFacets(queryClone, TS_POD_NAME, query.isDimensionIndexPreferred(),
                 new Pod("*"), c -> new Pod(c.getName()));
     }
 
     @Override
     public List<Container> getContainers(MetricQuery query) {
         QueryFilterParams queryClone = new QueryFilterParams.Builder(query.getQueryParams()).withContainer("*").build();
-        return queryFacets(queryClone, TS_CONTAINER_NAME,
+        return queryFacets(queryClone, TS_CONTAINER_NAME, query.isDimensionIndexPreferred(),
                 new Container("*"), facetEntry -> new Container(facetEntry.getName()));
     }
 
     @Override
     public List<Measurement> getMeasurements(MetricQuery query) {
         QueryFilterParams queryClone = new QueryFilterParams.Builder(query.getQueryParams()).withMeasurement("*").build();
-        return queryFacets(queryClone, TS_MEASUREMENT,
+        return queryFacets(queryClone, TS_MEASUREMENT, query.isDimensionIndexPreferred(),
                 new Measurement("*"), facetEntry -> new Measurement(facetEntry.getName()));
     }
 
     @Override
     public List<MetricGroup> getMetricGroups(MetricQuery query) {
         QueryFilterParams queryClone = new QueryFilterParams.Builder(query.getQueryParams()).withMetricGroup("*").build();
-        return queryFacets(queryClone, TS_METRIC_GROUP,
+        return queryFacets(queryClone, TS_METRIC_GROUP, query.isDimensionIndexPreferred(),
                 new MetricGroup("*"), facetEntry -> new MetricGroup(facetEntry.getName()));
     }
 
     @Override
     public List<Metric> getMetricsNames(MetricQuery query) {
         QueryFilterParams queryClone = new QueryFilterParams.Builder(query.getQueryParams()).withMetric("*").build();
-        return queryFacets(queryClone, TS_METRIC_NAME,
+        return queryFacets(queryClone, TS_METRIC_NAME, query.isDimensionIndexPreferred(),
                 new Metric("*"), facetEntry -> new Metric(facetEntry.getName()));
     }
 
     @Override
-    public void addEntities(Stream<TimeSeries> timeSeriesStream, boolean addEntities) throws RepositoryException {
+    public DimensionFacets getDimensionFacets(MetricQuery query, EkgSchemaField... dimensions)
+            throws RepositoryException {
 
-        if (timeSeriesStream == null) {
-            return;
+        DimensionFacets dimensionFacets = new DimensionFacets();
+        if (dimensions.length == 0) {
+            return dimensionFacets;
         }
 
-        repositoryClient.add(timeSeriesStream.map(timeSeries -> {
+        for (EkgSchemaField dimension : dimensions) {
+            if (!FILTER_DIMENSIONS.contains(dimension)) {
+                throw new IllegalArgumentException("The field " + dimension.getName() + " isn't a filter dimension");
+            }
+        }
 
-            BinaryTimeSeries binaryTimeSeries = new BinaryTimeSeries();
+        QueryFilterParams queryParams = query.getQueryParams();
 
-            // physical metric filter attributes
-            binaryTimeSeries.setHost(timeSeries.getHost());
-            binaryTimeSeries.setHostGroup(timeSeries.getHostGroup());
+        List<Expression> staticFilters = new ArrayList<>();
+        populateStaticFilter(staticFilters, queryParams);
+        staticFilters.add(createAggregationLevelFilter(null));
+        Map<EkgSchemaField, Expression> dimensionFilters = createDimensionFilters(queryParams);
 
-            // logical metric filter attributes
-            binaryTimeSeries.setNamespace(timeSeries.getNamespace());
-            binaryTimeSeries.setService(timeSeries.getService());
-            binaryTimeSeries.setPod(timeSeries.getPod());
-            binaryTimeSeries.setContainer(timeSeries.getContainer());
+        // the filters of the dimensions are excluded from their own facet by the repository
+        FacetParams facetParams = createFacetParams(queryParams)
+                .withFacetFields(dimensions)
+                .withFilterQueries(and(staticFilters.toArray(new Expression[0])));
+        dimensionFilters.forEach(facetParams::withDimensionFilter);
 
-            // common metric filter attributes
-            binaryTimeSeries.setMeasurement(timeSeries.getMeasurement());
-            binaryTimeSeries.setProcess(timeSeries.getProcess());
-            binaryTimeSeries.setMetric(timeSeries.getMetricName());
-            binaryTimeSeries.setMetricGroup(timeSeries.getMetricGroup());
-            binaryTimeSeries.setStart(timeSeries.getStartDate());
-            binaryTimeSeries.setEnd(timeSeries.getEndDate());
-            binaryTimeSeries.setProjectName(timeSeries.getProject());
+        List<Facet> facets;
+        try {
+            facets = loadFacets(queryParams.getProjectName(), facetParams);
+
+        } catch (UnsupportedOperationException ex) {
+            // without dimension filters each facet is queried on its own without the filter of its dimension
+            facets = new ArrayList<>(dimensions.length);
+            for (EkgSchemaField dimension : dimensions) {
+                List<Expression> andExpressions = new ArrayList<>(staticFilters);
+                dimensionFilters.forEach((field, filter) -> {
+                    if (field != dimension) {
+                        andExpressions.add(filter);
+                    }
+                });
 
-            // other
-            binaryTimeSeries.setRemoteSeriesKey(timeSeries.getRemoteSeriesKey());
-            binaryTimeSeries.setData(DateValuePairMapper.compressAndEncodeDataPlainBytes(timeSeries.getValues()));
+                facets.addAll(loadFacets(queryParams.getProjectName(), createFacetParams(queryParams)
+                        .withFacetFields(dimension)
+                        .withFilterQueries(and(andExpressions.toArray(new Expression[0])))));
+            }
+        }
 
-            return binaryTimeSeries;
+        for (Facet facet : facets) {
+            for (EkgSchemaField dimension : dimensions) {
+                if (dimension.getName().equals(facet.getName())) {
+                    dimensionFacets.setFacet(dimension, convertDimensionFacet(dimension, facet));
+                }
+            }
+        }
 
-        }).iterator());
+        return dimensionFacets;
     }
 
     @Override
-    public void commitOrRollback() {
-        try {
-            repositoryClient.commit();
-        } catch (RepositoryException e) {
-            throw new IllegalStateException(e);
-        }
-    }
+    public void addEntities(Stream<TimeSeries> timeSeriesStream, boolean addEntities) throws RepositoryException {
+
+        if (timeSeriesStream == null) {
+            return;
+        }
+
+        awaitMigration();
+
+        repositoryClient.add(timeSeriesStream
+                .peek(timeSeries -> {
+                    if (timeSeries.getProject() != null) {
+                        changedProjects.add(timeSeries.getProject());
+                    }
+                })
+                .flatMap(timeSeries -> BinaryTimeSeriesMapper.mapToRecords(timeSeries,
+                        BinaryTimeSeriesMapper.DEFAULT_CHUNK_INTERVAL, EnumSet.allOf(RollupLevel.class)).stream())
+                .iterator());
+    }
+
+    @Override
+    public void commitOrRollback() {
+        try {
+            repositoryClient.commit();
+        } catch (RepositoryException e) {
+            throw new IllegalStateException(e);
+        }
+
+        // caches of the changed projects can drop their data as soon as the new series are visible
+        for (String projectName : changedProjects) {
+            changedProjects.remove(projectName);
+            updateSeriesStatistics(projectName);
+            publishSeriesDataChanged(projectName);
+        }
+    }
 
     /**
      * Initialize this services with a repository client that should used.
@@ -338,46 +956,368 @@ public class MetricDataAccessServiceImpl implements MetricDataAccessService {
      */
     public void initializeService(RepositoryClient client) {
         this.repositoryClient = client;
+
+        // imports and deletions of other services make the cached facets of these projects outdated
+        if (eventBus != null) {
+            eventBus.subscribe(SeriesDataChangedEvent.class, event -> {
+                String projectName = ((SeriesDataChangedEvent) event).getProjectName();
+                invalidateProject(projectName);
+
+                // other services don't maintain the counts of the project, they are aggregated again on next use
+                if (!(event.getSource() instanceof MetricDataAccessService)) {
+                    clearSeriesStatistics(projectName);
+                }
+                return true;
+            });
+        }
     }
 
     /* ======================================== private helper ============================================= */
 
+    private void publishSeriesDataChanged(String projectName) {
+        invalidateProject(projectName);
+
+        if (eventBus != null) {
+            eventBus.publish(new SeriesDataChangedEvent(this, projectName));
+        }
+    }
+
+    private ProjectDataAccessService getProjectDataAccess() {
+        if (projectDataAccess == null) {
+            projectDataAccess = ServiceDiscovery.lookup(ProjectDataAccessService.class, repositoryClient);
+        }
+
+        return projectDataAccess;
+    }
+
+    /**
+     * Counts the values and series of a project that was created before the counts were maintained
+     * and stores them in the document of the project, so they are aggregated only once.
+     *
+     * @return the amount of values of the project
+     */
+    private long initializeSeriesStatistics(String projectName) throws RepositoryException {
+        List<Expression> filterQueries = List.of(
+                exactFilter(DOC_TYPE, DocumentType.TIME_SERIES.toString()),
+                exactFilter(PROJECT_NAME, projectName),
+                createAggregationLevelFilter(null));
+
+        StatsFacetResult result;
+        try {
+            result = repositoryClient.statsFacet(new StatsFacetParams()
+                    .withFilterQueries(filterQueries)
+                    .withStat(STAT_VALUES, StatsFunction.SUM, TS_DATA_AMOUNT_VALUES)
+                    .withStat(STAT_SERIES, StatsFunction.UNIQUE, TS_GROUP_KEY_HASH)
+                    .withStat(STAT_HASHED, StatsFunction.COUNT, TS_GROUP_KEY_HASH));
+        } catch (UnsupportedOperationException e) {
+            // without stats facets the series can't be counted, so the values are summed up on each call
+            return repositoryClient.sumFieldValue(TS_DATA_AMOUNT_VALUES, filterQueries);
+        }
+
+        long values = getLongStat(result.getTotal(), STAT_VALUES);
+        long series = getSeriesCount(result.getTotal(), result.getTotal().getCount());
+        getProjectDataAccess().setSeriesStatistics(projectName, values, series);
+
+        return values;
+    }
+
+    /**
+     * Counts the values and series of a project with maintained counts again after series were imported.
+     * Re-imported series have the group key hash of an existing series, so they can't simply be added
+     * to the stored counts. If the counting fails, the counts are cleared and aggregated again on next use.
+     */
+    private void updateSeriesStatistics(String projectName) {
+        try {
+            Project project = getProjectDataAccess().getProject(projectName);
+            if (project != null && project.hasSeriesStatistics()) {
+                initializeSeriesStatistics(projectName);
+            }
+        } catch (RepositoryException | IllegalStateException ex) {
+            LOGGER.error("Exception raised while counting the series of the project " + projectName, ex);
+            clearSeriesStatistics(projectName);
+        }
+    }
+
+    private void clearSeriesStatistics(String projectName) {
+        try {
+            getProjectDataAccess().clearSeriesStatistics(projectName);
+        } catch (IllegalStateException ex) {
+            LOGGER.error("Exception raised while clearing the counts of the project " + projectName, ex);
+        }
+    }
+
     private <T> List<T> queryFacets(QueryFilterParams queryParams, EkgSchemaField facetField,
-                                    T wildCardEntry, Function<FacetEntry, T> converter) {
+                                    boolean dimensionIndexPreferred, T wildCardEntry,
+                                    Function<FacetEntry, T> converter) {
+
+        if (dimensionIndexPreferred) {
+            List<FacetEntry> entries = queryDimensionIndex(queryParams, facetField);
+
+            // like the repository the index returns the facet even without entries
+            if (entries != null) {
+                return convertFacets(List.of(new Facet(facetField.getName(), entries)), wildCardEntry, converter);
+            }
+        }
+
+        FacetParams facetParams = createFacetParams(queryParams).withFacetFields(facetField);
+
+        List<Expression> andExpressions = new ArrayList<>();
+        populateFilter(andExpressions, queryParams);
+        andExpressions.add(createAggregationLevelFilter(null));
+        facetParams.withFilterQueries(and(andExpressions.toArray(new Expression[0])));
+
+        return convertFacets(fetchFacets(queryParams.getProjectName(), facetParams), wildCardEntry, converter);
+    }
+
+    /**
+     * Blocks until the records of older formats are migrated, so the migration won't write
+     * back records of deleted or replaced series.
+     */
+    private void awaitMigration() throws RepositoryException {
+        if (migrationService == null) {
+            return;
+        }
 
         try {
-            FacetParams facetParams = new FacetParams()
-                    .withLimit(2500)
-                    .withMinCount(1)
-                    .withSort(queryParams.getFacetSort())
-                    .withFacetFields(facetField);
+            migrationService.awaitMigration();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RepositoryException("Interrupted while waiting for the migration of the time series", e);
+        }
+    }
+
+    private void invalidateProject(String projectName) {
+        // the generation of the facet cache is incremented first, so concurrent loads of the tree are detected
+        facetCache.invalidateProject(projectName);
+        dimensionIndexes.remove(projectName);
 
-            List<Expression> andExpressions = new ArrayList<>();
-            populateFilter(andExpressions, queryParams);
-            facetParams.withFilterQueries(and(andExpressions.toArray(new Expression[0])));
+        // the remote series of a changed or deleted split source project may be outdated as well
+        REMOTE_SERIES_CACHE.invalidateProject(projectName);
+    }
 
-            List<Facet> facets = repositoryClient.facet(facetParams).getFacets();
+    /**
+     * Serves the facet of the given dimension from the dimension tree of the project.
+     *
+     * @return the facet entries or null if the query can't be served from the tree
+     */
+    private List<FacetEntry> queryDimensionIndex(QueryFilterParams queryParams, EkgSchemaField facetField) {
 
-            List<T> resultList = new ArrayList<>(facets.size() + 1);
-            if (facets.size() > 0) {
-                resultList.add(0, wildCardEntry);
+        // the tree doesn't know the time range of the series
+        if (StringUtils.isBlank(queryParams.getProjectName()) || queryParams.getStart() > 0
+                || queryParams.getEnd() > 0 || StringUtils.isNotBlank(queryParams.getExcludeMetricName())) {
+            return null;
+        }
+
+        Map<EkgSchemaField, String> exactFilters = createExactDimensionFilters(queryParams);
+        if (exactFilters == null) {
+            return null;
+        }
+
+        FilterDimensionIndex index = getDimensionIndex(queryParams.getProjectName());
+        if (index == null) {
+            return null;
+        }
+
+        return index.getFacetEntries(facetField, exactFilters, queryParams.getFacetSort(), FACET_LIMIT);
+    }
+
+    private FilterDimensionIndex getDimensionIndex(String projectName) {
+        Optional<FilterDimensionIndex> index = dimensionIndexes.get(projectName);
+
+        if (index == null) {
+            long generation = facetCache.getGeneration();
+
+            try {
+                index = Optional.ofNullable(loadDimensionIndex(projectName));
+            } catch (UnsupportedOperationException ex) {
+                // the repository can't pivot, so the facets are queried until the project changes
+                LOGGER.warn("The repository doesn't support the dimension tree of project {}, its facets will be queried: {}",
+                        projectName, ex.getMessage());
+                index = Optional.empty();
+            } catch (RepositoryException ex) {
+                LOGGER.error("Error occurred during querying the dimension tree of project " + projectName, ex);
+                return null;
             }
 
-            for (Facet facet : facets) {
-                for (FacetEntry facetEntry : facet.getEntries()) {
-                    resultList.add(converter.apply(facetEntry));
-                }
+            // drop the tree again if the series of a project changed while it was loaded
+            dimensionIndexes.put(projectName, index);
+            if (generation != facetCache.getGeneration()) {
+                dimensionIndexes.remove(projectName);
             }
+        }
+
+        return index.orElse(null);
+    }
+
+    private FilterDimensionIndex loadDimensionIndex(String projectName) throws RepositoryException {
+        EkgSchemaField[] levels = DIMENSION_INDEX_LEVELS.toArray(new EkgSchemaField[0]);
+
+        FacetParams facetParams = new FacetParams()
+                .withFilterQueries(and(exactFilter(DOC_TYPE, DocumentType.TIME_SERIES.toString()),
+                        exactFilter(PROJECT_NAME, projectName), createAggregationLevelFilter(null)))
+                .withPivotFields(levels)
+                .withFacetMissing(levels)
+                .withLimit(-1)
+                .withMinCount(1);
+
+        List<PivotFacetEntry> roots = repositoryClient.facet(facetParams).getPivotEntries();
+
+        long entries = countPivotEntries(roots);
+        if (entries > MAX_DIMENSION_INDEX_ENTRIES) {
+            LOGGER.info("The dimension tree of project {} has {} nodes, its facets will be queried", projectName, entries);
+            return null;
+        }
+
+        return new FilterDimensionIndex(DIMENSION_INDEX_LEVELS, roots);
+    }
+
+    private static long countPivotEntries(List<PivotFacetEntry> entries) {
+        long count = entries.size();
+        for (PivotFacetEntry entry : entries) {
+            count += countPivotEntries(entry.getChildren());
+        }
+        return count;
+    }
+
+    /**
+     * Creates the exact values of the filter dimensions that are restricted by the given query params.
+     *
+     * @return the values or null if a dimension is restricted by wildcards, negations or disjunctions
+     */
+    private static Map<EkgSchemaField, String> createExactDimensionFilters(QueryFilterParams queryParams) {
+        Map<EkgSchemaField, String> exactFilters = new EnumMap<>(EkgSchemaField.class);
+
+        boolean exact = putExactFilter(exactFilters, TS_HOST_GROUP_NAME, queryParams.getHostGroup())
+                && putExactFilter(exactFilters, TS_HOST_NAME, queryParams.getHost())
+                && putExactFilter(exactFilters, TS_NAMESPACE_NAME, queryParams.getNamespace())
+                && putExactFilter(exactFilters, TS_SERVICE_NAME, queryParams.getService())
+                && putExactFilter(exactFilters, TS_POD_NAME, queryParams.getPod())
+                && putExactFilter(exactFilters, TS_CONTAINER_NAME, queryParams.getContainer())
+                && putExactFilter(exactFilters, TS_PROCESS_NAME, queryParams.getProcess())
+                && putExactFilter(exactFilters, TS_MEASUREMENT, queryParams.getMeasurement())
+                && putExactFilter(exactFilters, TS_METRIC_GROUP, queryParams.getMetricGroup());
+
+        // same precedence of the metric name and the metric list as in createDimensionFilters
+        List<String> metricNames = queryParams.getMetricNames();
+        if (StringUtils.isNotBlank(queryParams.getMetricName())) {
+            exact = exact && putExactFilter(exactFilters, TS_METRIC_NAME, queryParams.getMetric());
+
+        } else if (metricNames.size() > 1) {
+            exact = false;
 
-            return resultList;
+        } else if (metricNames.size() == 1) {
+            exact = exact && putExactFilter(exactFilters, TS_METRIC_NAME, metricNames.get(0));
+        }
+
+        return exact ? exactFilters : null;
+    }
+
+    private static boolean putExactFilter(Map<EkgSchemaField, String> exactFilters, EkgSchemaField field,
+                                          NamedValueEntity entity) {
+        return entity == null || putExactFilter(exactFilters, field, entity.getValueName());
+    }
+
+    private static boolean putExactFilter(Map<EkgSchemaField, String> exactFilters, EkgSchemaField field,
+                                          String value) {
+
+        if (StringUtils.isBlank(value) || "*".equals(value)) {
+            return true;
+        }
+
+        // see addWildcardExpressionIfNotNull for the supported filter syntax
+        if (StringUtils.containsAny(value, '*', '?', '|') || (value.startsWith("-(") && value.endsWith(")"))) {
+            return false;
+        }
+
+        exactFilters.put(field, value);
+        return true;
+    }
+
+    private static long getLongStat(StatsFacetEntry entry, String statName) {
+        Double value = entry.getStat(statName);
+        return value == null ? 0 : value.longValue();
+    }
+
+    private static FacetParams createFacetParams(QueryFilterParams queryParams) {
+        return new FacetParams()
+                .withLimit(FACET_LIMIT)
+                .withMinCount(1)
+                .withSort(queryParams.getFacetSort());
+    }
 
+    private List<Facet> fetchFacets(String projectName, FacetParams facetParams) {
 
+        try {
+            return loadFacets(projectName, facetParams);
         } catch (RepositoryException ex) {
             LOGGER.error("Error occurred during querying the facets from types.", ex);
             return Collections.emptyList();
         }
     }
 
+    private List<Facet> loadFacets(String projectName, FacetParams facetParams) throws RepositoryException {
+        List<Facet> facets = facetCache.get(projectName, facetParams);
+
+        if (facets == null) {
+            long generation = facetCache.getGeneration();
+            facets = repositoryClient.facet(facetParams).getFacets();
+            facetCache.put(projectName, facetParams, facets, generation);
+        }
+
+        return facets;
+    }
+
+    private static <T> List<T> convertFacets(List<Facet> facets, T wildCardEntry, Function<FacetEntry, T> converter) {
+
+        List<T> resultList = new ArrayList<>(facets.size() + 1);
+        if (facets.size() > 0) {
+            resultList.add(0, wildCardEntry);
+        }
+
+        for (Facet facet : facets) {
+            for (FacetEntry facetEntry : facet.getEntries()) {
+                resultList.add(converter.apply(facetEntry));
+            }
+        }
+
+        return resultList;
+    }
+
+    private static List<? extends NamedValueEntity> convertDimensionFacet(EkgSchemaField dimension, Facet facet) {
+        List<Facet> facets = Collections.singletonList(facet);
+
+        switch (dimension) {
+            case TS_HOST_GROUP_NAME:
+                return convertFacets(facets, new HostGroup("*"), facetEntry -> new HostGroup(facetEntry.getName()));
+            case TS_HOST_NAME:
+                return convertFacets(facets, new Host("*"), facetEntry -> new Host(facetEntry.getName()));
+            case TS_NAMESPACE_NAME:
+                return convertFacets(facets, new Namespace("*"), facetEntry -> new Namespace(facetEntry.getName()));
+            case TS_SERVICE_NAME:
+                return convertFacets(facets, new Service("*"), facetEntry -> new Service(facetEntry.getName()));
+            case TS_POD_NAME:
+                return convertFacets(facets, new Pod("*"), facetEntry -> new Pod(facetEntry.getName()));
+            case TS_CONTAINER_NAME:
+                return convertFacets(facets, new Container("*"), facetEntry -> new Container(facetEntry.getName()));
+            case TS_MEASUREMENT:
+                return convertFacets(facets, new Measurement("*"), facetEntry -> new Measurement(facetEntry.getName()));
+            case TS_PROCESS_NAME:
+                return convertFacets(facets, new Process("*", "all"),
+                        facetEntry -> new Process(facetEntry.getName(), facetEntry.getName()));
+            case TS_METRIC_GROUP:
+                return convertFacets(facets, new MetricGroup("*"), facetEntry -> new MetricGroup(facetEntry.getName()));
+            case TS_METRIC_NAME:
+                return convertFacets(facets, new Metric("*"), facetEntry -> new Metric(facetEntry.getName()));
+            default:
+                throw new IllegalArgumentException("The field " + dimension.getName() + " isn't a filter dimension");
+        }
+    }
+
+    /**
+     * Maps the meta data of the record to a time series of the public API. The dimension values of
+     * searched and exported records are interned by the {@link RepositoryClient#getDimensionDictionary()
+     * dictionary} of the repository client, so all series of a query share the same string instances.
+     */
     private TimeSeries mapToTimeSeries(BinaryTimeSeries timeSeriesEntity) {
         TimeSeries timeSeries = new TimeSeries(
                 timeSeriesEntity.getProjectName(),
@@ -401,48 +1341,88 @@ public class MetricDataAccessServiceImpl implements MetricDataAccessService {
         return timeSeries;
     }
 
+    /**
+     * Creates the filter that matches the records of the given rollup level
+     * or the raw series records (that has no aggregation level) if null is given.
+     */
+    private static Expression createAggregationLevelFilter(RollupLevel level) {
+        if (level == null) {
+            return not(wildcardFilter(TS_AGGREGATION_LEVEL, "*"));
+        }
+
+        return exactFilter(TS_AGGREGATION_LEVEL, level.getAggregationLevel());
+    }
+
     private void populateFilter(List<Expression> andExpressions, QueryFilterParams queryParams) {
+        populateStaticFilter(andExpressions, queryParams);
+        andExpressions.addAll(createDimensionFilters(queryParams).values());
+    }
+
+    /**
+     * Adds the filters that don't belong to a filter dimension and must always match.
+     */
+    private void populateStaticFilter(List<Expression> andExpressions, QueryFilterParams queryParams) {
 
         // static parts that must always match
         andExpressions.add(exactFilter(DOC_TYPE, DocumentType.TIME_SERIES.toString()));
         andExpressions.add(exactFilter(PROJECT_NAME, queryParams.getProjectName()));
 
-        // the facet filter for the different dimensions
-        addWildcardExpressionIfNotNull(andExpressions, TS_HOST_GROUP_NAME, queryParams.getHostGroup());
-        addWildcardExpressionIfNotNull(andExpressions, TS_HOST_NAME, queryParams.getHost());
-        addWildcardExpressionIfNotNull(andExpressions, TS_NAMESPACE_NAME, queryParams.getNamespace());
-        addWildcardExpressionIfNotNull(andExpressions, TS_SERVICE_NAME, queryParams.getService());
-        addWildcardExpressionIfNotNull(andExpressions, TS_POD_NAME, queryParams.getPod());
-        addWildcardExpressionIfNotNull(andExpressions, TS_CONTAINER_NAME, queryParams.getContainer());
-        addWildcardExpressionIfNotNull(andExpressions, TS_PROCESS_NAME, queryParams.getProcess());
-        addWildcardExpressionIfNotNull(andExpressions, TS_MEASUREMENT, queryParams.getMeasurement());
-        addWildcardExpressionIfNotNull(andExpressions, TS_METRIC_GROUP, queryParams.getMetricGroup());
-
         if (StringUtils.isNotBlank(queryParams.getExcludeMetricName())) {
             andExpressions.add(ExprFactory.not(wildcardFilter(TS_METRIC_NAME, queryParams.getExcludeMetricName())));
         }
 
+        // last but not least the filter for the requested time interval
+        if (queryParams.getStart() > 0) {
+            andExpressions.add(dateTimeRangeFilter(TS_STOP, Instant.ofEpochMilli(queryParams.getStart()).plus(1, ChronoUnit.MINUTES), null));
+        }
+
+        if (queryParams.getEnd() > 0) {
+            andExpressions.add(dateTimeRangeFilter(TS_START, null, Instant.ofEpochMilli(queryParams.getEnd()).minus(1, ChronoUnit.MINUTES)));
+        }
+    }
+
+    /**
+     * Creates the filters of the filter dimensions that are restricted by the given query params.
+     */
+    private Map<EkgSchemaField, Expression> createDimensionFilters(QueryFilterParams queryParams) {
+        Map<EkgSchemaField, Expression> dimensionFilters = new LinkedHashMap<>();
+
+        // the facet filter for the different dimensions
+        putDimensionFilter(dimensionFilters, TS_HOST_GROUP_NAME, queryParams.getHostGroup());
+        putDimensionFilter(dimensionFilters, TS_HOST_NAME, queryParams.getHost());
+        putDimensionFilter(dimensionFilters, TS_NAMESPACE_NAME, queryParams.getNamespace());
+        putDimensionFilter(dimensionFilters, TS_SERVICE_NAME, queryParams.getService());
+        putDimensionFilter(dimensionFilters, TS_POD_NAME, queryParams.getPod());
+        putDimensionFilter(dimensionFilters, TS_CONTAINER_NAME, queryParams.getContainer());
+        putDimensionFilter(dimensionFilters, TS_PROCESS_NAME, queryParams.getProcess());
+        putDimensionFilter(dimensionFilters, TS_MEASUREMENT, queryParams.getMeasurement());
+        putDimensionFilter(dimensionFilters, TS_METRIC_GROUP, queryParams.getMetricGroup());
+
         // special treatment for the metric name that supports multi selection
         List<String> metricNames = queryParams.getMetricNames();
         if (StringUtils.isNotBlank(queryParams.getMetricName())) {
-            addWildcardExpressionIfNotNull(andExpressions, TS_METRIC_NAME, queryParams.getMetric());
+            putDimensionFilter(dimensionFilters, TS_METRIC_NAME, queryParams.getMetric());
 
         } else if (metricNames.size() > 1) {
             List<Expression> orExpressions = new ArrayList<>(metricNames.size());
             metricNames.forEach(name -> orExpressions.add(wildcardFilter(TS_METRIC_NAME, name)));
-            andExpressions.add(or(orExpressions.toArray(new Expression[0])));
+            dimensionFilters.put(TS_METRIC_NAME, or(orExpressions.toArray(new Expression[0])));
 
         } else if (metricNames.size() == 1) {
-            andExpressions.add(wildcardFilter(TS_METRIC_NAME, metricNames.get(0)));
+            dimensionFilters.put(TS_METRIC_NAME, wildcardFilter(TS_METRIC_NAME, metricNames.get(0)));
         }
 
-        // last but not least the filter for the requested time interval
-        if (queryParams.getStart() > 0) {
-            andExpressions.add(dateTimeRangeFilter(TS_STOP, Instant.ofEpochMilli(queryParams.getStart()).plus(1, ChronoUnit.MINUTES), null));
-        }
+        return dimensionFilters;
+    }
 
-        if (queryParams.getEnd() > 0) {
-            andExpressions.add(dateTimeRangeFilter(TS_START, null, Instant.ofEpochMilli(queryParams.getEnd()).minus(1, ChronoUnit.MINUTES)));
+    private void putDimensionFilter(Map<EkgSchemaField, Expression> dimensionFilters, EkgSchemaField field,
+                                    NamedValueEntity entity) {
+
+        List<Expression> expressions = new ArrayList<>(1);
+        addWildcardExpressionIfNotNull(expressions, field, entity);
+
+        if (!expressions.isEmpty()) {
+            dimensionFilters.put(field, expressions.get(0));
         }
     }
 
@@ -487,6 +1467,10 @@ public class MetricDataAccessServiceImpl implements MetricDataAccessService {
                 return fetcher;
             }
 
+            if (fetcherRegistry == null) {
+                fetcherRegistry = EkgLookup.lookup(SeriesDataFetcherRegistry.class);
+            }
+
             fetcher = fetcherRegistry.retrieveSeriesDataFetcher(project.getImporterId());
             if (fetcher == null) {
                 throw new IllegalStateException("Unable to retrieve fetcher for importerId '"
@@ -504,26 +1488,256 @@ public class MetricDataAccessServiceImpl implements MetricDataAccessService {
     }
 
     /**
-     * Checks if a timestamp is inside a given interval.
+     * Returns the first timestamp (inclusive) that is inside of an interval with the given begin.
+     *
+     * @param begin the exclusive begin of the interval or a negative value for no lower bound
+     * @return the first timestamp that is inside of the interval
+     */
+    private static long firstTimestampOf(long begin) {
+        return begin < 0 ? Long.MIN_VALUE : begin + 1;
+    }
+
+    /**
+     * Returns the last timestamp (inclusive) that is inside of an interval with the given end.
+     *
+     * @param end the exclusive end of the interval or a value <= 0 for no upper bound
+     * @return the last timestamp that is inside of the interval
+     */
+    private static long lastTimestampOf(long end) {
+        return end > 0 ? end - 1 : Long.MAX_VALUE;
+    }
+
+    /**
+     * Returns the start of the last rollup bucket that lies completely inside of an interval with the given end.
      *
-     * @param timestamp the timestamp.
-     * @param begin     the begin - if null only the end will be checked
-     * @param end       @return
+     * @param end the exclusive end of the interval or a value <= 0 for no upper bound
+     * @param level the level of the rollup buckets
+     * @return the last bucket start that is inside of the interval
      */
-    private static boolean insideInterval(long timestamp, long begin, long end) {
+    private static long lastBucketStartOf(long end, RollupLevel level) {
+        return end > 0 ? end - level.getBucketSize() : Long.MAX_VALUE;
+    }
+
+    /**
+     * Creates the thread pool used to decode the series payloads. The pool has a fixed amount of daemon
+     * threads and a bounded queue. If the queue is full, the submitting thread decodes the record itself.
+     * <p>
+     * The amount of threads can be set via the system property {@value #PROP_DECODE_THREADS}.
+     */
+    private static ExecutorService createDecodeExecutor() {
+        int threads = TuningProperties.getInt(PROP_DECODE_THREADS, Runtime.getRuntime().availableProcessors(),
+                1, MAX_DECODE_THREADS);
+
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(DECODE_QUEUE_CAPACITY),
+                BasicThreadFactory.builder().namingPattern("series-decoder-%d").daemon(true).build(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Counts the distinct series of the records handed over to the consumer. The records arrive in the order of
+     * their group key hash, so a new series starts with each new hash. Records without hash count as series.
+     */
+    private static final class SeriesCounter implements Consumer<ColumnarTimeSeries> {
+
+        private final Consumer<ColumnarTimeSeries> consumer;
 
-        if (begin < 0)  {
-            if (end > 0) {
-                return timestamp < end;
+        private Integer currentHash;
+
+        private long seriesCount;
+
+        private SeriesCounter(Consumer<ColumnarTimeSeries> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void accept(ColumnarTimeSeries timeSeries) {
+            Integer groupKeyHash = timeSeries.getGroupKeyHash();
+
+            if (groupKeyHash == null || !groupKeyHash.equals(currentHash)) {
+                seriesCount++;
+                currentHash = groupKeyHash;
             }
-        } else {
-            if (end > 0) {
-                return begin < timestamp && timestamp < end;
-            } else {
-                return begin < timestamp;
+
+            consumer.accept(timeSeries);
+        }
+
+        private long getSeriesCount() {
+            return seriesCount;
+        }
+    }
+
+    /**
+     * Source of the series records that are read batch by batch by a {@link RecordBatchReader}.
+     */
+    private interface RecordBatchSource extends AutoCloseable {
+
+        /**
+         * Reads the next batch of records including their payloads.
+         *
+         * @return the next batch or an empty list if all records are read
+         * @throws RepositoryException if the records couldn't be read
+         */
+        List<BinaryTimeSeries> nextBatch() throws RepositoryException;
+
+        @Override
+        void close();
+    }
+
+    /**
+     * Reads the records page by page using a cursor.
+     */
+    private final class CursorBatchSource implements RecordBatchSource {
+
+        private final SearchParams searchParams;
+
+        private String cursorId = TimeSeriesQuery.INITIAL_CURSOR_ID;
+
+        private CursorBatchSource(TimeSeriesQuery query) {
+            this.searchParams = new SearchParams()
+                    .withFilterQueries(createSeriesFilter(query).toArray(new Expression[0]))
+                    .withSortFields(SERIES_SORT_FIELDS)
+                    .withMaxRows(RECORD_BATCH_SIZE);
+        }
+
+        @Override
+        public List<BinaryTimeSeries> nextBatch() throws RepositoryException {
+            if (cursorId == null) {
+                return Collections.emptyList();
             }
+
+            SearchResult<BinaryTimeSeries> searchResult =
+                    repositoryClient.search(BinaryTimeSeries.class, searchParams.withCursor(cursorId));
+            String nextCursor = searchResult.getQueryStatus().getCursor();
+
+            cursorId = cursorId.equals(nextCursor) ? null : nextCursor;
+
+            return searchResult.getRows();
         }
 
-        return true;
+        @Override
+        public void close() {
+            // nothing to release
+        }
+    }
+
+    /**
+     * Reads the meta data of the records via the export stream and fetches the payloads of each
+     * batch with a single query. The payload can't be exported because it isn't stored column wise.
+     */
+    private final class ExportBatchSource implements RecordBatchSource {
+
+        private final Stream<BinaryTimeSeries> exportStream;
+
+        private final Iterator<BinaryTimeSeries> iterator;
+
+        private ExportBatchSource(TimeSeriesQuery query) throws RepositoryException {
+            ExportParams exportParams = new ExportParams()
+                    .withFilterQueries(createSeriesFilter(query))
+                    .withSortFields(SERIES_SORT_FIELDS)
+                    // the remote key isn't required for series stored in the repository
+                    .withExcludedFields(TS_DATA, TS_REMOTE_SERIES_KEY);
+
+            this.exportStream = repositoryClient.export(BinaryTimeSeries.class, exportParams);
+            this.iterator = exportStream.iterator();
+        }
+
+        @Override
+        public List<BinaryTimeSeries> nextBatch() throws RepositoryException {
+            List<BinaryTimeSeries> batch = new ArrayList<>(EXPORT_BATCH_SIZE);
+
+            // the reader thread is interrupted if the query was cancelled
+            while (batch.size() < EXPORT_BATCH_SIZE && !Thread.currentThread().isInterrupted() && iterator.hasNext()) {
+                batch.add(iterator.next());
+            }
+
+            if (!batch.isEmpty()) {
+                fetchSeriesData(batch);
+            }
+
+            return batch;
+        }
+
+        @Override
+        public void close() {
+            exportStream.close();
+        }
+    }
+
+    /**
+     * Reads the batches of a {@link RecordBatchSource} in a separate thread and provides them via
+     * a bounded queue. The reader blocks if the queue is full, so it will never read far ahead of
+     * the consumer. The end of the source is marked by an empty batch.
+     */
+    private static final class RecordBatchReader implements Runnable {
+
+        private final RecordBatchSource source;
+
+        private final BlockingQueue<List<BinaryTimeSeries>> queue = new ArrayBlockingQueue<>(BATCH_QUEUE_CAPACITY);
+
+        private volatile Exception failure;
+
+        private RecordBatchReader(RecordBatchSource source) {
+            this.source = source;
+        }
+
+        @Override
+        public void run() {
+            try (source) {
+                readBatches();
+            } catch (RepositoryException | RuntimeException e) {
+                failure = e;
+            }
+
+            try {
+                // marks the end of the source (also in error cases)
+                queue.put(Collections.emptyList());
+            } catch (InterruptedException e) {
+                // the consumer stopped reading, nobody waits for the end marker
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void readBatches() throws RepositoryException {
+            try {
+                List<BinaryTimeSeries> batch = source.nextBatch();
+
+                while (!batch.isEmpty() && !Thread.currentThread().isInterrupted()) {
+                    queue.put(batch);
+                    batch = source.nextBatch();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Takes the next batch of records and blocks until it is available or the query was cancelled.
+         *
+         * @param cancellationToken the token of the query
+         * @return the next batch or an empty list at the end of the source or if the query was cancelled
+         * @throws InterruptedException if the calling thread was interrupted while waiting
+         * @throws RepositoryException  if the records couldn't be read
+         */
+        private List<BinaryTimeSeries> takeBatch(CancellationToken cancellationToken)
+                throws InterruptedException, RepositoryException {
+
+            List<BinaryTimeSeries> batch = queue.poll(BATCH_POLL_INTERVAL, TimeUnit.MILLISECONDS);
+
+            // a cancelled reader may stop without the end marker, so the consumer doesn't rely on it
+            while (batch == null) {
+                if (cancellationToken.isCancelled()) {
+                    return Collections.emptyList();
+                }
+
+                batch = queue.poll(BATCH_POLL_INTERVAL, TimeUnit.MILLISECONDS);
+            }
+
+            if (batch.isEmpty() && failure != null) {
+                throw new RepositoryException("Exception raised while reading time series.", failure);
+            }
+
+            return batch;
+        }
     }
 }
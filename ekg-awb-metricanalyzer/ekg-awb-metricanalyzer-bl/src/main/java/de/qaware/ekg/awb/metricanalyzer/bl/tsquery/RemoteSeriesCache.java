@@ -0,0 +1,479 @@
+package de.qaware.ekg.awb.metricanalyzer.bl.tsquery;
+
+import de.qaware.ekg.awb.sdk.datamodel.Value;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache of the series values fetched from the remote data sources of split source projects, so repeated
+ * charts of these projects don't download the same series again.
+ * <p>
+ * Each series is cached with the continuous time range it was fetched for. A query of a range inside of
+ * it is answered from the cache, a query of an overlapping or adjacent range only has to fetch the missing
+ * edges, which extend the cached range afterwards. The cache is bounded by the amount of cached values and
+ * evicts the least recently used series first. Cached series expire after a time to live, because the
+ * remote data sources may receive new values. The series of a project are dropped as soon as the project
+ * is changed or deleted (see {@link #invalidateProject(String)}).
+ * <p>
+ * The time ranges have the semantic of the query parameters: the begin and the end are exclusive, a
+ * negative begin and an end <= 0 mean no bound. The maximum amount of values and the time to live can
+ * be set via the system properties {@value #PROP_MAX_VALUES} and {@value #PROP_TTL} (in milliseconds).
+ * <p>
+ * The class is thread safe.
+ */
+public class RemoteSeriesCache {
+
+    /**
+     * System property to set the maximum amount of cached values
+     */
+    static final String PROP_MAX_VALUES = "ekg.metricanalyzer.remoteCacheMaxValues";
+
+    /**
+     * System property to set the time to live of the cached series in milliseconds
+     */
+    static final String PROP_TTL = "ekg.metricanalyzer.remoteCacheTtl";
+
+    /**
+     * The default maximum amount of values, each one takes 16 bytes in the columns of an entry
+     */
+    private static final long DEFAULT_MAX_VALUES = 2_000_000;
+
+    private static final long MAX_VALUES = 100_000_000;
+
+    private static final long DEFAULT_TTL = 10 * 60 * 1000;
+
+    private static final long MAX_TTL = 24 * 60 * 60 * 1000;
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final long maxValues;
+
+    private final long ttl;
+
+    private final LongSupplier clock;
+
+    private long cachedValues;
+
+    /**
+     * Constructs a new cache.
+     *
+     * @param maxValues the maximum amount of values of all cached series
+     * @param ttl the time in milliseconds a fetched series is served from the cache
+     */
+    public RemoteSeriesCache(long maxValues, long ttl) {
+        this(maxValues, ttl, System::currentTimeMillis);
+    }
+
+    RemoteSeriesCache(long maxValues, long ttl, LongSupplier clock) {
+        this.maxValues = maxValues;
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    /**
+     * Creates a cache with the bounds set via the system properties.
+     *
+     * @return the new cache
+     */
+    public static RemoteSeriesCache create() {
+        return new RemoteSeriesCache(
+                TuningProperties.getLong(PROP_MAX_VALUES, DEFAULT_MAX_VALUES, 0, MAX_VALUES),
+                TuningProperties.getLong(PROP_TTL, DEFAULT_TTL, 0, MAX_TTL));
+    }
+
+    /**
+     * Looks up the values of a series in the given time range.
+     *
+     * @param projectName the name of the project of the series
+     * @param source the remote data source of the series
+     * @param seriesKey the remote key of the series
+     * @param begin the begin of the time range
+     * @param end the end of the time range
+     * @return the cached values in the range and the ranges that have to be fetched to complete them
+     */
+    public synchronized Lookup lookup(String projectName, Object source, String seriesKey, long begin, long end) {
+        long first = firstTimestampOf(begin);
+        long last = lastTimestampOf(end);
+
+        Key key = new Key(projectName, source, seriesKey);
+        Entry entry = entries.get(key);
+
+        if (entry != null && entry.isExpired()) {
+            remove(key);
+            entry = null;
+        }
+
+        // the bounds of the edges would be taken as no bounds if the cached range starts or ends before 1970
+        if (entry == null || !entry.isConnected(first, last)
+                || (first < entry.first && entry.first <= 0) || (last > entry.last && entry.last < 0)) {
+            return new Lookup(new Value[0], List.of(new TimeRange(begin, end)));
+        }
+
+        List<TimeRange> missingRanges = new ArrayList<>(2);
+
+        if (first < entry.first) {
+            missingRanges.add(new TimeRange(begin, entry.first));
+        }
+
+        if (last > entry.last) {
+            missingRanges.add(new TimeRange(entry.last, end));
+        }
+
+        return new Lookup(entry.slice(first, last), missingRanges);
+    }
+
+    /**
+     * Caches the values of a series fetched for the given time range. If the range overlaps or adjoins
+     * the cached range of the series, the values are added to the cached ones.
+     *
+     * @param projectName the name of the project of the series
+     * @param source the remote data source of the series
+     * @param seriesKey the remote key of the series
+     * @param begin the begin of the time range the values were fetched for
+     * @param end the end of the time range the values were fetched for
+     * @param values the fetched values
+     */
+    public synchronized void put(String projectName, Object source, String seriesKey, long begin, long end,
+                                 Value[] values) {
+        long first = firstTimestampOf(begin);
+        long last = lastTimestampOf(end);
+
+        Key key = new Key(projectName, source, seriesKey);
+        Entry entry = remove(key);
+
+        Entry fetched = new Entry(first, last, values, clock.getAsLong());
+
+        if (entry != null && !entry.isExpired() && entry.isConnected(first, last)) {
+            fetched = entry.merge(fetched);
+        }
+
+        if (fetched.size() > maxValues) {
+            return;
+        }
+
+        entries.put(key, fetched);
+        cachedValues += fetched.size();
+
+        // evict the least recently used series until the cache fits again
+        Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+        while (cachedValues > maxValues && iterator.hasNext()) {
+            cachedValues -= iterator.next().getValue().size();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Drops all cached series of the given project, for example because the project was deleted
+     * or its series were imported again.
+     *
+     * @param projectName the name of the project
+     */
+    public synchronized void invalidateProject(String projectName) {
+        Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+
+        while (iterator.hasNext()) {
+            Map.Entry<Key, Entry> entry = iterator.next();
+
+            if (Objects.equals(entry.getKey().projectName, projectName)) {
+                cachedValues -= entry.getValue().size();
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * @return the amount of values of all cached series
+     */
+    public synchronized long getCachedValues() {
+        return cachedValues;
+    }
+
+    private Entry remove(Key key) {
+        Entry entry = entries.remove(key);
+
+        if (entry != null) {
+            cachedValues -= entry.size();
+        }
+
+        return entry;
+    }
+
+    private static long firstTimestampOf(long begin) {
+        return begin < 0 ? Long.MIN_VALUE : begin + 1;
+    }
+
+    private static long lastTimestampOf(long end) {
+        return end > 0 ? end - 1 : Long.MAX_VALUE;
+    }
+
+    /**
+     * A time range with the semantic of the query parameters
+     */
+    public static final class TimeRange {
+
+        private final long begin;
+
+        private final long end;
+
+        /**
+         * @param begin the exclusive begin or a negative value for no lower bound
+         * @param end the exclusive end or a value <= 0 for no upper bound
+         */
+        TimeRange(long begin, long end) {
+            this.begin = begin;
+            this.end = end;
+        }
+
+        public long getBegin() {
+            return begin;
+        }
+
+        public long getEnd() {
+            return end;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof TimeRange)) {
+                return false;
+            }
+
+            TimeRange that = (TimeRange) o;
+            return begin == that.begin && end == that.end;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(begin, end);
+        }
+    }
+
+    /**
+     * The result of a lookup: the cached values in the requested range and the ranges that are missing
+     */
+    public static final class Lookup {
+
+        private final List<Value[]> values = new ArrayList<>(3);
+
+        private final List<TimeRange> missingRanges;
+
+        private Lookup(Value[] cachedValues, List<TimeRange> missingRanges) {
+            this.values.add(cachedValues);
+            this.missingRanges = missingRanges;
+        }
+
+        /**
+         * @return the ranges that have to be fetched from the remote data source
+         */
+        public List<TimeRange> getMissingRanges() {
+            return missingRanges;
+        }
+
+        /**
+         * Adds the values fetched for one of the missing ranges. The remote data sources may return
+         * values outside of the requested range, they are left out like the cached ones outside of it.
+         *
+         * @param range the missing range the values were fetched for
+         * @param fetchedValues the fetched values
+         */
+        public void addFetchedValues(TimeRange range, Value[] fetchedValues) {
+            long first = firstTimestampOf(range.getBegin());
+            long last = lastTimestampOf(range.getEnd());
+
+            values.add(Arrays.stream(fetchedValues)
+                    .filter(value -> value.getTimestamp() >= first && value.getTimestamp() <= last)
+                    .toArray(Value[]::new));
+        }
+
+        /**
+         * @return the cached and fetched values ordered by their timestamps
+         */
+        public Value[] getValues() {
+            if (values.size() == 1) {
+                return values.get(0);
+            }
+
+            return values.stream()
+                    .flatMap(Arrays::stream)
+                    .sorted(Comparator.comparingLong(Value::getTimestamp))
+                    .toArray(Value[]::new);
+        }
+    }
+
+    /**
+     * The cache key, the same series key may be used by different projects and remote data sources
+     */
+    private static final class Key {
+
+        private final String projectName;
+
+        private final Object source;
+
+        private final String seriesKey;
+
+        private Key(String projectName, Object source, String seriesKey) {
+            this.projectName = projectName;
+            this.source = source;
+            this.seriesKey = seriesKey;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            Key that = (Key) o;
+            return Objects.equals(projectName, that.projectName) && Objects.equals(source, that.source)
+                    && Objects.equals(seriesKey, that.seriesKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(projectName, source, seriesKey);
+        }
+    }
+
+    /**
+     * The values of a series in a continuous time range stored column wise
+     */
+    private final class Entry {
+
+        /**
+         * The first and last timestamp of the cached range (both inclusive)
+         */
+        private final long first;
+
+        private final long last;
+
+        private final long[] timestamps;
+
+        private final double[] values;
+
+        /**
+         * The time the oldest values of the entry were fetched
+         */
+        private final long fetchTime;
+
+        private Entry(long first, long last, long[] timestamps, double[] values, long fetchTime) {
+            this.first = first;
+            this.last = last;
+            this.timestamps = timestamps;
+            this.values = values;
+            this.fetchTime = fetchTime;
+        }
+
+        /**
+         * Creates an entry with the given values that are inside of the range, sorted by timestamp.
+         */
+        private Entry(long first, long last, Value[] fetchedValues, long fetchTime) {
+            this.first = first;
+            this.last = last;
+            this.fetchTime = fetchTime;
+
+            Value[] sorted = Arrays.stream(fetchedValues)
+                    .filter(value -> value.getTimestamp() >= first && value.getTimestamp() <= last)
+                    .sorted(Comparator.comparingLong(Value::getTimestamp))
+                    .toArray(Value[]::new);
+
+            this.timestamps = new long[sorted.length];
+            this.values = new double[sorted.length];
+
+            for (int index = 0; index < sorted.length; index++) {
+                timestamps[index] = sorted[index].getTimestamp();
+                values[index] = sorted[index].getValue();
+            }
+        }
+
+        private int size() {
+            return timestamps.length;
+        }
+
+        private boolean isExpired() {
+            return clock.getAsLong() - fetchTime > ttl;
+        }
+
+        /**
+         * @return true if the given range overlaps or adjoins the range of the entry, so both form a continuous range
+         */
+        private boolean isConnected(long otherFirst, long otherLast) {
+            return otherFirst <= Math.max(last, last + 1) && otherLast >= Math.min(first, first - 1);
+        }
+
+        private Value[] slice(long sliceFirst, long sliceLast) {
+            int from = indexOf(sliceFirst);
+            int to = sliceLast == Long.MAX_VALUE ? timestamps.length : indexOf(sliceLast + 1);
+
+            Value[] slice = new Value[Math.max(to - from, 0)];
+            for (int index = 0; index < slice.length; index++) {
+                slice[index] = new Value(timestamps[from + index], values[from + index]);
+            }
+
+            return slice;
+        }
+
+        /**
+         * Merges the entry with a newer one of a connected range, the values of the newer one take precedence.
+         */
+        private Entry merge(Entry newer) {
+            int size = 0;
+            long[] mergedTimestamps = new long[timestamps.length + newer.timestamps.length];
+            double[] mergedValues = new double[mergedTimestamps.length];
+
+            // the own values inside of the newer range are replaced by the newer ones
+            int index = 0;
+            while (index < timestamps.length && timestamps[index] < newer.first) {
+                mergedTimestamps[size] = timestamps[index];
+                mergedValues[size++] = values[index++];
+            }
+
+            System.arraycopy(newer.timestamps, 0, mergedTimestamps, size, newer.timestamps.length);
+            System.arraycopy(newer.values, 0, mergedValues, size, newer.timestamps.length);
+            size += newer.timestamps.length;
+
+            while (index < timestamps.length && timestamps[index] <= newer.last) {
+                index++;
+            }
+
+            while (index < timestamps.length) {
+                mergedTimestamps[size] = timestamps[index];
+                mergedValues[size++] = values[index++];
+            }
+
+            return new Entry(Math.min(first, newer.first), Math.max(last, newer.last),
+                    Arrays.copyOf(mergedTimestamps, size), Arrays.copyOf(mergedValues, size),
+                    Math.min(fetchTime, newer.fetchTime));
+        }
+
+        private int indexOf(long timestamp) {
+            int index = Arrays.binarySearch(timestamps, timestamp);
+
+            if (index < 0) {
+                return -index - 1;
+            }
+
+            // the first of equal timestamps
+            while (index > 0 && timestamps[index - 1] == timestamp) {
+                index--;
+            }
+
+            return index;
+        }
+    }
+}
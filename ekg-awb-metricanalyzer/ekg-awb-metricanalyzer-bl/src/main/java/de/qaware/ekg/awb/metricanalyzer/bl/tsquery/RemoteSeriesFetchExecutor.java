@@ -0,0 +1,278 @@
+package de.qaware.ekg.awb.metricanalyzer.bl.tsquery;
+
+import de.qaware.ekg.awb.repository.api.CancellationToken;
+import de.qaware.ekg.awb.sdk.core.log.EkgLogger;
+import de.qaware.ekg.awb.sdk.datamodel.Value;
+import de.qaware.ekg.awb.sdk.importer.api.RemoteSeriesDataFetcher;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Fetches the payloads of the series of split source projects from their remote data sources in parallel.
+ * <p>
+ * Each fetcher gets its own limit of concurrent requests, which is shared by all queries, so a slow remote
+ * data source can't be flooded with requests. The series of a page are split evenly into one request per
+ * allowed concurrent request, each fetched via
+ * {@link RemoteSeriesDataFetcher#bulkFetchSeriesData(Collection, long, long)}. Fetchers without a bulk request
+ * of their remote data source inherit the default that fetches the series of the request one by one.
+ * Each request has to be answered within the timeout.
+ * <p>
+ * The limit and the timeout can be set via the system properties {@value #PROP_CONCURRENCY} and
+ * {@value #PROP_TIMEOUT} (in milliseconds).
+ */
+public class RemoteSeriesFetchExecutor {
+
+    private static final Logger LOGGER = EkgLogger.get();
+
+    /**
+     * System property to set the maximum amount of concurrent requests per fetcher
+     */
+    static final String PROP_CONCURRENCY = "ekg.metricanalyzer.remoteFetchConcurrency";
+
+    /**
+     * System property to set the timeout of a request in milliseconds
+     */
+    static final String PROP_TIMEOUT = "ekg.metricanalyzer.remoteFetchTimeout";
+
+    private static final int DEFAULT_CONCURRENCY = 4;
+
+    private static final int MAX_CONCURRENCY = 64;
+
+    private static final long DEFAULT_TIMEOUT = 30_000;
+
+    private static final long MIN_TIMEOUT = 100;
+
+    private static final long MAX_TIMEOUT = 60 * 60 * 1000;
+
+    /**
+     * The interval in milliseconds the cancellation is checked while waiting for the remote data sources
+     */
+    private static final long CANCEL_CHECK_INTERVAL = 10;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool(
+            BasicThreadFactory.builder().namingPattern("remote-series-fetcher-%d").daemon(true).build());
+
+    /**
+     * The permits of the concurrent requests per fetcher
+     */
+    private final Map<RemoteSeriesDataFetcher, Semaphore> permits = new ConcurrentHashMap<>();
+
+    private final int concurrency;
+
+    private final long timeout;
+
+    /**
+     * Constructs a new executor.
+     *
+     * @param concurrency the maximum amount of concurrent requests per fetcher
+     * @param timeout the time in milliseconds a request may take at most
+     */
+    public RemoteSeriesFetchExecutor(int concurrency, long timeout) {
+        this.concurrency = Math.max(1, concurrency);
+        this.timeout = timeout;
+    }
+
+    /**
+     * Creates an executor with the limit and timeout set via the system properties.
+     *
+     * @return the new executor
+     */
+    public static RemoteSeriesFetchExecutor create() {
+        return new RemoteSeriesFetchExecutor(
+                TuningProperties.getInt(PROP_CONCURRENCY, DEFAULT_CONCURRENCY, 1, MAX_CONCURRENCY),
+                TuningProperties.getLong(PROP_TIMEOUT, DEFAULT_TIMEOUT, MIN_TIMEOUT, MAX_TIMEOUT));
+    }
+
+    /**
+     * Fetches the values of the given series in the given time range.
+     *
+     * @param fetcher the fetcher of the remote data source
+     * @param seriesKeys the remote keys of the series
+     * @param start the start of the time range
+     * @param end the end of the time range
+     * @param cancellationToken the token that stops the fetching
+     * @return the values by series key or null if a series couldn't be fetched, for example because the remote
+     * data source isn't available or the request timed out. The result is incomplete if the token is cancelled.
+     */
+    public Map<String, Value[]> fetch(RemoteSeriesDataFetcher fetcher, List<String> seriesKeys, long start, long end,
+                                      CancellationToken cancellationToken) {
+
+        if (seriesKeys.isEmpty()) {
+            return new HashMap<>();
+        }
+
+        Semaphore fetcherPermits = permits.computeIfAbsent(fetcher, key -> new Semaphore(concurrency));
+        List<PendingRequest> requests = new ArrayList<>(concurrency);
+
+        try {
+            // the calling thread waits for a permit before each request, so only the allowed amount is running
+            for (List<String> requestKeys : partition(seriesKeys)) {
+                if (!acquire(fetcherPermits, cancellationToken)) {
+                    return cancellationToken.isCancelled() ? new HashMap<>() : null;
+                }
+
+                requests.add(submit(fetcherPermits, () -> fetcher.bulkFetchSeriesData(requestKeys, start, end)));
+            }
+
+            Map<String, Value[]> result = new HashMap<>();
+
+            for (PendingRequest request : requests) {
+                Map<String, Value[]> data = request.await(cancellationToken);
+
+                if (cancellationToken.isCancelled()) {
+                    return result;
+                }
+
+                // the fetchers return null in error cases, for example if the remote repository isn't available
+                if (data == null) {
+                    return null;
+                }
+
+                result.putAll(data);
+            }
+
+            for (String seriesKey : seriesKeys) {
+                if (result.get(seriesKey) == null) {
+                    LOGGER.warn("The remote data source didn't return the series '{}'.", seriesKey);
+                    return null;
+                }
+            }
+
+            return result;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new HashMap<>();
+
+        } finally {
+            // stops the requests that aren't required anymore after a failure or cancellation
+            requests.forEach(request -> request.future.cancel(true));
+        }
+    }
+
+    /**
+     * Splits the series keys evenly into one part per allowed concurrent request.
+     */
+    private List<List<String>> partition(List<String> seriesKeys) {
+        int partitionSize = (seriesKeys.size() + concurrency - 1) / concurrency;
+        List<List<String>> partitions = new ArrayList<>(concurrency);
+
+        for (int from = 0; from < seriesKeys.size(); from += partitionSize) {
+            partitions.add(List.copyOf(seriesKeys.subList(from, Math.min(from + partitionSize, seriesKeys.size()))));
+        }
+
+        return partitions;
+    }
+
+    private PendingRequest submit(Semaphore fetcherPermits, RemoteRequest request) {
+        try {
+            return new PendingRequest(executor.submit(() -> {
+                try {
+                    return request.call();
+                } finally {
+                    fetcherPermits.release();
+                }
+            }));
+
+        } catch (RuntimeException e) {
+            fetcherPermits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Waits for a permit of the fetcher, the requests of other queries may hold all of them.
+     *
+     * @return false if the token was cancelled or no permit was released within the timeout
+     */
+    private boolean acquire(Semaphore fetcherPermits, CancellationToken cancellationToken)
+            throws InterruptedException {
+
+        long deadline = System.currentTimeMillis() + timeout;
+
+        while (!fetcherPermits.tryAcquire(CANCEL_CHECK_INTERVAL, TimeUnit.MILLISECONDS)) {
+            if (cancellationToken.isCancelled()) {
+                return false;
+            }
+
+            if (System.currentTimeMillis() > deadline) {
+                LOGGER.warn("No request slot of the remote data source was released within {}ms.", timeout);
+                return false;
+            }
+        }
+
+        if (cancellationToken.isCancelled()) {
+            fetcherPermits.release();
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * A request to the remote data source
+     */
+    @FunctionalInterface
+    private interface RemoteRequest {
+
+        Map<String, Value[]> call();
+    }
+
+    /**
+     * A submitted request and the time it was submitted
+     */
+    private final class PendingRequest {
+
+        private final Future<Map<String, Value[]>> future;
+
+        private final long deadline;
+
+        private PendingRequest(Future<Map<String, Value[]>> future) {
+            this.future = future;
+            this.deadline = System.currentTimeMillis() + timeout;
+        }
+
+        /**
+         * Waits until the request is answered, timed out or the token is cancelled.
+         *
+         * @return the answer or null if the request failed or timed out
+         */
+        private Map<String, Value[]> await(CancellationToken cancellationToken) throws InterruptedException {
+            while (!cancellationToken.isCancelled()) {
+                long remaining = deadline - System.currentTimeMillis();
+
+                if (remaining <= 0) {
+                    LOGGER.warn("The remote data source didn't answer within {}ms.", timeout);
+                    future.cancel(true);
+                    return null;
+                }
+
+                try {
+                    return future.get(Math.min(remaining, CANCEL_CHECK_INTERVAL), TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    // check the cancellation and the deadline again
+                } catch (ExecutionException e) {
+                    LOGGER.warn("Unable to fetch series from the remote data source.", e.getCause());
+                    return null;
+                }
+            }
+
+            future.cancel(true);
+            return null;
+        }
+    }
+}
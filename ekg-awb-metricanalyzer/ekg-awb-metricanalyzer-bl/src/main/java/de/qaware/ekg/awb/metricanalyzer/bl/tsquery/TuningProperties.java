@@ -0,0 +1,70 @@
+package de.qaware.ekg.awb.metricanalyzer.bl.tsquery;
+
+import de.qaware.ekg.awb.sdk.core.log.EkgLogger;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.slf4j.Logger;
+
+/**
+ * Reads the numeric tuning parameters of the query services from the system properties.
+ * <p>
+ * The parameters are read while the services are loaded, so invalid values must not throw:
+ * values that aren't numbers are replaced by the default and values outside of the allowed
+ * range are clamped to it. Both cases are logged.
+ */
+final class TuningProperties {
+
+    private static final Logger LOGGER = EkgLogger.get();
+
+    private TuningProperties() {
+        // static helper
+    }
+
+    /**
+     * Reads an int property.
+     *
+     * @param name the name of the system property
+     * @param defaultValue the value if the property isn't set or isn't a number
+     * @param min the smallest allowed value
+     * @param max the largest allowed value
+     * @return the value of the property clamped to the allowed range
+     */
+    static int getInt(String name, int defaultValue, int min, int max) {
+        return (int) getLong(name, defaultValue, min, max);
+    }
+
+    /**
+     * Reads a long property.
+     *
+     * @param name the name of the system property
+     * @param defaultValue the value if the property isn't set or isn't a number
+     * @param min the smallest allowed value
+     * @param max the largest allowed value
+     * @return the value of the property clamped to the allowed range
+     */
+    static long getLong(String name, long defaultValue, long min, long max) {
+        String value = System.getProperty(name);
+        if (value == null) {
+            return defaultValue;
+        }
+
+        long parsed = NumberUtils.toLong(value.trim(), Long.MIN_VALUE);
+        if (parsed == Long.MIN_VALUE) {
+            LOGGER.warn("The value '{}' of the system property {} isn't a number, {} will be used.",
+                    value, name, defaultValue);
+            return defaultValue;
+        }
+
+        return clamp(name, parsed, min, max);
+    }
+
+    private static long clamp(String name, long value, long min, long max) {
+        if (value < min || value > max) {
+            long clamped = Math.max(min, Math.min(max, value));
+            LOGGER.warn("The value {} of the system property {} is outside of [{}, {}], {} will be used.",
+                    value, name, min, max, clamped);
+            return clamped;
+        }
+
+        return value;
+    }
+}
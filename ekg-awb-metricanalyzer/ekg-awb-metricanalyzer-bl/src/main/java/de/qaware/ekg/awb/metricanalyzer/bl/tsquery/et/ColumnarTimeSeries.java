@@ -0,0 +1,484 @@
+package de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et;
+
+import de.qaware.ekg.awb.sdk.datamodel.TimeSeries;
+import de.qaware.ekg.awb.sdk.datamodel.Value;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A time series that stores its data points column wise in a primitive long array (timestamps)
+ * and a primitive double array (values) instead of one {@link Value} object per point.
+ * <p>
+ * The filter dimensions are kept in a {@link TimeSeries} instance without values that is used as meta data only.
+ * The data points are always delivered sorted by timestamp, points with the same timestamp keep the order
+ * they are added. The instance is used by the whole metric pipeline (fetching, combining, smoothing and
+ * simplification) and will converted to a {@link TimeSeries} only if the public data model is required.
+ * <p>
+ * The class isn't thread safe.
+ */
+public class ColumnarTimeSeries {
+
+    /**
+     * The initial capacity of the columns if nothing else is specified
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * The time series that holds the filter dimensions (has no values)
+     */
+    private final TimeSeries metaData;
+
+    private long[] timestamps;
+
+    private double[] values;
+
+    private int size;
+
+    /**
+     * Flag that is false if values are added out of order and the columns have to be sorted before the next access
+     */
+    private boolean sorted = true;
+
+    /**
+     * The group key hash of the repository record the series was read from or null if unknown
+     */
+    private Integer groupKeyHash;
+
+    /**
+     * Constructs a new empty ColumnarTimeSeries
+     *
+     * @param metaData a time series that defines the filter dimensions; the values of it will ignored
+     */
+    public ColumnarTimeSeries(TimeSeries metaData) {
+        this(metaData, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a new empty ColumnarTimeSeries with pre-allocated columns.
+     *
+     * @param metaData a time series that defines the filter dimensions; the values of it will ignored
+     * @param capacity the expected amount of data points
+     */
+    public ColumnarTimeSeries(TimeSeries metaData, int capacity) {
+        this.metaData = metaData;
+        this.timestamps = new long[Math.max(capacity, 1)];
+        this.values = new double[Math.max(capacity, 1)];
+    }
+
+    /**
+     * Creates a new ColumnarTimeSeries with the filter dimensions and a copy of the values of the given time series.
+     * The given series will not modified.
+     *
+     * @param timeSeries the time series to copy
+     * @return the columnar copy of the time series
+     */
+    public static ColumnarTimeSeries of(TimeSeries timeSeries) {
+        List<Value> seriesValues = timeSeries.getValues();
+        ColumnarTimeSeries columnarSeries = new ColumnarTimeSeries(copyMetaData(timeSeries), seriesValues.size());
+
+        for (Value value : seriesValues) {
+            columnarSeries.add(value.getTimestamp(), value.getValue());
+        }
+
+        return columnarSeries;
+    }
+
+    /**
+     * Creates a ColumnarTimeSeries without filter dimensions that holds the given values.
+     *
+     * @param values the values of the series
+     * @return a new ColumnarTimeSeries instance
+     */
+    public static ColumnarTimeSeries of(List<Value> values) {
+        ColumnarTimeSeries columnarSeries = new ColumnarTimeSeries(new TimeSeries(""), values.size());
+        values.forEach(value -> columnarSeries.add(value.getTimestamp(), value.getValue()));
+
+        return columnarSeries;
+    }
+
+    //================================================================================================================
+    //  data access
+    //================================================================================================================
+
+    /**
+     * Adds a single data point to the series.
+     *
+     * @param timestamp the timestamp of the data point
+     * @param value the value of the data point
+     */
+    public void add(long timestamp, double value) {
+        ensureCapacity(size + 1);
+
+        if (size > 0 && timestamps[size - 1] > timestamp) {
+            sorted = false;
+        }
+
+        timestamps[size] = timestamp;
+        values[size] = value;
+        size++;
+    }
+
+    /**
+     * Adds all data points of the given series to this one. The values of series that doesn't overlap
+     * will be appended or prepended, overlapping series will be merged in chronological order.
+     *
+     * @param other the series with the data points to add
+     */
+    public void addAll(ColumnarTimeSeries other) {
+        if (other.isEmpty()) {
+            return;
+        }
+
+        ensureSorted();
+        other.ensureSorted();
+
+        int newSize = size + other.size;
+
+        if (size == 0 || timestamps[size - 1] <= other.timestamps[0]) {
+            ensureCapacity(newSize);
+            System.arraycopy(other.timestamps, 0, timestamps, size, other.size);
+            System.arraycopy(other.values, 0, values, size, other.size);
+            size = newSize;
+            return;
+        }
+
+        long[] mergedTimestamps = new long[newSize];
+        double[] mergedValues = new double[newSize];
+
+        if (other.timestamps[other.size - 1] < timestamps[0]) {
+            System.arraycopy(other.timestamps, 0, mergedTimestamps, 0, other.size);
+            System.arraycopy(other.values, 0, mergedValues, 0, other.size);
+            System.arraycopy(timestamps, 0, mergedTimestamps, other.size, size);
+            System.arraycopy(values, 0, mergedValues, other.size, size);
+        } else {
+            merge(timestamps, values, 0, size, other.timestamps, other.values, 0, other.size,
+                    mergedTimestamps, mergedValues, 0);
+        }
+
+        timestamps = mergedTimestamps;
+        values = mergedValues;
+        size = newSize;
+    }
+
+    /**
+     * Replaces the data points of the series with the given columns. The columns will used without
+     * copying them and have to be sorted by timestamp.
+     *
+     * @param timestamps the sorted timestamps
+     * @param values the values that belongs to the timestamps
+     * @param size the amount of valid data points in the columns
+     */
+    public void setColumns(long[] timestamps, double[] values, int size) {
+        if (size > timestamps.length || size > values.length) {
+            throw new IllegalArgumentException("The size exceeds the length of the given columns.");
+        }
+
+        this.timestamps = timestamps;
+        this.values = values;
+        this.size = size;
+        this.sorted = true;
+    }
+
+    /**
+     * Returns the timestamp column. Only the first {@link #size()} entries are valid.
+     * The array is the backing store of the series, so modifications will write through.
+     *
+     * @return the sorted timestamps of the series
+     */
+    public long[] getTimestamps() {
+        ensureSorted();
+        return timestamps;
+    }
+
+    /**
+     * Returns the value column. Only the first {@link #size()} entries are valid.
+     * The array is the backing store of the series, so modifications will write through.
+     *
+     * @return the values in the order of the timestamps
+     */
+    public double[] getValues() {
+        ensureSorted();
+        return values;
+    }
+
+    public long getTimestamp(int index) {
+        ensureSorted();
+        return timestamps[index];
+    }
+
+    public double getValue(int index) {
+        ensureSorted();
+        return values[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the timestamp of the oldest data point.
+     *
+     * @return the start of the series or 0 if it's empty
+     */
+    public long getStartDate() {
+        ensureSorted();
+        return size == 0 ? 0 : timestamps[0];
+    }
+
+    /**
+     * Returns the timestamp of the newest data point.
+     *
+     * @return the end of the series or 0 if it's empty
+     */
+    public long getEndDate() {
+        ensureSorted();
+        return size == 0 ? 0 : timestamps[size - 1];
+    }
+
+    /**
+     * Creates a new series with the same filter dimensions and a copy of the data points
+     * with a timestamp in the given (inclusive) range.
+     *
+     * @param firstTimestamp the first timestamp to copy
+     * @param lastTimestamp the last timestamp to copy
+     * @return the copy of the range, it's empty if no data point is inside of it
+     */
+    public ColumnarTimeSeries copyOfRange(long firstTimestamp, long lastTimestamp) {
+        ensureSorted();
+
+        int from = indexOf(firstTimestamp);
+        int to = lastTimestamp == Long.MAX_VALUE ? size : indexOf(lastTimestamp + 1);
+        int length = Math.max(to - from, 0);
+
+        ColumnarTimeSeries copy = new ColumnarTimeSeries(copyMetaData(metaData), 0);
+        copy.setColumns(Arrays.copyOfRange(timestamps, from, from + length),
+                Arrays.copyOfRange(values, from, from + length), length);
+        copy.groupKeyHash = groupKeyHash;
+
+        return copy;
+    }
+
+    /**
+     * @return the index of the first data point with a timestamp greater or equal to the given one
+     */
+    private int indexOf(long timestamp) {
+        int low = 0;
+        int high = size;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (timestamps[middle] < timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    //================================================================================================================
+    //  meta data
+    //================================================================================================================
+
+    /**
+     * Returns the time series that holds the filter dimensions.
+     *
+     * @return the meta data of the series (without values)
+     */
+    public TimeSeries getMetaData() {
+        return metaData;
+    }
+
+    /**
+     * Returns the hash of the filter dimensions and metric name stored with the repository record
+     * the series was read from. Series with the same grouping key always have the same hash.
+     *
+     * @return the group key hash or null if unknown
+     */
+    public Integer getGroupKeyHash() {
+        return groupKeyHash;
+    }
+
+    public void setGroupKeyHash(Integer groupKeyHash) {
+        this.groupKeyHash = groupKeyHash;
+    }
+
+    public String getGroupingKey(boolean isConcatMode) {
+        return metaData.getGroupingKey(isConcatMode);
+    }
+
+    public String getMetricName() {
+        return metaData.getMetricName();
+    }
+
+    public String getDisplayName() {
+        return metaData.getDisplayName();
+    }
+
+    public void setMeasurement(String measurement) {
+        metaData.setMeasurement(measurement);
+    }
+
+    /**
+     * Merges the filter dimensions of the given series into this one (different values will become a '*').
+     *
+     * @param other the series to merge the meta data from
+     */
+    public void mergeMetaData(ColumnarTimeSeries other) {
+        metaData.mergeMetaData(other.metaData);
+    }
+
+    /**
+     * Converts the series to the object based {@link TimeSeries} of the public data model.
+     *
+     * @return a new TimeSeries instance with the same filter dimensions and data points
+     */
+    public TimeSeries toTimeSeries() {
+        TimeSeries timeSeries = copyMetaData(metaData);
+        timeSeries.setSortedValues(toValueList());
+
+        return timeSeries;
+    }
+
+    /**
+     * Converts the data points to a list of {@link Value} instances.
+     *
+     * @return a new list with the values sorted by timestamp
+     */
+    public List<Value> toValueList() {
+        ensureSorted();
+
+        List<Value> valueList = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            valueList.add(new Value(timestamps[i], values[i]));
+        }
+
+        return valueList;
+    }
+
+    @Override
+    public String toString() {
+        return metaData.getDisplayName() + " [" + size + " values]";
+    }
+
+    //================================================================================================================
+    //  sorting helper
+    //================================================================================================================
+
+    /**
+     * Sorts the given columns by the timestamps using a stable merge sort.
+     * Already sorted columns will detected in linear time.
+     *
+     * @param timestamps the timestamp column (sort key)
+     * @param values the value column that will reordered together with the timestamps
+     * @param size the amount of valid data points in the columns
+     */
+    public static void sort(long[] timestamps, double[] values, int size) {
+        if (isSorted(timestamps, size)) {
+            return;
+        }
+
+        long[] timestampBuffer = new long[size];
+        double[] valueBuffer = new double[size];
+
+        long[] srcTimestamps = timestamps;
+        double[] srcValues = values;
+        long[] dstTimestamps = timestampBuffer;
+        double[] dstValues = valueBuffer;
+
+        // bottom-up merge sort that swaps source and destination each pass
+        for (int width = 1; width < size; width *= 2) {
+            for (int low = 0; low < size; low += 2 * width) {
+                int mid = Math.min(low + width, size);
+                int high = Math.min(low + 2 * width, size);
+                merge(srcTimestamps, srcValues, low, mid, srcTimestamps, srcValues, mid, high,
+                        dstTimestamps, dstValues, low);
+            }
+
+            long[] swapTimestamps = srcTimestamps;
+            srcTimestamps = dstTimestamps;
+            dstTimestamps = swapTimestamps;
+
+            double[] swapValues = srcValues;
+            srcValues = dstValues;
+            dstValues = swapValues;
+        }
+
+        if (srcTimestamps != timestamps) {
+            System.arraycopy(srcTimestamps, 0, timestamps, 0, size);
+            System.arraycopy(srcValues, 0, values, 0, size);
+        }
+    }
+
+    private static boolean isSorted(long[] timestamps, int size) {
+        for (int i = 1; i < size; i++) {
+            if (timestamps[i - 1] > timestamps[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Merges two sorted ranges into the destination columns. On equal timestamps the
+     * entries of the left range will be taken first to keep the merge stable.
+     */
+    private static void merge(long[] leftTimestamps, double[] leftValues, int leftFrom, int leftTo,
+                              long[] rightTimestamps, double[] rightValues, int rightFrom, int rightTo,
+                              long[] dstTimestamps, double[] dstValues, int dstFrom) {
+
+        int left = leftFrom;
+        int right = rightFrom;
+        int dst = dstFrom;
+
+        while (left < leftTo && right < rightTo) {
+            if (leftTimestamps[left] <= rightTimestamps[right]) {
+                dstTimestamps[dst] = leftTimestamps[left];
+                dstValues[dst++] = leftValues[left++];
+            } else {
+                dstTimestamps[dst] = rightTimestamps[right];
+                dstValues[dst++] = rightValues[right++];
+            }
+        }
+
+        System.arraycopy(leftTimestamps, left, dstTimestamps, dst, leftTo - left);
+        System.arraycopy(leftValues, left, dstValues, dst, leftTo - left);
+        dst += leftTo - left;
+
+        System.arraycopy(rightTimestamps, right, dstTimestamps, dst, rightTo - right);
+        System.arraycopy(rightValues, right, dstValues, dst, rightTo - right);
+    }
+
+    private void ensureSorted() {
+        if (!sorted) {
+            sort(timestamps, values, size);
+            sorted = true;
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > timestamps.length) {
+            int newCapacity = Math.max(capacity, timestamps.length + (timestamps.length >> 1));
+            timestamps = Arrays.copyOf(timestamps, newCapacity);
+            values = Arrays.copyOf(values, newCapacity);
+        }
+    }
+
+    private static TimeSeries copyMetaData(TimeSeries source) {
+        TimeSeries copy = new TimeSeries(source.getProject(), source.getHostGroup(), source.getHost(),
+                source.getNamespace(), source.getService(), source.getPod(), source.getContainer(),
+                source.getMeasurement(), source.getProcess(), source.getMetricGroup(), source.getMetricName());
+        copy.setRemoteSeriesKey(source.getRemoteSeriesKey());
+
+        return copy;
+    }
+}
@@ -0,0 +1,94 @@
+package de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query;
+
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.Measurement;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.Metric;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.MetricGroup;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.NamedValueEntity;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.Process;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.logical.Container;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.logical.Namespace;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.logical.Pod;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.logical.Service;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.physical.Host;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.physical.HostGroup;
+import de.qaware.ekg.awb.repository.api.schema.EkgSchemaField;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static de.qaware.ekg.awb.repository.api.schema.EkgSchemaField.*;
+
+/**
+ * The facets of several filter dimensions fetched with a single request. Each facet respects the
+ * filters of all other dimensions, but not the filter of its own dimension. The facets of
+ * dimensions that weren't requested are empty.
+ */
+public class DimensionFacets {
+
+    private final Map<EkgSchemaField, List<? extends NamedValueEntity>> facets = new EnumMap<>(EkgSchemaField.class);
+
+    /**
+     * Sets the facet of the given dimension.
+     *
+     * @param dimension the field of the filter dimension
+     * @param values    the values of the facet including the leading wildcard entry
+     */
+    public void setFacet(EkgSchemaField dimension, List<? extends NamedValueEntity> values) {
+        facets.put(dimension, values);
+    }
+
+    /**
+     * @param dimension the field of the filter dimension
+     * @return true if this instance contains the facet of the given dimension
+     */
+    public boolean containsFacet(EkgSchemaField dimension) {
+        return facets.containsKey(dimension);
+    }
+
+    public List<HostGroup> getHostGroups() {
+        return getFacet(TS_HOST_GROUP_NAME);
+    }
+
+    public List<Host> getHosts() {
+        return getFacet(TS_HOST_NAME);
+    }
+
+    public List<Namespace> getNamespaces() {
+        return getFacet(TS_NAMESPACE_NAME);
+    }
+
+    public List<Service> getServices() {
+        return getFacet(TS_SERVICE_NAME);
+    }
+
+    public List<Pod> getPods() {
+        return getFacet(TS_POD_NAME);
+    }
+
+    public List<Container> getContainers() {
+        return getFacet(TS_CONTAINER_NAME);
+    }
+
+    public List<Measurement> getMeasurements() {
+        return getFacet(TS_MEASUREMENT);
+    }
+
+    public List<Process> getProcesses() {
+        return getFacet(TS_PROCESS_NAME);
+    }
+
+    public List<MetricGroup> getMetricGroups() {
+        return getFacet(TS_METRIC_GROUP);
+    }
+
+    public List<Metric> getMetrics() {
+        return getFacet(TS_METRIC_NAME);
+    }
+
+    @SuppressWarnings("unchecked") // the service sets the entity type that belongs to the dimension
+    private <T extends NamedValueEntity> List<T> getFacet(EkgSchemaField dimension) {
+        return (List<T>) facets.getOrDefault(dimension, Collections.emptyList());
+    }
+}
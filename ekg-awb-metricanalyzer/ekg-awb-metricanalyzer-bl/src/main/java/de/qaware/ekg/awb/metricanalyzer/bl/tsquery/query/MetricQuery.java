@@ -4,6 +4,8 @@ public class MetricQuery {
 
     private QueryFilterParams queryParams;
 
+    private boolean dimensionIndexPreferred;
+
     public MetricQuery() {
 
     }
@@ -19,4 +21,23 @@ public class MetricQuery {
     public void setQueryParams(QueryFilterParams queryParams) {
         this.queryParams = queryParams;
     }
+
+    /**
+     * @return true if the facets of this query should be served from the in-memory
+     *         dimension tree of the project if possible
+     */
+    public boolean isDimensionIndexPreferred() {
+        return dimensionIndexPreferred;
+    }
+
+    /**
+     * Defines if the facets of this query should be served from the in-memory dimension tree of the project.
+     * The tree is fetched once per project, so this pays off for callers that request the facets for many
+     * combinations of exact dimension values (like the explorer tree).
+     *
+     * @param dimensionIndexPreferred true to serve the facets from the dimension tree if possible
+     */
+    public void setDimensionIndexPreferred(boolean dimensionIndexPreferred) {
+        this.dimensionIndexPreferred = dimensionIndexPreferred;
+    }
 }
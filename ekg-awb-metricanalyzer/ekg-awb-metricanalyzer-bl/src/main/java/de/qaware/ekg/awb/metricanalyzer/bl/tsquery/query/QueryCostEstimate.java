@@ -0,0 +1,69 @@
+package de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query;
+
+import de.qaware.ekg.awb.repository.bl.rollup.RollupLevel;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The estimated costs of a time series query: the amount of matching series and the amount of records
+ * and values that have to be fetched for the raw series and for each rollup level. The amounts are
+ * taken from the stored record statistics, records that only overlap with the requested time interval
+ * count with all of their values.
+ */
+public class QueryCostEstimate {
+
+    private long seriesCount;
+
+    // the raw series are stored with the level null
+    private final Map<RollupLevel, Long> recordCounts = new HashMap<>();
+
+    private final Map<RollupLevel, Long> valueCounts = new HashMap<>();
+
+    /**
+     * @return the amount of distinct series that match to the query
+     */
+    public long getSeriesCount() {
+        return seriesCount;
+    }
+
+    public void setSeriesCount(long seriesCount) {
+        this.seriesCount = seriesCount;
+    }
+
+    /**
+     * Sets the amounts of the records of the given level.
+     *
+     * @param level       the rollup level or null for the raw series
+     * @param recordCount the amount of matching records
+     * @param valueCount  the amount of values (or rollup buckets) stored in these records
+     */
+    public void setLevelCosts(RollupLevel level, long recordCount, long valueCount) {
+        recordCounts.put(level, recordCount);
+        valueCounts.put(level, valueCount);
+    }
+
+    /**
+     * @param level the rollup level or null for the raw series
+     * @return the amount of matching records of the level
+     */
+    public long getRecordCount(RollupLevel level) {
+        return recordCounts.getOrDefault(level, 0L);
+    }
+
+    /**
+     * @param level the rollup level or null for the raw series
+     * @return the amount of values (or rollup buckets) in the matching records of the level
+     */
+    public long getValueCount(RollupLevel level) {
+        return valueCounts.getOrDefault(level, 0L);
+    }
+
+    /**
+     * @param level the rollup level or null for the raw series
+     * @return true if there are matching records of the level
+     */
+    public boolean isAvailable(RollupLevel level) {
+        return getRecordCount(level) > 0;
+    }
+}
@@ -1,5 +1,9 @@
 package de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query;
 
+import de.qaware.ekg.awb.repository.api.CancellationToken;
+import de.qaware.ekg.awb.repository.bl.rollup.RollupAggregate;
+import de.qaware.ekg.awb.repository.bl.rollup.RollupLevel;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -13,6 +17,21 @@ public class TimeSeriesQuery extends MetricQuery {
 
     private String cursorId = null;
 
+    /**
+     * The level of rollup records to read instead of the raw series or null to read the raw series
+     */
+    private RollupLevel rollupLevel = null;
+
+    /**
+     * The aggregate of the rollup buckets that will used as series values
+     */
+    private RollupAggregate rollupAggregate = null;
+
+    /**
+     * The token that signals that the result of the query isn't required anymore
+     */
+    private CancellationToken cancellationToken = new CancellationToken();
+
     public TimeSeriesQuery(QueryFilterParams metricQueryParams, int maxMetricLimit) {
         super(metricQueryParams);
         this.maxMetricLimit = maxMetricLimit;
@@ -39,6 +58,39 @@ public class TimeSeriesQuery extends MetricQuery {
         return maxMetricLimit;
     }
 
+    /**
+     * Let the query read the pre-computed rollup records of the given level instead of the
+     * raw series. The values of the returned series are the given aggregate of each rollup bucket.
+     *
+     * @param rollupLevel the rollup level to read or null to read the raw series
+     * @param rollupAggregate the aggregate of the rollup buckets to use as values
+     */
+    public void setRollup(RollupLevel rollupLevel, RollupAggregate rollupAggregate) {
+        this.rollupLevel = rollupLevel;
+        this.rollupAggregate = rollupAggregate;
+    }
+
+    public RollupLevel getRollupLevel() {
+        return rollupLevel;
+    }
+
+    public RollupAggregate getRollupAggregate() {
+        return rollupAggregate;
+    }
+
+    /**
+     * Sets the token that stops the fetching and decoding of the series once it is cancelled.
+     *
+     * @param cancellationToken the token of the operation the query belongs to
+     */
+    public void setCancellationToken(CancellationToken cancellationToken) {
+        this.cancellationToken = cancellationToken;
+    }
+
+    public CancellationToken getCancellationToken() {
+        return cancellationToken;
+    }
+
     public List<SortClause> getSortClauses() {
         return sortClauses;
     }
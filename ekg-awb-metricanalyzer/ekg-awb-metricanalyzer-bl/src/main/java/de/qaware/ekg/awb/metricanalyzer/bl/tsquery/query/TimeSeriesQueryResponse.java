@@ -1,6 +1,6 @@
 package de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query;
 
-import de.qaware.ekg.awb.sdk.datamodel.TimeSeries;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.ColumnarTimeSeries;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -14,7 +14,7 @@ public class TimeSeriesQueryResponse {
 
     private boolean requestAborted;
 
-    private Collection<TimeSeries> responseData = Collections.synchronizedList(new ArrayList<>());
+    private Collection<ColumnarTimeSeries> responseData = Collections.synchronizedList(new ArrayList<>());
 
     /**
      *
@@ -58,7 +58,7 @@ public class TimeSeriesQueryResponse {
      *
      * @return
      */
-    public Collection<TimeSeries> getData() {
+    public Collection<ColumnarTimeSeries> getData() {
        return responseData;
     }
 
@@ -70,7 +70,7 @@ public class TimeSeriesQueryResponse {
         return cursorId;
     }
 
-    public void addTimeSeries(TimeSeries timeSeries) {
+    public void addTimeSeries(ColumnarTimeSeries timeSeries) {
         responseData.add(timeSeries);
     }
 }
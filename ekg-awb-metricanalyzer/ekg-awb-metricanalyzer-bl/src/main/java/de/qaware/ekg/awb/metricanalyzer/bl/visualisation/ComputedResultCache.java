@@ -0,0 +1,276 @@
+package de.qaware.ekg.awb.metricanalyzer.bl.visualisation;
+
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.ColumnarTimeSeries;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryComputeParams;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryFilterParams;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+
+import java.util.*;
+
+/**
+ * LRU cache of computed (combined, smoothed and simplified) time series. The size of the cache is limited
+ * by the sum of the points of all cached results, so a few huge results can't occupy all memory.
+ * If the limit is exceeded, the least recently used results will be dropped.
+ * <p>
+ * The results are cached per project and have to be invalidated as soon as the series of the project
+ * are changed (see {@link #invalidateProject(String)}). The cached series must not be modified by the callers.
+ * <p>
+ * Next to a result the raw series it was computed of can be cached (see {@link FetchedSeriesHolder}), so charts
+ * that show a cached result can still be zoomed without fetching the series again. They count to the size
+ * of the cache, if both together exceed the limit only the result is cached.
+ * <p>
+ * The cache is thread safe.
+ */
+public class ComputedResultCache {
+
+    /**
+     * The default maximum sum of the points of all cached results
+     */
+    public static final long DEFAULT_MAX_POINTS = 5_000_000;
+
+    private final long maxPoints;
+
+    private final LinkedHashMap<Key, Entry> results = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long cachedPoints = 0;
+
+    // incremented on each invalidation, so results computed before can be detected
+    private long generation = 0;
+
+    /**
+     * Constructs a new cache with the default size limit.
+     */
+    public ComputedResultCache() {
+        this(DEFAULT_MAX_POINTS);
+    }
+
+    /**
+     * Constructs a new cache.
+     *
+     * @param maxPoints the maximum sum of the points of all cached results
+     */
+    public ComputedResultCache(long maxPoints) {
+        if (maxPoints <= 0) {
+            throw new IllegalArgumentException("The maximum amount of points must be greater than zero");
+        }
+
+        this.maxPoints = maxPoints;
+    }
+
+    /**
+     * Returns the cached result of the given query.
+     *
+     * @param filterParams   the filter of the query
+     * @param computeParams  the computation parameters of the query
+     * @param maxMetricLimit the series limit of the query
+     * @return the cached series or null if the result isn't cached
+     */
+    public synchronized List<ColumnarTimeSeries> get(QueryFilterParams filterParams, QueryComputeParams computeParams,
+                                                     int maxMetricLimit) {
+        Entry entry = results.get(new Key(filterParams, computeParams, maxMetricLimit));
+        return entry == null ? null : entry.result;
+    }
+
+    /**
+     * Returns the raw series the cached result of the given query was computed of.
+     *
+     * @param filterParams   the filter of the query
+     * @param computeParams  the computation parameters of the query
+     * @param maxMetricLimit the series limit of the query
+     * @return the raw series or null if the result or its raw series aren't cached
+     */
+    synchronized FetchedSeriesHolder.Snapshot getSnapshot(QueryFilterParams filterParams,
+                                                          QueryComputeParams computeParams, int maxMetricLimit) {
+        Entry entry = results.get(new Key(filterParams, computeParams, maxMetricLimit));
+        return entry == null ? null : entry.snapshot;
+    }
+
+    /**
+     * Returns the current generation of the cache. The generation has to be read before the computation
+     * of a result starts and passed to {@link #put(QueryFilterParams, QueryComputeParams, int, List, long)}.
+     *
+     * @return the current generation
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Puts the result of the given query to the cache. Results that exceed the size limit of the
+     * cache on their own won't be cached. Also results will be ignored if the cache was invalidated
+     * while they were computed, because they may contain outdated series.
+     *
+     * @param filterParams   the filter of the query
+     * @param computeParams  the computation parameters of the query
+     * @param maxMetricLimit the series limit of the query
+     * @param result         the computed series of the query
+     * @param generation     the generation of the cache read before the computation started
+     */
+    public synchronized void put(QueryFilterParams filterParams, QueryComputeParams computeParams,
+                                 int maxMetricLimit, List<ColumnarTimeSeries> result, long generation) {
+        put(filterParams, computeParams, maxMetricLimit, result, null, generation);
+    }
+
+    /**
+     * Puts the result of the given query together with the raw series it was computed of to the cache.
+     *
+     * @param filterParams   the filter of the query
+     * @param computeParams  the computation parameters of the query
+     * @param maxMetricLimit the series limit of the query
+     * @param result         the computed series of the query
+     * @param snapshot       the raw series of the query or null if they aren't held
+     * @param generation     the generation of the cache read before the computation started
+     * @see #put(QueryFilterParams, QueryComputeParams, int, List, long)
+     */
+    synchronized void put(QueryFilterParams filterParams, QueryComputeParams computeParams, int maxMetricLimit,
+                          List<ColumnarTimeSeries> result, FetchedSeriesHolder.Snapshot snapshot, long generation) {
+
+        long points = countPoints(result);
+        if (points > maxPoints || generation != this.generation) {
+            return;
+        }
+
+        if (snapshot != null && points + snapshot.getAmountOfPoints() > maxPoints) {
+            snapshot = null;
+        }
+
+        Entry entry = new Entry(Collections.unmodifiableList(new ArrayList<>(result)), snapshot);
+        Entry replaced = results.put(new Key(filterParams, computeParams, maxMetricLimit), entry);
+
+        cachedPoints += entry.points - (replaced == null ? 0 : replaced.points);
+
+        Iterator<Entry> iterator = results.values().iterator();
+        while (cachedPoints > maxPoints && iterator.hasNext()) {
+            cachedPoints -= iterator.next().points;
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Drops all cached results of the given project.
+     *
+     * @param projectName the name of the project
+     */
+    public synchronized void invalidateProject(String projectName) {
+        generation++;
+
+        Iterator<Map.Entry<Key, Entry>> iterator = results.entrySet().iterator();
+
+        while (iterator.hasNext()) {
+            Map.Entry<Key, Entry> entry = iterator.next();
+
+            if (Objects.equals(entry.getKey().projectName, projectName)) {
+                cachedPoints -= entry.getValue().points;
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Drops all cached results.
+     */
+    public synchronized void clear() {
+        generation++;
+        results.clear();
+        cachedPoints = 0;
+    }
+
+    /**
+     * @return the sum of the points of all cached results
+     */
+    public synchronized long getCachedPoints() {
+        return cachedPoints;
+    }
+
+    private static long countPoints(List<ColumnarTimeSeries> result) {
+        return result.stream().mapToLong(ColumnarTimeSeries::size).sum();
+    }
+
+    /**
+     * Copies the values of the given filter that select the series, all except of the time range.
+     *
+     * @param filterParams the filter of a query
+     * @return the values that can be compared with the ones of other queries
+     */
+    static List<Object> getFilterValues(QueryFilterParams filterParams) {
+        return Arrays.asList(
+                filterParams.getHostGroup(), filterParams.getHost(),
+                filterParams.getNamespace(), filterParams.getService(), filterParams.getPod(),
+                filterParams.getContainer(), filterParams.getMeasurement(), filterParams.getProcess(),
+                filterParams.getMetricGroup(), filterParams.getMetric(), new HashSet<>(filterParams.getMetrics()),
+                filterParams.getExcludeMetric(), filterParams.isExpertMode(), filterParams.isMultiMetricMode(),
+                filterParams.getImportDate(), filterParams.getRawQuery());
+    }
+
+    /**
+     * A cached result and the raw series it was computed of
+     */
+    private static final class Entry {
+
+        private final List<ColumnarTimeSeries> result;
+
+        private final FetchedSeriesHolder.Snapshot snapshot;
+
+        private final long points;
+
+        private Entry(List<ColumnarTimeSeries> result, FetchedSeriesHolder.Snapshot snapshot) {
+            this.result = result;
+            this.snapshot = snapshot;
+            this.points = countPoints(result) + (snapshot == null ? 0 : snapshot.getAmountOfPoints());
+        }
+    }
+
+    /**
+     * The key of a cached result. The key copies the values of the (mutable) parameter objects.
+     * The project is identified by its name because project instances are reloaded from the
+     * repository and don't implement equals.
+     */
+    private static final class Key {
+
+        private final String projectName;
+
+        private final List<Object> filterValues;
+
+        private final List<Object> computeValues;
+
+        private Key(QueryFilterParams filterParams, QueryComputeParams computeParams, int maxMetricLimit) {
+            this.projectName = filterParams.getProjectName();
+
+            this.filterValues = Arrays.asList(getFilterValues(filterParams),
+                    filterParams.getStart(), filterParams.getEnd());
+
+            this.computeValues = Arrays.asList(
+                    computeParams.getSeriesSmoothingGranularity(), computeParams.getSeriesSmoothingType(),
+                    computeParams.getSeriesCombineMode(), computeParams.getThreshold(), maxMetricLimit);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            Key that = (Key) o;
+
+            return new EqualsBuilder()
+                    .append(projectName, that.projectName)
+                    .append(filterValues, that.filterValues)
+                    .append(computeValues, that.computeValues)
+                    .isEquals();
+        }
+
+        @Override
+        public int hashCode() {
+            return new HashCodeBuilder(17, 37)
+                    .append(projectName)
+                    .append(filterValues)
+                    .append(computeValues)
+                    .toHashCode();
+        }
+    }
+}
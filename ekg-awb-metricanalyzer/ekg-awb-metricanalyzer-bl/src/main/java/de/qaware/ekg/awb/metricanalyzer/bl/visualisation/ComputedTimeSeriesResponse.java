@@ -1,7 +1,7 @@
 package de.qaware.ekg.awb.metricanalyzer.bl.visualisation;
 
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.ColumnarTimeSeries;
 import de.qaware.ekg.awb.sdk.awbapi.repository.RepositoryException;
-import de.qaware.ekg.awb.sdk.datamodel.TimeSeries;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -16,7 +16,7 @@ public class ComputedTimeSeriesResponse {
 
     private Throwable occurredError = null;
 
-    List<TimeSeries> timeSeries = new ArrayList<>();
+    List<ColumnarTimeSeries> timeSeries = new ArrayList<>();
 
     public ComputedTimeSeriesResponse(long totalHits, int maxMetricLimit) {
         this.usedMaxSeriesLimit = maxMetricLimit;
@@ -36,7 +36,7 @@ public class ComputedTimeSeriesResponse {
         this.usedMaxSeriesLimit = maxMetricLimit;
     }
 
-    public ComputedTimeSeriesResponse(List<TimeSeries> timeSeries, int maxMetricLimit) {
+    public ComputedTimeSeriesResponse(List<ColumnarTimeSeries> timeSeries, int maxMetricLimit) {
         this.timeSeries = timeSeries;
         this.usedMaxSeriesLimit = maxMetricLimit;
         this.totalSeries = timeSeries.size();
@@ -62,7 +62,7 @@ public class ComputedTimeSeriesResponse {
         return totalSeries > usedMaxSeriesLimit;
     }
 
-    public List<TimeSeries> getTimeSeries() {
+    public List<ColumnarTimeSeries> getTimeSeries() {
         return timeSeries;
     }
 
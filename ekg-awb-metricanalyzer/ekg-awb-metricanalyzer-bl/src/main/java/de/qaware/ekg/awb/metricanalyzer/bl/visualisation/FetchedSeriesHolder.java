@@ -0,0 +1,172 @@
+package de.qaware.ekg.awb.metricanalyzer.bl.visualisation;
+
+import de.qaware.ekg.awb.metricanalyzer.bl.api.SeriesCombineMode;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.ColumnarTimeSeries;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryComputeParams;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryFilterParams;
+import de.qaware.ekg.awb.metricanalyzer.bl.visualisation.RollupLevelResolver.RollupSelection;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds the raw series (fetched, but not combined, smoothed or simplified) of the last query of a chart.
+ * If the chart is zoomed in, the {@link MetricQueryService} slices the requested time range out of these
+ * series instead of fetching them again. Each chart owns its own holder, so the series are released
+ * together with the chart.
+ * <p>
+ * The holder is thread safe. The held series are never modified, the slices are copies.
+ */
+public class FetchedSeriesHolder {
+
+    private Snapshot snapshot;
+
+    /**
+     * Drops the held series, for example if the chart is cleared.
+     */
+    public synchronized void clear() {
+        snapshot = null;
+    }
+
+    synchronized Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    synchronized void setSnapshot(Snapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * The series fetched by a query together with the parameters of the query that determine them.
+     */
+    static final class Snapshot {
+
+        private final Object owner;
+
+        private final long generation;
+
+        private final String projectName;
+
+        private final List<Object> filterValues;
+
+        private final boolean concatMode;
+
+        private final long start;
+
+        private final long end;
+
+        private final RollupSelection rollup;
+
+        private final List<ColumnarTimeSeries> series;
+
+        /**
+         * Constructs a new snapshot.
+         *
+         * @param owner        the service that fetched the series
+         * @param generation   the generation of the cache of the service when the fetching started
+         * @param filterParams the filter of the query
+         * @param concatMode   true if the series were fetched for the CONCAT combine mode
+         * @param rollup       the rollup level the series were read from or null for the raw series
+         * @param series       the fetched series, they must not be modified afterwards
+         */
+        Snapshot(Object owner, long generation, QueryFilterParams filterParams, boolean concatMode,
+                 RollupSelection rollup, List<ColumnarTimeSeries> series) {
+            this.owner = owner;
+            this.generation = generation;
+            this.projectName = filterParams.getProjectName();
+            this.filterValues = ComputedResultCache.getFilterValues(filterParams);
+            this.concatMode = concatMode;
+            this.start = filterParams.getStart();
+            this.end = filterParams.getEnd();
+            this.rollup = rollup;
+            this.series = List.copyOf(series);
+        }
+
+        RollupSelection getRollup() {
+            return rollup;
+        }
+
+        /**
+         * @return the sum of the points of the held series
+         */
+        long getAmountOfPoints() {
+            return series.stream().mapToLong(ColumnarTimeSeries::size).sum();
+        }
+
+        /**
+         * Checks if the query with the given parameters can be answered by slicing the held series:
+         * the filters are the same, the time range is inside of the fetched one and the resolution of
+         * the fetched series is fine enough. Raw series are always fine enough, rollups only if they
+         * match to the compute parameters of the query.
+         *
+         * @param owner         the service that runs the query
+         * @param generation    the current generation of the cache of the service
+         * @param filterParams  the filter of the query
+         * @param computeParams the computation parameters of the query
+         * @return true if the held series cover the query
+         */
+        boolean covers(Object owner, long generation, QueryFilterParams filterParams,
+                       QueryComputeParams computeParams) {
+
+            if (this.owner != owner || this.generation != generation
+                    || !projectName.equals(filterParams.getProjectName())
+                    || concatMode != (computeParams.getSeriesCombineMode() == SeriesCombineMode.CONCAT)
+                    || !filterValues.equals(ComputedResultCache.getFilterValues(filterParams))) {
+                return false;
+            }
+
+            if (firstTimestampOf(filterParams.getStart()) < firstTimestampOf(start)
+                    || lastTimestampOf(filterParams.getEnd()) > lastTimestampOf(end)) {
+                return false;
+            }
+
+            return rollup == null || RollupLevelResolver.resolveCandidates(computeParams).stream()
+                    .anyMatch(candidate -> candidate.getLevel() == rollup.getLevel()
+                            && candidate.getAggregate() == rollup.getAggregate());
+        }
+
+        /**
+         * Copies the values of the held series that are inside of the given time range. Series without
+         * values in the range are left out, like the repository doesn't return them. Rollup buckets are
+         * only copied if they lie completely inside of the range.
+         *
+         * @param start the exclusive begin of the range or a negative value for no lower bound
+         * @param end   the exclusive end of the range or a value <= 0 for no upper bound
+         * @return the sliced series
+         */
+        List<ColumnarTimeSeries> slice(long start, long end) {
+            long first = firstTimestampOf(start);
+            long last = lastTimestampOf(end);
+
+            if (rollup != null && end > 0) {
+                last = end - rollup.getLevel().getBucketSize();
+            }
+
+            List<ColumnarTimeSeries> slices = new ArrayList<>(series.size());
+
+            for (ColumnarTimeSeries timeSeries : series) {
+                ColumnarTimeSeries slice = timeSeries.copyOfRange(first, last);
+
+                if (!slice.isEmpty()) {
+                    slices.add(slice);
+                }
+            }
+
+            return slices;
+        }
+
+        /**
+         * @return the first timestamp inside of a query range with the given (exclusive) begin
+         */
+        private static long firstTimestampOf(long begin) {
+            return begin < 0 ? Long.MIN_VALUE : begin + 1;
+        }
+
+        /**
+         * @return the last timestamp inside of a query range with the given (exclusive) end
+         */
+        private static long lastTimestampOf(long end) {
+            return end > 0 ? end - 1 : Long.MAX_VALUE;
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package de.qaware.ekg.awb.metricanalyzer.bl.visualisation;
 
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.ColumnarTimeSeries;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryComputeParams;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryFilterParams;
+import de.qaware.ekg.awb.repository.api.CancellationToken;
 import de.qaware.ekg.awb.repository.api.RepositoryClientAware;
 
+import java.util.function.Consumer;
+
 /**
  * This interface represents series that can use to fetch and compute time series from the repositories.
  * Compute means TimeSeries post processing with vectorization, aggregation and smoothing.
@@ -21,7 +25,77 @@ public interface MetricQueryService extends RepositoryClientAware {
      *                    If more metrics matches to the query, it will aborted.
      * @return a response object that contains metadata to number of series, it's limits and the TimeSeries payload as list
      */
-    ComputedTimeSeriesResponse getComputedTimeSeries(QueryFilterParams filterParams,
-                                                     QueryComputeParams computeParams, int metricLimit);
+    default ComputedTimeSeriesResponse getComputedTimeSeries(QueryFilterParams filterParams,
+                                                             QueryComputeParams computeParams, int metricLimit) {
+        return getComputedTimeSeries(filterParams, computeParams, metricLimit, new CancellationToken());
+    }
+
+    /**
+     * Gets all counters by the given criteria like {@link #getComputedTimeSeries(QueryFilterParams,
+     * QueryComputeParams, int)} does it. The fetching and all post computing steps stop as soon as
+     * the given token is cancelled, a cancelled request returns an aborted response without series.
+     *
+     * @param filterParams the query parameter that define which metrics in which time range should be fetched
+     * @param computeParams the compute parameters that define various setting for the post computing steps on the
+     *                    fetched time series data like
+     * @param metricLimit the maximum amount of metrics that should be fetched.
+     *                    If more metrics matches to the query, it will aborted.
+     * @param cancellationToken the token that is cancelled if the result isn't required anymore
+     * @return a response object that contains metadata to number of series, it's limits and the TimeSeries payload as list
+     */
+    default ComputedTimeSeriesResponse getComputedTimeSeries(QueryFilterParams filterParams,
+                                                             QueryComputeParams computeParams, int metricLimit,
+                                                             CancellationToken cancellationToken) {
+        return getComputedTimeSeries(filterParams, computeParams, metricLimit, cancellationToken, null);
+    }
+
+    /**
+     * Gets all counters by the given criteria like {@link #getComputedTimeSeries(QueryFilterParams,
+     * QueryComputeParams, int, CancellationToken)} does it. The fetched series are kept in the given holder
+     * of the chart, so the following zooms into the time range of them are sliced out of the held series
+     * instead of fetching them again. The series are fetched again only if the filters change, the time range
+     * exceeds the fetched one or the held series are too coarse.
+     *
+     * @param filterParams the query parameter that define which metrics in which time range should be fetched
+     * @param computeParams the compute parameters that define various setting for the post computing steps on the
+     *                    fetched time series data like
+     * @param metricLimit the maximum amount of metrics that should be fetched.
+     *                    If more metrics matches to the query, it will aborted.
+     * @param cancellationToken the token that is cancelled if the result isn't required anymore
+     * @param fetchedSeries the holder of the series fetched for the chart or null to fetch them each time
+     * @return a response object that contains metadata to number of series, it's limits and the TimeSeries payload as list
+     */
+    default ComputedTimeSeriesResponse getComputedTimeSeries(QueryFilterParams filterParams,
+                                                             QueryComputeParams computeParams, int metricLimit,
+                                                             CancellationToken cancellationToken,
+                                                             FetchedSeriesHolder fetchedSeries) {
+        return getComputedTimeSeries(filterParams, computeParams, metricLimit, cancellationToken, fetchedSeries, null);
+    }
+
+    /**
+     * Gets all counters by the given criteria like {@link #getComputedTimeSeries(QueryFilterParams,
+     * QueryComputeParams, int, CancellationToken, FetchedSeriesHolder)} does it, but hands over each
+     * computed series to the given listener as soon as it is ready. This way the first series can be shown
+     * while the others are still fetched.
+     *
+     * The series are delivered progressively only if they aren't combined and the costs of the query could be
+     * estimated, because the simplification has to know the amount of series in advance. The listener is
+     * called by the calling thread. If the listener received series, the returned response contains the
+     * same series; if the response is aborted the delivered series must be discarded.
+     *
+     * @param filterParams the query parameter that define which metrics in which time range should be fetched
+     * @param computeParams the compute parameters that define various setting for the post computing steps on the
+     *                    fetched time series data like
+     * @param metricLimit the maximum amount of metrics that should be fetched.
+     *                    If more metrics matches to the query, it will aborted.
+     * @param cancellationToken the token that is cancelled if the result isn't required anymore
+     * @param fetchedSeries the holder of the series fetched for the chart or null to fetch them each time
+     * @param seriesListener the listener that receives the computed series one by one or null
+     * @return a response object that contains metadata to number of series, it's limits and the TimeSeries payload as list
+     */
+    ComputedTimeSeriesResponse getComputedTimeSeries(QueryFilterParams filterParams, QueryComputeParams computeParams,
+                                                     int metricLimit, CancellationToken cancellationToken,
+                                                     FetchedSeriesHolder fetchedSeries,
+                                                     Consumer<ColumnarTimeSeries> seriesListener);
 
 }
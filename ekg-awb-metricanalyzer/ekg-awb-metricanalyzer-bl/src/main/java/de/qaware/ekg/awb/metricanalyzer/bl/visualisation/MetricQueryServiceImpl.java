@@ -4,29 +4,38 @@ import de.qaware.ekg.awb.metricanalyzer.bl.api.SeriesCombineMode;
 import de.qaware.ekg.awb.metricanalyzer.bl.api.SeriesSmoothingGranularity;
 import de.qaware.ekg.awb.metricanalyzer.bl.api.SeriesSmoothingType;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.MetricDataAccessService;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.ColumnarTimeSeries;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.MetricQuery;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryComputeParams;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryCostEstimate;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryFilterParams;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.TimeSeriesQuery;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.TimeSeriesQueryResponse;
+import de.qaware.ekg.awb.metricanalyzer.bl.visualisation.QueryPlanner.QueryPlan;
+import de.qaware.ekg.awb.metricanalyzer.bl.visualisation.QueryPlanner.Strategy;
+import de.qaware.ekg.awb.metricanalyzer.bl.visualisation.RollupLevelResolver.RollupSelection;
 import de.qaware.ekg.awb.metricanalyzer.bl.visualisation.combine.CombinerFactory;
 import de.qaware.ekg.awb.metricanalyzer.bl.visualisation.combine.TimeSeriesCombiner;
 import de.qaware.ekg.awb.metricanalyzer.bl.visualisation.simplification.SimplificationService;
 import de.qaware.ekg.awb.metricanalyzer.bl.visualisation.simplification.algorithms.ValueChangeSimplificationService;
 import de.qaware.ekg.awb.metricanalyzer.bl.visualisation.smoothing.SmootherFactory;
 import de.qaware.ekg.awb.metricanalyzer.bl.visualisation.smoothing.TimeSeriesSmoother;
+import de.qaware.ekg.awb.repository.api.CancellationToken;
 import de.qaware.ekg.awb.repository.api.RepositoryClient;
+import de.qaware.ekg.awb.repository.api.events.SeriesDataChangedEvent;
+import de.qaware.ekg.awb.repository.bl.rollup.RollupAggregate;
 import de.qaware.ekg.awb.sdk.awbapi.repository.RepositoryException;
 import de.qaware.ekg.awb.sdk.core.events.EkgEventBus;
 import de.qaware.ekg.awb.sdk.core.events.ProgressEvent;
 import de.qaware.ekg.awb.sdk.core.log.EkgLogger;
 import de.qaware.ekg.awb.sdk.core.lookup.ServiceDiscovery;
-import de.qaware.ekg.awb.sdk.datamodel.TimeSeries;
 import org.apache.commons.lang3.time.StopWatch;
 import org.slf4j.Logger;
 
 import javax.inject.Inject;
 import java.text.NumberFormat;
 import java.util.*;
+import java.util.function.Consumer;
 
 import static de.qaware.ekg.awb.metricanalyzer.bl.api.SeriesCombineMode.CONCAT;
 
@@ -62,10 +71,57 @@ public class MetricQueryServiceImpl implements MetricQueryService {
     @Inject
     private SmootherFactory smootherFactory;
 
+    /**
+     * Cache of the computed results, so repeated queries (bookmarks, reopened charts) don't have to be computed again
+     */
+    private final ComputedResultCache resultCache = new ComputedResultCache();
+
+
+    /**
+     * Default constructor that is need than instantiating
+     * this class via CDI default mechanism.
+     */
+    public MetricQueryServiceImpl() {
+        // no op
+    }
+
+    /**
+     * Parameterized constructor of this services that will use the given services instead
+     * of the injected ones for it's work.
+     *
+     * @param metricDataAccess the service that fetches the series
+     * @param eventBus the event bus that publishes the progress and notifies about changed projects
+     * @param simplificationService the service that reduces the points of the computed series
+     * @param smootherFactory the factory of the smoothers
+     */
+    MetricQueryServiceImpl(MetricDataAccessService metricDataAccess, EkgEventBus eventBus,
+                           SimplificationService simplificationService, SmootherFactory smootherFactory) {
+        this.metricDataAccess = metricDataAccess;
+        this.eventBus = eventBus;
+        this.simplificationService = simplificationService;
+        this.smootherFactory = smootherFactory;
+
+        subscribeSeriesDataChanges();
+    }
+
 
     @Override
     public void initializeService(RepositoryClient client) {
         this.metricDataAccess = ServiceDiscovery.lookup(MetricDataAccessService.class, client);
+
+        subscribeSeriesDataChanges();
+    }
+
+    /**
+     * Imports and deletions of projects make the cached results of these projects outdated
+     */
+    private void subscribeSeriesDataChanges() {
+        if (eventBus != null) {
+            eventBus.subscribe(SeriesDataChangedEvent.class, event -> {
+                resultCache.invalidateProject(((SeriesDataChangedEvent) event).getProjectName());
+                return true;
+            });
+        }
     }
 
 
@@ -76,81 +132,173 @@ public class MetricQueryServiceImpl implements MetricQueryService {
     /* (non-Javadoc)
      * @see de.qaware.ekg.awb.metricanalyzer.bl.api.MetricsQueryService#getComputedTimeSeries(...)
      */
+    @Override
     public ComputedTimeSeriesResponse getComputedTimeSeries(QueryFilterParams filterParams,
-                                                            QueryComputeParams computeParams, int maxMetricLimit) {
+                                                            QueryComputeParams computeParams, int maxMetricLimit,
+                                                            CancellationToken cancellationToken,
+                                                            FetchedSeriesHolder fetchedSeries,
+                                                            Consumer<ColumnarTimeSeries> seriesListener) {
 
         StopWatch stopWatch = StopWatch.createStarted();
 
+        List<ColumnarTimeSeries> cachedResult = resultCache.get(filterParams, computeParams, maxMetricLimit);
+        if (cachedResult != null) {
+            // the raw series of the cached result, so the chart can be zoomed without fetching them again
+            FetchedSeriesHolder.Snapshot cachedSnapshot = resultCache.getSnapshot(filterParams, computeParams,
+                    maxMetricLimit);
+            if (fetchedSeries != null && cachedSnapshot != null) {
+                fetchedSeries.setSnapshot(cachedSnapshot);
+            }
+
+            if (eventBus != null) {
+                eventBus.publish(new ProgressEvent("Loaded " + cachedResult.size() + " series from cache in "
+                        + stopWatch.getTime() + "ms.", 1.0, this));
+            }
+
+            return new ComputedTimeSeriesResponse(new ArrayList<>(cachedResult), maxMetricLimit);
+        }
+
+        // read before the computation, so results of projects changed in the meantime won't be cached
+        long cacheGeneration = resultCache.getGeneration();
+
         // query we use to fetch the data
         int transitiveSeriesLimit = filterParams.getProject().useSplitSource() ? maxMetricLimit : Integer.MAX_VALUE;
         TimeSeriesQuery query = new TimeSeriesQuery(filterParams, transitiveSeriesLimit);
+        query.setCancellationToken(cancellationToken);
 
         boolean seriesMergeActive = computeParams.getSeriesCombineMode() != SeriesCombineMode.NONE;
         boolean isConcatMode = computeParams.getSeriesCombineMode() == SeriesCombineMode.CONCAT;
 
+        // zooming into the chart narrows the time range, the series fetched for the wider one can be sliced
+        FetchedSeriesHolder.Snapshot snapshot = fetchedSeries == null ? null : fetchedSeries.getSnapshot();
+        boolean isZoom = snapshot != null && snapshot.covers(this, cacheGeneration, filterParams, computeParams);
 
-        // the result list that will returned at the end
-        List<TimeSeries> result = new ArrayList<>();
-        Map<String, TimeSeries> groupingMap = new HashMap<>();
-
+        List<ColumnarTimeSeries> result;
+        RollupSelection rollup;
+        SeriesSmoothingType smoothingType;
+        String planDescription;
         long totalResults;
-        long totalPoints = 0;
+        long totalPoints;
         long totalPointsInProject;
 
-        try {
-            String cursorId = TimeSeriesQuery.INITIAL_CURSOR_ID;
-            while (true) {
-
-                // we use cursor to fetch data as fast as possible
-                query.setCursorId(cursorId);
-
-                // query and retrieve data
-                TimeSeriesQueryResponse response = metricDataAccess.queryTimeSeriesData(query);
+        // the series computed one by one while they are fetched, if they are delivered progressively
+        List<ColumnarTimeSeries> computedSeries = null;
 
-                totalResults = response.getTotalHits();
+        try {
+            if (isZoom) {
+                result = snapshot.slice(filterParams.getStart(), filterParams.getEnd());
+                rollup = snapshot.getRollup();
+                planDescription = "zoom into fetched " + (rollup == null ? "raw series"
+                        : "rollup " + rollup.getLevel() + '/' + rollup.getAggregate());
+                smoothingType = resolveSmoothingType(computeParams, rollup);
+                totalResults = result.size();
+                totalPoints = result.stream().mapToLong(ColumnarTimeSeries::size).sum();
+
+            } else {
+                // choose between pre-computed rollups and the raw series by the estimated costs
+                QueryPlan plan = planQuery(filterParams, computeParams, maxMetricLimit);
+
+                if (plan.getStrategy() == Strategy.SERIES_LIMIT_EXCEEDED) {
+                    if (eventBus != null) {
+                        eventBus.publish(new ProgressEvent("Skipped query in " + stopWatch.getTime() + "ms. Plan: "
+                                + plan.getDescription(), 1.0, this));
+                    }
 
-                if (response.isRequestAborted()) {
-                    return new ComputedTimeSeriesResponse(response.getTotalHits(), maxMetricLimit);
+                    return new ComputedTimeSeriesResponse(plan.getEstimate().getSeriesCount(), maxMetricLimit);
                 }
 
-                // all chunks of the streamed data consumed?
-                if (response.isConsumed() && response.getData().isEmpty()) {
-                    break;
+                rollup = plan.getRollup();
+                if (rollup != null) {
+                    query.setRollup(rollup.getLevel(), rollup.getAggregate());
                 }
 
-                // token to address the next chunk
-                cursorId = response.getCursorId();
+                smoothingType = resolveSmoothingType(computeParams, rollup);
+                planDescription = plan.getDescription();
 
-                Collection<TimeSeries> rowsChunk = response.getData();
+                // merges the records of each series, the merged series are the result that will returned at the end
+                SeriesGroupCollector seriesGroups;
 
-                for (TimeSeries fetchedSeries : rowsChunk) {
+                // cancelled by the delivery of the series as soon as they exceed the limit
+                CancellationToken fetchToken = null;
 
-                    if (Thread.currentThread().isInterrupted()) {
-                        return new ComputedTimeSeriesResponse(true, maxMetricLimit); // normal termination, return empty result
-                    }
+                // uncombined series can be computed independently of each other as soon as all records arrived
+                if (seriesListener != null && !seriesMergeActive && plan.getEstimate() != null) {
+                    List<ColumnarTimeSeries> progressiveSeries = new ArrayList<>();
+                    int seriesValueLimit = resolveSeriesValueLimit(computeParams.getThreshold(), plan);
+                    SeriesSmoothingType seriesSmoothingType = smoothingType;
 
-                    // use unique names as metric key
-                    String groupingKey = fetchedSeries.getGroupingKey(computeParams.getSeriesCombineMode() == CONCAT);
-                    TimeSeries mainSeries = groupingMap.get(groupingKey);
+                    // the estimate may count less series than fetched, so the fetching is aborted at the limit
+                    CancellationToken seriesLimitToken = new CancellationToken();
+                    query.setCancellationToken(seriesLimitToken);
+                    fetchToken = seriesLimitToken;
 
-                    if (mainSeries == null) {
-                        mainSeries = fetchedSeries;
-                        totalPoints += mainSeries.getValues().size();
+                    seriesGroups = new SeriesGroupCollector(false, series -> {
+                        if (isStopped(cancellationToken) || seriesLimitToken.isCancelled()) {
+                            return;
+                        }
 
-                        if (isConcatMode) {
-                            mainSeries.setMeasurement("*");
+                        if (progressiveSeries.size() >= maxMetricLimit) {
+                            seriesLimitToken.cancel();
+                            return;
                         }
 
-                        groupingMap.put(groupingKey, mainSeries);
-                        result.add(mainSeries);
-                    } else {
-                        totalPoints += fetchedSeries.getValues().size();
-                        mainSeries.addAll(fetchedSeries.getValues());
+                        // the fetched series are held in their raw form
+                        ColumnarTimeSeries computed = computeSeries(fetchedSeries == null ? series
+                                        : series.copyOfRange(Long.MIN_VALUE, Long.MAX_VALUE), computeParams,
+                                seriesSmoothingType, seriesValueLimit, cancellationToken);
+
+                        progressiveSeries.add(computed);
+                        seriesListener.accept(computed);
+                    });
+
+                    computedSeries = progressiveSeries;
+                } else {
+                    seriesGroups = new SeriesGroupCollector(isConcatMode);
+                }
+
+                // the cancellation of the caller aborts the fetching too
+                Runnable cancelFetching = fetchToken == null ? null : fetchToken::cancel;
+                if (cancelFetching != null) {
+                    cancellationToken.addCancelListener(cancelFetching);
+                }
+
+                try {
+                    // query and retrieve data, large results will be streamed instead of fetched page by page
+                    TimeSeriesQueryResponse response = metricDataAccess.streamTimeSeriesData(query, seriesGroups::add);
+
+                    if (response.isRequestAborted()) {
+                        return new ComputedTimeSeriesResponse(response.getTotalHits(), maxMetricLimit);
+                    }
+
+                    seriesGroups.finish();
+                } finally {
+                    if (cancelFetching != null) {
+                        cancellationToken.removeCancelListener(cancelFetching);
                     }
                 }
 
-                if (response.isConsumed()) {
-                    break;
+                if (isStopped(cancellationToken)) {
+                    return new ComputedTimeSeriesResponse(true, maxMetricLimit); // normal termination, return empty result
+                }
+
+                if (fetchToken != null && fetchToken.isCancelled()) {
+                    return new ComputedTimeSeriesResponse(
+                            Math.max(plan.getEstimate().getSeriesCount(), maxMetricLimit + 1L), maxMetricLimit);
+                }
+
+                result = seriesGroups.getResult();
+                totalResults = result.size();
+                totalPoints = seriesGroups.getAmountOfPoints();
+
+                // the post processing modifies the series, so the held ones are processed as copies
+                if (fetchedSeries != null) {
+                    snapshot = new FetchedSeriesHolder.Snapshot(this, cacheGeneration, filterParams, isConcatMode,
+                            rollup, result);
+                    fetchedSeries.setSnapshot(snapshot);
+
+                    if (computedSeries == null) {
+                        result = snapshot.slice(filterParams.getStart(), filterParams.getEnd());
+                    }
                 }
             }
 
@@ -164,11 +312,16 @@ public class MetricQueryServiceImpl implements MetricQueryService {
         }
 
         // break if to much series because we can't show it in a useful way and it cost a lot of performance
-        if (!seriesMergeActive && result.size() > maxMetricLimit ||(
-                isConcatMode && groupingMap.size() > maxMetricLimit)) {
+        if ((!seriesMergeActive || isConcatMode) && result.size() > maxMetricLimit) {
             return new ComputedTimeSeriesResponse(result.size(), maxMetricLimit);
         }
 
+        if (computedSeries != null) {
+            return completeResult(filterParams, computeParams, maxMetricLimit, computedSeries, snapshot,
+                    cacheGeneration,
+                    createProcessedMessage(totalResults, totalPoints, totalPointsInProject, stopWatch, planDescription));
+        }
+
         //-----------------------------------------------------------------------------------------------------------
         // at this point the data must be fully fetched from repository because the further steps need all data
         // for analyze and compute the time series correctly
@@ -184,26 +337,173 @@ public class MetricQueryServiceImpl implements MetricQueryService {
         result = combineTimeSeriesData(query.getQueryParams().getMetricName(), result,
                 computeParams.getSeriesCombineMode());
 
+        if (isStopped(cancellationToken)) {
+            return new ComputedTimeSeriesResponse(true, maxMetricLimit);
+        }
+
         // flatten the value vector to make it nicer to view at UI if requested
-        smoothingTimeSeriesData(result, computeParams.getSeriesSmoothingGranularity(),
-                computeParams.getSeriesSmoothingType());
+        smoothingTimeSeriesData(result, computeParams.getSeriesSmoothingGranularity(), smoothingType,
+                cancellationToken);
 
-        // reduce the data points time series using some kind of sampling or vectorization algorithm
-        result = simplifyTimeSeriesData(result, computeParams.getThreshold());
+        if (isStopped(cancellationToken)) {
+            return new ComputedTimeSeriesResponse(true, maxMetricLimit);
+        }
 
-        NumberFormat formatter = NumberFormat.getInstance(Locale.GERMAN);
+        // reduce the data points time series using some kind of sampling or vectorization algorithm
+        result = simplifyTimeSeriesData(result, computeParams.getThreshold(), cancellationToken);
 
-        eventBus.publish((new ProgressEvent("Processed " + formatter.format(totalResults) + " series with "
-                + formatter.format(totalPoints) + " values of "+ formatter.format(totalPointsInProject)
-                + " total in " + stopWatch.getTime()  + "ms.", 1.0, this)));
+        // the steps before may have stopped half way, such results must not be shown or cached
+        if (isStopped(cancellationToken)) {
+            return new ComputedTimeSeriesResponse(true, maxMetricLimit);
+        }
 
-        return new ComputedTimeSeriesResponse(result, maxMetricLimit);
+        return completeResult(filterParams, computeParams, maxMetricLimit, result, snapshot, cacheGeneration,
+                createProcessedMessage(totalResults, totalPoints, totalPointsInProject, stopWatch, planDescription));
     }
 
     //================================================================================================================
     //  private helper to delegate post processing of time series
     //================================================================================================================
 
+    /**
+     * Publishes the statistics of the computation and caches the computed series.
+     *
+     * @param filterParams the filter of the query
+     * @param computeParams the parameters that describes how the series were computed
+     * @param maxMetricLimit the maximum amount of series that can be shown
+     * @param result the computed series
+     * @param snapshot the raw series the result was computed of or null if they aren't held
+     * @param cacheGeneration the generation of the cache at the start of the computation
+     * @param processedMessage the statistics of the computation
+     * @return the response with the computed series
+     */
+    private ComputedTimeSeriesResponse completeResult(QueryFilterParams filterParams, QueryComputeParams computeParams,
+                                                      int maxMetricLimit, List<ColumnarTimeSeries> result,
+                                                      FetchedSeriesHolder.Snapshot snapshot, long cacheGeneration,
+                                                      String processedMessage) {
+
+        if (eventBus != null) {
+            eventBus.publish(new ProgressEvent(processedMessage, 1.0, this));
+        }
+
+        resultCache.put(filterParams, computeParams, maxMetricLimit, result, snapshot, cacheGeneration);
+
+        return new ComputedTimeSeriesResponse(result, maxMetricLimit);
+    }
+
+    private static String createProcessedMessage(long totalResults, long totalPoints, long totalPointsInProject,
+                                                 StopWatch stopWatch, String planDescription) {
+        NumberFormat formatter = NumberFormat.getInstance(Locale.GERMAN);
+
+        return "Processed " + formatter.format(totalResults) + " series with "
+                + formatter.format(totalPoints) + " values of "+ formatter.format(totalPointsInProject)
+                + " total in " + stopWatch.getTime()  + "ms. Plan: " + planDescription;
+    }
+
+    /**
+     * Computes a single uncombined series like the whole result would be computed: value change filtering,
+     * smoothing and simplification to its share of the points.
+     *
+     * @param series the complete series, it will be modified
+     * @param computeParams the parameters that describes how the series will computed
+     * @param smoothingType the smoothing type to apply
+     * @param seriesValueLimit the maximum amount of points of the series or a negative value to keep all
+     * @param cancellationToken the token that stops the computation
+     * @return the computed series
+     */
+    private ColumnarTimeSeries computeSeries(ColumnarTimeSeries series, QueryComputeParams computeParams,
+                                             SeriesSmoothingType smoothingType, int seriesValueLimit,
+                                             CancellationToken cancellationToken) {
+
+        List<ColumnarTimeSeries> seriesList = Collections.singletonList(series);
+
+        if (computeParams.getThreshold() == 0) {
+            seriesList = new ValueChangeSimplificationService().simplify(seriesList);
+        }
+
+        smoothingTimeSeriesData(seriesList, computeParams.getSeriesSmoothingGranularity(), smoothingType,
+                cancellationToken);
+
+        if (seriesValueLimit >= 0) {
+            seriesList = simplificationService.simplifyColumnar(seriesList, seriesValueLimit, cancellationToken);
+        }
+
+        return seriesList.get(0);
+    }
+
+    /**
+     * Divides the point limit of the whole result into equal shares of the estimated series, like the
+     * simplification of the whole result does it.
+     *
+     * @param threshold the maximum amount of points of all series together
+     * @param plan the plan of the query with the estimate of the amount of series and values
+     * @return the maximum amount of points of a single series or -1 if the series are shown with all points
+     */
+    private static int resolveSeriesValueLimit(int threshold, QueryPlan plan) {
+        QueryCostEstimate estimate = plan.getEstimate();
+        RollupSelection rollup = plan.getRollup();
+
+        if (threshold <= 0 || estimate.getValueCount(rollup == null ? null : rollup.getLevel()) <= threshold) {
+            return -1;
+        }
+
+        return threshold / (int) Math.max(estimate.getSeriesCount(), 1);
+    }
+
+    /**
+     * The bucket counts of the rollups have to be added up to get the amount of values.
+     *
+     * @param computeParams the parameters that describes how the series will computed
+     * @param rollup the rollup the series are read from or null for the raw series
+     * @return the smoothing type to apply
+     */
+    private static SeriesSmoothingType resolveSmoothingType(QueryComputeParams computeParams, RollupSelection rollup) {
+        if (rollup != null && rollup.getAggregate() == RollupAggregate.COUNT) {
+            return SeriesSmoothingType.SUM;
+        }
+
+        return computeParams.getSeriesSmoothingType();
+    }
+
+    /**
+     * @return true if the calling thread was interrupted or the request was cancelled
+     */
+    private static boolean isStopped(CancellationToken cancellationToken) {
+        return Thread.currentThread().isInterrupted() || cancellationToken.isCancelled();
+    }
+
+    /**
+     * Plans how the requested series will be fetched based on the estimated costs of the query.
+     *
+     * @param filterParams the filter parameters of the query
+     * @param computeParams the parameters that describes how the series will computed
+     * @param maxMetricLimit the maximum amount of series that can be shown
+     * @return the plan of the query
+     * @throws RepositoryException thrown if the repository isn't accessible
+     */
+    private QueryPlan planQuery(QueryFilterParams filterParams, QueryComputeParams computeParams,
+                                int maxMetricLimit) throws RepositoryException {
+
+        // series data of split source projects will be fetched from remote repositories
+        if (filterParams.getProject().useSplitSource()) {
+            return QueryPlanner.planWithoutEstimate();
+        }
+
+        QueryCostEstimate estimate;
+        try {
+            estimate = metricDataAccess.estimateQueryCost(new MetricQuery(filterParams));
+        } catch (UnsupportedOperationException e) {
+            LOGGER.warn("The repository doesn't support the estimation of the query costs, the raw series will be used.");
+            return QueryPlanner.planWithoutEstimate();
+        }
+
+        QueryPlan plan = QueryPlanner.plan(computeParams, estimate, maxMetricLimit);
+
+        LOGGER.info("Plan for query of project {}: {}", filterParams.getProjectName(), plan.getDescription());
+
+        return plan;
+    }
+
     /**
      * Reduce the amount of data points in the given time series to a maximum defined
      * by the seriesValueLimit parameter.
@@ -212,11 +512,14 @@ public class MetricQueryServiceImpl implements MetricQueryService {
      *
      * @param timeSeriesList the ingoing list of time series that should visualisation.
      * @param seriesValueLimit the maximum amount of data points over all time series in the list.
+     * @param cancellationToken the token that stops the simplification if the result isn't required anymore
      * @return a modified list of time series with reduced amount of data point if necessary.
      */
-    private List<TimeSeries> simplifyTimeSeriesData(List<TimeSeries> timeSeriesList, int seriesValueLimit) {
+    private List<ColumnarTimeSeries> simplifyTimeSeriesData(List<ColumnarTimeSeries> timeSeriesList,
+                                                            int seriesValueLimit, CancellationToken cancellationToken) {
         StopWatch stopwatch = StopWatch.createStarted();
-        List<TimeSeries> simplified = simplificationService.simplify(timeSeriesList, seriesValueLimit);
+        List<ColumnarTimeSeries> simplified = simplificationService.simplifyColumnar(timeSeriesList,
+                seriesValueLimit, cancellationToken);
         LOGGER.info("Simplify {} time series in {}", timeSeriesList.size(), stopwatch);
 
         return simplified;
@@ -233,10 +536,12 @@ public class MetricQueryServiceImpl implements MetricQueryService {
      * @param timeSeriesList a list of time series it's data will be modified (smoothed)
      * @param smoothingGranularity the sampling rate used to visualisation the smoothing
      * @param smoothingType the type of smoothing the call want's for the time series data
+     * @param cancellationToken the token that stops the smoothing of the remaining series
      */
-    private void smoothingTimeSeriesData(final List<TimeSeries> timeSeriesList,
+    private void smoothingTimeSeriesData(final List<ColumnarTimeSeries> timeSeriesList,
                                                      final SeriesSmoothingGranularity smoothingGranularity,
-                                                     final SeriesSmoothingType smoothingType) {
+                                                     final SeriesSmoothingType smoothingType,
+                                                     final CancellationToken cancellationToken) {
         // early exit if nothing to do
         if (smoothingType == SeriesSmoothingType.NONE || timeSeriesList.isEmpty()) {
             return;
@@ -245,8 +550,11 @@ public class MetricQueryServiceImpl implements MetricQueryService {
         TimeSeriesSmoother seriesSmoother = smootherFactory.resolveSmoother(smoothingType, smoothingGranularity);
 
         // visualisation the smoothing of each time series multi-threaded
-        timeSeriesList.parallelStream().forEach(timeSeries ->
-                timeSeries.setSortedValues(seriesSmoother.computeSmoothing(timeSeries.getValues())));
+        timeSeriesList.parallelStream().forEach(timeSeries -> {
+            if (!cancellationToken.isCancelled()) {
+                seriesSmoother.computeSmoothing(timeSeries);
+            }
+        });
     }
 
     /**
@@ -260,8 +568,8 @@ public class MetricQueryServiceImpl implements MetricQueryService {
      * @param combineMode the algorithm used to addValues overlapping parts of the time series.
      * @return a SingletonList with a time series that contains the whole time range of each given one
      */
-    private List<TimeSeries> combineTimeSeriesData(String newMetricName, List<TimeSeries> timeSeriesList,
-                                                   SeriesCombineMode combineMode) {
+    private List<ColumnarTimeSeries> combineTimeSeriesData(String newMetricName, List<ColumnarTimeSeries> timeSeriesList,
+                                                           SeriesCombineMode combineMode) {
 
         if (combineMode == SeriesCombineMode.NONE || combineMode == CONCAT || timeSeriesList.isEmpty()) {
             return timeSeriesList;
@@ -270,7 +578,7 @@ public class MetricQueryServiceImpl implements MetricQueryService {
         StopWatch stopWatch = StopWatch.createStarted();
         LOGGER.info("Begin combining time series list with {} elements.", timeSeriesList.size());
         TimeSeriesCombiner combiner = CombinerFactory.resolveCombiner(combineMode);
-        List<TimeSeries> result = Collections.singletonList(combiner.combine(newMetricName, timeSeriesList));
+        List<ColumnarTimeSeries> result = Collections.singletonList(combiner.combineColumnar(newMetricName, timeSeriesList));
         LOGGER.info("Finished addValues {} time series to a single one in {}.", timeSeriesList.size(), stopWatch);
 
         return result;
@@ -0,0 +1,152 @@
+package de.qaware.ekg.awb.metricanalyzer.bl.visualisation;
+
+import de.qaware.ekg.awb.metricanalyzer.bl.api.SeriesCombineMode;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryComputeParams;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryCostEstimate;
+import de.qaware.ekg.awb.metricanalyzer.bl.visualisation.RollupLevelResolver.RollupSelection;
+
+import java.text.NumberFormat;
+import java.util.Locale;
+
+/**
+ * Chooses how the series of a chart will be fetched based on the estimated costs of the query.
+ *
+ * The rollup levels that match to the compute parameters (see {@link RollupLevelResolver}) are
+ * preferred from the coarsest to the finest one, but only if the project has records of the level
+ * and they hold less values than the raw series. Without a combine mode each series is a chart line,
+ * so queries with more series than the limit are rejected before any series data is fetched.
+ */
+public final class QueryPlanner {
+
+    private QueryPlanner() {
+    }
+
+    /**
+     * Plans the query with the given compute parameters.
+     *
+     * @param computeParams the parameters that describes how the series will computed
+     * @param estimate the estimated costs of the query
+     * @param maxSeriesLimit the maximum amount of series that can be shown without combining them
+     * @return the plan of the query
+     */
+    public static QueryPlan plan(QueryComputeParams computeParams, QueryCostEstimate estimate, int maxSeriesLimit) {
+
+        if (computeParams.getSeriesCombineMode() == SeriesCombineMode.NONE
+                && estimate.getSeriesCount() > maxSeriesLimit) {
+            return new QueryPlan(Strategy.SERIES_LIMIT_EXCEEDED, null, estimate);
+        }
+
+        long rawValues = estimate.getValueCount(null);
+
+        for (RollupSelection candidate : RollupLevelResolver.resolveCandidates(computeParams)) {
+            if (estimate.isAvailable(candidate.getLevel())) {
+
+                // the coarsest available level holds the fewest values, finer ones won't be cheaper
+                if (estimate.getValueCount(candidate.getLevel()) < rawValues) {
+                    return new QueryPlan(Strategy.ROLLUP, candidate, estimate);
+                }
+
+                break;
+            }
+        }
+
+        return new QueryPlan(Strategy.RAW, null, estimate);
+    }
+
+    /**
+     * Creates the plan for queries that can't be estimated, like the ones of split source
+     * projects that fetch their series data from remote repositories.
+     *
+     * @return the plan to fetch the raw series
+     */
+    public static QueryPlan planWithoutEstimate() {
+        return new QueryPlan(Strategy.RAW, null, null);
+    }
+
+    /**
+     * The ways the series of a chart can be fetched
+     */
+    public enum Strategy {
+
+        /**
+         * fetch the pre-computed rollup records instead of the raw series
+         */
+        ROLLUP,
+
+        /**
+         * fetch and decode the raw series records
+         */
+        RAW,
+
+        /**
+         * nothing will be fetched because there are too many series to show them
+         */
+        SERIES_LIMIT_EXCEEDED
+    }
+
+    /**
+     * The chosen strategy of a query and the estimate it's based on
+     */
+    public static class QueryPlan {
+
+        private final Strategy strategy;
+
+        private final RollupSelection rollup;
+
+        private final QueryCostEstimate estimate;
+
+        QueryPlan(Strategy strategy, RollupSelection rollup, QueryCostEstimate estimate) {
+            this.strategy = strategy;
+            this.rollup = rollup;
+            this.estimate = estimate;
+        }
+
+        public Strategy getStrategy() {
+            return strategy;
+        }
+
+        /**
+         * @return the rollup level and aggregate to fetch or null if the strategy isn't {@link Strategy#ROLLUP}
+         */
+        public RollupSelection getRollup() {
+            return rollup;
+        }
+
+        /**
+         * @return the estimate the plan is based on or null if the query wasn't estimated
+         */
+        public QueryCostEstimate getEstimate() {
+            return estimate;
+        }
+
+        /**
+         * Describes the plan for the users, so they can see why a query is slow.
+         *
+         * @return a short description like "rollup DAY/SUM (est. 1.200 of 860.000 values, 40 series)"
+         */
+        public String getDescription() {
+            StringBuilder description = new StringBuilder();
+
+            if (strategy == Strategy.ROLLUP) {
+                description.append("rollup ").append(rollup.getLevel()).append('/').append(rollup.getAggregate());
+            } else if (strategy == Strategy.RAW) {
+                description.append("raw series");
+            } else {
+                description.append("series limit exceeded");
+            }
+
+            if (estimate != null) {
+                NumberFormat formatter = NumberFormat.getInstance(Locale.GERMAN);
+                long values = estimate.getValueCount(rollup == null ? null : rollup.getLevel());
+
+                description.append(" (est. ").append(formatter.format(values));
+                if (rollup != null) {
+                    description.append(" of ").append(formatter.format(estimate.getValueCount(null)));
+                }
+                description.append(" values, ").append(formatter.format(estimate.getSeriesCount())).append(" series)");
+            }
+
+            return description.toString();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package de.qaware.ekg.awb.metricanalyzer.bl.visualisation;
+
+import de.qaware.ekg.awb.metricanalyzer.bl.api.SeriesCombineMode;
+import de.qaware.ekg.awb.metricanalyzer.bl.api.SeriesSmoothingGranularity;
+import de.qaware.ekg.awb.metricanalyzer.bl.api.SeriesSmoothingType;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryComputeParams;
+import de.qaware.ekg.awb.repository.bl.rollup.RollupAggregate;
+import de.qaware.ekg.awb.repository.bl.rollup.RollupLevel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resolves the coarsest rollup level that can be used instead of the raw series values
+ * to compute a chart with the given compute parameters.
+ *
+ * Rollups can be used if the series will be added up per time bucket (SUM_* combine modes) or
+ * smoothed with MIN, MAX, SUM or VALUE_COUNT and the bucket size of the combine mode or smoothing
+ * granularity is a multiple of the rollup bucket size.
+ * <p>
+ * The rollup buckets are aligned to the epoch, but the buckets of the combiner and the smoothers start
+ * at the first value. Their borders are therefore shifted by up to one rollup bucket against the ones
+ * computed of the raw values. Furthermore the partial rollup buckets at the edges of the requested time
+ * range are left out. That's why only rollup levels finer than the combined or smoothed buckets are used:
+ * each computed bucket differs at most by the values of one rollup bucket at each of its borders, instead
+ * of losing a whole bucket at the edges. Calendar months are aligned to the epoch like the rollups, so
+ * for them the daily rollups can be used as well.
+ */
+public final class RollupLevelResolver {
+
+    private RollupLevelResolver() {
+    }
+
+    /**
+     * Resolves the rollup level and aggregate that matches to the given compute parameters
+     *
+     * @param computeParams the parameters that describes how the series will computed
+     * @return the rollup selection or null if the raw series have to be used
+     */
+    public static RollupSelection resolve(QueryComputeParams computeParams) {
+        List<RollupSelection> candidates = resolveCandidates(computeParams);
+        return candidates.isEmpty() ? null : candidates.get(0);
+    }
+
+    /**
+     * Resolves all rollup levels that match to the given compute parameters. A finer level can
+     * be used if the projects has no rollups of the coarser ones.
+     *
+     * @param computeParams the parameters that describes how the series will computed
+     * @return the rollup selections ordered from the coarsest to the finest level,
+     *         empty if the raw series have to be used
+     */
+    public static List<RollupSelection> resolveCandidates(QueryComputeParams computeParams) {
+
+        // only value changes of the raw series are requested
+        if (computeParams.getThreshold() == 0) {
+            return List.of();
+        }
+
+        SeriesCombineMode combineMode = computeParams.getSeriesCombineMode();
+        long bucketSize;
+        RollupAggregate aggregate;
+        boolean alignedToEpoch = false;
+
+        if (combineMode == SeriesCombineMode.NONE || combineMode == SeriesCombineMode.CONCAT) {
+            aggregate = resolveSmoothingAggregate(computeParams.getSeriesSmoothingType());
+            bucketSize = resolveSmoothingBucketSize(computeParams.getSeriesSmoothingGranularity());
+            alignedToEpoch = computeParams.getSeriesSmoothingGranularity() == SeriesSmoothingGranularity.CALENDAR_MONTH;
+
+        } else {
+            // the sum of the bucket sums of all series is equal to the sum of all raw values
+            // in the combined bucket. Smoothing will be applied on the combined series after that.
+            aggregate = RollupAggregate.SUM;
+            bucketSize = resolveCombineBucketSize(combineMode);
+        }
+
+        if (aggregate == null || bucketSize <= 0) {
+            return List.of();
+        }
+
+        List<RollupSelection> candidates = new ArrayList<>();
+
+        RollupLevel[] levels = RollupLevel.values();
+        for (int i = levels.length - 1; i >= 0; i--) {
+            long levelBucketSize = levels[i].getBucketSize();
+
+            // buckets that start at the first value may be shifted by up to one rollup bucket
+            if (bucketSize % levelBucketSize == 0 && (alignedToEpoch || levelBucketSize < bucketSize)) {
+                candidates.add(new RollupSelection(levels[i], aggregate));
+            }
+        }
+
+        return candidates;
+    }
+
+    private static RollupAggregate resolveSmoothingAggregate(SeriesSmoothingType smoothingType) {
+        switch (smoothingType) {
+            case MIN:
+                return RollupAggregate.MIN;
+            case MAX:
+                return RollupAggregate.MAX;
+            case SUM:
+                return RollupAggregate.SUM;
+            case VALUE_COUNT:
+                return RollupAggregate.COUNT;
+            default:
+                return null;
+        }
+    }
+
+    private static long resolveSmoothingBucketSize(SeriesSmoothingGranularity granularity) {
+        switch (granularity) {
+            case SECONDS:
+                return 1000L;
+            case MINUTE:
+                return 60_000L;
+            case HOUR:
+                return 3600_000L;
+            case DAY:
+                return 86_400_000L;
+            case WEEK:
+                return 604_800_000L;
+            case MONTH:
+                return 2_628_000_000L;
+            case CALENDAR_MONTH:
+                // calendar months starts at midnight (UTC) and are therefore aligned with days
+                return 86_400_000L;
+            default:
+                return -1;
+        }
+    }
+
+    private static long resolveCombineBucketSize(SeriesCombineMode combineMode) {
+        switch (combineMode) {
+            case SUM_SEC:
+                return 1000L;
+            case SUM_MIN:
+                return 60_000L;
+            case SUM_HOUR:
+                return 3600_000L;
+            case SUM_DAY:
+                return 86_400_000L;
+            case SUM_MONTH:
+                return 2_628_000_000L;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * The rollup level and aggregate resolved for a query
+     */
+    public static class RollupSelection {
+
+        private final RollupLevel level;
+
+        private final RollupAggregate aggregate;
+
+        RollupSelection(RollupLevel level, RollupAggregate aggregate) {
+            this.level = level;
+            this.aggregate = aggregate;
+        }
+
+        public RollupLevel getLevel() {
+            return level;
+        }
+
+        public RollupAggregate getAggregate() {
+            return aggregate;
+        }
+    }
+}
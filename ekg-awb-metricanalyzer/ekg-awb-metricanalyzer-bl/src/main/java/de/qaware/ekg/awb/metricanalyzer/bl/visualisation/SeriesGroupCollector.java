@@ -0,0 +1,146 @@
+package de.qaware.ekg.awb.metricanalyzer.bl.visualisation;
+
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.ColumnarTimeSeries;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Merges the fetched series records that belong to the same series (same grouping key)
+ * into a single series.
+ *
+ * The records are expected in the order of their group key hash (see MetricDataAccessServiceImpl), so
+ * all records of a series arrive adjacent. Only the series of the current hash have to be kept for
+ * lookup, which makes the grouping a streaming merge. Records without hash (older imports) and the
+ * CONCAT mode, which ignores the measurement and therefore groups records of different hashes,
+ * fall back to a lookup map over all fetched series.
+ *
+ * An optional listener is notified about each series as soon as it is complete, which is when the records
+ * of the next group key hash arrive. The series of the lookup map are complete only at the {@link #finish()}.
+ *
+ * The class isn't thread safe.
+ */
+public final class SeriesGroupCollector {
+
+    private final boolean concatMode;
+
+    private final List<ColumnarTimeSeries> result = new ArrayList<>();
+
+    /**
+     * The series of the current group key hash by grouping key (more than one only in case of hash collisions)
+     */
+    private final Map<String, ColumnarTimeSeries> currentGroups = new LinkedHashMap<>();
+
+    /**
+     * The series that can't grouped in a streaming fashion by grouping key
+     */
+    private final Map<String, ColumnarTimeSeries> unorderedGroups = new LinkedHashMap<>();
+
+    /**
+     * The listener that receives the complete series
+     */
+    private final Consumer<ColumnarTimeSeries> completedListener;
+
+    private Integer currentHash;
+
+    private long amountOfPoints;
+
+    /**
+     * Creates a new collector
+     *
+     * @param concatMode true if the measurement should ignored by the grouping (CONCAT combine mode)
+     */
+    public SeriesGroupCollector(boolean concatMode) {
+        this(concatMode, series -> { });
+    }
+
+    /**
+     * Creates a new collector that notifies the given listener about each complete series.
+     * The listener may modify the series, no further records will be added to it.
+     *
+     * @param concatMode true if the measurement should ignored by the grouping (CONCAT combine mode)
+     * @param completedListener the listener that receives the complete series
+     */
+    public SeriesGroupCollector(boolean concatMode, Consumer<ColumnarTimeSeries> completedListener) {
+        this.concatMode = concatMode;
+        this.completedListener = completedListener;
+    }
+
+    /**
+     * Adds the fetched series to the series with the same grouping key or
+     * starts a new series if it's the first record of it.
+     *
+     * @param fetchedSeries the series record to add
+     */
+    public void add(ColumnarTimeSeries fetchedSeries) {
+        amountOfPoints += fetchedSeries.size();
+
+        Map<String, ColumnarTimeSeries> groups = resolveGroups(fetchedSeries.getGroupKeyHash());
+        String groupingKey = fetchedSeries.getGroupingKey(concatMode);
+        ColumnarTimeSeries mainSeries = groups.get(groupingKey);
+
+        if (mainSeries != null) {
+            mainSeries.addAll(fetchedSeries);
+            return;
+        }
+
+        if (concatMode) {
+            fetchedSeries.setMeasurement("*");
+        }
+
+        groups.put(groupingKey, fetchedSeries);
+        result.add(fetchedSeries);
+    }
+
+    /**
+     * Marks the end of the fetched records, so the listener is notified about all remaining series.
+     */
+    public void finish() {
+        completeGroups(currentGroups);
+        completeGroups(unorderedGroups);
+        currentHash = null;
+    }
+
+    /**
+     * @return the merged series in order of their first record
+     */
+    public List<ColumnarTimeSeries> getResult() {
+        return result;
+    }
+
+    /**
+     * @return the amount of merged series
+     */
+    public int getAmountOfGroups() {
+        return result.size();
+    }
+
+    /**
+     * @return the amount of points of all added records
+     */
+    public long getAmountOfPoints() {
+        return amountOfPoints;
+    }
+
+    private Map<String, ColumnarTimeSeries> resolveGroups(Integer groupKeyHash) {
+        if (concatMode || groupKeyHash == null) {
+            return unorderedGroups;
+        }
+
+        // the previous hash won't occur again, so its series are complete
+        if (!groupKeyHash.equals(currentHash)) {
+            completeGroups(currentGroups);
+            currentHash = groupKeyHash;
+        }
+
+        return currentGroups;
+    }
+
+    private void completeGroups(Map<String, ColumnarTimeSeries> groups) {
+        groups.values().forEach(completedListener);
+        groups.clear();
+    }
+}
@@ -1,12 +1,9 @@
 package de.qaware.ekg.awb.metricanalyzer.bl.visualisation.combine;
 
 import de.qaware.ekg.awb.metricanalyzer.bl.api.SeriesCombineMode;
-import de.qaware.ekg.awb.sdk.datamodel.TimeSeries;
-import de.qaware.ekg.awb.sdk.datamodel.Value;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.ColumnarTimeSeries;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Combiner implementation that will calculate the average of the values of multiple
@@ -22,9 +19,7 @@ public class AvgCombiner extends Combiner {
     }
 
     @Override
-    public TimeSeries combine(String newSeriesName, List<TimeSeries> timeSeriesList) {
-
-        Map<Long, Value> resultIndex = new HashMap<>();
+    public ColumnarTimeSeries combineColumnar(String newSeriesName, List<ColumnarTimeSeries> timeSeriesList) {
 
         // look for oldest timestamp, the granularity (as divisor parameter) and offset
         GranularityResult analyticsResult;
@@ -53,29 +48,12 @@ public class AvgCombiner extends Combiner {
             }
         }
 
-        TimeSeries combinedSeries = new TimeSeries(newSeriesName);
-
-        // proceed indexing and reduce of values
-        for (TimeSeries timeSeries : timeSeriesList) {
-
-            // merge meta data (differ filter dimensions will become a '*')
-            combinedSeries.mergeMetaData(timeSeries);
-
-            for (Value value : timeSeries.getValues()) {
-
-                // the shorten key used to group values
-                long key = value.getTimestamp() - (value.getTimestamp() % analyticsResult.bucketSize);
-
-                // insert new value or merge the current one
-                if (!resultIndex.containsKey(key)) {
-                    resultIndex.put(key, new Value(key, value.getValue()));
-                } else {
-                    resultIndex.get(key).addAndAvg(value.getValue());
-                }
-            }
-        }
+        final GranularityResult granularity = analyticsResult;
 
-        // fill time series with sorted values and return it
-        return prepareSeries(resultIndex, combinedSeries);
+        // the shorten key used to group values; overlapping values will merged the same way
+        // like Value#addAndAvg does it
+        return combineBuckets(newSeriesName, timeSeriesList,
+                timestamp -> timestamp - (timestamp % granularity.bucketSize),
+                (current, next) -> current + next / 2);
     }
 }
@@ -1,15 +1,14 @@
 package de.qaware.ekg.awb.metricanalyzer.bl.visualisation.combine;
 
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.ColumnarTimeSeries;
 import de.qaware.ekg.awb.sdk.core.log.EkgLogger;
 import de.qaware.ekg.awb.sdk.datamodel.TimeSeries;
-import de.qaware.ekg.awb.sdk.datamodel.Value;
 import org.slf4j.Logger;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.LongUnaryOperator;
 
 public abstract class Combiner implements TimeSeriesCombiner {
 
@@ -19,23 +18,23 @@ public abstract class Combiner implements TimeSeriesCombiner {
 
     private static final long MAX_ACCEPTED_TIMESTAMP = 4102441200000L;
 
-    protected static GranularityResult createGranularityForSec(List<TimeSeries> timeSeriesList) {
+    protected static GranularityResult createGranularityForSec(List<ColumnarTimeSeries> timeSeriesList) {
         return new GranularityResult(analyzeSeries(timeSeriesList).smallestTimestamp, 1000);
     }
 
-    protected static GranularityResult createGranularityForMin(List<TimeSeries> timeSeriesList) {
+    protected static GranularityResult createGranularityForMin(List<ColumnarTimeSeries> timeSeriesList) {
         return new GranularityResult(analyzeSeries(timeSeriesList).smallestTimestamp, 60 * 1000);
     }
 
-    protected static GranularityResult createGranularityForHours(List<TimeSeries> timeSeriesList) {
+    protected static GranularityResult createGranularityForHours(List<ColumnarTimeSeries> timeSeriesList) {
         return new GranularityResult(analyzeSeries(timeSeriesList).smallestTimestamp, 60 * 60 * 1000);
     }
 
-    protected static GranularityResult createGranularityForDays(List<TimeSeries> timeSeriesList) {
+    protected static GranularityResult createGranularityForDays(List<ColumnarTimeSeries> timeSeriesList) {
         return new GranularityResult(analyzeSeries(timeSeriesList).smallestTimestamp, 24 * 60 * 60 * 1000);
     }
 
-    protected static GranularityResult createGranularityForMonths(List<TimeSeries> timeSeriesList) {
+    protected static GranularityResult createGranularityForMonths(List<ColumnarTimeSeries> timeSeriesList) {
         return new GranularityResult(analyzeSeries(timeSeriesList).smallestTimestamp, 2628000000L);
     }
 
@@ -47,7 +46,7 @@ public abstract class Combiner implements TimeSeriesCombiner {
      * @param timeSeriesList the list of time series that should combined together to a single one
      * @return a container object that stores the analytic results about
      */
-    protected static GranularityResult analyzeSeries(List<TimeSeries> timeSeriesList) {
+    protected static GranularityResult analyzeSeries(List<ColumnarTimeSeries> timeSeriesList) {
 
         final Object lock = new Object();
         final AtomicLong smallestTimeInterval = new AtomicLong(Long.MAX_VALUE);
@@ -55,7 +54,7 @@ public abstract class Combiner implements TimeSeriesCombiner {
 
         timeSeriesList.parallelStream().forEach(series -> {
 
-            if (series.getValues().isEmpty()) {
+            if (series.isEmpty()) {
                 return;
             }
 
@@ -69,7 +68,7 @@ public abstract class Combiner implements TimeSeriesCombiner {
 
             if (end == start) {
 
-                if (series.getValues().size() == 1) {
+                if (series.size() == 1) {
                     return;
                 } else {
                     String errorMsg = "the time series isn't computable because start of the time " +
@@ -83,14 +82,16 @@ public abstract class Combiner implements TimeSeriesCombiner {
             long loopSmallestTimeInterval = Long.MAX_VALUE;
             long lastValue = 0;
 
-            for (Value value : series.getValues()) {
-                long stepWidth = value.getTimestamp() - lastValue;
+            long[] timestamps = series.getTimestamps();
+
+            for (int i = 0; i < series.size(); i++) {
+                long stepWidth = timestamps[i] - lastValue;
 
                 if (stepWidth < loopSmallestTimeInterval) {
                     loopSmallestTimeInterval = stepWidth;
                 }
 
-                lastValue = value.getTimestamp();
+                lastValue = timestamps[i];
             }
 
             synchronized (lock) {
@@ -126,16 +127,59 @@ public abstract class Combiner implements TimeSeriesCombiner {
         }
     }
 
-    protected static TimeSeries prepareSeries(Map<Long, Value> resultIndex, TimeSeries combinedSeries) {
-        List<Long> seriesTimeKeys = new ArrayList<>(resultIndex.keySet());
-        Collections.sort(seriesTimeKeys);
+    /**
+     * Combines the values of all given series into a single series. The values will assigned to
+     * time buckets by the key function and all values of the same bucket will reduced to one value.
+     * <p>
+     * The values of each bucket are reduced in the order of the series list, so
+     * reduce functions that aren't commutative keep their semantic.
+     *
+     * @param newSeriesName the metric name of the combined series
+     * @param timeSeriesList the series to combine
+     * @param bucketKey function that maps a timestamp to the key of its time bucket
+     * @param reducer function that merges the current bucket value with the next value of the bucket
+     * @return the combined series sorted by the bucket keys
+     */
+    protected static ColumnarTimeSeries combineBuckets(String newSeriesName, List<ColumnarTimeSeries> timeSeriesList,
+                                                       LongUnaryOperator bucketKey, DoubleBinaryOperator reducer) {
+
+        ColumnarTimeSeries combinedSeries = new ColumnarTimeSeries(new TimeSeries(newSeriesName));
+
+        int totalSize = timeSeriesList.stream().mapToInt(ColumnarTimeSeries::size).sum();
+        long[] keys = new long[totalSize];
+        double[] values = new double[totalSize];
+        int offset = 0;
+
+        for (ColumnarTimeSeries timeSeries : timeSeriesList) {
 
-        List<Value> newTimeSeriesValues = new ArrayList<>();
-        for (Long key : seriesTimeKeys) {
-            newTimeSeriesValues.add(resultIndex.get(key));
+            // merge meta data (differ filter dimensions will become a '*')
+            combinedSeries.mergeMetaData(timeSeries);
+
+            long[] seriesTimestamps = timeSeries.getTimestamps();
+            System.arraycopy(timeSeries.getValues(), 0, values, offset, timeSeries.size());
+
+            for (int i = 0; i < timeSeries.size(); i++) {
+                keys[offset + i] = bucketKey.applyAsLong(seriesTimestamps[i]);
+            }
+
+            offset += timeSeries.size();
+        }
+
+        // the stable sort keeps the series order inside of each bucket
+        ColumnarTimeSeries.sort(keys, values, totalSize);
+
+        int bucketCount = 0;
+        for (int i = 0; i < totalSize; i++) {
+            if (bucketCount > 0 && keys[bucketCount - 1] == keys[i]) {
+                values[bucketCount - 1] = reducer.applyAsDouble(values[bucketCount - 1], values[i]);
+            } else {
+                keys[bucketCount] = keys[i];
+                values[bucketCount] = values[i];
+                bucketCount++;
+            }
         }
 
-        combinedSeries.setSortedValues(newTimeSeriesValues);
+        combinedSeries.setColumns(keys, values, bucketCount);
 
         return combinedSeries;
     }
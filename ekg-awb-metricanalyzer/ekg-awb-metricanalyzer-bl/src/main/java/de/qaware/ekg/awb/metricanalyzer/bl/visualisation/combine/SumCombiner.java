@@ -1,10 +1,8 @@
 package de.qaware.ekg.awb.metricanalyzer.bl.visualisation.combine;
 
 import de.qaware.ekg.awb.metricanalyzer.bl.api.SeriesCombineMode;
-import de.qaware.ekg.awb.sdk.datamodel.TimeSeries;
-import de.qaware.ekg.awb.sdk.datamodel.Value;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.ColumnarTimeSeries;
 
-import java.util.HashMap;
 import java.util.List;
 
 /**
@@ -20,9 +18,7 @@ public class SumCombiner extends Combiner {
     }
 
     @Override
-    public TimeSeries combine(String metricName, List<TimeSeries> timeSeriesList) {
-
-        HashMap<Long, Value> resultIndex = new HashMap<>();
+    public ColumnarTimeSeries combineColumnar(String metricName, List<ColumnarTimeSeries> timeSeriesList) {
 
         // look for oldest timestamp, the granularity (as divisor parameter) and offset
         GranularityResult analyticsResult;
@@ -52,29 +48,12 @@ public class SumCombiner extends Combiner {
             }
         }
 
-        TimeSeries combinedSeries = new TimeSeries(metricName);
-
-        // proceed indexing and reduce of values
-        for (TimeSeries timeSeries : timeSeriesList) {
-
-            // merge meta data (differ filter dimensions will become a '*')
-            combinedSeries.mergeMetaData(timeSeries);
-
-            for (Value value : timeSeries.getValues()) {
-
-                // the shorten key used to group values
-                long key = analyticsResult.smallestTimestamp + (analyticsResult.bucketSize * ((value.getTimestamp() - analyticsResult.smallestTimestamp) / analyticsResult.bucketSize));
-
-                // insert new value or merge the current one
-                if (!resultIndex.containsKey(key)) {
-                    resultIndex.put(key, new Value(key, value.getValue()));
-                } else {
-                    resultIndex.get(key).addAndSum(value.getValue());
-                }
-            }
-        }
+        final GranularityResult granularity = analyticsResult;
 
-        // fill time series with sorted values and return it
-        return prepareSeries(resultIndex, combinedSeries);
+        // the shorten key used to group values; overlapping values will summed up
+        return combineBuckets(metricName, timeSeriesList,
+                timestamp -> granularity.smallestTimestamp + (granularity.bucketSize
+                        * ((timestamp - granularity.smallestTimestamp) / granularity.bucketSize)),
+                Double::sum);
     }
 }
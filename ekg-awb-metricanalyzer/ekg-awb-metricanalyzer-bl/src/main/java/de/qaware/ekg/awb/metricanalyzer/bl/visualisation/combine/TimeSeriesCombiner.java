@@ -1,10 +1,34 @@
 package de.qaware.ekg.awb.metricanalyzer.bl.visualisation.combine;
 
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.ColumnarTimeSeries;
 import de.qaware.ekg.awb.sdk.datamodel.TimeSeries;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 public interface TimeSeriesCombiner {
 
-    TimeSeries combine(String newMetricName, List<TimeSeries> timeSeriesList);
+    /**
+     * Combines the given columnar time series to a single one.
+     *
+     * @param newMetricName the metric name of the combined series
+     * @param timeSeriesList the series to combine
+     * @return a new series with the combined values
+     */
+    ColumnarTimeSeries combineColumnar(String newMetricName, List<ColumnarTimeSeries> timeSeriesList);
+
+    /**
+     * Combines the given time series of the public data model to a single one.
+     *
+     * @param newMetricName the metric name of the combined series
+     * @param timeSeriesList the series to combine
+     * @return a new series with the combined values
+     */
+    default TimeSeries combine(String newMetricName, List<TimeSeries> timeSeriesList) {
+        List<ColumnarTimeSeries> columnarSeriesList = timeSeriesList.stream()
+                .map(ColumnarTimeSeries::of)
+                .collect(Collectors.toList());
+
+        return combineColumnar(newMetricName, columnarSeriesList).toTimeSeries();
+    }
 }
@@ -12,9 +12,12 @@
 //______________________________________________________________________________
 package de.qaware.ekg.awb.metricanalyzer.bl.visualisation.simplification;
 
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.ColumnarTimeSeries;
+import de.qaware.ekg.awb.repository.api.CancellationToken;
 import de.qaware.ekg.awb.sdk.datamodel.TimeSeries;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * Interface that represents service that simplify time series
@@ -36,4 +39,43 @@ public interface SimplificationService {
      * @return vectorized time series
      */
     List<TimeSeries> simplify(List<TimeSeries> timeSeries, int threshold);
+
+    /**
+     * Reduce the amount of data points in the given columnar time series to a maximum defined
+     * by the threshold parameter like {@link #simplify(List, int)} does it.
+     *
+     * The default implementation converts the series to the object based data model. Implementations
+     * that are used for large amounts of data points should override it and work on the columns directly.
+     *
+     * @param timeSeries the time series to vectorize
+     * @param threshold threshold for the number of points for all series together;
+     *                  0 indicates, that there should no simplification started
+     * @return vectorized time series
+     */
+    default List<ColumnarTimeSeries> simplifyColumnar(List<ColumnarTimeSeries> timeSeries, int threshold) {
+        List<TimeSeries> simplified = simplify(timeSeries.stream()
+                .map(ColumnarTimeSeries::toTimeSeries)
+                .collect(Collectors.toList()), threshold);
+
+        return simplified.stream().map(ColumnarTimeSeries::of).collect(Collectors.toList());
+    }
+
+    /**
+     * Reduce the amount of data points in the given columnar time series like
+     * {@link #simplifyColumnar(List, int)} does it, but stops as soon as the given token is cancelled.
+     * The series of a cancelled simplification may be simplified partially only and must be discarded.
+     *
+     * The default implementation doesn't check the token, implementations with long running
+     * simplifications should override it.
+     *
+     * @param timeSeries the time series to vectorize
+     * @param threshold threshold for the number of points for all series together;
+     *                  0 indicates, that there should no simplification started
+     * @param cancellationToken the token that is cancelled if the result isn't required anymore
+     * @return vectorized time series
+     */
+    default List<ColumnarTimeSeries> simplifyColumnar(List<ColumnarTimeSeries> timeSeries, int threshold,
+                                                      CancellationToken cancellationToken) {
+        return simplifyColumnar(timeSeries, threshold);
+    }
 }
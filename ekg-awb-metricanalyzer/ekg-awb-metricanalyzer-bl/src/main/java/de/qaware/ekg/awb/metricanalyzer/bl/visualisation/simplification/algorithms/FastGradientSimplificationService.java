@@ -1,6 +1,10 @@
 package de.qaware.ekg.awb.metricanalyzer.bl.visualisation.simplification.algorithms;
 
+import com.carrotsearch.hppc.DoubleArrayList;
+import com.carrotsearch.hppc.IntArrayList;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.ColumnarTimeSeries;
 import de.qaware.ekg.awb.metricanalyzer.bl.visualisation.simplification.SimplificationService;
+import de.qaware.ekg.awb.repository.api.CancellationToken;
 import de.qaware.ekg.awb.sdk.core.log.EkgLogger;
 import de.qaware.ekg.awb.sdk.datamodel.TimeSeries;
 import de.qaware.ekg.awb.sdk.datamodel.Value;
@@ -9,12 +13,15 @@ import org.slf4j.Logger;
 import javax.inject.Singleton;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 /**
  * An implementation of SimplificationService that is based on the following algorithm:
@@ -48,6 +55,11 @@ public class FastGradientSimplificationService implements SimplificationService
      */
     private static final int MIN_CHUNK_SIZE = 20_000;
 
+    /**
+     * The interval in milliseconds the cancellation of the simplification is checked while waiting for the tasks
+     */
+    private static final long CANCEL_CHECK_INTERVAL = 10;
+
     /**
      * our own thread pool used for parallel processing of the counter simplification
      */
@@ -64,7 +76,7 @@ public class FastGradientSimplificationService implements SimplificationService
      * @return simplified counters
      */
     @Override
-    public synchronized List<TimeSeries> simplify(List<TimeSeries> timeSeriesList, final int threshold) {
+    public List<TimeSeries> simplify(List<TimeSeries> timeSeriesList, final int threshold) {
 
         long beforeSimplifying = timeSeriesList.stream().mapToLong(c -> c.getValues().size()).sum();
 
@@ -73,6 +85,63 @@ public class FastGradientSimplificationService implements SimplificationService
             return timeSeriesList;
         }
 
+        List<ColumnarTimeSeries> columnarSeriesList = timeSeriesList.stream()
+                .map(ColumnarTimeSeries::of)
+                .collect(Collectors.toList());
+
+        simplifyColumnar(columnarSeriesList, threshold);
+
+        // replace the counter values with the simplified ones
+        for (int index = 0; index < timeSeriesList.size(); index++) {
+            List<Value> values = timeSeriesList.get(index).getValues();
+            values.clear();
+            values.addAll(columnarSeriesList.get(index).toValueList());
+        }
+
+        return timeSeriesList;
+    }
+
+    /**
+     * Simplify a list of columnar counters to less or the exact amount of counter values defined by the
+     * threshold. If more than one counter is given, the threshold will limit the overall counter
+     * values. For that the threshold value will divided in equal chunks for each counter.
+     *
+     * The columns of the given series will be replaced by the simplified ones.
+     *
+     * @param timeSeriesList  the time series with counter values
+     * @param threshold threshold for the number of points for all counters together; 0 indicates,
+     *                  that there should no simplification started
+     * @return simplified counters
+     */
+    @Override
+    public List<ColumnarTimeSeries> simplifyColumnar(List<ColumnarTimeSeries> timeSeriesList, final int threshold) {
+        return simplifyColumnar(timeSeriesList, threshold, new CancellationToken());
+    }
+
+    /**
+     * Simplify a list of columnar counters like {@link #simplifyColumnar(List, int)} does it. The series
+     * that aren't simplified yet are left untouched and the running tasks are cancelled as soon as the
+     * given token is cancelled.
+     *
+     * The method holds no lock, the simplifications of concurrent requests share the thread pool only.
+     *
+     * @param timeSeriesList  the time series with counter values
+     * @param threshold threshold for the number of points for all counters together; 0 indicates,
+     *                  that there should no simplification started
+     * @param cancellationToken the token that is cancelled if the result isn't required anymore
+     * @return simplified counters
+     */
+    @Override
+    public List<ColumnarTimeSeries> simplifyColumnar(List<ColumnarTimeSeries> timeSeriesList, final int threshold,
+                                                     CancellationToken cancellationToken) {
+
+        long beforeSimplifying = timeSeriesList.stream().mapToLong(ColumnarTimeSeries::size).sum();
+
+        // if zero threshold defined or to less counter we can break early
+        if (beforeSimplifying <= threshold || threshold < 0) {
+            return timeSeriesList;
+        }
+
         // decision between parallelization on the list of time series vs. on chunks of data points
         // for one specific time series (don't do both, it will result in to many tasks)
         final int amountChunkSplits;
@@ -87,10 +156,15 @@ public class FastGradientSimplificationService implements SimplificationService
         // spawn a new thread for each counter in the query result
         timeSeriesList.parallelStream().forEach(timeSeries -> {
 
+            if (cancellationToken.isCancelled()) {
+                return;
+            }
+
             try {
-                List<Value> values = timeSeries.getValues();
+                long[] timestamps = timeSeries.getTimestamps();
+                double[] values = timeSeries.getValues();
 
-                int amountValues = timeSeries.getValues().size();
+                int amountValues = timeSeries.size();
                 int chunkSize = Math.max(MIN_CHUNK_SIZE, amountValues / amountChunkSplits);
                 int amountOfChunks = (int) Math.max(Math.ceil((double) amountValues / (double) chunkSize), 1);
                 int segmentThreshold = threshold / timeSeriesList.size() / amountOfChunks;
@@ -105,28 +179,37 @@ public class FastGradientSimplificationService implements SimplificationService
                     return;
                 }
 
-                final AtomicInteger activeTasksCount = new AtomicInteger(0);
-
-                Value[][] segmentResult = new Value[amountOfChunks][0];
+                int[][] segmentResult = new int[amountOfChunks][0];
 
                 // divide the counter values into equal chunks and create a task with will filter the values in the chunk
-                runSimplifierTasks(values, chunkSize, amountOfChunks, segmentThreshold, activeTasksCount, segmentResult);
+                List<Future<?>> tasks = runSimplifierTasks(timestamps, values, amountValues, chunkSize,
+                        amountOfChunks, segmentThreshold, segmentResult, cancellationToken);
 
-                // wait until all tasks are finished
-                while (activeTasksCount.get() > 0) {
-                    try {
-                        Thread.sleep(20);
-                    } catch (InterruptedException e) {
-                        new ArrayList<>();
-                    }
+                // wait until all tasks are finished, the series keeps its values if the simplification was cancelled
+                if (!awaitSimplifierTasks(tasks, cancellationToken)) {
+                    return;
                 }
 
                 // replace the counter values with the simplified ones
-                values.clear();
-                for (Value[] segmentValues : segmentResult) {
-                    values.addAll(Arrays.asList(segmentValues));
+                int simplifiedSize = 0;
+                for (int[] segmentIndices : segmentResult) {
+                    simplifiedSize += segmentIndices.length;
                 }
 
+                long[] simplifiedTimestamps = new long[simplifiedSize];
+                double[] simplifiedValues = new double[simplifiedSize];
+
+                int position = 0;
+                for (int[] segmentIndices : segmentResult) {
+                    for (int valueIndex : segmentIndices) {
+                        simplifiedTimestamps[position] = timestamps[valueIndex];
+                        simplifiedValues[position] = values[valueIndex];
+                        position++;
+                    }
+                }
+
+                timeSeries.setColumns(simplifiedTimestamps, simplifiedValues, simplifiedSize);
+
             } catch (Exception e) {
                 LOGGER.error("Error during calculation and delegation of simplifier tasks", e);
                 throw new IllegalStateException(e);
@@ -137,195 +220,232 @@ public class FastGradientSimplificationService implements SimplificationService
     }
 
     /**
-     * Create SimplifierTask for chunks of the value list (min size defined by constant MIN_CHUNK_SIZE)
+     * Create SimplifierTask for chunks of the value columns (min size defined by constant MIN_CHUNK_SIZE)
      * that will reduce that amount of values by eliminating the values with no or to less gradient difference to
      * the compared previous value.
      *
-     * The result will written to the segmentResult. The first dimension of the array represents the chunk
-     * of the time series in the correct chronological order
+     * The result will written to the segmentResult as indices of the values that remains. The first dimension
+     * of the array represents the chunk of the time series in the correct chronological order
      *
-     * @param values the complete values of the counter time series
+     * @param timestamps the complete timestamp column of the counter time series
+     * @param values the complete value column of the counter time series
+     * @param amountValues the amount of valid values in the columns
      * @param chunkSize the amount of values proceed in a dedicated task (thread)
      * @param amountOfChunks the expected amount of chunks required to proceed the complete time series
      * @param segmentThreshold the maximum of values that are allowed in each chunk of the time series
-     * @param activeTasks an global counter to share the state of #active tasks
      * @param segmentResult a multi-dimension result array that will fulfilled by SimplifierTasks
+     * @param cancellationToken the token that prevents the start of tasks if it is cancelled
+     * @return the futures of the submitted tasks
      */
-    private void runSimplifierTasks(List<Value> values, int chunkSize, int amountOfChunks,
-                                    int segmentThreshold, AtomicInteger activeTasks, Value[][] segmentResult) {
+    private List<Future<?>> runSimplifierTasks(long[] timestamps, double[] values, int amountValues, int chunkSize,
+                                               int amountOfChunks, int segmentThreshold, int[][] segmentResult,
+                                               CancellationToken cancellationToken) {
+
+        List<Future<?>> tasks = new ArrayList<>(amountOfChunks);
 
         for (int chunkIndex = 0; chunkIndex < amountOfChunks; chunkIndex ++) {
 
             int index = chunkIndex;
             int start = chunkIndex * chunkSize;
-            int end = start + chunkSize >= values.size() ? values.size() : start + chunkSize;
+            int end = start + chunkSize >= amountValues ? amountValues : start + chunkSize;
+
+            tasks.add(executor.submit(() -> {
+                if (cancellationToken.isCancelled()) {
+                    return;
+                }
 
-            activeTasks.incrementAndGet();
-            executor.submit(() -> {
                 try {
-                    segmentResult[index] = filterValues(values, start, end, segmentThreshold);
+                    segmentResult[index] = filterValues(timestamps, values, start, end, segmentThreshold);
                 } catch (Exception e) {
                     LOGGER.error("", e);
-                } finally {
-                    activeTasks.getAndDecrement();
                 }
-            });
+            }));
+        }
+
+        return tasks;
+    }
+
+    /**
+     * Waits until all given simplifier tasks are finished. If the token is cancelled or the calling thread
+     * is interrupted while waiting, the remaining tasks are cancelled.
+     *
+     * @param tasks the futures of the simplifier tasks of a time series
+     * @param cancellationToken the token of the simplification
+     * @return true if all tasks are finished, false if the simplification was cancelled
+     * @throws ExecutionException if a task failed
+     */
+    private static boolean awaitSimplifierTasks(List<Future<?>> tasks, CancellationToken cancellationToken)
+            throws ExecutionException {
+
+        try {
+            for (Future<?> task : tasks) {
+                while (true) {
+                    if (cancellationToken.isCancelled()) {
+                        return false;
+                    }
+
+                    try {
+                        task.get(CANCEL_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+                        break;
+                    } catch (TimeoutException e) {
+                        // check the cancellation again
+                    }
+                }
+            }
+
+            return true;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+
+        } finally {
+            // no-op for the finished ones
+            tasks.forEach(task -> task.cancel(true));
         }
     }
 
     /**
      * Filter/simplification function that will work in the three steps:
      *
-     * Step 1: calculating the gradient of each point in the graph (Value objects in the counter series)
+     * Step 1: calculating the gradient of each point in the graph (data points in the counter series)
      * Step 2: calculating the tolerance threshold that will use to filter the points
      * Step 3: filter als points that have an gradient == 0 or < the tolerance threshold
      *
-     * @param values the complete values of the counter time series
+     * @param timestamps the complete timestamp column of the counter time series
+     * @param values the complete value column of the counter time series
      * @param start the index of the first value that belongs to the chunk (start offset)
      * @param end the index of the last value that belongs to the chunk
      * @param segmentThreshold the maximum of values that are allowed in each chunk of the time series
      *
-     * @return a value array with the filtered/simplified values
+     * @return the indices of the filtered/simplified values in chronological order
      */
-    private static Value[] filterValues(List<Value> values, int start, int end, int segmentThreshold) {
+    private static int[] filterValues(long[] timestamps, double[] values, int start, int end, int segmentThreshold) {
 
-        List<ValueGradientHolder> diffGradientValues = new ArrayList<>();
+        IntArrayList diffGradientIndices = new IntArrayList();
+        DoubleArrayList diffGradients = new DoubleArrayList();
 
-        Value lastElementFiltered = null;
+        int lastElementFiltered = -1;
 
         // Step 1: normalize data. In this step the algorithm reduce multiple data points to a single one if
         //         the multiple data points have the same timestamp. This isn't common but already concurred in real-life.
         //         In this case the algorithm search for the value with the maximum difference to the value of
         //         the previous timestamp.
         double valueAtPreviousTimestamp = 0;
-        Value valueWithHighestDiff = null;
+        int indexWithHighestDiff = -1;
         double lastLoopDiff = Double.NaN;
         long lastLoopTimestamp = -1;
-        List<Value> normalizedValues = new ArrayList<>();
+        IntArrayList normalizedIndices = new IntArrayList();
 
         for (int index = start + 1; index < end; index++) {
 
-            Value value = values.get(index);
-
-            if (value.getTimestamp() != lastLoopTimestamp) {
-                lastLoopTimestamp = value.getTimestamp();
+            if (timestamps[index] != lastLoopTimestamp) {
+                lastLoopTimestamp = timestamps[index];
                 lastLoopDiff = Double.NaN;
 
-                if (valueWithHighestDiff == null) {
-                    valueWithHighestDiff = value;
+                if (indexWithHighestDiff < 0) {
+                    indexWithHighestDiff = index;
                 } else {
-                    normalizedValues.add(valueWithHighestDiff);
-                    valueAtPreviousTimestamp = valueWithHighestDiff.getValue();
+                    normalizedIndices.add(indexWithHighestDiff);
+                    valueAtPreviousTimestamp = values[indexWithHighestDiff];
                 }
             }
 
-            double diff = Math.abs(valueAtPreviousTimestamp - value.getValue());
-            if (Double.isNaN(lastLoopDiff) || lastLoopDiff < diff || (lastLoopDiff == diff && valueWithHighestDiff.getValue() < value.getValue())) {
+            double diff = Math.abs(valueAtPreviousTimestamp - values[index]);
+            if (Double.isNaN(lastLoopDiff) || lastLoopDiff < diff
+                    || (lastLoopDiff == diff && values[indexWithHighestDiff] < values[index])) {
                 lastLoopDiff = diff;
-                valueWithHighestDiff = value;
+                indexWithHighestDiff = index;
             }
         }
 
-        if (valueWithHighestDiff != null && !normalizedValues.get(normalizedValues.size() - 1).equals(valueWithHighestDiff)) {
-            normalizedValues.add(valueWithHighestDiff);
+        if (indexWithHighestDiff >= 0 && (normalizedIndices.isEmpty()
+                || normalizedIndices.get(normalizedIndices.size() - 1) != indexWithHighestDiff)) {
+            normalizedIndices.add(indexWithHighestDiff);
         }
 
         // Step 2: calculating the gradient of each value. Values with zero gradient will filtered immediately
-        for (int index = 1; index < normalizedValues.size(); index++) {
+        for (int index = 1; index < normalizedIndices.size(); index++) {
+
+            int previous = normalizedIndices.get(index - 1);
+            int current = normalizedIndices.get(index);
 
-            double calculatedGradient = Math.abs(calculateLinearGradient(normalizedValues.get(index - 1), normalizedValues.get(index)));
+            double calculatedGradient = Math.abs(calculateLinearGradient(
+                    timestamps[previous], values[previous], timestamps[current], values[current]));
 
             if (calculatedGradient > 0.0) {
-                if (lastElementFiltered != null) {
-                    diffGradientValues.add(new ValueGradientHolder(lastElementFiltered, calculatedGradient));
-                    lastElementFiltered = null;
+                if (lastElementFiltered >= 0) {
+                    diffGradientIndices.add(lastElementFiltered);
+                    diffGradients.add(calculatedGradient);
+                    lastElementFiltered = -1;
                 }
 
-                diffGradientValues.add(new ValueGradientHolder(normalizedValues.get(index), calculatedGradient));
+                diffGradientIndices.add(current);
+                diffGradients.add(calculatedGradient);
             } else {
-                lastElementFiltered = normalizedValues.get(index);
+                lastElementFiltered = current;
             }
         }
 
-        if (diffGradientValues.isEmpty()) {
-            return new Value[0];
+        if (diffGradientIndices.isEmpty()) {
+            return new int[0];
         }
 
-        List<Value> resultList = new ArrayList<>(segmentThreshold);
-        lastElementFiltered = null;
-
         // if we don't reach the segment threshold after removing zero gradient values, we can skip step 2
-        if (diffGradientValues.size() < segmentThreshold) {
+        if (diffGradientIndices.size() < segmentThreshold) {
+            return diffGradientIndices.toArray();
+        }
 
-            for (ValueGradientHolder holder : diffGradientValues) {
-                resultList.add(holder.value);
+        // Step 3: calculating the tolerance threshold that will use to filter the points
+        if (segmentThreshold == 0) {
+            int highestGradient = 0;
+            for (int index = 1; index < diffGradients.size(); index++) {
+                if (diffGradients.get(index) >= diffGradients.get(highestGradient)) {
+                    highestGradient = index;
+                }
             }
 
-        } else {
-            // Step 3: calculating the tolerance threshold that will use to filter the points
-            List<ValueGradientHolder> sortedGradientValues = new ArrayList<>(diffGradientValues);
-            //noinspection unchecked
-            Collections.sort(sortedGradientValues);
-
-            int nthValueIndex;
+            return new int[]{diffGradientIndices.get(highestGradient)};
+        }
 
-            if (segmentThreshold == 0) {
-                return new Value[]{sortedGradientValues.get(sortedGradientValues.size() - 1).value};
-            } else {
-                nthValueIndex = sortedGradientValues.size() - segmentThreshold;
-            }
+        double[] sortedGradients = diffGradients.toArray();
+        Arrays.sort(sortedGradients);
 
-            double toleranceThreshold = sortedGradientValues.get(nthValueIndex).gradient;
+        double toleranceThreshold = sortedGradients[sortedGradients.length - segmentThreshold];
 
-            // Step 4: filter all points that have the gradient < tolerance threshold
-            for (ValueGradientHolder holder : diffGradientValues) {
-                if (holder.gradient > toleranceThreshold) {
-                    if (lastElementFiltered != null) {
-                        resultList.add(lastElementFiltered);
-                        lastElementFiltered = null;
-                    }
+        IntArrayList resultIndices = new IntArrayList(segmentThreshold);
+        lastElementFiltered = -1;
 
-                    resultList.add(holder.value);
-                } else {
-                    lastElementFiltered = holder.value;
+        // Step 4: filter all points that have the gradient < tolerance threshold
+        for (int index = 0; index < diffGradientIndices.size(); index++) {
+            if (diffGradients.get(index) > toleranceThreshold) {
+                if (lastElementFiltered >= 0) {
+                    resultIndices.add(lastElementFiltered);
+                    lastElementFiltered = -1;
                 }
+
+                resultIndices.add(diffGradientIndices.get(index));
+            } else {
+                lastElementFiltered = diffGradientIndices.get(index);
             }
         }
 
-        return resultList.toArray(new Value[0]);
+        return resultIndices.toArray();
     }
 
 
     /**
-     * Calculates the linear gradient of between two values of the counter time series
+     * Calculates the linear gradient of between two data points of the counter time series
      *
-     * @param previousValue the preview value of the counter time series
-     * @param currentValue the current value of the counter time series
+     * @param previousTimestamp the timestamp of the preview data point
+     * @param previousValue the value of the preview data point
+     * @param currentTimestamp the timestamp of the current data point
+     * @param currentValue the value of the current data point
      * @return a double that represents the gradient
      */
-    private static double calculateLinearGradient(Value previousValue, Value currentValue) {
-        double dX = currentValue.getTimestamp() - previousValue.getTimestamp();
-        return dX <= 0.0 ? Double.MAX_VALUE : (currentValue.getValue() - previousValue.getValue()) / (dX);
-    }
-
-
-    /**
-     * Helper data structure to sort the values
-     */
-    private static class ValueGradientHolder implements Comparable {
-
-        private double gradient;
-
-        private Value value;
-
-        public ValueGradientHolder(Value value, double gradient) {
-            this.gradient = gradient;
-            this.value = value;
-        }
-
-        @Override
-        public int compareTo(Object o) {
-            return Double.compare(gradient, ((ValueGradientHolder) o).gradient);
-        }
+    private static double calculateLinearGradient(long previousTimestamp, double previousValue,
+                                                  long currentTimestamp, double currentValue) {
+        double dX = currentTimestamp - previousTimestamp;
+        return dX <= 0.0 ? Double.MAX_VALUE : (currentValue - previousValue) / (dX);
     }
 }
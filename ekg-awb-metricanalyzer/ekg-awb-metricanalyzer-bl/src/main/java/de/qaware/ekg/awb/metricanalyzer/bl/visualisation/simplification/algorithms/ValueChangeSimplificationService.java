@@ -1,9 +1,7 @@
 package de.qaware.ekg.awb.metricanalyzer.bl.visualisation.simplification.algorithms;
 
-import de.qaware.ekg.awb.sdk.datamodel.TimeSeries;
-import de.qaware.ekg.awb.sdk.datamodel.Value;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.ColumnarTimeSeries;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -12,26 +10,41 @@ import java.util.List;
  */
 public class ValueChangeSimplificationService {
 
-    public List<TimeSeries> simplify(List<TimeSeries> timeSeries) {
+    public List<ColumnarTimeSeries> simplify(List<ColumnarTimeSeries> timeSeries) {
 
-        for (TimeSeries series : timeSeries) {
-            List<Value> values = series.getValues();
-            List<Value> resultValues = new ArrayList<>();
+        for (ColumnarTimeSeries series : timeSeries) {
 
-            Value lastValue = new Value(0, Double.MIN_VALUE);
-            for (Value value : values) {
-                if (value.getValue() != lastValue.getValue()) {
-                    resultValues.add(value);
-                    lastValue = value;
+            if (series.isEmpty()) {
+                continue;
+            }
+
+            long[] timestamps = series.getTimestamps();
+            double[] values = series.getValues();
+            int size = series.size();
+
+            // the remaining points are written back into the columns because they never overtake the read position
+            int resultSize = 0;
+            long lastTimestamp = 0;
+            double lastValue = Double.MIN_VALUE;
+
+            for (int index = 0; index < size; index++) {
+                if (values[index] != lastValue) {
+                    lastTimestamp = timestamps[index];
+                    lastValue = values[index];
+
+                    timestamps[resultSize] = lastTimestamp;
+                    values[resultSize] = lastValue;
+                    resultSize++;
                 }
             }
 
-            if (values.get(values.size() - 1).getTimestamp() != lastValue.getTimestamp()) {
-                resultValues.add(values.get(values.size() - 1));
+            if (timestamps[size - 1] != lastTimestamp) {
+                timestamps[resultSize] = timestamps[size - 1];
+                values[resultSize] = values[size - 1];
+                resultSize++;
             }
 
-            values.clear();
-            values.addAll(resultValues);
+            series.setColumns(timestamps, values, resultSize);
         }
 
         return timeSeries;
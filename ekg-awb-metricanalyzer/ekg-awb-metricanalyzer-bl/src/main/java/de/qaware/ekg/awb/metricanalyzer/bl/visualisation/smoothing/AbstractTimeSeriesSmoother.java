@@ -1,11 +1,14 @@
 package de.qaware.ekg.awb.metricanalyzer.bl.visualisation.smoothing;
 
 import de.qaware.ekg.awb.metricanalyzer.bl.api.SeriesSmoothingGranularity;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.ColumnarTimeSeries;
 import de.qaware.ekg.awb.sdk.datamodel.Value;
 
 import java.time.Instant;
 import java.time.ZoneId;
-import java.util.*;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
 
 /**
  * Base class of all TimeSeriesSmoother implementations that will do the
@@ -67,25 +70,61 @@ public abstract class AbstractTimeSeriesSmoother implements TimeSeriesSmoother {
             return originalValueList;
         }
 
-        Map<Long, List<Value>> bucketValueList;
+        return computeSmoothing(ColumnarTimeSeries.of(originalValueList)).toValueList();
+    }
+
+    /* (non-Javadoc)
+     * @see de.qaware.ekg.awb.metricanalyzer.bl.visualisation.smoothing.TimeSeriesSmoother#computeSmoothing(ColumnarTimeSeries)
+     */
+    @Override
+    public ColumnarTimeSeries computeSmoothing(ColumnarTimeSeries timeSeries) {
+
+        if (timeSeries == null || timeSeries.isEmpty()) {
+            return timeSeries;
+        }
+
+        long[] timestamps = timeSeries.getTimestamps();
+        double[] values = timeSeries.getValues();
+        int size = timeSeries.size();
+
+        long[] bucketKeys;
 
         if (smoothingGranularity == SeriesSmoothingGranularity.CALENDAR_MONTH) {
-            bucketValueList = transformToCalendarAwareBuckets(originalValueList);
+            bucketKeys = transformToCalendarAwareBuckets(timestamps, size);
 
         } else if (smoothingGranularity == SeriesSmoothingGranularity.OFF) {
-            bucketValueList = new HashMap<>(originalValueList.size(), 1);
-
-            for (Value value : originalValueList) {
-                bucketValueList.put(value.getTimestamp(), List.of(value));
-            }
+            bucketKeys = timestamps;
 
         } else {
-            bucketValueList = transformToGenericTimeBuckets(originalValueList);
+            bucketKeys = transformToGenericTimeBuckets(timestamps, size);
         }
 
-        return computeSeriesValues(bucketValueList);
-    }
+        // the values are sorted by time, so each bucket is a continuous range of the columns.
+        // The result is written back into the columns because there are never more buckets than values.
+        int bucketCount = 0;
+        int bucketStart = 0;
+
+        for (int index = 1; index <= size; index++) {
+
+            if (index == size || bucketKeys[index] != bucketKeys[bucketStart]) {
 
+                // without granularity only the last value of each timestamp will be kept
+                int from = smoothingGranularity == SeriesSmoothingGranularity.OFF ? index - 1 : bucketStart;
+                long bucketKey = bucketKeys[bucketStart];
+
+                values[bucketCount] = computeBucketValue(values, from, index);
+                timestamps[bucketCount] = bucketKey;
+                bucketCount++;
+
+                bucketStart = index;
+            }
+        }
+
+        completeSeriesValues(values, bucketCount);
+        timeSeries.setColumns(timestamps, values, bucketCount);
+
+        return timeSeries;
+    }
 
 
     //================================================================================================================
@@ -93,34 +132,27 @@ public abstract class AbstractTimeSeriesSmoother implements TimeSeriesSmoother {
     //================================================================================================================
 
     /**
-     * Proceed the smoothing values stored in the given time buckets
+     * Computes the smoothed value of a single time bucket.
      *
-     * The implementation expects an unordered or ordered map with pre-assigned time series
-     * to the values that are defined per map entry. The returned list will contain the smoothed
-     * result represented as on Value per time bucked sorted in chronological order.
+     * The values of the bucket are given as range of the value column of the series
+     * in chronological order.
      *
-     * @param bucketValueMap a map which contains an entry for each time bucket and a list of values that are assigned to it
-     * @return the smoothed value list of the time series
+     * @param values the value column of the time series
+     * @param from the index of the first value of the bucket (inclusive)
+     * @param to the index of the last value of the bucket (exclusive)
+     * @return the value that represents the bucket in the smoothed series
      */
-    protected abstract List<Value> computeSeriesValues(Map<Long, List<Value>> bucketValueMap);
+    protected abstract double computeBucketValue(double[] values, int from, int to);
 
     /**
-     * Transform the Map with time series values back
-     * to a sorted list of {@link Value} instances.
+     * Hook for post processing of the smoothed values after all buckets are computed.
+     * The default implementation does nothing.
      *
-     * @param resultIndex an map with time group keys as keys and Value instances as value
-     * @return the transformed map
+     * @param values the smoothed values in chronological order
+     * @param size the amount of valid values
      */
-    protected static List<Value> prepareSeries(Map<Long, Value> resultIndex) {
-        List<Long> valueKeys = new ArrayList<>(resultIndex.keySet());
-        Collections.sort(valueKeys);
-
-        List<Value> newValueSeries = new ArrayList<>();
-        for (Long key : valueKeys) {
-            newValueSeries.add(resultIndex.get(key));
-        }
-
-        return newValueSeries;
+    protected void completeSeriesValues(double[] values, int size) {
+        // no op
     }
 
     //================================================================================================================
@@ -128,64 +160,56 @@ public abstract class AbstractTimeSeriesSmoother implements TimeSeriesSmoother {
     //================================================================================================================
 
     /**
-     * Partitions the given list of Value instances to various time buckets
-     * returned as map.
+     * Resolves the time bucket of each of the given timestamps.
      *
      * The underlying algorithm uses fix bucket length's with a static divisor
      * that is resolved for the bind granularity to divide the data into the buckets.
-     * The returned map use timestamps that define the half time for each bucket interval.
+     * The returned keys are the timestamps that define the half time for each bucket interval.
      *
-     * @param valueList the value list of the time series to smooth
-     * @return a map which contains an entry for each time bucket and a list of values that are assigned to it
+     * @param timestamps the sorted timestamps of the time series to smooth
+     * @param size the amount of valid timestamps
+     * @return the key of the bucket for each timestamp
      */
-    private Map<Long, List<Value>> transformToGenericTimeBuckets(List<Value> valueList) {
+    private long[] transformToGenericTimeBuckets(long[] timestamps, int size) {
 
-        long divisor = resolveDivisor(smoothingGranularity, valueList);
+        long divisor = resolveDivisor(smoothingGranularity, timestamps, size);
 
-        long smallestTimestamp = valueList.get(0).getTimestamp();
-        long largestTimestamp = valueList.get(valueList.size() - 1).getTimestamp();
+        long smallestTimestamp = timestamps[0];
         long sliceSizeHalf = divisor / 2;
 
-        int amountOfBuckets = (int)((largestTimestamp - smallestTimestamp) / divisor) + 1;
-        Map<Long, List<Value>> bucketValueList = new HashMap<>(amountOfBuckets, 1.0f);
-
-        for (Value value : valueList) {
+        long[] bucketKeys = new long[size];
 
-            int sliceIndex = (int)((value.getTimestamp() - smallestTimestamp) / divisor);
-            long sliceTime = smallestTimestamp + sliceSizeHalf + (sliceIndex * divisor);
+        for (int index = 0; index < size; index++) {
 
-            if (!bucketValueList.containsKey(sliceTime)) {
-                bucketValueList.put(sliceTime, new ArrayList<>());
-            }
-
-            bucketValueList.get(sliceTime).add(value);
+            int sliceIndex = (int)((timestamps[index] - smallestTimestamp) / divisor);
+            bucketKeys[index] = smallestTimestamp + sliceSizeHalf + (sliceIndex * divisor);
         }
 
-        return bucketValueList;
+        return bucketKeys;
     }
 
 
     /**
-     * Partitions the given list of Value instances to various time buckets
-     * returned as map.
+     * Resolves the time bucket of each of the given timestamps.
      *
      * Each bucket is a calendar month represented by a timestamp points to the middle of the month.
      * But all values that belongs to the relating month (also after the mid of month) are assigned
      * to the same bucket.
      *
-     * @param valueList the value list of the time series to smooth
-     * @return a map which contains an entry for each time bucket and a list of values that are assigned to it
+     * @param timestamps the sorted timestamps of the time series to smooth
+     * @param size the amount of valid timestamps
+     * @return the key of the bucket for each timestamp
      */
-    private Map<Long, List<Value>> transformToCalendarAwareBuckets(List<Value> valueList) {
+    private long[] transformToCalendarAwareBuckets(long[] timestamps, int size) {
 
-        Map<Long, List<Value>> bucketValueMap = new HashMap<>(10, 1.0f);
+        long[] bucketKeys = new long[size];
 
         int lastYear = -1;
         int lastMonth = -1;
 
-        for (Value value : valueList) {
+        for (int index = 0; index < size; index++) {
 
-            long timestamp = value.getTimestamp();
+            long timestamp = timestamps[index];
 
             int indexYear = -1;
             int indexMonth = -1;
@@ -206,13 +230,10 @@ public abstract class AbstractTimeSeriesSmoother implements TimeSeriesSmoother {
             lastYear = indexYear;
             lastMonth = indexMonth;
 
-            long midMonthTimestamp = MID_MONTH_TIMESTAMP_INDEX[indexYear][indexMonth];
-
-            List<Value> bucketValueList = bucketValueMap.computeIfAbsent(midMonthTimestamp, k -> new ArrayList<>());
-            bucketValueList.add(value);
+            bucketKeys[index] = MID_MONTH_TIMESTAMP_INDEX[indexYear][indexMonth];
         }
 
-        return bucketValueMap;
+        return bucketKeys;
     }
 
     /**
@@ -280,15 +301,16 @@ public abstract class AbstractTimeSeriesSmoother implements TimeSeriesSmoother {
      * used to segment the timestamp into buckets.
      *
      * @param smoothingGranularity the granularity used to chose / calculate the best divisor
-     * @param originalValueList the whole value list of the time series to investigate if granularity=AUTO chosen
+     * @param timestamps the sorted timestamps of the time series to investigate if granularity=AUTO chosen
+     * @param size the amount of valid timestamps
      * @return the divisor that matches to the granularity
      */
-    private long resolveDivisor(SeriesSmoothingGranularity smoothingGranularity, List<Value> originalValueList) {
+    private long resolveDivisor(SeriesSmoothingGranularity smoothingGranularity, long[] timestamps, int size) {
 
         long div;
         switch (smoothingGranularity) {
             case AUTO:
-                div = calculateDivisor(originalValueList);
+                div = calculateDivisor(timestamps, size);
                 break;
             case HALF_YEAR:
                 div = 15_778_462_998L;
@@ -322,16 +344,17 @@ public abstract class AbstractTimeSeriesSmoother implements TimeSeriesSmoother {
     }
 
     /**
-     * Auto calculates the best matching divisor for the given value list
+     * Auto calculates the best matching divisor for the given timestamps
      * by make assumptions about the granularity that fits into a chart
      *
-     * @param originalValueList the values list to visualisation the divisor for
+     * @param timestamps the sorted timestamps to visualisation the divisor for
+     * @param size the amount of valid timestamps
      * @return the calculated divisor
      */
-    private long calculateDivisor(List<Value> originalValueList) {
+    private long calculateDivisor(long[] timestamps, int size) {
 
-        long start = originalValueList.get(0).getTimestamp();
-        long end = originalValueList.get(originalValueList.size() - 1).getTimestamp();
+        long start = timestamps[0];
+        long end = timestamps[size - 1];
 
         if (start > end) {
             throw new IllegalArgumentException("the value list of the series has an illegal time range.");
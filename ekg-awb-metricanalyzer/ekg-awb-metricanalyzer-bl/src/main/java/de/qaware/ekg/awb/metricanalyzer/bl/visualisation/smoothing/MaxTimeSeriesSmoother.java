@@ -1,11 +1,6 @@
 package de.qaware.ekg.awb.metricanalyzer.bl.visualisation.smoothing;
 
 import de.qaware.ekg.awb.metricanalyzer.bl.api.SeriesSmoothingGranularity;
-import de.qaware.ekg.awb.sdk.datamodel.Value;
-
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 
 /**
  * Implements a series smoothing by use the maximum of all values inside
@@ -24,32 +19,21 @@ public class MaxTimeSeriesSmoother extends AbstractTimeSeriesSmoother {
     }
 
     /* (non-Javadoc)
-     * @see de.qaware.ekg.awb.metricanalyzer.bl.visualisation.smoothing.AbstractTimeSeriesSmoother#computeValues(...)
+     * @see de.qaware.ekg.awb.metricanalyzer.bl.visualisation.smoothing.AbstractTimeSeriesSmoother#computeBucketValue(...)
      */
     @Override
-    protected List<Value> computeSeriesValues(Map<Long, List<Value>> bucketValueMap) {
-
-        Map<Long, Value> resultIndex = new HashMap<>();
-
-        for (Map.Entry<Long, List<Value>> bucket : bucketValueMap.entrySet()) {
-
-            // the shorten key used to group values
-            long key = bucket.getKey();
-
-            for (Value bucketValue : bucket.getValue()) {
+    protected double computeBucketValue(double[] values, int from, int to) {
 
-                Value existingValue = resultIndex.get(key);
+        double max = values[from];
 
-                if (existingValue == null) {
-                    resultIndex.put(key, new Value(key, bucketValue.getValue()));
+        for (int index = from + 1; index < to; index++) {
 
-                // replace value if the current one is lower
-                } else if (existingValue.getValue() < bucketValue.getValue()) {
-                    resultIndex.get(key).setValue(bucketValue.getValue());
-                }
+            // replace value if the current one is lower
+            if (max < values[index]) {
+                max = values[index];
             }
         }
 
-        return prepareSeries(resultIndex);
+        return max;
     }
 }
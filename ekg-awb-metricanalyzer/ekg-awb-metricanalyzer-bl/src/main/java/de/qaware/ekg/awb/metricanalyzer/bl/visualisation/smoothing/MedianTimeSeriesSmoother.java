@@ -1,10 +1,8 @@
 package de.qaware.ekg.awb.metricanalyzer.bl.visualisation.smoothing;
 
-import com.carrotsearch.hppc.DoubleArrayList;
 import de.qaware.ekg.awb.metricanalyzer.bl.api.SeriesSmoothingGranularity;
-import de.qaware.ekg.awb.sdk.datamodel.Value;
 
-import java.util.*;
+import java.util.Arrays;
 
 /**
  * Implements a series smoothing by use the median of all values inside
@@ -23,28 +21,11 @@ public class MedianTimeSeriesSmoother extends AbstractTimeSeriesSmoother {
     }
 
     /* (non-Javadoc)
-     * @see de.qaware.ekg.awb.metricanalyzer.bl.visualisation.smoothing.AbstractTimeSeriesSmoother#computeValues(...)
+     * @see de.qaware.ekg.awb.metricanalyzer.bl.visualisation.smoothing.AbstractTimeSeriesSmoother#computeBucketValue(...)
      */
     @Override
-    protected List<Value> computeSeriesValues(Map<Long, List<Value>> bucketValueMap) {
-
-        List<Value> resultList = new ArrayList<>(bucketValueMap.size());
-
-        for (Map.Entry<Long, List<Value>> bucket : bucketValueMap.entrySet()) {
-
-            DoubleArrayList doubleList = DoubleArrayList.from();
-
-            for (Value bucketValue : bucket.getValue()) {
-                doubleList.add(bucketValue.getValue());
-            }
-
-            double median = calcMedian(doubleList.toArray());
-            resultList.add(new Value(bucket.getKey(), median));
-        }
-
-        Collections.sort(resultList);
-
-        return resultList;
+    protected double computeBucketValue(double[] values, int from, int to) {
+        return calcMedian(Arrays.copyOfRange(values, from, to));
     }
 
     private static double calcMedian(double[] valuesOfBucket) {
@@ -1,12 +1,6 @@
 package de.qaware.ekg.awb.metricanalyzer.bl.visualisation.smoothing;
 
 import de.qaware.ekg.awb.metricanalyzer.bl.api.SeriesSmoothingGranularity;
-import de.qaware.ekg.awb.sdk.datamodel.Value;
-
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Map;
 
 /**
  * Implements a series smoothing by accumulate all values inside
@@ -25,26 +19,17 @@ public class SumTimeSeriesSmoother extends AbstractTimeSeriesSmoother {
     }
 
     /* (non-Javadoc)
-     * @see de.qaware.ekg.awb.metricanalyzer.bl.visualisation.smoothing.AbstractTimeSeriesSmoother#computeValues(...)
+     * @see de.qaware.ekg.awb.metricanalyzer.bl.visualisation.smoothing.AbstractTimeSeriesSmoother#computeBucketValue(...)
      */
     @Override
-    protected List<Value> computeSeriesValues(Map<Long, List<Value>> bucketValueMap) {
-
-        List<Value> resultList = new ArrayList<>(bucketValueMap.size());
-
-        for (Map.Entry<Long, List<Value>> bucket : bucketValueMap.entrySet()) {
+    protected double computeBucketValue(double[] values, int from, int to) {
 
-            Value value = new Value(bucket.getKey(), 0);
+        double sum = 0;
 
-            for (Value bucketValue : bucket.getValue()) {
-                value.addAndSum(bucketValue.getValue());
-            }
-
-            resultList.add(value);
+        for (int index = from; index < to; index++) {
+            sum += values[index];
         }
 
-        Collections.sort(resultList);
-
-        return resultList;
+        return sum;
     }
 }
@@ -1,5 +1,6 @@
 package de.qaware.ekg.awb.metricanalyzer.bl.visualisation.smoothing;
 
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.ColumnarTimeSeries;
 import de.qaware.ekg.awb.sdk.datamodel.Value;
 
 import java.util.List;
@@ -22,4 +23,15 @@ public interface TimeSeriesSmoother {
      * @return a new or modified list with smoothed values inside.
      */
     List<Value> computeSmoothing(List<Value> originalValueList);
+
+    /**
+     * Smooth/neat the values of the given columnar time series.
+     *
+     * The columns of the given series will be replaced by the smoothed values,
+     * so the series have to be mutable.
+     *
+     * @param timeSeries the time series to smooth
+     * @return the given series instance with smoothed values inside.
+     */
+    ColumnarTimeSeries computeSmoothing(ColumnarTimeSeries timeSeries);
 }
@@ -1,12 +1,6 @@
 package de.qaware.ekg.awb.metricanalyzer.bl.visualisation.smoothing;
 
 import de.qaware.ekg.awb.metricanalyzer.bl.api.SeriesSmoothingGranularity;
-import de.qaware.ekg.awb.sdk.datamodel.Value;
-
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Map;
 
 /**
  * Implements a series smoothing by use the count of values inside
@@ -26,16 +20,7 @@ public class ValueCountTimeSeriesSmoother extends AbstractTimeSeriesSmoother {
     }
 
     @Override
-    protected List<Value> computeSeriesValues(Map<Long, List<Value>> bucketValueMap) {
-
-        List<Value> resultList = new ArrayList<>(bucketValueMap.size());
-
-        for (Map.Entry<Long, List<Value>> bucket : bucketValueMap.entrySet()) {
-            resultList.add(new Value(bucket.getKey(), bucket.getValue().size()));
-        }
-
-        Collections.sort(resultList);
-
-        return resultList;
+    protected double computeBucketValue(double[] values, int from, int to) {
+        return to - from;
     }
 }
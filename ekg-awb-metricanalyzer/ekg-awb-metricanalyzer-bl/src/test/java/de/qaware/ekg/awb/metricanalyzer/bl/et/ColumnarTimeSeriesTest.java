@@ -0,0 +1,103 @@
+package de.qaware.ekg.awb.metricanalyzer.bl.et;
+
+import de.qaware.ekg.awb.metricanalyzer.bl.api.SeriesCombineMode;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.ColumnarTimeSeries;
+import de.qaware.ekg.awb.metricanalyzer.bl.visualisation.combine.CombinerFactory;
+import de.qaware.ekg.awb.sdk.datamodel.TimeSeries;
+import de.qaware.ekg.awb.sdk.datamodel.Value;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Unit test for the {@link ColumnarTimeSeries}.
+ */
+public class ColumnarTimeSeriesTest {
+
+    private TimeSeries metaData;
+
+    @Before
+    public void beforeEachTest() {
+        metaData = new TimeSeries("TestProject", "TestCluster", "TestHost", "TestNamespace", "TestService",
+                "TestPod", "TestContainer", "TestMeasurement",
+                "TestProcess", "TestGroup", "MyClass.callAMethod");
+    }
+
+    @Test
+    public void testAddOutOfOrderIsSortedStable() {
+        ColumnarTimeSeries series = new ColumnarTimeSeries(metaData, 2);
+
+        series.add(3000, 3);
+        series.add(1000, 1);
+        series.add(2000, 2);
+        series.add(1000, 11);
+
+        assertThat(series.size(), is(4));
+        assertThat(series.getStartDate(), is(1000L));
+        assertThat(series.getEndDate(), is(3000L));
+        assertThat(series.toValueList(), contains(
+                new Value(1000, 1), new Value(1000, 11), new Value(2000, 2), new Value(3000, 3)));
+    }
+
+    @Test
+    public void testAddAll() {
+        ColumnarTimeSeries series = new ColumnarTimeSeries(metaData);
+        series.add(1000, 1);
+        series.add(3000, 3);
+
+        // overlapping series will be merged
+        ColumnarTimeSeries overlapping = new ColumnarTimeSeries(metaData);
+        overlapping.add(2000, 2);
+        overlapping.add(3000, 33);
+        series.addAll(overlapping);
+
+        // later series will be appended, earlier ones prepended
+        ColumnarTimeSeries later = new ColumnarTimeSeries(metaData);
+        later.add(4000, 4);
+        series.addAll(later);
+
+        ColumnarTimeSeries earlier = new ColumnarTimeSeries(metaData);
+        earlier.add(500, 0.5);
+        series.addAll(earlier);
+
+        assertThat(series.toValueList(), contains(new Value(500, 0.5), new Value(1000, 1), new Value(2000, 2),
+                new Value(3000, 3), new Value(3000, 33), new Value(4000, 4)));
+    }
+
+    @Test
+    public void testTimeSeriesConversion() {
+        metaData.addValue(new Value(2000, 2));
+        metaData.addValue(new Value(1000, 1));
+
+        ColumnarTimeSeries series = ColumnarTimeSeries.of(metaData);
+        TimeSeries converted = series.toTimeSeries();
+
+        assertThat(converted.getGroupingKey(false), is(metaData.getGroupingKey(false)));
+        assertThat(converted.getValues(), contains(new Value(1000, 1), new Value(2000, 2)));
+        assertThat(converted.getStartDate(), is(1000L));
+        assertThat(converted.getEndDate(), is(2000L));
+    }
+
+    @Test
+    public void testSumCombineColumnar() {
+        ColumnarTimeSeries first = new ColumnarTimeSeries(metaData);
+        first.add(1000, 1);
+        first.add(2000, 2);
+
+        ColumnarTimeSeries second = new ColumnarTimeSeries(metaData);
+        second.add(2000, 20);
+        second.add(3000, 30);
+
+        ColumnarTimeSeries combined = CombinerFactory.resolveCombiner(SeriesCombineMode.SUM_EXACT)
+                .combineColumnar("combined", List.of(first, second));
+
+        assertThat(combined.getMetricName(), equalTo("combined"));
+        assertThat(combined.toValueList(), contains(new Value(1000, 1), new Value(2000, 22), new Value(3000, 30)));
+    }
+}
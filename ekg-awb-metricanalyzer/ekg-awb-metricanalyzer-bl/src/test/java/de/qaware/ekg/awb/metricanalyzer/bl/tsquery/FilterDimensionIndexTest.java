@@ -0,0 +1,77 @@
+package de.qaware.ekg.awb.metricanalyzer.bl.tsquery;
+
+import de.qaware.ekg.awb.repository.api.dataobject.facet.FacetEntry;
+import de.qaware.ekg.awb.repository.api.dataobject.facet.FacetParams.FacetSort;
+import de.qaware.ekg.awb.repository.api.dataobject.facet.PivotFacetEntry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static de.qaware.ekg.awb.repository.api.schema.EkgSchemaField.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+
+/**
+ * Unit test for the {@link FilterDimensionIndex}.
+ */
+public class FilterDimensionIndexTest {
+
+    private FilterDimensionIndex index;
+
+    @Before
+    public void beforeEachTest() {
+        // host -> process -> metric, the series without a process are counted by entries without a name
+        index = new FilterDimensionIndex(List.of(TS_HOST_NAME, TS_PROCESS_NAME, TS_METRIC_NAME), List.of(
+                new PivotFacetEntry("host-1", 3, List.of(
+                        new PivotFacetEntry("java", 2, List.of(
+                                new PivotFacetEntry("cpu", 1, List.of()),
+                                new PivotFacetEntry("heap", 1, List.of()))),
+                        new PivotFacetEntry(null, 1, List.of(
+                                new PivotFacetEntry("cpu", 1, List.of()))))),
+                new PivotFacetEntry("host-2", 2, List.of(
+                        new PivotFacetEntry("java", 2, List.of(
+                                new PivotFacetEntry("cpu", 1, List.of()),
+                                new PivotFacetEntry("threads", 1, List.of())))))));
+    }
+
+    @Test
+    public void testFacetOfFirstLevel() {
+        assertThat(index.getFacetEntries(TS_HOST_NAME, Map.of(), FacetSort.COUNT, -1),
+                contains(new FacetEntry("host-1", 3), new FacetEntry("host-2", 2)));
+    }
+
+    @Test
+    public void testFacetOfDeeperLevelIsSummedUp() {
+        assertThat(index.getFacetEntries(TS_METRIC_NAME, Map.of(), FacetSort.COUNT, -1), contains(
+                new FacetEntry("cpu", 3), new FacetEntry("heap", 1), new FacetEntry("threads", 1)));
+    }
+
+    @Test
+    public void testEntriesWithoutValueAreSkipped() {
+        assertThat(index.getFacetEntries(TS_PROCESS_NAME, Map.of(TS_HOST_NAME, "host-1"), FacetSort.COUNT, -1),
+                contains(new FacetEntry("java", 2)));
+    }
+
+    @Test
+    public void testFilterOnDeeperLevel() {
+        assertThat(index.getFacetEntries(TS_HOST_NAME, Map.of(TS_METRIC_NAME, "threads"), FacetSort.COUNT, -1),
+                contains(new FacetEntry("host-2", 1)));
+
+        assertThat(index.getFacetEntries(TS_PROCESS_NAME, Map.of(TS_METRIC_NAME, "unknown"), FacetSort.COUNT, -1),
+                empty());
+    }
+
+    @Test
+    public void testSortAndLimit() {
+        assertThat(index.getFacetEntries(TS_METRIC_NAME, Map.of(), FacetSort.LEXICOGRAPHIC, 2),
+                contains(new FacetEntry("cpu", 3), new FacetEntry("heap", 1)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownDimensionIsRejected() {
+        index.getFacetEntries(TS_POD_NAME, Map.of(), FacetSort.COUNT, -1);
+    }
+}
@@ -0,0 +1,667 @@
+package de.qaware.ekg.awb.metricanalyzer.bl.tsquery;
+
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.ColumnarTimeSeries;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.physical.Host;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.Metric;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.DimensionFacets;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.MetricQuery;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryCostEstimate;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryFilterParams;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.TimeSeriesQuery;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.TimeSeriesQueryResponse;
+import de.qaware.ekg.awb.project.api.ProjectDataAccessService;
+import de.qaware.ekg.awb.project.api.model.Project;
+import de.qaware.ekg.awb.repository.api.CancellationToken;
+import de.qaware.ekg.awb.repository.api.EkgRepository;
+import de.qaware.ekg.awb.repository.api.RepositoryClient;
+import de.qaware.ekg.awb.repository.api.dataobject.delete.DeleteParams;
+import de.qaware.ekg.awb.repository.api.dataobject.expr.AndExpression;
+import de.qaware.ekg.awb.repository.api.dataobject.expr.ExactFilterExpression;
+import de.qaware.ekg.awb.repository.api.dataobject.expr.ExprFactory;
+import de.qaware.ekg.awb.repository.api.dataobject.expr.Expression;
+import de.qaware.ekg.awb.repository.api.dataobject.facet.Facet;
+import de.qaware.ekg.awb.repository.api.dataobject.facet.FacetEntry;
+import de.qaware.ekg.awb.repository.api.dataobject.facet.FacetParams;
+import de.qaware.ekg.awb.repository.api.dataobject.facet.FacetResult;
+import de.qaware.ekg.awb.repository.api.dataobject.facet.PivotFacetEntry;
+import de.qaware.ekg.awb.repository.api.dataobject.facet.StatsFacetEntry;
+import de.qaware.ekg.awb.repository.api.dataobject.facet.StatsFacetParams;
+import de.qaware.ekg.awb.repository.api.dataobject.facet.StatsFacetResult;
+import de.qaware.ekg.awb.repository.api.dataobject.search.ExportParams;
+import de.qaware.ekg.awb.repository.api.dataobject.search.SearchParams;
+import de.qaware.ekg.awb.repository.api.dataobject.search.SearchResult;
+import de.qaware.ekg.awb.repository.api.dataobject.status.QueryStatus;
+import de.qaware.ekg.awb.repository.api.events.SeriesDataChangedEvent;
+import de.qaware.ekg.awb.repository.api.schema.EkgSchemaField;
+import de.qaware.ekg.awb.repository.bl.BinaryTimeSeries;
+import de.qaware.ekg.awb.repository.bl.codec.SeriesDataCodec;
+import de.qaware.ekg.awb.repository.bl.migration.SeriesDataMigrationService;
+import de.qaware.ekg.awb.repository.bl.rollup.RollupAggregate;
+import de.qaware.ekg.awb.repository.bl.rollup.RollupBucket;
+import de.qaware.ekg.awb.repository.bl.rollup.RollupDataCodec;
+import de.qaware.ekg.awb.repository.bl.rollup.RollupLevel;
+import de.qaware.ekg.awb.repository.bl.services.SeriesImportServiceImpl;
+import de.qaware.ekg.awb.sdk.awbapi.repository.RepositoryException;
+import de.qaware.ekg.awb.sdk.awbapi.repository.SeriesImportService;
+import de.qaware.ekg.awb.sdk.core.events.EkgEventBus;
+import de.qaware.ekg.awb.sdk.core.events.EkgEventBusListener;
+import de.qaware.ekg.awb.sdk.core.lookup.EkgLookup;
+import de.qaware.ekg.awb.sdk.core.lookup.EkgLookupStrategy;
+import de.qaware.ekg.awb.sdk.datamodel.TimeSeries;
+import de.qaware.ekg.awb.sdk.datamodel.Value;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EventObject;
+import java.util.List;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static de.qaware.ekg.awb.repository.api.dataobject.expr.ExprFactory.wildcardFilter;
+import static de.qaware.ekg.awb.repository.api.schema.EkgSchemaField.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit test for the streaming and the facet caching of the {@link MetricDataAccessServiceImpl}.
+ */
+public class MetricDataAccessServiceImplTest {
+
+    private static final int AMOUNT_OF_RECORDS = 250;
+
+    private static final int PAGE_SIZE = 100;
+
+    private RepositoryClient repositoryClient;
+
+    private ProjectDataAccessService projectDataAccess;
+
+    private MetricDataAccessServiceImpl dataAccessService;
+
+    private TimeSeriesQuery query;
+
+    @Before
+    public void beforeEachTest() {
+        repositoryClient = mock(RepositoryClient.class);
+        projectDataAccess = mock(ProjectDataAccessService.class);
+        dataAccessService = new MetricDataAccessServiceImpl(repositoryClient, projectDataAccess);
+
+        QueryFilterParams filterParams = new QueryFilterParams.Builder()
+                .withProject(new Project("TestProject"))
+                .withStart(-1)
+                .withStop(-1)
+                .build();
+        query = new TimeSeriesQuery(filterParams, Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void testStreamTimeSeriesDataPageByPage() throws Exception {
+        when(repositoryClient.search(eq(BinaryTimeSeries.class), any(SearchParams.class)))
+                .thenAnswer(invocation -> searchPage((SearchParams) invocation.getArguments()[1]));
+
+        List<ColumnarTimeSeries> result = new ArrayList<>();
+        TimeSeriesQueryResponse response = dataAccessService.streamTimeSeriesData(query, result::add);
+
+        assertThat(response.isRequestAborted(), is(false));
+        assertThat(response.getTotalHits(), is((long) AMOUNT_OF_RECORDS));
+        assertThat(result, hasSize(AMOUNT_OF_RECORDS));
+
+        // the order of the pages is kept and each series has its decoded values
+        for (int index = 0; index < AMOUNT_OF_RECORDS; index++) {
+            ColumnarTimeSeries series = result.get(index);
+            assertThat(series.getMetricName(), is("metric-" + index));
+            assertThat(series.toValueList(), contains(new Value(1000, index), new Value(2000, index)));
+        }
+    }
+
+    @Test
+    public void testStreamManySeriesThroughDecodePool() throws Exception {
+        // more records than the export threshold, each export batch has more series than the decode
+        // pool has workers and queue slots, so the remaining series are decoded by the calling thread
+        int amountOfRecords = 2_500;
+
+        when(repositoryClient.export(eq(BinaryTimeSeries.class), any(ExportParams.class))).thenAnswer(invocation ->
+                IntStream.range(0, amountOfRecords).mapToObj(index -> {
+                    BinaryTimeSeries record = createRecord(index, 1);
+                    record.setData(null, 2);
+                    return record;
+                }));
+        when(repositoryClient.search(eq(BinaryTimeSeries.class), any(SearchParams.class))).thenAnswer(invocation -> {
+            SearchParams searchParams = (SearchParams) invocation.getArguments()[1];
+            if (searchParams.getMaxRows() == 0) {
+                return new SearchResult<>(List.of(), new QueryStatus(amountOfRecords, 0, null));
+            }
+
+            // the payloads of an export batch are fetched by id
+            List<BinaryTimeSeries> rows = ((ExactFilterExpression) searchParams.getFilterQueries().get(0)).getValues()
+                    .stream()
+                    .map(id -> createRecord(Integer.parseInt(id.substring(3)), 1))
+                    .collect(Collectors.toList());
+            return new SearchResult<>(rows, new QueryStatus(rows.size(), 0, null));
+        });
+
+        List<ColumnarTimeSeries> result = new ArrayList<>();
+        TimeSeriesQueryResponse response = dataAccessService.streamTimeSeriesData(query, result::add);
+
+        assertThat(response.isRequestAborted(), is(false));
+        assertThat(response.getTotalHits(), is((long) amountOfRecords));
+        assertThat(result, hasSize(amountOfRecords));
+
+        // the series are handed over complete and in the order of the export
+        for (int index = 0; index < amountOfRecords; index++) {
+            ColumnarTimeSeries series = result.get(index);
+            assertThat(series.getMetricName(), is("metric-" + index));
+            assertThat(series.toValueList(), contains(new Value(1000, index), new Value(2000, index)));
+        }
+    }
+
+    @Test
+    public void testStreamTimeSeriesDataAbortsAboveLimit() throws Exception {
+        when(repositoryClient.search(eq(BinaryTimeSeries.class), any(SearchParams.class)))
+                .thenAnswer(invocation -> searchPage((SearchParams) invocation.getArguments()[1]));
+        when(repositoryClient.statsFacet(any(StatsFacetParams.class))).thenReturn(new StatsFacetResult(
+                new StatsFacetEntry(null, AMOUNT_OF_RECORDS, Map.of("series", 250.0, "hashedRecords", 250.0)),
+                List.of(), new QueryStatus(AMOUNT_OF_RECORDS, 0, null)));
+
+        QueryFilterParams filterParams = query.getQueryParams();
+        List<ColumnarTimeSeries> result = new ArrayList<>();
+        TimeSeriesQueryResponse response = dataAccessService.streamTimeSeriesData(
+                new TimeSeriesQuery(filterParams, AMOUNT_OF_RECORDS - 1), result::add);
+
+        assertThat(response.isRequestAborted(), is(true));
+        assertThat(response.getTotalHits(), is((long) AMOUNT_OF_RECORDS));
+        assertThat(result, empty());
+    }
+
+    @Test
+    public void testStreamTimeSeriesDataCountsSeriesInsteadOfChunks() throws Exception {
+        when(repositoryClient.search(eq(BinaryTimeSeries.class), any(SearchParams.class)))
+                .thenAnswer(invocation -> searchPage((SearchParams) invocation.getArguments()[1], 2));
+        when(repositoryClient.statsFacet(any(StatsFacetParams.class))).thenReturn(new StatsFacetResult(
+                new StatsFacetEntry(null, AMOUNT_OF_RECORDS, Map.of("series", 125.0, "hashedRecords", 250.0)),
+                List.of(), new QueryStatus(AMOUNT_OF_RECORDS, 0, null)));
+
+        // two chunk records per series, so the records exceed the limit but the series don't
+        List<ColumnarTimeSeries> result = new ArrayList<>();
+        TimeSeriesQueryResponse response = dataAccessService.streamTimeSeriesData(
+                new TimeSeriesQuery(query.getQueryParams(), 200), result::add);
+
+        assertThat(response.isRequestAborted(), is(false));
+        assertThat(response.getTotalHits(), is(125L));
+        assertThat(result, hasSize(AMOUNT_OF_RECORDS));
+    }
+
+    @Test
+    public void testStreamRollupsWithoutPartialEdgeBuckets() throws Exception {
+        long day = RollupLevel.DAY.getBucketSize();
+        BinaryTimeSeries record = createRecord(0, 1);
+        record.setData(RollupDataCodec.encode(List.of(new RollupBucket(0, 1, 1, 1, 1),
+                new RollupBucket(day, 2, 2, 2, 1), new RollupBucket(2 * day, 3, 3, 3, 1))));
+
+        when(repositoryClient.search(eq(BinaryTimeSeries.class), any(SearchParams.class))).thenAnswer(invocation -> {
+            SearchParams searchParams = (SearchParams) invocation.getArguments()[1];
+            boolean firstPage = TimeSeriesQuery.INITIAL_CURSOR_ID.equals(searchParams.getCursorMark());
+            List<BinaryTimeSeries> rows = searchParams.getMaxRows() > 0 && firstPage ? List.of(record) : List.of();
+            return new SearchResult<>(rows, new QueryStatus(1, 0, "1"));
+        });
+
+        // the range ends in the middle of the third bucket
+        QueryFilterParams filterParams = new QueryFilterParams.Builder(query.getQueryParams())
+                .withStop(2 * day + day / 2)
+                .build();
+        TimeSeriesQuery rollupQuery = new TimeSeriesQuery(filterParams, Integer.MAX_VALUE);
+        rollupQuery.setRollup(RollupLevel.DAY, RollupAggregate.SUM);
+
+        List<ColumnarTimeSeries> result = new ArrayList<>();
+        dataAccessService.streamTimeSeriesData(rollupQuery, result::add);
+
+        assertThat(result, hasSize(1));
+        assertThat(result.get(0).toValueList(), contains(new Value(0, 1), new Value(day, 2)));
+    }
+
+    @Test
+    public void testStreamTimeSeriesDataStopsIfCancelled() throws Exception {
+        when(repositoryClient.search(eq(BinaryTimeSeries.class), any(SearchParams.class)))
+                .thenAnswer(invocation -> searchPage((SearchParams) invocation.getArguments()[1]));
+
+        CancellationToken cancellationToken = new CancellationToken();
+        query.setCancellationToken(cancellationToken);
+
+        // the consumer cancels the query like a superseded chart task does it
+        List<ColumnarTimeSeries> result = new ArrayList<>();
+        dataAccessService.streamTimeSeriesData(query, series -> {
+            result.add(series);
+            cancellationToken.cancel();
+        });
+
+        assertThat(result, hasSize(1));
+    }
+
+    @Test(expected = RepositoryException.class)
+    public void testStreamTimeSeriesDataPropagatesReadErrors() throws Exception {
+        when(repositoryClient.search(eq(BinaryTimeSeries.class), any(SearchParams.class)))
+                .thenAnswer(invocation -> {
+                    SearchParams searchParams = (SearchParams) invocation.getArguments()[1];
+
+                    if (searchParams.getMaxRows() > 0 && !TimeSeriesQuery.INITIAL_CURSOR_ID.equals(searchParams.getCursorMark())) {
+                        throw new RepositoryException("Repository not available");
+                    }
+
+                    return searchPage(searchParams);
+                });
+
+        dataAccessService.streamTimeSeriesData(query, series -> { });
+    }
+
+    @Test
+    public void testFacetsAreCachedUntilSeriesChange() throws Exception {
+        when(repositoryClient.facet(any(FacetParams.class))).thenReturn(createHostFacets("host-1", "host-2"));
+
+        MetricQuery metricQuery = new MetricQuery(query.getQueryParams());
+
+        assertThat(dataAccessService.getHosts(metricQuery), contains(new Host("*"), new Host("host-1"), new Host("host-2")));
+        assertThat(dataAccessService.getHosts(new MetricQuery(query.getQueryParams())), hasSize(3));
+        verify(repositoryClient, times(1)).facet(any(FacetParams.class));
+
+        // deleting the series of the project drops the cached facets
+        when(repositoryClient.facet(any(FacetParams.class))).thenReturn(createHostFacets());
+        dataAccessService.deleteTimeSeriesByProjectName("TestProject");
+
+        assertThat(dataAccessService.getHosts(metricQuery), empty());
+        verify(repositoryClient, times(2)).facet(any(FacetParams.class));
+        verify(repositoryClient).delete(any(DeleteParams.class));
+    }
+
+    @Test
+    public void testFacetsAreCachedPerProject() throws Exception {
+        when(repositoryClient.facet(any(FacetParams.class))).thenReturn(createHostFacets("host-1"));
+
+        QueryFilterParams otherProject = new QueryFilterParams.Builder(query.getQueryParams())
+                .withProject(new Project("OtherProject"))
+                .build();
+
+        dataAccessService.getHosts(new MetricQuery(query.getQueryParams()));
+        dataAccessService.getHosts(new MetricQuery(otherProject));
+        verify(repositoryClient, times(2)).facet(any(FacetParams.class));
+
+        // only the facets of the changed project are queried again
+        dataAccessService.deleteTimeSeriesByProjectName("OtherProject");
+        dataAccessService.getHosts(new MetricQuery(query.getQueryParams()));
+        dataAccessService.getHosts(new MetricQuery(otherProject));
+        verify(repositoryClient, times(3)).facet(any(FacetParams.class));
+    }
+
+    @Test
+    public void testGetDimensionFacetsWithSingleRequest() throws Exception {
+        when(repositoryClient.facet(any(FacetParams.class))).thenReturn(new FacetResult(List.of(
+                new Facet(TS_HOST_NAME.getName(), List.of(new FacetEntry("host-1", 2), new FacetEntry("host-2", 1))),
+                new Facet(TS_METRIC_NAME.getName(), List.of(new FacetEntry("cpu", 3)))),
+                new QueryStatus(0, 0, null)));
+
+        QueryFilterParams filterParams = new QueryFilterParams.Builder(query.getQueryParams())
+                .withHost("host-1")
+                .build();
+
+        DimensionFacets facets = dataAccessService.getDimensionFacets(new MetricQuery(filterParams),
+                TS_HOST_NAME, TS_METRIC_NAME);
+
+        assertThat(facets.getHosts(), contains(new Host("*"), new Host("host-1"), new Host("host-2")));
+        assertThat(facets.getMetrics(), contains(new Metric("*"), new Metric("cpu")));
+        assertThat(facets.getProcesses(), empty());
+
+        // the host filter restricts all facets except the host facet
+        ArgumentCaptor<FacetParams> facetParams = ArgumentCaptor.forClass(FacetParams.class);
+        verify(repositoryClient, times(1)).facet(facetParams.capture());
+        assertThat(facetParams.getValue().getFacetFields(), contains(TS_HOST_NAME, TS_METRIC_NAME));
+        assertThat(facetParams.getValue().getDimensionFilters().keySet(), contains(TS_HOST_NAME));
+
+        // the rollup records would count each series once more per level
+        AndExpression filter = (AndExpression) facetParams.getValue().getFilterQueries().get(0);
+        assertThat(filter.getExpressions(), hasItem(ExprFactory.not(wildcardFilter(TS_AGGREGATION_LEVEL, "*"))));
+    }
+
+    @Test
+    public void testGetDimensionFacetsPerDimensionWithoutDimensionFilterSupport() throws Exception {
+        when(repositoryClient.facet(any(FacetParams.class))).thenAnswer(invocation -> {
+            FacetParams facetParams = (FacetParams) invocation.getArguments()[0];
+            if (!facetParams.getDimensionFilters().isEmpty()) {
+                throw new UnsupportedOperationException("Dimension filters are not implemented");
+            }
+
+            EkgSchemaField field = (EkgSchemaField) facetParams.getFacetFields().get(0);
+            return new FacetResult(List.of(field == TS_HOST_NAME
+                    ? new Facet(TS_HOST_NAME.getName(), List.of(new FacetEntry("host-1", 2), new FacetEntry("host-2", 1)))
+                    : new Facet(TS_METRIC_NAME.getName(), List.of(new FacetEntry("cpu", 3)))),
+                    new QueryStatus(0, 0, null));
+        });
+
+        QueryFilterParams filterParams = new QueryFilterParams.Builder(query.getQueryParams())
+                .withHost("host-1")
+                .build();
+
+        DimensionFacets facets = dataAccessService.getDimensionFacets(new MetricQuery(filterParams),
+                TS_HOST_NAME, TS_METRIC_NAME);
+
+        assertThat(facets.getHosts(), contains(new Host("*"), new Host("host-1"), new Host("host-2")));
+        assertThat(facets.getMetrics(), contains(new Metric("*"), new Metric("cpu")));
+
+        // one request per dimension, each one without the filter of its own dimension
+        ArgumentCaptor<FacetParams> facetParams = ArgumentCaptor.forClass(FacetParams.class);
+        verify(repositoryClient, times(3)).facet(facetParams.capture());
+
+        FacetParams hostParams = facetParams.getAllValues().get(1);
+        FacetParams metricParams = facetParams.getAllValues().get(2);
+        assertThat(hostParams.getFacetFields(), contains(TS_HOST_NAME));
+        assertThat(metricParams.getFacetFields(), contains(TS_METRIC_NAME));
+
+        Expression hostFilter = wildcardFilter(TS_HOST_NAME, "host-1");
+        assertThat(((AndExpression) hostParams.getFilterQueries().get(0)).getExpressions(), not(hasItem(hostFilter)));
+        assertThat(((AndExpression) metricParams.getFilterQueries().get(0)).getExpressions(), hasItem(hostFilter));
+    }
+
+    @Test(expected = RepositoryException.class)
+    public void testGetDimensionFacetsPropagatesErrors() throws Exception {
+        when(repositoryClient.facet(any(FacetParams.class))).thenThrow(new RepositoryException("unavailable"));
+
+        dataAccessService.getDimensionFacets(new MetricQuery(query.getQueryParams()), TS_HOST_NAME);
+    }
+
+    @Test
+    public void testExplorerFacetsAreServedFromDimensionTree() throws Exception {
+        when(repositoryClient.facet(any(FacetParams.class))).thenReturn(new FacetResult(List.of(),
+                List.of(createPivotPath("host-1", "cpu"), createPivotPath("host-2", "memory")),
+                new QueryStatus(0, 0, null)));
+
+        assertThat(dataAccessService.getHosts(createDimensionQuery(query.getQueryParams())),
+                contains(new Host("*"), new Host("host-1"), new Host("host-2")));
+
+        QueryFilterParams hostParams = new QueryFilterParams.Builder(query.getQueryParams())
+                .withHost("host-1")
+                .build();
+        assertThat(dataAccessService.getMetricsNames(createDimensionQuery(hostParams)),
+                contains(new Metric("*"), new Metric("cpu")));
+
+        // the tree is fetched once with a pivot facet over all filter dimensions
+        ArgumentCaptor<FacetParams> facetParams = ArgumentCaptor.forClass(FacetParams.class);
+        verify(repositoryClient, times(1)).facet(facetParams.capture());
+        assertThat(facetParams.getValue().getPivotFields(), hasSize(10));
+
+        // wildcards can't be served from the tree
+        QueryFilterParams wildcardParams = new QueryFilterParams.Builder(query.getQueryParams())
+                .withHost("host-*")
+                .build();
+        dataAccessService.getMetricsNames(createDimensionQuery(wildcardParams));
+        verify(repositoryClient, times(2)).facet(any(FacetParams.class));
+    }
+
+    @Test
+    public void testDimensionTreeIsntQueriedAgainIfPivotIsUnsupported() throws Exception {
+        when(repositoryClient.facet(any(FacetParams.class))).thenAnswer(invocation -> {
+            FacetParams facetParams = (FacetParams) invocation.getArguments()[0];
+            if (!facetParams.getPivotFields().isEmpty()) {
+                throw new UnsupportedOperationException("Pivot facets are not implemented");
+            }
+            return createHostFacets("host-1");
+        });
+
+        assertThat(dataAccessService.getHosts(createDimensionQuery(query.getQueryParams())),
+                contains(new Host("*"), new Host("host-1")));
+        dataAccessService.getMetricsNames(createDimensionQuery(query.getQueryParams()));
+
+        // the pivot is tried once, the facets are queried instead
+        ArgumentCaptor<FacetParams> facetParams = ArgumentCaptor.forClass(FacetParams.class);
+        verify(repositoryClient, times(3)).facet(facetParams.capture());
+        assertThat(facetParams.getAllValues().stream().filter(params -> !params.getPivotFields().isEmpty()).count(),
+                is(1L));
+
+        // a change of the project tries the pivot again
+        dataAccessService.deleteTimeSeriesByProjectName("TestProject");
+        dataAccessService.getHosts(createDimensionQuery(query.getQueryParams()));
+        verify(repositoryClient, times(5)).facet(any(FacetParams.class));
+    }
+
+    @Test
+    public void testEstimateQueryCostPerLevel() throws Exception {
+        StatsFacetEntry total = new StatsFacetEntry(null, 14,
+                Map.of("amountValues", 10_500.0, "series", 4.0, "hashedRecords", 14.0));
+        StatsFacetEntry hourly = new StatsFacetEntry("HOUR", 4, Map.of("amountValues", 480.0, "series", 4.0));
+        StatsFacetEntry daily = new StatsFacetEntry("DAY", 2, Map.of("amountValues", 20.0, "series", 2.0));
+        when(repositoryClient.statsFacet(any(StatsFacetParams.class)))
+                .thenReturn(new StatsFacetResult(total, List.of(hourly, daily), new QueryStatus(0, 0, null)));
+
+        QueryCostEstimate estimate = dataAccessService.estimateQueryCost(new MetricQuery(query.getQueryParams()));
+
+        assertThat(estimate.getSeriesCount(), is(4L));
+        assertThat(estimate.getRecordCount(null), is(8L));
+        assertThat(estimate.getValueCount(null), is(10_000L));
+        assertThat(estimate.getValueCount(RollupLevel.HOUR), is(480L));
+        assertThat(estimate.isAvailable(RollupLevel.DAY), is(true));
+        assertThat(estimate.isAvailable(RollupLevel.WEEK), is(false));
+    }
+
+    @Test
+    public void testEstimateQueryCostCountsRecordsWithoutHash() throws Exception {
+        StatsFacetEntry total = new StatsFacetEntry(null, 10,
+                Map.of("amountValues", 1_000.0, "series", 2.0, "hashedRecords", 4.0));
+        when(repositoryClient.statsFacet(any(StatsFacetParams.class)))
+                .thenReturn(new StatsFacetResult(total, List.of(), new QueryStatus(0, 0, null)));
+
+        QueryCostEstimate estimate = dataAccessService.estimateQueryCost(new MetricQuery(query.getQueryParams()));
+
+        assertThat(estimate.getSeriesCount(), is(8L));
+        assertThat(estimate.getRecordCount(null), is(10L));
+    }
+
+    @Test
+    public void testAmountOfPointsIsReadFromProject() throws Exception {
+        when(projectDataAccess.getProject("TestProject"))
+                .thenReturn(new Project("TestProject").setAmountOfValues(1200L).setAmountOfSeries(3L));
+
+        assertThat(dataAccessService.getAmountMeasuredPointsInProject("TestProject"), is(1200L));
+
+        verify(repositoryClient, never()).sumFieldValue(any(), any());
+        verify(repositoryClient, never()).statsFacet(any(StatsFacetParams.class));
+    }
+
+    @Test
+    public void testAmountOfPointsIsInitializedOnceForOlderProjects() throws Exception {
+        when(projectDataAccess.getProject("TestProject")).thenReturn(new Project("TestProject"));
+
+        StatsFacetEntry total = new StatsFacetEntry(null, 4,
+                Map.of("amountValues", 900.0, "series", 2.0, "hashedRecords", 4.0));
+        when(repositoryClient.statsFacet(any(StatsFacetParams.class)))
+                .thenReturn(new StatsFacetResult(total, List.of(), new QueryStatus(4, 0, null)));
+
+        assertThat(dataAccessService.getAmountMeasuredPointsInProject("TestProject"), is(900L));
+
+        verify(projectDataAccess).setSeriesStatistics("TestProject", 900, 2);
+    }
+
+    @Test
+    public void testImportedSeriesAreCountedAtCommit() throws Exception {
+        consumeAddedRecords();
+        when(projectDataAccess.getProject("TestProject"))
+                .thenReturn(new Project("TestProject").setAmountOfValues(100L).setAmountOfSeries(1L));
+
+        // the series "cpu" already exists, so only the series "memory" is new
+        StatsFacetEntry total = new StatsFacetEntry(null, 3,
+                Map.of("amountValues", 105.0, "series", 2.0, "hashedRecords", 3.0));
+        when(repositoryClient.statsFacet(any(StatsFacetParams.class)))
+                .thenReturn(new StatsFacetResult(total, List.of(), new QueryStatus(3, 0, null)));
+
+        dataAccessService.addEntities(Stream.of(createSeries("cpu", 3), createSeries("memory", 2)), true);
+
+        verify(projectDataAccess, never()).setSeriesStatistics(any(), anyLong(), anyLong());
+
+        dataAccessService.commitOrRollback();
+
+        verify(projectDataAccess).setSeriesStatistics("TestProject", 105, 2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSeriesImportedByImportServiceAreCountedAgain() throws Exception {
+        consumeAddedRecords();
+
+        // the event bus delivers the events of the import service to the data access service
+        List<EkgEventBusListener<EventObject>> listeners = new ArrayList<>();
+        EkgEventBus eventBus = mock(EkgEventBus.class);
+        doAnswer(invocation -> listeners.add((EkgEventBusListener<EventObject>) invocation.getArguments()[1]))
+                .when(eventBus).subscribe(eq(SeriesDataChangedEvent.class), any(EkgEventBusListener.class));
+        doAnswer(invocation -> {
+            listeners.forEach(listener -> listener.eventPublished((EventObject) invocation.getArguments()[0]));
+            return true;
+        }).when(eventBus).publish(any(EventObject.class));
+
+        EkgLookupStrategy previousLookup = EkgLookup.getLookupStrategy();
+        EkgLookupStrategy lookup = mock(EkgLookupStrategy.class);
+        when(lookup.lookup(EkgEventBus.class)).thenReturn(eventBus);
+        when(lookup.lookup(SeriesDataMigrationService.class)).thenReturn(mock(SeriesDataMigrationService.class));
+        EkgLookup.init(lookup);
+
+        try {
+            dataAccessService.eventBus = eventBus;
+            dataAccessService.initializeService(repositoryClient);
+
+            when(projectDataAccess.getProject("TestProject"))
+                    .thenReturn(new Project("TestProject").setAmountOfValues(100L).setAmountOfSeries(1L));
+            assertThat(dataAccessService.getAmountMeasuredPointsInProject("TestProject"), is(100L));
+
+            EkgRepository repository = mock(EkgRepository.class);
+            when(repository.getRepositoryClient()).thenReturn(repositoryClient);
+            SeriesImportService importService = new SeriesImportServiceImpl(repository);
+            importService.add(createSeries("memory", 5));
+            importService.commit();
+
+            verify(projectDataAccess).clearSeriesStatistics("TestProject");
+
+            // the cleared counts are aggregated again
+            when(projectDataAccess.getProject("TestProject")).thenReturn(new Project("TestProject"));
+            StatsFacetEntry total = new StatsFacetEntry(null, 2,
+                    Map.of("amountValues", 105.0, "series", 2.0, "hashedRecords", 2.0));
+            when(repositoryClient.statsFacet(any(StatsFacetParams.class)))
+                    .thenReturn(new StatsFacetResult(total, List.of(), new QueryStatus(2, 0, null)));
+
+            assertThat(dataAccessService.getAmountMeasuredPointsInProject("TestProject"), is(105L));
+            verify(projectDataAccess).setSeriesStatistics("TestProject", 105, 2);
+        } finally {
+            EkgLookup.init(previousLookup);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testWritesWaitForMigration() throws Exception {
+        SeriesDataMigrationService migrationService = mock(SeriesDataMigrationService.class);
+        dataAccessService.migrationService = migrationService;
+
+        dataAccessService.addEntities(Stream.of(createSeries("cpu", 3)), true);
+        dataAccessService.deleteTimeSeriesByProjectName("TestProject");
+
+        InOrder inOrder = inOrder(migrationService, repositoryClient);
+        inOrder.verify(migrationService).awaitMigration();
+        inOrder.verify(repositoryClient).add(any(Iterator.class));
+        inOrder.verify(migrationService).awaitMigration();
+        inOrder.verify(repositoryClient).delete(any(DeleteParams.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetDimensionFacetsRejectsOtherFields() throws Exception {
+        dataAccessService.getDimensionFacets(new MetricQuery(query.getQueryParams()), TS_DATA);
+    }
+
+    private static MetricQuery createDimensionQuery(QueryFilterParams queryParams) {
+        MetricQuery metricQuery = new MetricQuery(queryParams);
+        metricQuery.setDimensionIndexPreferred(true);
+        return metricQuery;
+    }
+
+    /**
+     * Creates the pivot entries of a single series with a host and a metric name but no other dimension values.
+     */
+    private static PivotFacetEntry createPivotPath(String hostName, String metricName) {
+        PivotFacetEntry entry = new PivotFacetEntry(metricName, 1, List.of());
+
+        // metric group, process, measurement, container, pod, service and namespace
+        for (int i = 0; i < 7; i++) {
+            entry = new PivotFacetEntry(null, 1, List.of(entry));
+        }
+
+        entry = new PivotFacetEntry(hostName, 1, List.of(entry));
+        return new PivotFacetEntry(null, 1, List.of(entry));
+    }
+
+    private static FacetResult createHostFacets(String... hostNames) {
+        List<FacetEntry> entries = new ArrayList<>();
+        for (String hostName : hostNames) {
+            entries.add(new FacetEntry(hostName, 1));
+        }
+
+        List<Facet> facets = entries.isEmpty() ? Collections.emptyList() : List.of(new Facet(TS_HOST_NAME.getName(), entries));
+        return new FacetResult(facets, new QueryStatus(0, 0, null));
+    }
+
+    /**
+     * Simulates the cursor paging of the repository, the cursor is the index of the next page.
+     */
+    private static SearchResult<BinaryTimeSeries> searchPage(SearchParams searchParams) {
+        return searchPage(searchParams, 1);
+    }
+
+    /**
+     * Simulates the cursor paging of the repository with the given amount of chunk records per series.
+     */
+    private static SearchResult<BinaryTimeSeries> searchPage(SearchParams searchParams, int recordsPerSeries) {
+        if (searchParams.getMaxRows() == 0) {
+            return new SearchResult<>(Collections.emptyList(), new QueryStatus(AMOUNT_OF_RECORDS, 0, null));
+        }
+
+        String cursor = searchParams.getCursorMark();
+        int page = TimeSeriesQuery.INITIAL_CURSOR_ID.equals(cursor) ? 0 : Integer.parseInt(cursor);
+
+        List<BinaryTimeSeries> rows = new ArrayList<>();
+        for (int index = page * PAGE_SIZE; index < Math.min((page + 1) * PAGE_SIZE, AMOUNT_OF_RECORDS); index++) {
+            rows.add(createRecord(index, recordsPerSeries));
+        }
+
+        String nextCursor = rows.isEmpty() ? cursor : String.valueOf(page + 1);
+        return new SearchResult<>(rows, new QueryStatus(AMOUNT_OF_RECORDS, 0, nextCursor));
+    }
+
+    private void consumeAddedRecords() throws RepositoryException {
+        doAnswer(invocation -> {
+            ((Iterator<?>) invocation.getArguments()[0]).forEachRemaining(record -> { });
+            return null;
+        }).when(repositoryClient).add(any(Iterator.class));
+    }
+
+    private static TimeSeries createSeries(String metricName, int amountOfValues) {
+        TimeSeries timeSeries = new TimeSeries("TestProject", null, "host", null, null, null, null,
+                null, null, "group", metricName);
+
+        for (int index = 0; index < amountOfValues; index++) {
+            timeSeries.addValue(new Value(1000 * index, index));
+        }
+
+        return timeSeries;
+    }
+
+    private static BinaryTimeSeries createRecord(int index, int recordsPerSeries) {
+        BinaryTimeSeries record = new BinaryTimeSeries();
+        record.setId("id-" + index);
+        record.setProjectName("TestProject");
+        record.setMetric("metric-" + index / recordsPerSeries);
+        record.setGroupKeyHash(index / recordsPerSeries);
+        record.setData(SeriesDataCodec.encode(List.of(new Value(1000, index), new Value(2000, index))));
+        return record;
+    }
+}
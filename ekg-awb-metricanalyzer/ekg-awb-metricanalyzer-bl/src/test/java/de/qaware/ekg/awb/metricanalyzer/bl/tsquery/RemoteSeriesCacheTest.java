@@ -0,0 +1,129 @@
+package de.qaware.ekg.awb.metricanalyzer.bl.tsquery;
+
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.RemoteSeriesCache.Lookup;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.RemoteSeriesCache.TimeRange;
+import de.qaware.ekg.awb.sdk.datamodel.Value;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Unit test for the {@link RemoteSeriesCache}.
+ */
+public class RemoteSeriesCacheTest {
+
+    private static final String PROJECT = "Project";
+
+    private static final String SOURCE = "remote";
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    public void testServeCoveredRange() {
+        RemoteSeriesCache cache = new RemoteSeriesCache(100, 1000, clock::get);
+        cache.put(PROJECT, SOURCE, "cases", 0, 10_000, createValues(1000, 9000));
+
+        Lookup lookup = cache.lookup(PROJECT, SOURCE, "cases", 2000, 5000);
+
+        assertThat(lookup.getMissingRanges(), empty());
+        assertThat(lookup.getValues(), arrayContaining(new Value(3000, 3), new Value(4000, 4)));
+
+        // other series and data sources aren't cached
+        assertThat(cache.lookup(PROJECT, SOURCE, "deaths", 2000, 5000).getMissingRanges(),
+                contains(new TimeRange(2000, 5000)));
+        assertThat(cache.lookup(PROJECT, "other", "cases", 2000, 5000).getMissingRanges(),
+                contains(new TimeRange(2000, 5000)));
+    }
+
+    @Test
+    public void testFetchMissingEdgesOnly() {
+        RemoteSeriesCache cache = new RemoteSeriesCache(100, 1000, clock::get);
+        cache.put(PROJECT, SOURCE, "cases", 2000, 6000, createValues(3000, 5000));
+
+        Lookup lookup = cache.lookup(PROJECT, SOURCE, "cases", 0, 9000);
+
+        // the begin and the end of the ranges are exclusive
+        assertThat(lookup.getMissingRanges(), contains(new TimeRange(0, 2001), new TimeRange(5999, 9000)));
+
+        lookup.addFetchedValues(new TimeRange(0, 2001), createValues(1000, 2000));
+        lookup.addFetchedValues(new TimeRange(5999, 9000), createValues(6000, 8000));
+        cache.put(PROJECT, SOURCE, "cases", 0, 2001, createValues(1000, 2000));
+        cache.put(PROJECT, SOURCE, "cases", 5999, 9000, createValues(6000, 8000));
+
+        assertThat(lookup.getValues(), arrayWithSize(8));
+        assertThat(lookup.getValues()[0], is(new Value(1000, 1)));
+        assertThat(lookup.getValues()[7], is(new Value(8000, 8)));
+
+        // the edges extend the cached range
+        assertThat(cache.lookup(PROJECT, SOURCE, "cases", 0, 9000).getMissingRanges(), empty());
+        assertThat(cache.getCachedValues(), is(8L));
+    }
+
+    @Test
+    public void testExpiredSeriesAreFetchedAgain() {
+        RemoteSeriesCache cache = new RemoteSeriesCache(100, 1000, clock::get);
+        cache.put(PROJECT, SOURCE, "cases", 0, 10_000, createValues(1000, 9000));
+
+        clock.set(1001);
+
+        assertThat(cache.lookup(PROJECT, SOURCE, "cases", 2000, 5000).getMissingRanges(),
+                contains(new TimeRange(2000, 5000)));
+        assertThat(cache.getCachedValues(), is(0L));
+    }
+
+    @Test
+    public void testValuesOutsideOfRangeAreLeftOut() {
+        RemoteSeriesCache cache = new RemoteSeriesCache(100, 1000, clock::get);
+        cache.put(PROJECT, SOURCE, "cases", 2000, 6000, createValues(1000, 9000));
+
+        Lookup lookup = cache.lookup(PROJECT, SOURCE, "cases", 3000, 8000);
+
+        assertThat(lookup.getMissingRanges(), contains(new TimeRange(5999, 8000)));
+
+        // the remote data source answers with more values than requested
+        lookup.addFetchedValues(new TimeRange(5999, 8000), createValues(1000, 9000));
+
+        assertThat(lookup.getValues(), arrayContaining(new Value(4000, 4), new Value(5000, 5),
+                new Value(6000, 6), new Value(7000, 7)));
+    }
+
+    @Test
+    public void testInvalidateProject() {
+        RemoteSeriesCache cache = new RemoteSeriesCache(100, 1000, clock::get);
+        cache.put(PROJECT, SOURCE, "cases", 0, 10_000, createValues(1000, 9000));
+        cache.put("Other", SOURCE, "cases", 0, 10_000, createValues(1000, 2000));
+
+        cache.invalidateProject(PROJECT);
+
+        assertThat(cache.lookup(PROJECT, SOURCE, "cases", 2000, 5000).getMissingRanges(), hasSize(1));
+        assertThat(cache.lookup("Other", SOURCE, "cases", 0, 10_000).getMissingRanges(), empty());
+        assertThat(cache.getCachedValues(), is(2L));
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsedByValues() {
+        RemoteSeriesCache cache = new RemoteSeriesCache(10, 1000, clock::get);
+
+        cache.put(PROJECT, SOURCE, "a", 0, 10_000, createValues(1000, 4000));
+        cache.put(PROJECT, SOURCE, "b", 0, 10_000, createValues(1000, 4000));
+
+        // mark a as recently used, so b will be evicted
+        cache.lookup(PROJECT, SOURCE, "a", 0, 10_000);
+        cache.put(PROJECT, SOURCE, "c", 0, 10_000, createValues(1000, 4000));
+
+        assertThat(cache.lookup(PROJECT, SOURCE, "a", 0, 10_000).getMissingRanges(), empty());
+        assertThat(cache.lookup(PROJECT, SOURCE, "b", 0, 10_000).getMissingRanges(), hasSize(1));
+        assertThat(cache.lookup(PROJECT, SOURCE, "c", 0, 10_000).getMissingRanges(), empty());
+        assertThat(cache.getCachedValues(), is(8L));
+    }
+
+    private static Value[] createValues(long firstTimestamp, long lastTimestamp) {
+        return LongStream.rangeClosed(firstTimestamp / 1000, lastTimestamp / 1000)
+                .mapToObj(second -> new Value(second * 1000, second))
+                .toArray(Value[]::new);
+    }
+}
@@ -0,0 +1,156 @@
+package de.qaware.ekg.awb.metricanalyzer.bl.tsquery;
+
+import de.qaware.ekg.awb.repository.api.CancellationToken;
+import de.qaware.ekg.awb.sdk.awbapi.repository.ImporterSourceRepository;
+import de.qaware.ekg.awb.sdk.datamodel.Value;
+import de.qaware.ekg.awb.sdk.importer.api.RemoteSeriesDataFetcher;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Unit test for the {@link RemoteSeriesFetchExecutor} using local stub fetchers.
+ */
+public class RemoteSeriesFetchExecutorTest {
+
+    private static final List<String> SERIES_KEYS = List.of("a", "b", "c", "d", "e", "f", "g", "h");
+
+    @Test
+    public void testFetchInParallelWithinLimit() {
+        StubFetcher fetcher = new StubFetcher(50);
+        RemoteSeriesFetchExecutor executor = new RemoteSeriesFetchExecutor(3, 5_000);
+
+        Map<String, Value[]> data = executor.fetch(fetcher, SERIES_KEYS, 0, 0, new CancellationToken());
+
+        assertThat(data.keySet(), containsInAnyOrder(SERIES_KEYS.toArray()));
+        assertThat(data.get("c")[0], is(new Value(1000, 1)));
+        assertThat(fetcher.maxConcurrentRequests.get(), allOf(greaterThan(1), lessThanOrEqualTo(3)));
+    }
+
+    @Test
+    public void testTimeoutAbortsFetch() {
+        StubFetcher fetcher = new StubFetcher(10_000);
+        RemoteSeriesFetchExecutor executor = new RemoteSeriesFetchExecutor(2, 100);
+
+        long start = System.currentTimeMillis();
+        Map<String, Value[]> data = executor.fetch(fetcher, SERIES_KEYS, 0, 0, new CancellationToken());
+
+        assertThat(data, nullValue());
+        assertThat(System.currentTimeMillis() - start, lessThan(5_000L));
+    }
+
+    @Test
+    public void testFailedSeriesAbortsFetch() {
+        StubFetcher fetcher = new StubFetcher(0);
+        fetcher.unavailableKey = "d";
+
+        Map<String, Value[]> data = new RemoteSeriesFetchExecutor(2, 5_000)
+                .fetch(fetcher, SERIES_KEYS, 0, 0, new CancellationToken());
+
+        assertThat(data, nullValue());
+    }
+
+    @Test
+    public void testBulkFetchUsesOneRequestPerPermit() {
+        BulkStubFetcher fetcher = new BulkStubFetcher();
+
+        Map<String, Value[]> data = new RemoteSeriesFetchExecutor(3, 5_000)
+                .fetch(fetcher, SERIES_KEYS, 0, 0, new CancellationToken());
+
+        assertThat(data.keySet(), containsInAnyOrder(SERIES_KEYS.toArray()));
+        assertThat(fetcher.bulkRequests.get(), is(3));
+        assertThat(fetcher.totalRequests.get(), is(0));
+
+        // fewer series than permits
+        new RemoteSeriesFetchExecutor(3, 5_000).fetch(fetcher, List.of("a"), 0, 0, new CancellationToken());
+        assertThat(fetcher.bulkRequests.get(), is(4));
+    }
+
+    @Test
+    public void testMissingSeriesOfBulkFetchAbortsFetch() {
+        BulkStubFetcher fetcher = new BulkStubFetcher();
+        fetcher.unavailableKey = "d";
+
+        Map<String, Value[]> data = new RemoteSeriesFetchExecutor(2, 5_000)
+                .fetch(fetcher, SERIES_KEYS, 0, 0, new CancellationToken());
+
+        assertThat(data, nullValue());
+    }
+
+    /**
+     * Fetcher that answers each series after the given delay and tracks the concurrent requests
+     */
+    private static class StubFetcher implements RemoteSeriesDataFetcher {
+
+        final AtomicInteger totalRequests = new AtomicInteger();
+
+        final AtomicInteger maxConcurrentRequests = new AtomicInteger();
+
+        private final AtomicInteger concurrentRequests = new AtomicInteger();
+
+        private final long delay;
+
+        String unavailableKey;
+
+        StubFetcher(long delay) {
+            this.delay = delay;
+        }
+
+        @Override
+        public Value[] fetchSeriesData(String seriesKey, long start, long end) {
+            totalRequests.incrementAndGet();
+            maxConcurrentRequests.accumulateAndGet(concurrentRequests.incrementAndGet(), Math::max);
+
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } finally {
+                concurrentRequests.decrementAndGet();
+            }
+
+            return seriesKey.equals(unavailableKey) ? null : new Value[]{new Value(1000, 1)};
+        }
+
+        @Override
+        public Value[] fetchSeriesData(Map<String, String> seriesKey, long start, long end) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setSourceRepositoryDefinition(ImporterSourceRepository repositoryDefinition) {
+            // no source repository required
+        }
+    }
+
+    /**
+     * Fetcher that supports to fetch many series with a single request
+     */
+    private static class BulkStubFetcher extends StubFetcher {
+
+        final AtomicInteger bulkRequests = new AtomicInteger();
+
+        BulkStubFetcher() {
+            super(0);
+        }
+
+        @Override
+        public Map<String, Value[]> bulkFetchSeriesData(Collection<String> seriesKeys, long start, long end) {
+            bulkRequests.incrementAndGet();
+
+            Map<String, Value[]> data = new HashMap<>();
+            seriesKeys.stream()
+                    .filter(seriesKey -> !seriesKey.equals(unavailableKey))
+                    .forEach(seriesKey -> data.put(seriesKey, new Value[]{new Value(1000, 1)}));
+            return data;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package de.qaware.ekg.awb.metricanalyzer.bl.tsquery;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Unit test for the {@link TuningProperties} with invalid and out of range values.
+ */
+public class TuningPropertiesTest {
+
+    private static final String PROPERTY = "ekg.metricanalyzer.test.tuning";
+
+    @After
+    public void afterEachTest() {
+        System.clearProperty(PROPERTY);
+    }
+
+    @Test
+    public void testUnsetPropertyUsesDefault() {
+        assertThat(TuningProperties.getInt(PROPERTY, 4, 1, 8), is(4));
+        assertThat(TuningProperties.getLong(PROPERTY, 4, 1, 8), is(4L));
+    }
+
+    @Test
+    public void testValidValue() {
+        System.setProperty(PROPERTY, " 6 ");
+
+        assertThat(TuningProperties.getInt(PROPERTY, 4, 1, 8), is(6));
+    }
+
+    @Test
+    public void testInvalidValueUsesDefault() {
+        System.setProperty(PROPERTY, "four");
+        assertThat(TuningProperties.getInt(PROPERTY, 4, 1, 8), is(4));
+
+        // too large even for a long
+        System.setProperty(PROPERTY, "99999999999999999999");
+        assertThat(TuningProperties.getLong(PROPERTY, 4, 1, 8), is(4L));
+    }
+
+    @Test
+    public void testValueOutsideOfRangeIsClamped() {
+        System.setProperty(PROPERTY, "99999999999");
+        assertThat(TuningProperties.getInt(PROPERTY, 4, 1, 8), is(8));
+
+        System.setProperty(PROPERTY, "-3");
+        assertThat(TuningProperties.getInt(PROPERTY, 4, 1, 8), is(1));
+    }
+}
@@ -0,0 +1,114 @@
+package de.qaware.ekg.awb.metricanalyzer.bl.visualisation;
+
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.ColumnarTimeSeries;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.Metric;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryComputeParams;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryFilterParams;
+import de.qaware.ekg.awb.project.api.model.Project;
+import de.qaware.ekg.awb.sdk.datamodel.TimeSeries;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Unit test for the {@link ComputedResultCache}.
+ */
+public class ComputedResultCacheTest {
+
+    private final QueryComputeParams computeParams = new QueryComputeParams();
+
+    @Test
+    public void testGetByEqualParameters() {
+        ComputedResultCache cache = new ComputedResultCache();
+        List<ColumnarTimeSeries> result = List.of(createSeries(3));
+
+        cache.put(createFilter("Project", "cases"), computeParams, 50, result, cache.getGeneration());
+
+        // other instances with equal values (and a reloaded project) hit the cache
+        assertThat(cache.get(createFilter("Project", "cases"), computeParams, 50), contains(result.get(0)));
+        assertThat(cache.get(createFilter("Project", "deaths"), computeParams, 50), nullValue());
+        assertThat(cache.get(createFilter("Project", "cases"), computeParams, 10), nullValue());
+        assertThat(cache.getCachedPoints(), is(3L));
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsedByPoints() {
+        ComputedResultCache cache = new ComputedResultCache(10);
+
+        cache.put(createFilter("Project", "a"), computeParams, 50, List.of(createSeries(4)), cache.getGeneration());
+        cache.put(createFilter("Project", "b"), computeParams, 50, List.of(createSeries(4)), cache.getGeneration());
+
+        // mark a as recently used, so b will be evicted
+        cache.get(createFilter("Project", "a"), computeParams, 50);
+        cache.put(createFilter("Project", "c"), computeParams, 50, List.of(createSeries(4)), cache.getGeneration());
+
+        assertThat(cache.get(createFilter("Project", "a"), computeParams, 50), notNullValue());
+        assertThat(cache.get(createFilter("Project", "b"), computeParams, 50), nullValue());
+        assertThat(cache.get(createFilter("Project", "c"), computeParams, 50), notNullValue());
+        assertThat(cache.getCachedPoints(), is(8L));
+
+        // results larger than the cache aren't cached at all
+        cache.put(createFilter("Project", "d"), computeParams, 50, List.of(createSeries(11)), cache.getGeneration());
+        assertThat(cache.get(createFilter("Project", "d"), computeParams, 50), nullValue());
+    }
+
+    @Test
+    public void testKeepRawSeriesOfResult() {
+        ComputedResultCache cache = new ComputedResultCache(10);
+        FetchedSeriesHolder.Snapshot snapshot = new FetchedSeriesHolder.Snapshot(this, cache.getGeneration(),
+                createFilter("Project", "a"), false, null, List.of(createSeries(6)));
+
+        cache.put(createFilter("Project", "a"), computeParams, 50, List.of(createSeries(2)), snapshot,
+                cache.getGeneration());
+
+        assertThat(cache.getSnapshot(createFilter("Project", "a"), computeParams, 50), sameInstance(snapshot));
+        assertThat(cache.getCachedPoints(), is(8L));
+
+        // raw series that don't fit into the cache together with the result are left out
+        cache.put(createFilter("Project", "b"), computeParams, 50, List.of(createSeries(6)), snapshot,
+                cache.getGeneration());
+
+        assertThat(cache.get(createFilter("Project", "b"), computeParams, 50), notNullValue());
+        assertThat(cache.getSnapshot(createFilter("Project", "b"), computeParams, 50), nullValue());
+        assertThat(cache.getCachedPoints(), is(6L));
+    }
+
+    @Test
+    public void testInvalidateProject() {
+        ComputedResultCache cache = new ComputedResultCache();
+
+        long generation = cache.getGeneration();
+        cache.put(createFilter("First", "cases"), computeParams, 50, List.of(createSeries(2)), generation);
+        cache.put(createFilter("Second", "cases"), computeParams, 50, List.of(createSeries(2)), generation);
+
+        cache.invalidateProject("First");
+
+        assertThat(cache.get(createFilter("First", "cases"), computeParams, 50), nullValue());
+        assertThat(cache.get(createFilter("Second", "cases"), computeParams, 50), notNullValue());
+        assertThat(cache.getCachedPoints(), is(2L));
+
+        // results computed before the invalidation won't be cached
+        cache.put(createFilter("First", "cases"), computeParams, 50, List.of(createSeries(2)), generation);
+        assertThat(cache.get(createFilter("First", "cases"), computeParams, 50), nullValue());
+    }
+
+    private static QueryFilterParams createFilter(String projectName, String metricName) {
+        return new QueryFilterParams.Builder()
+                .withProject(new Project(projectName))
+                .withMetric(new Metric(metricName))
+                .withStart(1000)
+                .withStop(2000)
+                .build();
+    }
+
+    private static ColumnarTimeSeries createSeries(int amountOfPoints) {
+        ColumnarTimeSeries series = new ColumnarTimeSeries(new TimeSeries("series"));
+        for (int index = 0; index < amountOfPoints; index++) {
+            series.add(index * 1000L, index);
+        }
+        return series;
+    }
+}
@@ -0,0 +1,120 @@
+package de.qaware.ekg.awb.metricanalyzer.bl.visualisation;
+
+import de.qaware.ekg.awb.metricanalyzer.bl.api.SeriesSmoothingGranularity;
+import de.qaware.ekg.awb.metricanalyzer.bl.api.SeriesSmoothingType;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.ColumnarTimeSeries;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.Metric;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryComputeParams;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryFilterParams;
+import de.qaware.ekg.awb.metricanalyzer.bl.visualisation.FetchedSeriesHolder.Snapshot;
+import de.qaware.ekg.awb.metricanalyzer.bl.visualisation.RollupLevelResolver.RollupSelection;
+import de.qaware.ekg.awb.project.api.model.Project;
+import de.qaware.ekg.awb.repository.bl.rollup.RollupAggregate;
+import de.qaware.ekg.awb.repository.bl.rollup.RollupLevel;
+import de.qaware.ekg.awb.sdk.datamodel.TimeSeries;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Unit test for the {@link FetchedSeriesHolder} that checks which zooms are answered by the held series.
+ */
+public class FetchedSeriesHolderTest {
+
+    private final Object owner = new Object();
+
+    private final QueryComputeParams computeParams = new QueryComputeParams();
+
+    @Test
+    public void testCoversZoomIntoFetchedRange() {
+        Snapshot snapshot = new Snapshot(owner, 1, createFilter("cases", 1000, 9000), false, null,
+                List.of(createSeries(10)));
+
+        assertThat(snapshot.covers(owner, 1, createFilter("cases", 1000, 9000), computeParams), is(true));
+        assertThat(snapshot.covers(owner, 1, createFilter("cases", 3000, 5000), computeParams), is(true));
+
+        // exceeds the fetched range, other filters or outdated data
+        assertThat(snapshot.covers(owner, 1, createFilter("cases", 500, 5000), computeParams), is(false));
+        assertThat(snapshot.covers(owner, 1, createFilter("cases", 3000, 0), computeParams), is(false));
+        assertThat(snapshot.covers(owner, 1, createFilter("deaths", 3000, 5000), computeParams), is(false));
+        assertThat(snapshot.covers(owner, 2, createFilter("cases", 3000, 5000), computeParams), is(false));
+        assertThat(snapshot.covers(new Object(), 1, createFilter("cases", 3000, 5000), computeParams), is(false));
+    }
+
+    @Test
+    public void testRollupsDoNotCoverFinerResolutions() {
+        QueryComputeParams weekly = createSmoothing(SeriesSmoothingGranularity.WEEK);
+        Snapshot snapshot = new Snapshot(owner, 1, createFilter("cases", 1000, 9000), false,
+                new RollupSelection(RollupLevel.DAY, RollupAggregate.MAX), List.of(createSeries(10)));
+
+        assertThat(snapshot.covers(owner, 1, createFilter("cases", 3000, 5000), weekly), is(true));
+        assertThat(snapshot.covers(owner, 1, createFilter("cases", 3000, 5000),
+                createSmoothing(SeriesSmoothingGranularity.DAY)), is(false));
+    }
+
+    @Test
+    public void testSliceCopiesValuesInsideRange() {
+        ColumnarTimeSeries series = createSeries(10);
+        Snapshot snapshot = new Snapshot(owner, 1, createFilter("cases", -1, 0), false, null, List.of(series));
+
+        // the begin and end of a query range are exclusive
+        List<ColumnarTimeSeries> slices = snapshot.slice(3000, 6000);
+
+        assertThat(slices, hasSize(1));
+        assertThat(slices.get(0).size(), is(2));
+        assertThat(slices.get(0).getStartDate(), is(4000L));
+        assertThat(slices.get(0).getEndDate(), is(5000L));
+        assertThat(slices.get(0).getMetaData(), not(sameInstance(series.getMetaData())));
+
+        // modifications of the slices don't write through to the held series
+        slices.get(0).getValues()[0] = 42;
+        assertThat(series.getValue(4), is(4.0));
+
+        assertThat(snapshot.slice(-1, 0).get(0).size(), is(10));
+        assertThat(snapshot.slice(20000, 30000), empty());
+    }
+
+    @Test
+    public void testSliceLeavesOutPartialRollupBuckets() {
+        Snapshot snapshot = new Snapshot(owner, 1, createFilter("cases", -1, 0), false,
+                new RollupSelection(RollupLevel.HOUR, RollupAggregate.SUM), List.of(createSeries(10, 3600_000L)));
+
+        // the range ends in the middle of the fifth bucket
+        ColumnarTimeSeries slice = snapshot.slice(-1, 4 * 3600_000L + 1800_000L).get(0);
+
+        assertThat(slice.size(), is(4));
+        assertThat(slice.getEndDate(), is(3 * 3600_000L));
+        assertThat(snapshot.slice(-1, 5 * 3600_000L).get(0).size(), is(5));
+    }
+
+    private static QueryFilterParams createFilter(String metricName, long start, long end) {
+        return new QueryFilterParams.Builder()
+                .withProject(new Project("Project"))
+                .withMetric(new Metric(metricName))
+                .withStart(start)
+                .withStop(end)
+                .build();
+    }
+
+    private static QueryComputeParams createSmoothing(SeriesSmoothingGranularity granularity) {
+        QueryComputeParams params = new QueryComputeParams();
+        params.setSeriesSmoothingType(SeriesSmoothingType.MAX);
+        params.setSeriesSmoothingGranularity(granularity);
+        return params;
+    }
+
+    private static ColumnarTimeSeries createSeries(int amountOfPoints) {
+        return createSeries(amountOfPoints, 1000L);
+    }
+
+    private static ColumnarTimeSeries createSeries(int amountOfPoints, long interval) {
+        ColumnarTimeSeries series = new ColumnarTimeSeries(new TimeSeries("series"));
+        for (int index = 0; index < amountOfPoints; index++) {
+            series.add(index * interval, index);
+        }
+        return series;
+    }
+}
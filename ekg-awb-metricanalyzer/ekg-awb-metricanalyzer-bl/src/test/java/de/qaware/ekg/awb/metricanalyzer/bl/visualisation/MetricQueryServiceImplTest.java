@@ -0,0 +1,189 @@
+package de.qaware.ekg.awb.metricanalyzer.bl.visualisation;
+
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.MetricDataAccessService;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.ColumnarTimeSeries;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.Metric;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.MetricQuery;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryComputeParams;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryCostEstimate;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryFilterParams;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.TimeSeriesQuery;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.TimeSeriesQueryResponse;
+import de.qaware.ekg.awb.metricanalyzer.bl.visualisation.smoothing.SmootherFactory;
+import de.qaware.ekg.awb.project.api.model.Project;
+import de.qaware.ekg.awb.repository.api.CancellationToken;
+import de.qaware.ekg.awb.repository.api.events.SeriesDataChangedEvent;
+import de.qaware.ekg.awb.sdk.core.events.EkgEventBus;
+import de.qaware.ekg.awb.sdk.core.events.EkgEventBusListener;
+import de.qaware.ekg.awb.sdk.datamodel.TimeSeries;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.EventObject;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit test for the progressive delivery and the result caching of the {@link MetricQueryServiceImpl}.
+ */
+public class MetricQueryServiceImplTest {
+
+    private MetricDataAccessService metricDataAccess;
+
+    private final List<EkgEventBusListener<EventObject>> listeners = new ArrayList<>();
+
+    private MetricQueryServiceImpl queryService;
+
+    private final QueryComputeParams computeParams = new QueryComputeParams();
+
+    /**
+     * The hosts of the series records delivered by the repository, one record per series
+     */
+    private List<String> fetchedHosts = List.of("Austria", "France", "Germany");
+
+    private int fetchedRecords;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void beforeEachTest() throws Exception {
+        metricDataAccess = mock(MetricDataAccessService.class);
+
+        // the event bus delivers the published events to the subscribed listeners
+        EkgEventBus eventBus = mock(EkgEventBus.class);
+        doAnswer(invocation -> listeners.add((EkgEventBusListener<EventObject>) invocation.getArguments()[1]))
+                .when(eventBus).subscribe(eq(SeriesDataChangedEvent.class), any(EkgEventBusListener.class));
+
+        queryService = new MetricQueryServiceImpl(metricDataAccess, eventBus, (series, threshold) -> series,
+                new SmootherFactory());
+
+        when(metricDataAccess.estimateQueryCost(any(MetricQuery.class))).thenAnswer(invocation -> {
+            QueryCostEstimate estimate = new QueryCostEstimate();
+            estimate.setSeriesCount(fetchedHosts.size());
+            estimate.setLevelCosts(null, fetchedHosts.size(), fetchedHosts.size());
+            return estimate;
+        });
+
+        // like the repository the records are streamed until the query is cancelled
+        when(metricDataAccess.streamTimeSeriesData(any(TimeSeriesQuery.class), any())).thenAnswer(invocation -> {
+            TimeSeriesQuery query = (TimeSeriesQuery) invocation.getArguments()[0];
+            Consumer<ColumnarTimeSeries> consumer = (Consumer<ColumnarTimeSeries>) invocation.getArguments()[1];
+
+            for (int index = 0; index < fetchedHosts.size() && !query.getCancellationToken().isCancelled(); index++) {
+                consumer.accept(createRecord(query.getQueryParams().getProjectName(), fetchedHosts.get(index), index));
+                fetchedRecords++;
+            }
+
+            return new TimeSeriesQueryResponse(null, fetchedRecords, false);
+        });
+    }
+
+    @Test
+    public void testSeriesAreDeliveredInOrderWhileFetched() {
+        List<String> delivered = new ArrayList<>();
+
+        ComputedTimeSeriesResponse response = queryService.getComputedTimeSeries(createFilter("Project"),
+                computeParams, 10, new CancellationToken(), null,
+                series -> delivered.add(series.getMetaData().getHost()));
+
+        assertThat(delivered, contains("Austria", "France", "Germany"));
+        assertThat(getHosts(response.getTimeSeries()), contains("Austria", "France", "Germany"));
+        assertThat(response.isMaxSeriesLimitExceeded(), is(false));
+    }
+
+    @Test
+    public void testSeriesLimitCancelsFetching() throws Exception {
+        // the estimate counts less series than the repository delivers
+        fetchedHosts = List.of("Austria", "France", "Germany", "Italy", "Spain");
+        QueryFilterParams filter = createFilter("Project");
+        when(metricDataAccess.estimateQueryCost(any(MetricQuery.class))).thenAnswer(invocation -> {
+            QueryCostEstimate estimate = new QueryCostEstimate();
+            estimate.setSeriesCount(2);
+            estimate.setLevelCosts(null, 2, 2);
+            return estimate;
+        });
+
+        List<String> delivered = new ArrayList<>();
+        ComputedTimeSeriesResponse response = queryService.getComputedTimeSeries(filter, computeParams, 2,
+                new CancellationToken(), null, series -> delivered.add(series.getMetaData().getHost()));
+
+        // the third complete series exceeds the limit, the remaining records aren't fetched anymore
+        assertThat(delivered, contains("Austria", "France"));
+        assertThat(fetchedRecords, is(4));
+        assertThat(response.isMaxSeriesLimitExceeded(), is(true));
+        assertThat(response.getTimeSeries(), empty());
+    }
+
+    @Test
+    public void testCacheHitRestoresFetchedSeries() throws Exception {
+        QueryFilterParams filter = createFilter("Project");
+
+        FetchedSeriesHolder firstHolder = new FetchedSeriesHolder();
+        ComputedTimeSeriesResponse first = queryService.getComputedTimeSeries(filter, computeParams, 10,
+                new CancellationToken(), firstHolder, null);
+
+        FetchedSeriesHolder secondHolder = new FetchedSeriesHolder();
+        ComputedTimeSeriesResponse second = queryService.getComputedTimeSeries(createFilter("Project"),
+                computeParams, 10, new CancellationToken(), secondHolder, null);
+
+        // the second chart gets the cached result and the raw series to zoom into
+        verify(metricDataAccess, times(1)).streamTimeSeriesData(any(TimeSeriesQuery.class), any());
+        assertThat(getHosts(second.getTimeSeries()), equalTo(getHosts(first.getTimeSeries())));
+        assertThat(secondHolder.getSnapshot(), sameInstance(firstHolder.getSnapshot()));
+    }
+
+    @Test
+    public void testSeriesDataChangedEventEvictsResultsOfProject() throws Exception {
+        queryService.getComputedTimeSeries(createFilter("First"), computeParams, 10, new CancellationToken(),
+                null, null);
+        queryService.getComputedTimeSeries(createFilter("Second"), computeParams, 10, new CancellationToken(),
+                null, null);
+        verify(metricDataAccess, times(2)).streamTimeSeriesData(any(TimeSeriesQuery.class), any());
+
+        // an import or deletion of the first project
+        SeriesDataChangedEvent event = new SeriesDataChangedEvent(this, "First");
+        listeners.forEach(listener -> listener.eventPublished(event));
+
+        queryService.getComputedTimeSeries(createFilter("First"), computeParams, 10, new CancellationToken(),
+                null, null);
+        queryService.getComputedTimeSeries(createFilter("Second"), computeParams, 10, new CancellationToken(),
+                null, null);
+
+        // only the result of the first project is computed again
+        verify(metricDataAccess, times(3)).streamTimeSeriesData(any(TimeSeriesQuery.class), any());
+        verify(metricDataAccess, times(2)).getAmountMeasuredPointsInProject("First");
+        verify(metricDataAccess, times(1)).getAmountMeasuredPointsInProject("Second");
+    }
+
+    private static List<String> getHosts(List<ColumnarTimeSeries> series) {
+        return series.stream().map(entry -> entry.getMetaData().getHost()).collect(Collectors.toList());
+    }
+
+    private static QueryFilterParams createFilter(String projectName) {
+        return new QueryFilterParams.Builder()
+                .withProject(new Project(projectName))
+                .withMetric(new Metric("cases"))
+                .withStart(-1)
+                .withStop(-1)
+                .build();
+    }
+
+    private static ColumnarTimeSeries createRecord(String projectName, String host, int groupKeyHash) {
+        TimeSeries metaData = new TimeSeries(projectName, "Europe", host, null, null, null, null,
+                null, null, "covid", "cases");
+
+        ColumnarTimeSeries series = new ColumnarTimeSeries(metaData);
+        series.setGroupKeyHash(groupKeyHash);
+        series.add(1000, groupKeyHash);
+        series.add(2000, groupKeyHash + 1);
+
+        return series;
+    }
+}
@@ -0,0 +1,91 @@
+package de.qaware.ekg.awb.metricanalyzer.bl.visualisation;
+
+import de.qaware.ekg.awb.metricanalyzer.bl.api.SeriesCombineMode;
+import de.qaware.ekg.awb.metricanalyzer.bl.api.SeriesSmoothingGranularity;
+import de.qaware.ekg.awb.metricanalyzer.bl.api.SeriesSmoothingType;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryComputeParams;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryCostEstimate;
+import de.qaware.ekg.awb.metricanalyzer.bl.visualisation.QueryPlanner.QueryPlan;
+import de.qaware.ekg.awb.metricanalyzer.bl.visualisation.QueryPlanner.Strategy;
+import de.qaware.ekg.awb.repository.bl.rollup.RollupAggregate;
+import de.qaware.ekg.awb.repository.bl.rollup.RollupLevel;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Unit test for the QueryPlanner that checks the chosen strategy for different estimates.
+ */
+public class QueryPlannerTest {
+
+    @Test
+    public void testCoarsestAvailableRollupIsUsed() {
+        QueryCostEstimate estimate = createEstimate(10, 100_000);
+        estimate.setLevelCosts(RollupLevel.HOUR, 10, 2_400);
+
+        QueryPlan plan = QueryPlanner.plan(
+                createParams(SeriesCombineMode.NONE, SeriesSmoothingType.MAX, SeriesSmoothingGranularity.DAY),
+                estimate, 50);
+
+        assertEquals(Strategy.ROLLUP, plan.getStrategy());
+        assertEquals(RollupLevel.HOUR, plan.getRollup().getLevel());
+        assertEquals(RollupAggregate.MAX, plan.getRollup().getAggregate());
+        assertEquals("rollup HOUR/MAX (est. 2.400 of 100.000 values, 10 series)", plan.getDescription());
+    }
+
+    @Test
+    public void testRawSeriesOfSparseSeries() {
+        // a single value per day gives rollups with as many buckets as raw values
+        QueryCostEstimate estimate = createEstimate(10, 300);
+        estimate.setLevelCosts(RollupLevel.HOUR, 10, 300);
+
+        QueryPlan plan = QueryPlanner.plan(
+                createParams(SeriesCombineMode.NONE, SeriesSmoothingType.MAX, SeriesSmoothingGranularity.DAY),
+                estimate, 50);
+
+        assertEquals(Strategy.RAW, plan.getStrategy());
+        assertNull(plan.getRollup());
+    }
+
+    @Test
+    public void testRawSeriesWithoutMatchingRollup() {
+        QueryCostEstimate estimate = createEstimate(10, 100_000);
+        estimate.setLevelCosts(RollupLevel.HOUR, 10, 2_400);
+
+        QueryPlan plan = QueryPlanner.plan(
+                createParams(SeriesCombineMode.NONE, SeriesSmoothingType.AVG, SeriesSmoothingGranularity.DAY),
+                estimate, 50);
+
+        assertEquals(Strategy.RAW, plan.getStrategy());
+        assertEquals("raw series (est. 100.000 values, 10 series)", plan.getDescription());
+    }
+
+    @Test
+    public void testSeriesLimitIsCheckedBeforeFetching() {
+        QueryComputeParams params =
+                createParams(SeriesCombineMode.NONE, SeriesSmoothingType.NONE, SeriesSmoothingGranularity.AUTO);
+
+        assertEquals(Strategy.SERIES_LIMIT_EXCEEDED, QueryPlanner.plan(params, createEstimate(51, 100), 50).getStrategy());
+
+        // combined series are shown as a single line
+        params.setSeriesCombineMode(SeriesCombineMode.SUM_HOUR);
+        assertEquals(Strategy.RAW, QueryPlanner.plan(params, createEstimate(51, 100), 50).getStrategy());
+    }
+
+    private static QueryCostEstimate createEstimate(long seriesCount, long rawValues) {
+        QueryCostEstimate estimate = new QueryCostEstimate();
+        estimate.setSeriesCount(seriesCount);
+        estimate.setLevelCosts(null, seriesCount, rawValues);
+        return estimate;
+    }
+
+    private static QueryComputeParams createParams(SeriesCombineMode combineMode, SeriesSmoothingType smoothingType,
+                                                   SeriesSmoothingGranularity granularity) {
+        QueryComputeParams params = new QueryComputeParams();
+        params.setSeriesCombineMode(combineMode);
+        params.setSeriesSmoothingType(smoothingType);
+        params.setSeriesSmoothingGranularity(granularity);
+        return params;
+    }
+}
@@ -0,0 +1,165 @@
+package de.qaware.ekg.awb.metricanalyzer.bl.visualisation;
+
+import de.qaware.ekg.awb.metricanalyzer.bl.api.SeriesCombineMode;
+import de.qaware.ekg.awb.metricanalyzer.bl.api.SeriesSmoothingGranularity;
+import de.qaware.ekg.awb.metricanalyzer.bl.api.SeriesSmoothingType;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.ColumnarTimeSeries;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryComputeParams;
+import de.qaware.ekg.awb.metricanalyzer.bl.visualisation.RollupLevelResolver.RollupSelection;
+import de.qaware.ekg.awb.metricanalyzer.bl.visualisation.combine.CombinerFactory;
+import de.qaware.ekg.awb.metricanalyzer.bl.visualisation.combine.TimeSeriesCombiner;
+import de.qaware.ekg.awb.repository.bl.rollup.RollupAggregate;
+import de.qaware.ekg.awb.repository.bl.rollup.RollupLevel;
+import de.qaware.ekg.awb.metricanalyzer.bl.visualisation.smoothing.SmootherFactory;
+import de.qaware.ekg.awb.metricanalyzer.bl.visualisation.smoothing.TimeSeriesSmoother;
+import de.qaware.ekg.awb.sdk.datamodel.TimeSeries;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Unit test for the RollupLevelResolver that checks the chosen
+ * rollup level for different combinations of compute parameters.
+ */
+public class RollupLevelResolverTest {
+
+    private static final long ONE_DAY = 86_400_000L;
+
+    /**
+     * A range begin that isn't aligned to hours nor days (5:17 of the 100th day after the epoch)
+     */
+    private static final long UNALIGNED_BEGIN = 100 * ONE_DAY + 5 * 3600_000L + 17 * 60_000L;
+
+    private static final double VALUES_PER_HOUR = 6;
+
+    @Test
+    public void testSmoothingUsesCoarsestMatchingLevel() {
+        RollupSelection selection = RollupLevelResolver.resolve(
+                createParams(SeriesCombineMode.NONE, SeriesSmoothingType.MAX, SeriesSmoothingGranularity.WEEK));
+
+        assertEquals(RollupLevel.DAY, selection.getLevel());
+        assertEquals(RollupAggregate.MAX, selection.getAggregate());
+
+        selection = RollupLevelResolver.resolve(
+                createParams(SeriesCombineMode.NONE, SeriesSmoothingType.SUM, SeriesSmoothingGranularity.CALENDAR_MONTH));
+
+        assertEquals(RollupLevel.DAY, selection.getLevel());
+        assertEquals(RollupAggregate.SUM, selection.getAggregate());
+    }
+
+    @Test
+    public void testSumCombineUsesSums() {
+        RollupSelection selection = RollupLevelResolver.resolve(
+                createParams(SeriesCombineMode.SUM_MONTH, SeriesSmoothingType.MEDIAN, SeriesSmoothingGranularity.AUTO));
+
+        assertEquals(RollupLevel.HOUR, selection.getLevel());
+        assertEquals(RollupAggregate.SUM, selection.getAggregate());
+    }
+
+    @Test
+    public void testRawSeriesRequired() {
+        assertNull(RollupLevelResolver.resolve(
+                createParams(SeriesCombineMode.NONE, SeriesSmoothingType.AVG, SeriesSmoothingGranularity.DAY)));
+        assertNull(RollupLevelResolver.resolve(
+                createParams(SeriesCombineMode.NONE, SeriesSmoothingType.SUM, SeriesSmoothingGranularity.AUTO)));
+        assertNull(RollupLevelResolver.resolve(
+                createParams(SeriesCombineMode.SUM_MIN, SeriesSmoothingType.NONE, SeriesSmoothingGranularity.AUTO)));
+        assertNull(RollupLevelResolver.resolve(
+                createParams(SeriesCombineMode.AVG_DAY, SeriesSmoothingType.NONE, SeriesSmoothingGranularity.AUTO)));
+
+        // the buckets of the rollup level would be as large as the computed ones
+        assertNull(RollupLevelResolver.resolve(
+                createParams(SeriesCombineMode.SUM_HOUR, SeriesSmoothingType.NONE, SeriesSmoothingGranularity.AUTO)));
+        assertNull(RollupLevelResolver.resolve(
+                createParams(SeriesCombineMode.NONE, SeriesSmoothingType.SUM, SeriesSmoothingGranularity.HOUR)));
+    }
+
+    @Test
+    public void testSmoothedRollupsMatchRawSeriesOnUnalignedRange() {
+        QueryComputeParams params =
+                createParams(SeriesCombineMode.NONE, SeriesSmoothingType.SUM, SeriesSmoothingGranularity.DAY);
+        RollupSelection selection = RollupLevelResolver.resolve(params);
+        TimeSeriesSmoother smoother = new SmootherFactory().resolveSmoother(SeriesSmoothingType.SUM,
+                SeriesSmoothingGranularity.DAY);
+
+        ColumnarTimeSeries raw = smoother.computeSmoothing(createRawSeries(UNALIGNED_BEGIN));
+        ColumnarTimeSeries rollup = smoother.computeSmoothing(
+                createRollupSeries(createRawSeries(UNALIGNED_BEGIN), selection.getLevel(), UNALIGNED_BEGIN));
+
+        // no bucket gets lost, each one differs at most by the values of one rollup bucket
+        assertEquals(raw.size(), rollup.size());
+        assertBucketsDifferAtMost(raw, rollup, VALUES_PER_HOUR);
+    }
+
+    @Test
+    public void testCombinedRollupsMatchRawSeriesOnUnalignedRange() {
+        QueryComputeParams params =
+                createParams(SeriesCombineMode.SUM_DAY, SeriesSmoothingType.NONE, SeriesSmoothingGranularity.AUTO);
+        RollupSelection selection = RollupLevelResolver.resolve(params);
+        TimeSeriesCombiner combiner = CombinerFactory.resolveCombiner(SeriesCombineMode.SUM_DAY);
+
+        ColumnarTimeSeries raw = combiner.combineColumnar("cases",
+                List.of(createRawSeries(UNALIGNED_BEGIN), createRawSeries(UNALIGNED_BEGIN)));
+        ColumnarTimeSeries rollup = combiner.combineColumnar("cases", List.of(
+                createRollupSeries(createRawSeries(UNALIGNED_BEGIN), selection.getLevel(), UNALIGNED_BEGIN),
+                createRollupSeries(createRawSeries(UNALIGNED_BEGIN), selection.getLevel(), UNALIGNED_BEGIN)));
+
+        assertEquals(raw.size(), rollup.size());
+        assertBucketsDifferAtMost(raw, rollup, 2 * VALUES_PER_HOUR);
+    }
+
+    private static void assertBucketsDifferAtMost(ColumnarTimeSeries raw, ColumnarTimeSeries rollup, double delta) {
+        for (int index = 0; index < raw.size(); index++) {
+            assertEquals(raw.getValue(index), rollup.getValue(index), delta);
+        }
+    }
+
+    /**
+     * Creates a series with a value of 1 every ten minutes for five days after the given (exclusive) begin,
+     * like the repository returns the raw values of a query range.
+     */
+    private static ColumnarTimeSeries createRawSeries(long begin) {
+        ColumnarTimeSeries series = new ColumnarTimeSeries(new TimeSeries("cases"));
+
+        long step = 600_000L;
+        for (long timestamp = (begin / step + 1) * step; timestamp < begin + 5 * ONE_DAY; timestamp += step) {
+            series.add(timestamp, 1);
+        }
+
+        return series;
+    }
+
+    /**
+     * Sums up the given raw values per rollup bucket. Like the query of the rollups only the buckets
+     * that lie completely after the (exclusive) begin are kept.
+     */
+    private static ColumnarTimeSeries createRollupSeries(ColumnarTimeSeries raw, RollupLevel level, long begin) {
+        Map<Long, Double> buckets = new TreeMap<>();
+        for (int index = 0; index < raw.size(); index++) {
+            buckets.merge(level.bucketStart(raw.getTimestamp(index)), raw.getValue(index), Double::sum);
+        }
+
+        ColumnarTimeSeries series = new ColumnarTimeSeries(new TimeSeries("cases"));
+        buckets.forEach((bucketStart, sum) -> {
+            if (bucketStart > begin) {
+                series.add(bucketStart, sum);
+            }
+        });
+
+        return series;
+    }
+
+    private static QueryComputeParams createParams(SeriesCombineMode combineMode, SeriesSmoothingType smoothingType,
+                                                   SeriesSmoothingGranularity granularity) {
+        QueryComputeParams params = new QueryComputeParams();
+        params.setSeriesCombineMode(combineMode);
+        params.setSeriesSmoothingType(smoothingType);
+        params.setSeriesSmoothingGranularity(granularity);
+        return params;
+    }
+}
@@ -0,0 +1,102 @@
+package de.qaware.ekg.awb.metricanalyzer.bl.visualisation;
+
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.ColumnarTimeSeries;
+import de.qaware.ekg.awb.sdk.datamodel.TimeSeries;
+import de.qaware.ekg.awb.sdk.datamodel.Value;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Unit test for the SeriesGroupCollector that merges the fetched records of each series.
+ */
+public class SeriesGroupCollectorTest {
+
+    @Test
+    public void testMergeAdjacentRecords() {
+        SeriesGroupCollector collector = new SeriesGroupCollector(false);
+
+        collector.add(createRecord("Germany", "cases", 1, 1000, 1));
+        collector.add(createRecord("Germany", "cases", 1, 2000, 2));
+        // hash collision of two different series
+        collector.add(createRecord("France", "cases", 1, 1000, 10));
+        collector.add(createRecord("Germany", "cases", 1, 3000, 3));
+        collector.add(createRecord("Italy", "cases", 2, 1000, 100));
+
+        List<ColumnarTimeSeries> result = collector.getResult();
+
+        assertThat(result, hasSize(3));
+        assertThat(collector.getAmountOfPoints(), is(5L));
+        assertThat(result.get(0).toValueList(), contains(new Value(1000, 1), new Value(2000, 2), new Value(3000, 3)));
+        assertThat(result.get(1).toValueList(), contains(new Value(1000, 10)));
+        assertThat(result.get(2).toValueList(), contains(new Value(1000, 100)));
+    }
+
+    @Test
+    public void testRecordsWithoutHash() {
+        SeriesGroupCollector collector = new SeriesGroupCollector(false);
+
+        collector.add(createRecord("Germany", "cases", null, 1000, 1));
+        collector.add(createRecord("France", "cases", 1, 1000, 10));
+        collector.add(createRecord("Germany", "cases", null, 2000, 2));
+
+        assertThat(collector.getAmountOfGroups(), is(2));
+        assertThat(collector.getResult().get(0).toValueList(), contains(new Value(1000, 1), new Value(2000, 2)));
+    }
+
+    @Test
+    public void testListenerReceivesCompleteSeries() {
+        List<String> completed = new ArrayList<>();
+        SeriesGroupCollector collector = new SeriesGroupCollector(false,
+                series -> completed.add(series.getMetaData().getHost() + ":" + series.size()));
+
+        collector.add(createRecord("Germany", "cases", 1, 1000, 1));
+        collector.add(createRecord("Austria", "cases", null, 1000, 5));
+        collector.add(createRecord("Germany", "cases", 1, 2000, 2));
+        assertThat(completed, empty());
+
+        // the next hash completes the series of the previous one
+        collector.add(createRecord("Italy", "cases", 2, 1000, 100));
+        assertThat(completed, contains("Germany:2"));
+
+        // series without hash are complete only at the end
+        collector.finish();
+        assertThat(completed, contains("Germany:2", "Italy:1", "Austria:1"));
+    }
+
+    @Test
+    public void testConcatModeIgnoresMeasurement() {
+        SeriesGroupCollector collector = new SeriesGroupCollector(true);
+
+        ColumnarTimeSeries first = createRecord("Germany", "cases", 1, 1000, 1);
+        first.setMeasurement("first");
+        ColumnarTimeSeries second = createRecord("Germany", "cases", 2, 2000, 2);
+        second.setMeasurement("second");
+
+        collector.add(first);
+        collector.add(second);
+
+        assertThat(collector.getAmountOfGroups(), is(1));
+        assertThat(collector.getResult().get(0).getMetaData().getMeasurement(), is("*"));
+        assertThat(collector.getResult().get(0).toValueList(), contains(new Value(1000, 1), new Value(2000, 2)));
+    }
+
+    private static ColumnarTimeSeries createRecord(String host, String metric, Integer groupKeyHash,
+                                                   long timestamp, double value) {
+        TimeSeries metaData = new TimeSeries("OWID", "Europe", host, null, null, null, null,
+                null, null, "covid", metric);
+
+        ColumnarTimeSeries series = new ColumnarTimeSeries(metaData);
+        series.setGroupKeyHash(groupKeyHash);
+        series.add(timestamp, value);
+
+        return series;
+    }
+}
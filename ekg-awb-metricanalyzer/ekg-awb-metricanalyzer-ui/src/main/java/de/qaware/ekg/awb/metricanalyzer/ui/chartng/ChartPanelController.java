@@ -17,6 +17,7 @@ import de.qaware.ekg.awb.metricanalyzer.bl.bookmarks.et.BookmarkGroup;
 import de.qaware.ekg.awb.metricanalyzer.bl.bookmarks.et.MetricBookmark;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryContextEvent;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryFilterParams;
+import de.qaware.ekg.awb.metricanalyzer.bl.visualisation.FetchedSeriesHolder;
 import de.qaware.ekg.awb.metricanalyzer.ui.bookmarks.BookmarkEvent;
 import de.qaware.ekg.awb.metricanalyzer.ui.bookmarks.CreateBookmarkDialog;
 import de.qaware.ekg.awb.metricanalyzer.ui.chartng.command.*;
@@ -272,6 +273,11 @@ public class ChartPanelController implements Initializable {
              */
             private boolean resetChartAxis = true;
 
+            /**
+             * the series fetched for the chart, zooms into them will be sliced instead of fetched again
+             */
+            private final FetchedSeriesHolder fetchedSeries = new FetchedSeriesHolder();
+
 
             @Override
             protected Task createTask() {
@@ -280,7 +286,8 @@ public class ChartPanelController implements Initializable {
                         getComputeParams(),
                         doResetChartAxis(),
                         viewModel.getEkgRepository(),
-                        zoomableStackedChart
+                        zoomableStackedChart,
+                        fetchedSeries
                 );
             }
         });
@@ -1,16 +1,18 @@
 package de.qaware.ekg.awb.metricanalyzer.ui.chartng;
 
 import de.qaware.ekg.awb.common.ui.chartng.ZoomableStackedChart;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.ColumnarTimeSeries;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryComputeParams;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryFilterParams;
 import de.qaware.ekg.awb.metricanalyzer.bl.visualisation.ComputedTimeSeriesResponse;
+import de.qaware.ekg.awb.metricanalyzer.bl.visualisation.FetchedSeriesHolder;
 import de.qaware.ekg.awb.metricanalyzer.bl.visualisation.MetricQueryService;
+import de.qaware.ekg.awb.repository.api.CancellationToken;
 import de.qaware.ekg.awb.repository.api.EkgRepository;
 import de.qaware.ekg.awb.sdk.core.events.AwbErrorEvent;
 import de.qaware.ekg.awb.sdk.core.events.EkgEventBus;
 import de.qaware.ekg.awb.sdk.core.log.EkgLogger;
 import de.qaware.ekg.awb.sdk.core.lookup.EkgLookup;
-import de.qaware.ekg.awb.sdk.datamodel.Value;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -49,9 +51,10 @@ public class FillChartDataTask extends Task<List<XYChart.Series<Long, Double>>>
     /**
      * The maximum amount of time series returned to the caller in case of split-source projects that
      * fetches the data from an remote repository. If exceeded the fetching and compute logic stops
-     * and return an empty array (and notifies about it).
+     * and return an empty array (and notifies about it). The series are fetched in parallel, but the
+     * amount of concurrent requests per remote repository is limited, so this limit is lower than the local one.
      */
-    private static final int MAX_ALLOWED_SERIES_REMOTE_REPO = 50;
+    private static final int MAX_ALLOWED_SERIES_REMOTE_REPO = 200;
 
     /**
      * the query parameter that will use to fetch the time series
@@ -81,6 +84,17 @@ public class FillChartDataTask extends Task<List<XYChart.Series<Long, Double>>>
      */
     private ZoomableStackedChart zoomableStackedChart;
 
+    /**
+     * the holder of the series fetched for the chart, so zooms can be answered without fetching them again
+     */
+    private FetchedSeriesHolder fetchedSeries;
+
+    /**
+     * the token that stops the fetching and computing of the series if the task is cancelled,
+     * for example because the user changed the filters while the task is running
+     */
+    private final CancellationToken cancellationToken = new CancellationToken();
+
     /**
      * Constructs a new instance of FillChartDataTask which will use
      * the given setup parameters for fetching and postprocessing the data.
@@ -91,15 +105,25 @@ public class FillChartDataTask extends Task<List<XYChart.Series<Long, Double>>>
      * @param resetChartAxis do reset chart axis on load or not
      * @param repository the concrete EKG repository that stores the data to fetch
      * @param zoomableStackedChart the target chart of the data
+     * @param fetchedSeries the holder of the series fetched by the former tasks of the chart
      */
     public FillChartDataTask(QueryFilterParams filterParams, QueryComputeParams computeParams, boolean resetChartAxis,
-                             EkgRepository repository, ZoomableStackedChart zoomableStackedChart) {
+                             EkgRepository repository, ZoomableStackedChart zoomableStackedChart,
+                             FetchedSeriesHolder fetchedSeries) {
 
         this.filterParams = filterParams;
         this.computeParams = computeParams;
         this.resetChartAxis = resetChartAxis;
         this.repository = repository;
         this.zoomableStackedChart = zoomableStackedChart;
+        this.fetchedSeries = fetchedSeries;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        // the interruption only reaches the task thread, the token also stops the helper threads of the query
+        cancellationToken.cancel();
+        return super.cancel(mayInterruptIfRunning);
     }
 
     @Override
@@ -130,11 +154,31 @@ public class FillChartDataTask extends Task<List<XYChart.Series<Long, Double>>>
                 metricLimit = MAX_ALLOWED_SERIES_EKG_REPO;
             }
 
-            // query counters from database and retrieve a parallel stream as result
-            ComputedTimeSeriesResponse response = service.getComputedTimeSeries(filterParams, computeParams, metricLimit);
+            // query counters from database, the first series are shown while the others are still fetched
+            ComputedTimeSeriesResponse response = service.getComputedTimeSeries(filterParams, computeParams, metricLimit,
+                    cancellationToken, fetchedSeries, series -> {
+                        // a superseded task must not overwrite the chart of the task that replaced it
+                        if (cancellationToken.isCancelled()) {
+                            return;
+                        }
+
+                        if (result.isEmpty()) {
+                            LOGGER.info("Retrieved first time series after {}ms", (System.currentTimeMillis() - startTime));
+                            clearChart();
+                        }
+
+                        addSeriesToChart(series, result);
+                    });
+
+            boolean isDeliveredProgressively = !result.isEmpty();
 
             if (response.isRequestAborted()) {
 
+                // the series shown so far are incomplete
+                if (isDeliveredProgressively && !cancellationToken.isCancelled()) {
+                    zoomableStackedChart.clearBase(resetChartAxis);
+                }
+
                 if (response.isMaxSeriesLimitExceeded()) {
                     LOGGER.info("Retrieved a max series limit exceeded error after {}ms.",
                             (System.currentTimeMillis() - startTime));
@@ -151,35 +195,24 @@ public class FillChartDataTask extends Task<List<XYChart.Series<Long, Double>>>
                 return new ArrayList<>();
             }
 
-            LOGGER.info("Retrieved time series data after {}ms", (System.currentTimeMillis() - startTime));
-
-            zoomableStackedChart.clearBase(resetChartAxis);
-            zoomableStackedChart.setBaseYAxisLabel(filterParams.getFullQualifiedDisplayName());
-
-            if (response.getTimeSeries().size() > MAX_ALLOWED_SERIES_EKG_REPO) {
-                LOGGER.warn("The result has more than '" + MAX_ALLOWED_SERIES_EKG_REPO + "' series. Return empty array to protect the UI.");
+            // a superseded task must not overwrite the chart of the task that replaced it
+            if (cancellationToken.isCancelled()) {
                 return new ArrayList<>();
             }
 
-            response.getTimeSeries().forEach(series -> {
-
-                super.updateMessage("Processing: " + series.getMetricName());
+            LOGGER.info("Retrieved time series data after {}ms", (System.currentTimeMillis() - startTime));
 
-                // we do not sort metric values because this should happen at the import process!!
-                ObservableList<XYChart.Data<Long, Double>> chartSeriesData = FXCollections.observableArrayList();
+            // the progressively delivered series are already shown
+            if (!isDeliveredProgressively) {
+                clearChart();
 
-                // convert values returned time series to XYChart.Data points
-                for (Value value : series.getValues()) {
-                    chartSeriesData.add(new XYChart.Data<>(value.getTimestamp(), value.getValue()));
+                if (response.getTimeSeries().size() > MAX_ALLOWED_SERIES_EKG_REPO) {
+                    LOGGER.warn("The result has more than '" + MAX_ALLOWED_SERIES_EKG_REPO + "' series. Return empty array to protect the UI.");
+                    return new ArrayList<>();
                 }
 
-                // create new JavaFX series and addAndSum to list that will returned
-                XYChart.Series<Long, Double> chartSeries = new XYChart.Series<>(chartSeriesData);
-                chartSeries.nameProperty().setValue(series.getDisplayName());
-
-                zoomableStackedChart.addSeriesToBase(chartSeries);
-                result.add(chartSeries);
-            });
+                response.getTimeSeries().forEach(series -> addSeriesToChart(series, result));
+            }
 
             super.updateMessage("Successfully loaded " + result.size() + " series.");
             LOGGER.info("Calculate chart data in " + (System.currentTimeMillis() - startTime) + "ms");
@@ -199,6 +232,35 @@ public class FillChartDataTask extends Task<List<XYChart.Series<Long, Double>>>
         }
     }
 
+    private void clearChart() {
+        zoomableStackedChart.clearBase(resetChartAxis);
+        zoomableStackedChart.setBaseYAxisLabel(filterParams.getFullQualifiedDisplayName());
+    }
+
+    private void addSeriesToChart(ColumnarTimeSeries series, List<XYChart.Series<Long, Double>> result) {
+
+        super.updateMessage("Processing: " + series.getMetricName());
+
+        // we do not sort metric values because this should happen at the import process!!
+        List<XYChart.Data<Long, Double>> dataPoints = new ArrayList<>(series.size());
+        long[] timestamps = series.getTimestamps();
+        double[] values = series.getValues();
+
+        // convert the columns of the returned time series directly to XYChart.Data points
+        for (int i = 0; i < series.size(); i++) {
+            dataPoints.add(new XYChart.Data<>(timestamps[i], values[i]));
+        }
+
+        ObservableList<XYChart.Data<Long, Double>> chartSeriesData = FXCollections.observableList(dataPoints);
+
+        // create new JavaFX series and addAndSum to list that will returned
+        XYChart.Series<Long, Double> chartSeries = new XYChart.Series<>(chartSeriesData);
+        chartSeries.nameProperty().setValue(series.getDisplayName());
+
+        zoomableStackedChart.addSeriesToBase(chartSeries);
+        result.add(chartSeries);
+    }
+
     private void showMaxSeriesExceededDialog(long totalHitTimeSeries, int seriesLimit, boolean isSplitSourceProject) {
         Platform.runLater(() -> {
 
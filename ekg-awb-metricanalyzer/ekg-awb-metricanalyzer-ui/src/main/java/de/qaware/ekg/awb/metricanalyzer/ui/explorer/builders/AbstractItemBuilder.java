@@ -5,6 +5,7 @@ import de.qaware.ekg.awb.common.ui.explorer.api.ProgressNotifier;
 import de.qaware.ekg.awb.explorer.ui.items.common.ProjectItem;
 import de.qaware.ekg.awb.explorer.ui.items.common.RepositoryBaseItem;
 import de.qaware.ekg.awb.explorer.ui.items.common.RepositoryItem;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.MetricQuery;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryFilterParams;
 import de.qaware.ekg.awb.metricanalyzer.ui.api.ContextAwareItem;
 import de.qaware.ekg.awb.metricanalyzer.ui.api.FilterContext;
@@ -58,6 +59,19 @@ public abstract class AbstractItemBuilder<T extends RepositoryBaseItem> implemen
     protected abstract List<? extends ContextAwareItem> getChildItemsFor(T parentItem, FilterContext parentFilterContext,
                                                                          ProgressNotifier progressNotifier);
 
+    /**
+     * Creates the query for the facets of a filter dimension. The facets are served from the
+     * dimension tree of the project, so expanding a node doesn't need a request to the repository.
+     *
+     * @param filterContext the context that defines the filters of the query
+     * @return the query for the facets
+     */
+    protected MetricQuery createDimensionQuery(FilterContext filterContext) {
+        MetricQuery query = new MetricQuery(filterContext.getQueryParameter());
+        query.setDimensionIndexPreferred(true);
+        return query;
+    }
+
     /**
      * Tries to retrieve the filter context from the target TreeItem
      * and return it. If the given parent does't define a filter context
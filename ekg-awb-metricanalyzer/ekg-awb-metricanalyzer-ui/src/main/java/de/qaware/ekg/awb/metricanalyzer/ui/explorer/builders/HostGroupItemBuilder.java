@@ -5,7 +5,6 @@ import de.qaware.ekg.awb.explorer.ui.items.common.RepositoryBaseItem;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.MetricDataAccessService;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.physical.Host;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.physical.HostGroup;
-import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.MetricQuery;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryFilterParams;
 import de.qaware.ekg.awb.metricanalyzer.ui.api.FilterContext;
 import de.qaware.ekg.awb.metricanalyzer.ui.explorer.items.series.physical.HostGroupItem;
@@ -29,7 +28,7 @@ public class HostGroupItemBuilder<T extends RepositoryBaseItem> extends Abstract
     protected List<HostGroupItem> getChildItemsFor(T item, FilterContext context, ProgressNotifier notifier) {
 
         MetricDataAccessService metricDataAccess = item.getRepository().getBoundedService(MetricDataAccessService.class);
-        List<HostGroup> hostGroups = metricDataAccess.getHostGroups(new MetricQuery(context.getQueryParameter()));
+        List<HostGroup> hostGroups = metricDataAccess.getHostGroups(createDimensionQuery(context));
 
         if (hostGroups.isEmpty() || (hostGroups.size() == 1 && "*".equals(hostGroups.get(0).getValueName()))) {
             return List.of();
@@ -6,7 +6,6 @@ import de.qaware.ekg.awb.explorer.ui.items.common.RepositoryBaseItem;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.MetricDataAccessService;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.physical.Host;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.physical.HostGroup;
-import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.MetricQuery;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryFilterParams;
 import de.qaware.ekg.awb.metricanalyzer.ui.api.FilterContext;
 import de.qaware.ekg.awb.metricanalyzer.ui.explorer.items.series.physical.HostItem;
@@ -24,13 +23,13 @@ public class HostItemBuilder<T extends RepositoryBaseItem>  extends AbstractItem
 
         MetricDataAccessService metricDataAccess = item.getRepository().getBoundedService(MetricDataAccessService.class);
 
-        List<HostGroup> hostGroups = metricDataAccess.getHostGroups(new MetricQuery(parentContext.getQueryParameter()));
+        List<HostGroup> hostGroups = metricDataAccess.getHostGroups(createDimensionQuery(parentContext));
         if (item instanceof HostsRootItem &&
                 !(hostGroups.isEmpty() || (hostGroups.size() == 1 && "*".equals(hostGroups.get(0).getValueName())))) {
             return List.of();
         }
 
-        List<Host> metricHosts = metricDataAccess.getHosts(new MetricQuery(parentContext.getQueryParameter()));
+        List<Host> metricHosts = metricDataAccess.getHosts(createDimensionQuery(parentContext));
         int amountFetchedHosts = metricHosts.size();
 
         return ItemBuilder.getItems(metricHosts.stream().map(Host::getName),
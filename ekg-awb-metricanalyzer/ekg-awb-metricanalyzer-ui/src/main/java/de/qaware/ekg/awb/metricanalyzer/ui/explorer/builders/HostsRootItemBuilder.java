@@ -4,7 +4,6 @@ import de.qaware.ekg.awb.common.ui.explorer.api.ProgressNotifier;
 import de.qaware.ekg.awb.explorer.ui.items.common.RepositoryBaseItem;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.MetricDataAccessService;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.physical.HostGroup;
-import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.MetricQuery;
 import de.qaware.ekg.awb.metricanalyzer.ui.api.FilterContext;
 import de.qaware.ekg.awb.metricanalyzer.ui.explorer.items.series.physical.HostsRootItem;
 import de.qaware.ekg.awb.sdk.awbapi.project.ProjectViewFlavor;
@@ -26,7 +25,7 @@ public class HostsRootItemBuilder<T extends RepositoryBaseItem> extends Abstract
     protected List<HostsRootItem> getChildItemsFor(T item, FilterContext context, ProgressNotifier notifier) {
 
         MetricDataAccessService metricDataAccess = item.getRepository().getBoundedService(MetricDataAccessService.class);
-        List<HostGroup> hostGroups = metricDataAccess.getHostGroups(new MetricQuery(context.getQueryParameter()));
+        List<HostGroup> hostGroups = metricDataAccess.getHostGroups(createDimensionQuery(context));
 
         // one host group with '*' always exists
         if (hostGroups.isEmpty() || (hostGroups.size() == 1 && "*".equals(hostGroups.get(0).getValueName()))) {
@@ -5,7 +5,6 @@ import de.qaware.ekg.awb.explorer.ui.items.ItemBuilder;
 import de.qaware.ekg.awb.explorer.ui.items.common.RepositoryBaseItem;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.MetricDataAccessService;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.Measurement;
-import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.MetricQuery;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryFilterParams;
 import de.qaware.ekg.awb.metricanalyzer.ui.api.FilterContext;
 import de.qaware.ekg.awb.metricanalyzer.ui.explorer.items.series.MeasurementItem;
@@ -22,7 +21,7 @@ public class MeasurementItemBuilder<T extends RepositoryBaseItem>  extends Abstr
 
         MetricDataAccessService metricDataAccess = item.getRepository().getBoundedService(MetricDataAccessService.class);
 
-        List<Measurement> measurements = metricDataAccess.getMeasurements(new MetricQuery(context.getQueryParameter()));
+        List<Measurement> measurements = metricDataAccess.getMeasurements(createDimensionQuery(context));
 
         return ItemBuilder.getItems(measurements.stream(),
                 measurement -> {
@@ -5,7 +5,6 @@ import de.qaware.ekg.awb.explorer.ui.items.ItemBuilder;
 import de.qaware.ekg.awb.explorer.ui.items.common.RepositoryBaseItem;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.MetricDataAccessService;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.MetricGroup;
-import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.MetricQuery;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryFilterParams;
 import de.qaware.ekg.awb.metricanalyzer.ui.api.FilterContext;
 import de.qaware.ekg.awb.metricanalyzer.ui.explorer.items.series.MetricGroupItem;
@@ -22,7 +21,7 @@ public class MetricGroupItemBuilder<T extends RepositoryBaseItem>  extends Abstr
 
         MetricDataAccessService metricDataAccess = item.getRepository().getBoundedService(MetricDataAccessService.class);
 
-        List<MetricGroup> metricGroups = metricDataAccess.getMetricGroups(new MetricQuery(context.getQueryParameter()));
+        List<MetricGroup> metricGroups = metricDataAccess.getMetricGroups(createDimensionQuery(context));
 
         return ItemBuilder.getItems(metricGroups.stream(),
                 metricGroup -> {
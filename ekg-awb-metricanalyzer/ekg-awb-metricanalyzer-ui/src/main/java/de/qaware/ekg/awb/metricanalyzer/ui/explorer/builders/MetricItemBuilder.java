@@ -5,7 +5,6 @@ import de.qaware.ekg.awb.explorer.ui.items.ItemBuilder;
 import de.qaware.ekg.awb.explorer.ui.items.common.RepositoryBaseItem;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.MetricDataAccessService;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.Metric;
-import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.MetricQuery;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryFilterParams;
 import de.qaware.ekg.awb.metricanalyzer.ui.api.FilterContext;
 import de.qaware.ekg.awb.metricanalyzer.ui.explorer.items.series.MetricItem;
@@ -38,7 +37,7 @@ public class MetricItemBuilder<T extends RepositoryBaseItem> extends AbstractCon
 
         MetricDataAccessService metricDataAccess = item.getRepository().getBoundedService(MetricDataAccessService.class);
 
-        List<Metric> metrics = metricDataAccess.getMetricsNames(new MetricQuery(context.getQueryParameter()));
+        List<Metric> metrics = metricDataAccess.getMetricsNames(createDimensionQuery(context));
 
         StopWatch stopWatch = StopWatch.createStarted();
         try {
@@ -5,7 +5,6 @@ import de.qaware.ekg.awb.explorer.ui.items.ItemBuilder;
 import de.qaware.ekg.awb.explorer.ui.items.common.RepositoryBaseItem;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.MetricDataAccessService;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.logical.Namespace;
-import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.MetricQuery;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryFilterParams;
 import de.qaware.ekg.awb.metricanalyzer.ui.api.FilterContext;
 import de.qaware.ekg.awb.metricanalyzer.ui.explorer.items.series.logical.NamespaceItem;
@@ -23,7 +22,7 @@ public class NamespaceItemBuilder<T extends RepositoryBaseItem>  extends Abstrac
 
         MetricDataAccessService metricDataAccess = item.getRepository().getBoundedService(MetricDataAccessService.class);
 
-        List<Namespace> namespaces = metricDataAccess.getNamespaces(new MetricQuery(parentContext.getQueryParameter()));
+        List<Namespace> namespaces = metricDataAccess.getNamespaces(createDimensionQuery(parentContext));
 
         CloudPlatformType platformType = parentContext.getQueryParameter().getProject().getCloudPlatformType();
         final String itemName = platformType == CloudPlatformType.OPEN_SHIFT ? "Projekt (Namespace)" : "Namespace";
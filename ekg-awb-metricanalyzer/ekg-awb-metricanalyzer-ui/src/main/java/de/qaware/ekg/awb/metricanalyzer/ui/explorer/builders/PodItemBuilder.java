@@ -5,7 +5,6 @@ import de.qaware.ekg.awb.explorer.ui.items.ItemBuilder;
 import de.qaware.ekg.awb.explorer.ui.items.common.RepositoryBaseItem;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.MetricDataAccessService;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.logical.Pod;
-import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.MetricQuery;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryFilterParams;
 import de.qaware.ekg.awb.metricanalyzer.ui.api.FilterContext;
 import de.qaware.ekg.awb.metricanalyzer.ui.explorer.items.series.logical.PodItem;
@@ -22,7 +21,7 @@ public class PodItemBuilder<T extends RepositoryBaseItem>  extends AbstractItemB
 
         MetricDataAccessService metricDataAccess = item.getRepository().getBoundedService(MetricDataAccessService.class);
 
-        List<Pod> pods = metricDataAccess.getPods(new MetricQuery(context.getQueryParameter()));
+        List<Pod> pods = metricDataAccess.getPods(createDimensionQuery(context));
 
         return ItemBuilder.getItems(pods.stream(),
                 pod -> {
@@ -5,7 +5,6 @@ import de.qaware.ekg.awb.explorer.ui.items.ItemBuilder;
 import de.qaware.ekg.awb.explorer.ui.items.common.RepositoryBaseItem;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.MetricDataAccessService;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.Process;
-import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.MetricQuery;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryFilterParams;
 import de.qaware.ekg.awb.metricanalyzer.ui.api.FilterContext;
 import de.qaware.ekg.awb.metricanalyzer.ui.explorer.items.series.ProcessItem;
@@ -22,7 +21,7 @@ public class ProcessItemBuilder<T extends RepositoryBaseItem>  extends AbstractI
 
         MetricDataAccessService metricDataAccess = item.getRepository().getBoundedService(MetricDataAccessService.class);
 
-        List<Process> metricProcesses = metricDataAccess.getProcesses(new MetricQuery(context.getQueryParameter()));
+        List<Process> metricProcesses = metricDataAccess.getProcesses(createDimensionQuery(context));
 
         return ItemBuilder.getItems(metricProcesses.stream(),
                 process -> {
@@ -5,7 +5,6 @@ import de.qaware.ekg.awb.explorer.ui.items.ItemBuilder;
 import de.qaware.ekg.awb.explorer.ui.items.common.RepositoryBaseItem;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.MetricDataAccessService;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.logical.Service;
-import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.MetricQuery;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryFilterParams;
 import de.qaware.ekg.awb.metricanalyzer.ui.api.FilterContext;
 import de.qaware.ekg.awb.metricanalyzer.ui.explorer.items.series.logical.ServiceItem;
@@ -21,7 +20,7 @@ public class ServiceItemBuilder<T extends RepositoryBaseItem>  extends AbstractI
     protected List<ServiceItem> getChildItemsFor(T item, FilterContext parentContext, ProgressNotifier notifier) {
 
         MetricDataAccessService metricDataAccess = item.getRepository().getBoundedService(MetricDataAccessService.class);
-        List<Service> services = metricDataAccess.getServices(new MetricQuery(parentContext.getQueryParameter()));
+        List<Service> services = metricDataAccess.getServices(createDimensionQuery(parentContext));
 
         return ItemBuilder.getItems(services.stream(),
                 service -> {
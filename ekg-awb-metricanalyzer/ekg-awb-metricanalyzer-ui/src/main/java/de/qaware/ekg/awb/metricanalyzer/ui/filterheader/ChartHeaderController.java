@@ -216,6 +216,8 @@ public class ChartHeaderController implements Initializable {
 
     private HashSet<Object> updatedComboboxes = new HashSet<>();
 
+    private List<Object> filterComboboxes = new ArrayList<>();
+
 
     /* ------------------------------------ Initializable Interface implementation ---------------------------------- */
 
@@ -640,6 +642,7 @@ public class ChartHeaderController implements Initializable {
         List<T> dummyItems = initDummyItems(firstDummyItem, dummyItemCreator);
         comboBox.getItems().setAll(dummyItems);
         comboBox.setVisibleRowCount(10);
+        filterComboboxes.add(comboBox);
 
         comboBox.focusedProperty().addListener(e -> {
             // if the box has focus and is marked as "not updated" or still contains the initial dummy item
@@ -660,9 +663,12 @@ public class ChartHeaderController implements Initializable {
         });
 
         // if the user change a combobox value and leave it the states of all other boxes will invalidated.
-        // On this way it will ensured that every box get the current data that are valid for the all selected filters
+        // On this way it will ensured that every box get the current data that are valid for the all selected filters.
+        // All boxes are reloaded with a single request instead of one request per box.
+        // The boxes count as loaded only if that request succeeded, otherwise each box loads its values on focus.
         comboBox.setOnSelectionCompleted(e -> {
             updatedComboboxes.clear();
+            viewModel.loadAllFilters(() -> updatedComboboxes.addAll(filterComboboxes));
             actions.updateMetricsGraph();
         });
     }
@@ -22,10 +22,13 @@ import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.logical.Namespace;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.logical.Pod;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.physical.Host;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.et.physical.HostGroup;
+import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.DimensionFacets;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.MetricQuery;
 import de.qaware.ekg.awb.metricanalyzer.bl.tsquery.query.QueryFilterParams;
 import de.qaware.ekg.awb.repository.api.EkgRepository;
 import de.qaware.ekg.awb.repository.api.dataobject.facet.FacetParams;
+import de.qaware.ekg.awb.repository.api.schema.EkgSchemaField;
+import de.qaware.ekg.awb.sdk.awbapi.repository.RepositoryException;
 import javafx.collections.ObservableList;
 import javafx.concurrent.Service;
 import javafx.concurrent.Task;
@@ -41,6 +44,14 @@ import java.util.logging.Logger;
  */
 public class ChartHeaderBusinessProcess extends ChartHeaderModel {
 
+    private static final EkgSchemaField[] FILTER_DIMENSIONS = {
+            EkgSchemaField.TS_HOST_GROUP_NAME, EkgSchemaField.TS_HOST_NAME,
+            EkgSchemaField.TS_NAMESPACE_NAME, EkgSchemaField.TS_SERVICE_NAME,
+            EkgSchemaField.TS_POD_NAME, EkgSchemaField.TS_CONTAINER_NAME,
+            EkgSchemaField.TS_MEASUREMENT, EkgSchemaField.TS_PROCESS_NAME,
+            EkgSchemaField.TS_METRIC_GROUP, EkgSchemaField.TS_METRIC_NAME
+    };
+
     // classic filters
     private Service<Collection<HostGroup>> hostGroupsService;
     private Service<Collection<Host>> hostsService;
@@ -57,6 +68,10 @@ public class ChartHeaderBusinessProcess extends ChartHeaderModel {
     private Service<Collection<MetricGroup>> metricGroupsService;
     private Service<Collection<Metric>> metricNamesService;
 
+    // all filters at once
+    private Service<DimensionFacets> filterDimensionsService;
+    private Runnable filterDimensionsLoaded;
+
 
     public void setRepository(EkgRepository repository) {
 
@@ -82,6 +97,57 @@ public class ChartHeaderBusinessProcess extends ChartHeaderModel {
         metricGroupsService = createService(super.getMetricMetricGroups(), b -> b.withMetricGroup((MetricGroup) null), metricDAS::getMetricGroups);
         metricNamesService = createService(super.getMetrics(), b -> b.withMetric((Metric) null), metricDAS::getMetricsNames);
 
+        filterDimensionsService = createFilterDimensionsService(metricDAS);
+    }
+
+    private Service<DimensionFacets> createFilterDimensionsService(MetricDataAccessService metricDAS) {
+
+        return new Service<>() {
+            @Override
+            protected Task<DimensionFacets> createTask() {
+                return new Task<>() {
+                    @Override
+                    protected DimensionFacets call() throws RepositoryException {
+                        return metricDAS.getDimensionFacets(createFacetQuery(), FILTER_DIMENSIONS);
+                    }
+
+                    @Override
+                    protected void succeeded() {
+                        DimensionFacets facets = getValue();
+
+                        getHostGroups().setAll(facets.getHostGroups());
+                        getHosts().setAll(facets.getHosts());
+                        getNamespaces().setAll(facets.getNamespaces());
+                        getServices().setAll(facets.getServices());
+                        getPods().setAll(facets.getPods());
+                        getContainers().setAll(facets.getContainers());
+                        getMeasurements().setAll(facets.getMeasurements());
+                        getProcess().setAll(facets.getProcesses());
+                        getMetricMetricGroups().setAll(facets.getMetricGroups());
+                        getMetrics().setAll(facets.getMetrics());
+
+                        if (filterDimensionsLoaded != null) {
+                            filterDimensionsLoaded.run();
+                        }
+                    }
+
+                    @Override
+                    protected void failed() {
+                        // the filters keep their values and are loaded one by one when they are used
+                        Logger.getLogger(ChartHeaderBusinessProcess.class.getName()).log(Level.WARNING,
+                                "The values of the filters couldn't be loaded", getException());
+                    }
+                };
+            }
+        };
+    }
+
+    private MetricQuery createFacetQuery() {
+        QueryFilterParams.Builder<QueryFilterParams> filterBuilder = new QueryFilterParams.Builder<>(
+                ChartHeaderBusinessProcess.super.asQueryParams()
+        ).withSort(FacetParams.FacetSort.LEXICOGRAPHIC);
+
+        return new MetricQuery(filterBuilder.build());
     }
 
     private <T> Service<Collection<T>> createService(ObservableList<T> itemsList,
@@ -94,11 +160,7 @@ public class ChartHeaderBusinessProcess extends ChartHeaderModel {
                 return new Task<>() {
                     @Override
                     protected Collection<T> call() {
-                        QueryFilterParams.Builder<QueryFilterParams> filterBuilder = new QueryFilterParams.Builder<>(
-                                ChartHeaderBusinessProcess.super.asQueryParams()
-                        ).withSort(FacetParams.FacetSort.LEXICOGRAPHIC);
-
-                        return fetcher.apply(new MetricQuery(filterBuilder.build()));
+                        return fetcher.apply(createFacetQuery());
                     }
 
                     @Override
@@ -119,6 +181,17 @@ public class ChartHeaderBusinessProcess extends ChartHeaderModel {
         };
     }
 
+    /**
+     * Loads the values of all filter dimensions with a single request and fills the model.
+     * The model indicates a change to the bound controls
+     *
+     * @param onLoaded called after the values of all filters were set, but not if the request failed
+     */
+    public void loadAllFilters(Runnable onLoaded) {
+        filterDimensionsLoaded = onLoaded;
+        filterDimensionsService.restart();
+    }
+
     /**
      * Loads the processes and fills the model.
      * The model indicates a change to the bound control
@@ -67,4 +67,31 @@ public interface ProjectDataAccessService extends RepositoryClientAware {
      */
     void deleteProjectByName(String seriesName);
 
+    /**
+     * Replaces the counts of values and series stored in the document of the project,
+     * for example after series were imported or all series of the project were deleted.
+     *
+     * @param projectName the name of the project
+     * @param amountOfValues the amount of values of all series of the project
+     * @param amountOfSeries the amount of series of the project
+     */
+    void setSeriesStatistics(String projectName, long amountOfValues, long amountOfSeries);
+
+    /**
+     * Removes the counts of values and series from the document of the project, so they
+     * are aggregated again on next use. This is necessary if series were imported by a
+     * service that doesn't maintain the counts.
+     *
+     * @param projectName the name of the project
+     */
+    void clearSeriesStatistics(String projectName);
+
+    /**
+     * Returns the document of the project with the given name.
+     *
+     * @param projectName the exact name of the project
+     * @return the project or null if there is no project with the name
+     */
+    Project getProject(String projectName);
+
 }
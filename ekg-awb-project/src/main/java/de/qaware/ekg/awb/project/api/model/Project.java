@@ -100,6 +100,20 @@ public class Project implements Comparable<Project>, Serializable, de.qaware.ekg
     @PersistedField(PROJECT_IMPORTER_ID)
     private String importerId;
 
+    /**
+     * The amount of values of all series of the project or null if the
+     * project was created before the amount was maintained
+     */
+    @PersistedField(PROJECT_AMOUNT_VALUES)
+    private Long amountOfValues;
+
+    /**
+     * The amount of series of the project or null if the
+     * project was created before the amount was maintained
+     */
+    @PersistedField(PROJECT_AMOUNT_SERIES)
+    private Long amountOfSeries;
+
     /**
      * the optional alias names if project specific mapping is in use
      */
@@ -236,6 +250,31 @@ public class Project implements Comparable<Project>, Serializable, de.qaware.ekg
         return this;
     }
 
+    public Long getAmountOfValues() {
+        return amountOfValues;
+    }
+
+    public Project setAmountOfValues(Long amountOfValues) {
+        this.amountOfValues = amountOfValues;
+        return this;
+    }
+
+    public Long getAmountOfSeries() {
+        return amountOfSeries;
+    }
+
+    public Project setAmountOfSeries(Long amountOfSeries) {
+        this.amountOfSeries = amountOfSeries;
+        return this;
+    }
+
+    /**
+     * @return true if the amounts of values and series are maintained for this project
+     */
+    public boolean hasSeriesStatistics() {
+        return amountOfValues != null && amountOfSeries != null;
+    }
+
     public boolean useSplitSource() {
         return isSplitSourceProject == null ? false : isSplitSourceProject;
     }
@@ -9,6 +9,7 @@ import de.qaware.ekg.awb.repository.api.dataobject.delete.DeleteParams;
 import de.qaware.ekg.awb.repository.api.dataobject.search.SearchParams;
 import de.qaware.ekg.awb.repository.api.dataobject.search.SearchResult;
 import de.qaware.ekg.awb.repository.api.dataobject.search.SortField;
+import de.qaware.ekg.awb.repository.api.events.SeriesDataChangedEvent;
 import de.qaware.ekg.awb.repository.api.schema.DocumentType;
 import de.qaware.ekg.awb.repository.api.schema.EkgSchemaField;
 import de.qaware.ekg.awb.sdk.awbapi.repository.Repository;
@@ -142,6 +143,13 @@ public class ProjectDataAccessServiceImpl implements ProjectDataAccessService {
                         "doesn't has an id. Check that the project was persisted before!");
             }
 
+            // the counts of the given project may be outdated if series were imported in the meantime
+            Project storedProject = getProject(project.getName());
+            if (storedProject != null) {
+                project.setAmountOfValues(storedProject.getAmountOfValues())
+                        .setAmountOfSeries(storedProject.getAmountOfSeries());
+            }
+
             DeleteParams deleteParams = new DeleteParams().addFilter(EkgSchemaField.ID, project.getId());
             client.delete(deleteParams);
             client.add(project);
@@ -177,8 +185,60 @@ public class ProjectDataAccessServiceImpl implements ProjectDataAccessService {
 
             client.commit();
 
+            eventBus.publish(new SeriesDataChangedEvent(this, projectName));
+
         } catch (RepositoryException ex) {
             throw new IllegalStateException(ex);
         }
     }
+
+    /* (non-Javadoc)
+     * @see de.qaware.ekg.awb.project.api.ProjectDataAccessService#setSeriesStatistics(java.lang.String, long, long)
+     */
+    @Override
+    public synchronized void setSeriesStatistics(String projectName, long amountOfValues, long amountOfSeries) {
+        Project project = getProject(projectName);
+
+        if (project == null) {
+            return;
+        }
+
+        project.setAmountOfValues(amountOfValues).setAmountOfSeries(amountOfSeries);
+        persistProject(project);
+    }
+
+    /* (non-Javadoc)
+     * @see de.qaware.ekg.awb.project.api.ProjectDataAccessService#clearSeriesStatistics(java.lang.String)
+     */
+    @Override
+    public synchronized void clearSeriesStatistics(String projectName) {
+        Project project = getProject(projectName);
+
+        if (project == null || !project.hasSeriesStatistics()) {
+            return;
+        }
+
+        project.setAmountOfValues(null).setAmountOfSeries(null);
+        persistProject(project);
+    }
+
+    /* (non-Javadoc)
+     * @see de.qaware.ekg.awb.project.api.ProjectDataAccessService#getProject(java.lang.String)
+     */
+    @Override
+    public Project getProject(String projectName) {
+        try {
+            SearchParams searchParams = new SearchParams()
+                    .withFilterQueries(
+                            exactFilter(EkgSchemaField.PROJECT_NAME, projectName),
+                            exactFilter(EkgSchemaField.DOC_TYPE, DocumentType.PROJECT.name()))
+                    .withMaxRows(1);
+
+            List<Project> projects = client.search(Project.class, searchParams).getRows();
+            return projects.isEmpty() ? null : projects.get(0);
+
+        } catch (RepositoryException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
@@ -0,0 +1,65 @@
+package de.qaware.ekg.awb.repository.api;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A token that signals that the result of a running operation isn't required anymore, for example
+ * because the user changed the filters of a chart while the series of the old ones are fetched.
+ * <p>
+ * The token is handed over from the caller through all layers of the operation. Long running loops
+ * check it via {@link #isCancelled()}, blocking steps register a listener that unblocks them.
+ * The token is thread safe and can't be reset after it was cancelled.
+ */
+public class CancellationToken {
+
+    private final AtomicBoolean cancelled = new AtomicBoolean(false);
+
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Cancels the operation. The registered listeners are called by the calling thread,
+     * further calls have no effect.
+     */
+    public void cancel() {
+        if (cancelled.compareAndSet(false, true)) {
+            for (Runnable listener : listeners) {
+                // a listener registered concurrently is called by the one that removes it
+                if (listeners.remove(listener)) {
+                    listener.run();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true if the operation was cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    /**
+     * Registers a listener that will be called once the token is cancelled. If the token is
+     * already cancelled the listener is called immediately by the calling thread.
+     *
+     * @param listener the listener to call
+     */
+    public void addCancelListener(Runnable listener) {
+        listeners.add(listener);
+
+        if (cancelled.get() && listeners.remove(listener)) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Removes a listener that isn't required anymore because its step of the operation is finished.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeCancelListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+}
@@ -4,10 +4,13 @@ import de.qaware.ekg.awb.repository.api.dataobject.delete.DeleteParams;
 import de.qaware.ekg.awb.repository.api.dataobject.expr.Expression;
 import de.qaware.ekg.awb.repository.api.dataobject.facet.FacetParams;
 import de.qaware.ekg.awb.repository.api.dataobject.facet.FacetResult;
+import de.qaware.ekg.awb.repository.api.dataobject.facet.StatsFacetParams;
+import de.qaware.ekg.awb.repository.api.dataobject.facet.StatsFacetResult;
 import de.qaware.ekg.awb.repository.api.dataobject.search.ExportParams;
 import de.qaware.ekg.awb.repository.api.dataobject.search.SearchParams;
 import de.qaware.ekg.awb.repository.api.dataobject.search.SearchResult;
 import de.qaware.ekg.awb.repository.api.dataobject.search.SortField;
+import de.qaware.ekg.awb.repository.api.schema.DimensionDictionary;
 import de.qaware.ekg.awb.repository.api.schema.EkgSchemaField;
 import de.qaware.ekg.awb.repository.api.schema.Field;
 import de.qaware.ekg.awb.sdk.awbapi.repository.RepositoryException;
@@ -90,6 +93,16 @@ public interface RepositoryClient extends AutoCloseable {
      */
     FacetResult facet(FacetParams facetParams) throws RepositoryException;
 
+    /**
+     * Performs a stats facet search, i.e. calculates aggregations like min, max or sum
+     * over numeric fields of the matching documents (optionally per group).
+     *
+     * @param statsFacetParams the stats facet parameters
+     * @return the stats facet result
+     * @throws RepositoryException on errors accessing the search index
+     */
+    StatsFacetResult statsFacet(StatsFacetParams statsFacetParams) throws RepositoryException;
+
     /**
      * Adds entities to the search index. Will only be visible after a {@link #commit()}.
      *
@@ -123,6 +136,15 @@ public interface RepositoryClient extends AutoCloseable {
      */
     void delete(DeleteParams deleteParams) throws RepositoryException;
 
+    /**
+     * Returns the dictionary used to intern the dimension values (like host or metric names) of all
+     * entities and facets read by this client. The business logic can use it to share the same
+     * instances for values it derives from the read data.
+     *
+     * @return the dimension dictionary of this client
+     */
+    DimensionDictionary getDimensionDictionary();
+
     /**
      * Commits the current transaction.
      * <p>
@@ -17,6 +17,8 @@ public class FacetParams {
     private final List<Field> facetFields;
     private final Set<Field> facetMissing;
     private final List<Expression> filterQueries;
+    private final Map<Field, Expression> dimensionFilters;
+    private final List<Field> pivotFields;
     private FacetSort facetSort = FacetSort.COUNT;
     private int limit = -1; // unlimited
     private int minCount = 0;
@@ -28,6 +30,8 @@ public class FacetParams {
         facetFields = new ArrayList<>();
         facetMissing = new HashSet<>();
         filterQueries = new ArrayList<>();
+        dimensionFilters = new LinkedHashMap<>();
+        pivotFields = new ArrayList<>();
     }
 
     /**
@@ -42,6 +46,8 @@ public class FacetParams {
         this.facetFields = new ArrayList<>(other.facetFields);
         this.facetMissing = new HashSet<>(other.facetMissing);
         this.filterQueries = new ArrayList<>(other.filterQueries);
+        this.dimensionFilters = new LinkedHashMap<>(other.dimensionFilters);
+        this.pivotFields = new ArrayList<>(other.pivotFields);
     }
 
     /**
@@ -143,6 +149,55 @@ public class FacetParams {
         return this;
     }
 
+    /**
+     * Add a filter query that restricts the given field. Other than the normal filter queries, a dimension
+     * filter restricts the facets of all other fields but not the facet of its own field. This way the facets
+     * of several filter dimensions can be fetched with a single request and each facet still contains all
+     * alternatives to the current selection of its dimension.
+     * <p/>
+     * A filter that is added again for the same field replaces the previous one.
+     *
+     * @param field  the field restricted by the filter
+     * @param filter the filter query
+     * @return this instance
+     */
+    public FacetParams withDimensionFilter(Field field, Expression filter) {
+        this.dimensionFilters.put(field, filter);
+        return this;
+    }
+
+    /**
+     * Returns the dimension filters by the field they restrict.
+     *
+     * @return the dimension filters
+     */
+    public Map<Field, Expression> getDimensionFilters() {
+        return Collections.unmodifiableMap(dimensionFilters);
+    }
+
+    /**
+     * Requests a pivot facet (decision tree) over the given fields. The entries of each field
+     * are nested below the entry of the previous field they belong to.
+     * <p/>
+     * The fields needs to be indexed.
+     *
+     * @param pivotFields the fields of the pivot facet in the order of nesting
+     * @return this instance
+     */
+    public FacetParams withPivotFields(Field... pivotFields) {
+        Collections.addAll(this.pivotFields, pivotFields);
+        return this;
+    }
+
+    /**
+     * Returns the fields of the pivot facet.
+     *
+     * @return the pivot fields in the order of nesting, empty if no pivot facet is requested
+     */
+    public List<Field> getPivotFields() {
+        return Collections.unmodifiableList(pivotFields);
+    }
+
     public int getLimit() {
         return limit;
     }
@@ -205,6 +260,8 @@ public class FacetParams {
                 .append(this.facetFields)
                 .append(this.facetMissing)
                 .append(this.filterQueries)
+                .append(this.dimensionFilters)
+                .append(this.pivotFields)
                 .append(this.limit)
                 .append(this.minCount)
                 .toHashCode();
@@ -223,6 +280,8 @@ public class FacetParams {
                 .append(this.facetFields, other.facetFields)
                 .append(this.facetMissing, other.facetMissing)
                 .append(this.filterQueries, other.filterQueries)
+                .append(this.dimensionFilters, other.dimensionFilters)
+                .append(this.pivotFields, other.pivotFields)
                 .append(this.limit, other.limit)
                 .append(this.minCount, other.minCount)
                 .isEquals();
@@ -234,6 +293,8 @@ public class FacetParams {
                 .append("facetFields", facetFields)
                 .append("facetMissing", facetMissing)
                 .append("filterQueries", filterQueries)
+                .append("dimensionFilters", dimensionFilters)
+                .append("pivotFields", pivotFields)
                 .append("limit", limit)
                 .append("minCount", minCount)
                 .toString();
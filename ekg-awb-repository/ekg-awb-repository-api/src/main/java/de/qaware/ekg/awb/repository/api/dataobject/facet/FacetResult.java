@@ -15,6 +15,8 @@ public class FacetResult {
 
     private List<Facet> facets;
 
+    private final List<PivotFacetEntry> pivotEntries;
+
     private final QueryStatus queryStatus;
 
     /**
@@ -24,9 +26,22 @@ public class FacetResult {
      * @param queryStatus the query status
      */
     public FacetResult(List<Facet> facets, QueryStatus queryStatus) {
+        this(facets, Collections.emptyList(), queryStatus);
+    }
+
+    /**
+     * Constructs a {@link FacetResult} with the entries of a pivot facet.
+     *
+     * @param facets       the result facets
+     * @param pivotEntries the entries of the first field of the pivot facet
+     * @param queryStatus  the query status
+     */
+    public FacetResult(List<Facet> facets, List<PivotFacetEntry> pivotEntries, QueryStatus queryStatus) {
         Validate.notNull(facets);
+        Validate.notNull(pivotEntries);
 
         this.facets = Collections.unmodifiableList(new ArrayList<>(facets));
+        this.pivotEntries = Collections.unmodifiableList(new ArrayList<>(pivotEntries));
         this.queryStatus = queryStatus;
     }
 
@@ -39,6 +54,16 @@ public class FacetResult {
         return Collections.unmodifiableList(facets);
     }
 
+    /**
+     * Returns the entries of the first field of the pivot facet. The entries
+     * of the following pivot fields are nested as children.
+     *
+     * @return the pivot entries, empty if no pivot facet was requested
+     */
+    public List<PivotFacetEntry> getPivotEntries() {
+        return pivotEntries;
+    }
+
     /**
      * Returns the Status information of the executed query.
      *
@@ -72,11 +97,12 @@ public class FacetResult {
         if (o == null || getClass() != o.getClass()) return false;
         FacetResult that = (FacetResult) o;
         return Objects.equals(facets, that.facets) &&
+                Objects.equals(pivotEntries, that.pivotEntries) &&
                 Objects.equals(queryStatus, that.queryStatus);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(facets, queryStatus);
+        return Objects.hash(facets, pivotEntries, queryStatus);
     }
 }
@@ -0,0 +1,72 @@
+package de.qaware.ekg.awb.repository.api.dataobject.facet;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A facet entry of a pivot facet. Holds the entry name, the count and the entries of
+ * the next pivot field that are restricted to the value of this entry.
+ * The name is {@code null} for the entry that counts the results without a value.
+ */
+public class PivotFacetEntry extends FacetEntry {
+
+    private final List<PivotFacetEntry> children;
+
+    /**
+     * Instantiates a new pivot facet entry.
+     *
+     * @param name     the name or {@code null} if this entry counts the results without a value
+     * @param count    the count
+     * @param children the entries of the next pivot field
+     */
+    public PivotFacetEntry(String name, long count, List<PivotFacetEntry> children) {
+        super(name, count);
+
+        Validate.notNull(children);
+        this.children = new ArrayList<>(children);
+    }
+
+    /**
+     * Returns the entries of the next pivot field as unmodifiable view.
+     *
+     * @return the child entries, empty for the entries of the last pivot field
+     */
+    public List<PivotFacetEntry> getChildren() {
+        return Collections.unmodifiableList(children);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!super.equals(obj)) {
+            return false;
+        }
+        PivotFacetEntry rhs = (PivotFacetEntry) obj;
+        return new EqualsBuilder()
+                .append(this.children, rhs.children)
+                .isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder()
+                .appendSuper(super.hashCode())
+                .append(children)
+                .toHashCode();
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SIMPLE_STYLE)
+                .append("name", getName())
+                .append("count", getCount())
+                .append("children", children)
+                .toString();
+    }
+}
@@ -0,0 +1,104 @@
+package de.qaware.ekg.awb.repository.api.dataobject.facet;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A single entry of a stats facet. Holds the group name, the document count
+ * and the computed statistics by their names.
+ */
+public class StatsFacetEntry {
+
+    private final String name;
+    private final long count;
+    private final Map<String, Double> stats;
+
+    /**
+     * Instantiates a new stats facet entry.
+     *
+     * @param name  the name of the group or null for the entry over all documents
+     * @param count the amount of documents
+     * @param stats the statistics by their names
+     */
+    public StatsFacetEntry(String name, long count, Map<String, Double> stats) {
+        this.name = name;
+        this.count = count;
+        this.stats = new HashMap<>(stats);
+    }
+
+    /**
+     * Gets the name.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the count.
+     *
+     * @return the count
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the value of the statistic with the given name.
+     *
+     * @param statName the name of the statistic
+     * @return the value or null if there was no document with a value for the aggregated field
+     */
+    public Double getStat(String statName) {
+        return stats.get(statName);
+    }
+
+    /**
+     * Returns all statistics as unmodifiable view.
+     *
+     * @return the statistics by their names
+     */
+    public Map<String, Double> getStats() {
+        return Collections.unmodifiableMap(stats);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == null) {
+            return false;
+        }
+        if (obj == this) {
+            return true;
+        }
+        if (obj.getClass() != getClass()) {
+            return false;
+        }
+        StatsFacetEntry rhs = (StatsFacetEntry) obj;
+        return new EqualsBuilder()
+                .append(this.name, rhs.name)
+                .append(this.count, rhs.count)
+                .append(this.stats, rhs.stats)
+                .isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder().append(name).append(count).append(stats).toHashCode();
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("name", name)
+                .append("count", count)
+                .append("stats", stats)
+                .toString();
+    }
+}
@@ -0,0 +1,261 @@
+package de.qaware.ekg.awb.repository.api.dataobject.facet;
+
+import de.qaware.ekg.awb.repository.api.dataobject.expr.Expression;
+import de.qaware.ekg.awb.repository.api.schema.Field;
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import java.util.*;
+
+/**
+ * A parameter set for a stats facet search that computes aggregations like min, max or sum
+ * over numeric fields of all matching documents. Optionally the documents can be grouped by the
+ * values of a field, so that the statistics will computed per group.
+ */
+public class StatsFacetParams {
+
+    private final List<Expression> filterQueries;
+    private final Map<String, Stat> stats;
+    private Field groupField;
+    private String sortStat;
+    private int limit = -1; // unlimited
+
+    /**
+     * Default constructor.
+     */
+    public StatsFacetParams() {
+        filterQueries = new ArrayList<>();
+        stats = new LinkedHashMap<>();
+    }
+
+    /**
+     * Add a statistic that should computed over the given field.
+     * <p/>
+     * The field needs to be numeric and should have docValues. The names "count" and "groups"
+     * are reserved for the document count and the group entries.
+     *
+     * @param name the name of the statistic used to access it in the result
+     * @param function the aggregation function
+     * @param field the field with the values to aggregate
+     * @return this instance
+     */
+    public StatsFacetParams withStat(String name, StatsFunction function, Field field) {
+        Validate.notBlank(name);
+        Validate.notNull(function);
+        Validate.notNull(field);
+
+        this.stats.put(name, new Stat(function, field));
+        return this;
+    }
+
+    /**
+     * Groups the documents by the values of the given field
+     * and computes the statistics for each group.
+     * <p/>
+     * The field needs to be indexed.
+     *
+     * @param groupField the field to group by
+     * @return this instance
+     */
+    public StatsFacetParams withGroupField(Field groupField) {
+        this.groupField = groupField;
+        return this;
+    }
+
+    /**
+     * Sorts the groups descending by the statistic with the given name instead of the document count.
+     * Together with {@link #withLimit(int)} this can be used to find the top N groups.
+     *
+     * @param statName the name of a statistic added with {@link #withStat(String, StatsFunction, Field)}
+     * @return this instance
+     */
+    public StatsFacetParams withSort(String statName) {
+        this.sortStat = statName;
+        return this;
+    }
+
+    /**
+     * The maximum number of groups that should be returned. A negative value means unlimited.
+     *
+     * @param limit the group limit
+     * @return this instance
+     */
+    public StatsFacetParams withLimit(int limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * Add filter queries.
+     *
+     * @param filterQueries filter queries
+     * @return this instance
+     */
+    public StatsFacetParams withFilterQueries(List<Expression> filterQueries) {
+        this.filterQueries.addAll(filterQueries);
+        return this;
+    }
+
+    /**
+     * Add filter queries.
+     *
+     * @param filterQueries filter queries
+     * @return this instance
+     */
+    public StatsFacetParams withFilterQueries(Expression... filterQueries) {
+        Collections.addAll(this.filterQueries, filterQueries);
+        return this;
+    }
+
+    /**
+     * Returns the filter queries.
+     *
+     * @return the filter queries
+     */
+    public List<Expression> getFilterQueries() {
+        return Collections.unmodifiableList(filterQueries);
+    }
+
+    /**
+     * Returns the statistics to compute by name in the order they are added.
+     *
+     * @return the statistics
+     */
+    public Map<String, Stat> getStats() {
+        return Collections.unmodifiableMap(stats);
+    }
+
+    /**
+     * Returns the field to group by.
+     *
+     * @return the group field or null if the statistics will computed over all documents
+     */
+    public Field getGroupField() {
+        return groupField;
+    }
+
+    public String getSortStat() {
+        return sortStat;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder()
+                .append(this.filterQueries)
+                .append(this.stats)
+                .append(this.groupField)
+                .append(this.sortStat)
+                .append(this.limit)
+                .toHashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final StatsFacetParams other = (StatsFacetParams) obj;
+        return new EqualsBuilder()
+                .append(this.filterQueries, other.filterQueries)
+                .append(this.stats, other.stats)
+                .append(this.groupField, other.groupField)
+                .append(this.sortStat, other.sortStat)
+                .append(this.limit, other.limit)
+                .isEquals();
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("filterQueries", filterQueries)
+                .append("stats", stats)
+                .append("groupField", groupField)
+                .append("sortStat", sortStat)
+                .append("limit", limit)
+                .toString();
+    }
+
+    /**
+     * The aggregation functions supported by stats facets
+     */
+    public enum StatsFunction {
+        MIN("min"),
+        MAX("max"),
+        SUM("sum"),
+        AVG("avg"),
+        // the amount of distinct values of the field
+        UNIQUE("unique"),
+        // the amount of values of the field, documents without a value aren't counted
+        COUNT("countvals");
+
+        private String name;
+
+        StatsFunction(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+    }
+
+    /**
+     * A single statistic as combination of the aggregation function and the field
+     */
+    public static class Stat {
+
+        private final StatsFunction function;
+        private final Field field;
+
+        /**
+         * Constructs a new Stat
+         *
+         * @param function the aggregation function
+         * @param field the field with the values to aggregate
+         */
+        public Stat(StatsFunction function, Field field) {
+            this.function = function;
+            this.field = field;
+        }
+
+        public StatsFunction getFunction() {
+            return function;
+        }
+
+        public Field getField() {
+            return field;
+        }
+
+        @Override
+        public int hashCode() {
+            return new HashCodeBuilder().append(this.function).append(this.field).toHashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == null) {
+                return false;
+            }
+            if (getClass() != obj.getClass()) {
+                return false;
+            }
+            final Stat other = (Stat) obj;
+            return new EqualsBuilder().append(this.function, other.function).append(this.field, other.field).isEquals();
+        }
+
+        @Override
+        public String toString() {
+            return function.getName() + "(" + field.getName() + ")";
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package de.qaware.ekg.awb.repository.api.dataobject.facet;
+
+import de.qaware.ekg.awb.repository.api.dataobject.status.QueryStatus;
+import org.apache.commons.lang3.Validate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A result of a stats facet search.
+ */
+public class StatsFacetResult {
+
+    private final StatsFacetEntry total;
+
+    private final List<StatsFacetEntry> groups;
+
+    private final QueryStatus queryStatus;
+
+    /**
+     * Constructs a {@link StatsFacetResult}.
+     *
+     * @param total the statistics over all matching documents
+     * @param groups the statistics per group (empty if no group field was requested)
+     * @param queryStatus the query status
+     */
+    public StatsFacetResult(StatsFacetEntry total, List<StatsFacetEntry> groups, QueryStatus queryStatus) {
+        Validate.notNull(total);
+        Validate.notNull(groups);
+
+        this.total = total;
+        this.groups = Collections.unmodifiableList(new ArrayList<>(groups));
+        this.queryStatus = queryStatus;
+    }
+
+    /**
+     * Returns the statistics over all matching documents.
+     *
+     * @return the total statistics
+     */
+    public StatsFacetEntry getTotal() {
+        return total;
+    }
+
+    /**
+     * Returns the statistics per group in the requested sort order.
+     *
+     * @return the group entries
+     */
+    public List<StatsFacetEntry> getGroups() {
+        return groups;
+    }
+
+    /**
+     * Returns the Status information of the executed query.
+     *
+     * @return the query status
+     */
+    public QueryStatus getQueryStatus() {
+        return queryStatus;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        StatsFacetResult that = (StatsFacetResult) o;
+        return Objects.equals(total, that.total) &&
+                Objects.equals(groups, that.groups) &&
+                Objects.equals(queryStatus, that.queryStatus);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(total, groups, queryStatus);
+    }
+}
@@ -16,6 +16,7 @@ import java.util.List;
 public class ExportParams {
     private final List<Expression> filterQueries;
     private List<SortField> sortFields;
+    private final List<Field> excludedFields;
 
     /**
      * Constructs a new {@link ExportParams} instance with default parameters.
@@ -23,6 +24,7 @@ public class ExportParams {
     public ExportParams() {
         this.filterQueries = new ArrayList<>();
         this.sortFields = new ArrayList<>();
+        this.excludedFields = new ArrayList<>();
     }
 
     /**
@@ -83,6 +85,19 @@ public class ExportParams {
         return this;
     }
 
+    /**
+     * Excludes fields of the entity type from the export. The export streams only fields that can be
+     * read column wise, so fields without such a representation (like binary payloads) have to be
+     * excluded. The excluded fields of the exported entities remain null.
+     *
+     * @param fields the fields to exclude
+     * @return this {@code ExportParams} instance
+     */
+    public ExportParams withExcludedFields(Field... fields) {
+        Collections.addAll(this.excludedFields, fields);
+        return this;
+    }
+
     /**
      * Returns the sort field.
      *
@@ -101,6 +116,15 @@ public class ExportParams {
         return Collections.unmodifiableList(filterQueries);
     }
 
+    /**
+     * Returns the fields excluded from the export.
+     *
+     * @return the excluded fields
+     */
+    public List<Field> getExcludedFields() {
+        return Collections.unmodifiableList(excludedFields);
+    }
+
     /**
      * Whether to sort or not to sort.
      *
@@ -125,6 +149,7 @@ public class ExportParams {
         return new EqualsBuilder()
                 .append(this.filterQueries, rhs.filterQueries)
                 .append(this.sortFields, rhs.sortFields)
+                .append(this.excludedFields, rhs.excludedFields)
                 .isEquals();
     }
 
@@ -133,6 +158,7 @@ public class ExportParams {
         return new HashCodeBuilder()
                 .append(filterQueries)
                 .append(sortFields)
+                .append(excludedFields)
                 .toHashCode();
     }
 
@@ -141,6 +167,7 @@ public class ExportParams {
         return new ToStringBuilder(this)
                 .append("filterQueries", filterQueries)
                 .append("sortFields", sortFields)
+                .append("excludedFields", excludedFields)
                 .toString();
     }
 }
@@ -0,0 +1,30 @@
+package de.qaware.ekg.awb.repository.api.events;
+
+import java.util.EventObject;
+
+/**
+ * An event that indicates that the time series of a project were added, rewritten or deleted.
+ * Components that cache data derived from the series of a project have to drop it.
+ */
+public class SeriesDataChangedEvent extends EventObject {
+
+    private final String projectName;
+
+    /**
+     * Constructs a new SeriesDataChangedEvent.
+     *
+     * @param source      the sender object
+     * @param projectName the name of the project whose series were changed
+     */
+    public SeriesDataChangedEvent(Object source, String projectName) {
+        super(source);
+        this.projectName = projectName;
+    }
+
+    /**
+     * @return the name of the project whose series were changed
+     */
+    public String getProjectName() {
+        return projectName;
+    }
+}
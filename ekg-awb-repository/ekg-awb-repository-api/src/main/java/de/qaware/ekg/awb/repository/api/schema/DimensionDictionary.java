@@ -0,0 +1,129 @@
+package de.qaware.ekg.awb.repository.api.schema;
+
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static de.qaware.ekg.awb.repository.api.schema.EkgSchemaField.*;
+
+/**
+ * Dictionary that interns the values of filter dimensions (project, host group, host, ..., metric name)
+ * read from a repository. Each value occurs in many documents (for example a metric name in every
+ * location) and without interning each read document and facet entry would hold its own copy of
+ * the same strings.
+ * <p>
+ * Each {@link de.qaware.ekg.awb.repository.api.RepositoryClient} holds its own dictionary, so it lives
+ * as long as the repository is connected. The amount of entries is limited; if the limit is reached,
+ * the least recently used value is dropped, so the values of deleted or replaced projects don't
+ * block the values of newly imported ones.
+ * <p>
+ * The class is thread safe.
+ */
+public final class DimensionDictionary {
+
+    /**
+     * The default maximum amount of distinct values held by a dictionary
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 100_000;
+
+    /**
+     * The fields that hold dimension values and will interned
+     */
+    private static final Set<EkgSchemaField> DIMENSION_FIELDS = EnumSet.of(DOC_TYPE, PROJECT_NAME,
+            TS_HOST_GROUP_NAME, TS_HOST_NAME, TS_NAMESPACE_NAME, TS_SERVICE_NAME, TS_POD_NAME, TS_CONTAINER_NAME,
+            TS_MEASUREMENT, TS_PROCESS_NAME, TS_METRIC_GROUP, TS_METRIC_NAME, TS_AGGREGATION_LEVEL);
+
+    private static final Set<String> DIMENSION_FIELD_NAMES = DIMENSION_FIELDS.stream()
+            .map(EkgSchemaField::getName)
+            .collect(Collectors.toUnmodifiableSet());
+
+    private final Map<String, String> values;
+
+    /**
+     * Constructs a new empty dictionary with the default size limit
+     */
+    public DimensionDictionary() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Constructs a new empty dictionary
+     *
+     * @param maxEntries the maximum amount of distinct values held by the dictionary
+     */
+    public DimensionDictionary(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("The maximum amount of entries must be greater than zero");
+        }
+
+        this.values = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Checks if the given field holds dimension values that should interned.
+     *
+     * @param field the schema field
+     * @return true if the values of the field are dimension values
+     */
+    public static boolean isDimensionField(EkgSchemaField field) {
+        return DIMENSION_FIELDS.contains(field);
+    }
+
+    /**
+     * Checks if the field with the given name holds dimension values that should interned.
+     *
+     * @param fieldName the name of the field in the repository
+     * @return true if the values of the field are dimension values
+     */
+    public static boolean isDimensionField(String fieldName) {
+        return DIMENSION_FIELD_NAMES.contains(fieldName);
+    }
+
+    /**
+     * Returns the instance of the dictionary that is equal to the given value.
+     *
+     * @param value the value to intern (can be null)
+     * @return the interned value or null if null is given
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+
+        synchronized (values) {
+            String interned = values.putIfAbsent(value, value);
+            return interned != null ? interned : value;
+        }
+    }
+
+    /**
+     * Interns the value if it's a string value of a dimension field.
+     *
+     * @param field the schema field the value belongs to
+     * @param value the value read from the repository
+     * @return the interned value or the given value if it isn't a dimension value
+     */
+    public Object internFieldValue(EkgSchemaField field, Object value) {
+        if (value instanceof String && isDimensionField(field)) {
+            return intern((String) value);
+        }
+
+        return value;
+    }
+
+    /**
+     * @return the amount of distinct values in the dictionary
+     */
+    public int size() {
+        synchronized (values) {
+            return values.size();
+        }
+    }
+}
@@ -79,6 +79,17 @@ public enum EkgSchemaField implements Field {
      */
     PROJECT_IMPORTER_ID("project_importerId", SINGLE_VALUE),
 
+    /**
+     * The amount of values of all series of the project (without the values of the rollup records).
+     * The count is maintained at import and deletion of series, so it doesn't have to be aggregated.
+     */
+    PROJECT_AMOUNT_VALUES("project_amountValues", SINGLE_VALUE),
+
+    /**
+     * The amount of series of the project, maintained like PROJECT_AMOUNT_VALUES
+     */
+    PROJECT_AMOUNT_SERIES("project_amountSeries", SINGLE_VALUE),
+
     /**
      * An enum value that indicated ith the time series that belongs to the project
      * are from EKG default type (domain of IT/Software systems), generic (can used by any) or importer specific
@@ -126,9 +137,9 @@ public enum EkgSchemaField implements Field {
     TS_METRIC_NAME("ts_metricName", SINGLE_VALUE),
 
     /**
-     * The time series data itself as byte array. Each measured value is stored as tuple of
-     * timestamp (long, 8 byte) and the value (double, 8 byte). So each tuple has 16 byte in
-     * total and the array has an multiple of 16 as length.
+     * The time series data itself as byte array. The tuples of timestamp (long) and value (double)
+     * are compressed with delta-of-delta encoded timestamps and XOR encoded values behind a versioned
+     * header. Older records store plain tuples with 16 byte each and no header.
      */
     TS_DATA("ts_data", SINGLE_VALUE),
 
@@ -138,6 +149,46 @@ public enum EkgSchemaField implements Field {
      */
     TS_DATA_AMOUNT_VALUES("ts_data_amountValues", SINGLE_VALUE),
 
+    /**
+     * The smallest value of the time series record (NaN values are ignored).
+     * Together with the other summary fields this allows to aggregate series
+     * with facet queries without decoding the time series data.
+     */
+    TS_DATA_MIN("ts_data_min", SINGLE_VALUE),
+
+    /**
+     * The largest value of the time series record (NaN values are ignored).
+     */
+    TS_DATA_MAX("ts_data_max", SINGLE_VALUE),
+
+    /**
+     * The sum of all values of the time series record (NaN values are ignored).
+     */
+    TS_DATA_SUM("ts_data_sum", SINGLE_VALUE),
+
+    /**
+     * The amount of values of the time series record that are not NaN.
+     * In contrast to TS_DATA_AMOUNT_VALUES this can be used to compute averages based on TS_DATA_SUM.
+     */
+    TS_DATA_COUNT("ts_data_count", SINGLE_VALUE),
+
+    /**
+     * The first value (in chronological order) of the time series record that is not NaN.
+     */
+    TS_DATA_FIRST("ts_data_first", SINGLE_VALUE),
+
+    /**
+     * The last value (in chronological order) of the time series record that is not NaN.
+     */
+    TS_DATA_LAST("ts_data_last", SINGLE_VALUE),
+
+    /**
+     * The version of the record format (payload encoding of TS_DATA and the derived fields like the
+     * summary and group key hash) the record was written with. Records of older versions or without
+     * version will re-encoded in background by the series data migration.
+     */
+    TS_DATA_FORMAT_VERSION("ts_data_formatVersion", SINGLE_VALUE),
+
     /**
      * The series key that can be a simple string or complex serialized object (for e.g. JSON) that will used
      * to identify the series data in databases of other applications than the Split-Source feature is in use.
@@ -3,6 +3,8 @@ package de.qaware.ekg.awb.repository.bl;
 import de.qaware.ekg.awb.repository.api.model.AbstractEt;
 import de.qaware.ekg.awb.repository.api.schema.DocumentType;
 import de.qaware.ekg.awb.repository.api.schema.PersistedField;
+import de.qaware.ekg.awb.repository.bl.codec.SeriesDataCodec;
+import de.qaware.ekg.awb.repository.bl.summary.SeriesSummary;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.commons.lang3.builder.ToStringBuilder;
@@ -17,6 +19,13 @@ import static de.qaware.ekg.awb.repository.api.schema.EkgSchemaField.*;
  */
 public class BinaryTimeSeries extends AbstractEt {
 
+    /**
+     * The version of the record format written by the current import. It has to be increased
+     * every time the encoding of the data or the derived fields changes, so the records
+     * of older versions will re-encoded by the SeriesDataMigrationTask.
+     */
+    public static final int CURRENT_FORMAT_VERSION = 1;
+
     /**
      * The project the time series belongs to
      */
@@ -105,7 +114,8 @@ public class BinaryTimeSeries extends AbstractEt {
     private Date end;
 
     /**
-     * The ag.
+     * The aggregation level of rollup records (see RollupLevel).
+     * Records with the raw series values have no aggregation level.
      */
     @PersistedField(TS_AGGREGATION_LEVEL)
     private String ag;
@@ -121,8 +131,8 @@ public class BinaryTimeSeries extends AbstractEt {
 
     /**
      * The whole time series data with tuples of
-     * timestamps (long) and values (double) stored
-     * as byte array with 16 bytes per tuple
+     * timestamps (long) and values (double) encoded
+     * by the {@link SeriesDataCodec}
      */
     @PersistedField(TS_DATA)
     private byte[] data;
@@ -134,17 +144,48 @@ public class BinaryTimeSeries extends AbstractEt {
     @PersistedField(TS_DATA_AMOUNT_VALUES)
     private Integer amountOfSeriesValues;
 
+    /**
+     * The summary statistics of the values stored in the field 'data'
+     * (see {@link SeriesSummary}). Not set for rollup records and records without values.
+     */
+    @PersistedField(TS_DATA_MIN)
+    private Double min;
+
+    @PersistedField(TS_DATA_MAX)
+    private Double max;
+
+    @PersistedField(TS_DATA_SUM)
+    private Double sum;
+
+    @PersistedField(TS_DATA_COUNT)
+    private Integer valueCount;
+
+    @PersistedField(TS_DATA_FIRST)
+    private Double first;
+
+    @PersistedField(TS_DATA_LAST)
+    private Double last;
+
     /**
      * A hash key that includes all set filter dimensions and the metric name
      * it self. This key can used to find all time series records that belongs
      * together with a single filter argument.
      *
-     * This attribute is primarily used by the EKG collector during the metric
-     * compaction service.
+     * The hash is set at import time (see BinaryTimeSeriesMapper) and used as
+     * primary sort field of series queries, so all records of a series arrive
+     * adjacent and can be merged in a streaming fashion. Records of older imports
+     * may have no hash.
      */
     @PersistedField(TS_GROUP_KEY_HASH)
     private Integer groupKeyHash;
 
+    /**
+     * The version of the record format the record was written with (see {@link #CURRENT_FORMAT_VERSION}).
+     * Records written before the version was introduced have no version.
+     */
+    @PersistedField(TS_DATA_FORMAT_VERSION)
+    private Integer formatVersion;
+
     /**
      * Default constructor
      */
@@ -152,14 +193,28 @@ public class BinaryTimeSeries extends AbstractEt {
         setType(DocumentType.TIME_SERIES.toString());
     }
 
-    public int getGroupKeyHash() {
+    /**
+     * @return the group key hash or null if the record was imported without it
+     */
+    public Integer getGroupKeyHash() {
         return groupKeyHash;
     }
 
-    public void setGroupKeyHash(int groupKeyHash) {
+    public void setGroupKeyHash(Integer groupKeyHash) {
         this.groupKeyHash = groupKeyHash;
     }
 
+    /**
+     * @return the version of the record format or null if the record was written without version
+     */
+    public Integer getFormatVersion() {
+        return formatVersion;
+    }
+
+    public void setFormatVersion(Integer formatVersion) {
+        this.formatVersion = formatVersion;
+    }
+
     public String getProjectName() {
         return project;
     }
@@ -309,13 +364,55 @@ public class BinaryTimeSeries extends AbstractEt {
 
     public void setData(byte[] data) {
         this.data = data;
-        this.amountOfSeriesValues = data.length / 16;
+        this.amountOfSeriesValues = SeriesDataCodec.countValues(data);
+    }
+
+    /**
+     * Sets the data with a payload format that doesn't allow to count the values
+     * by the {@link SeriesDataCodec} like the one of rollup records.
+     *
+     * @param data the encoded data of the time series
+     * @param amountOfSeriesValues the amount of points/buckets stored in the data
+     */
+    public void setData(byte[] data, int amountOfSeriesValues) {
+        this.data = data;
+        this.amountOfSeriesValues = amountOfSeriesValues;
     }
 
     public int getAmountOfSeriesValues() {
         return amountOfSeriesValues;
     }
 
+    /**
+     * @return the summary of the series values or null if no summary was stored
+     */
+    public SeriesSummary getSummary() {
+        if (valueCount == null) {
+            return null;
+        }
+
+        return new SeriesSummary(min, max, sum, valueCount, first, last);
+    }
+
+    public void setSummary(SeriesSummary summary) {
+        if (summary == null) {
+            this.min = null;
+            this.max = null;
+            this.sum = null;
+            this.valueCount = null;
+            this.first = null;
+            this.last = null;
+            return;
+        }
+
+        this.min = summary.getMin();
+        this.max = summary.getMax();
+        this.sum = summary.getSum();
+        this.valueCount = summary.getCount();
+        this.first = summary.getFirst();
+        this.last = summary.getLast();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -0,0 +1,98 @@
+package de.qaware.ekg.awb.repository.bl.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Bit stream reader that matches to {@link BitWriter}. It reads the bits with absolute
+ * access from the given buffer, so the position and limit of the buffer will not changed.
+ */
+class BitReader {
+
+    private final ByteBuffer buffer;
+
+    private final int limit;
+
+    // the bit stream is written most significant bit first, so the words are read big endian
+    private final boolean bigEndian;
+
+    private long bitPosition;
+
+    BitReader(ByteBuffer buffer, int byteOffset) {
+        this.buffer = buffer;
+        this.limit = buffer.limit();
+        this.bigEndian = buffer.order() == ByteOrder.BIG_ENDIAN;
+        this.bitPosition = (long) byteOffset << 3;
+    }
+
+    /**
+     * Moves the reader to the start of the byte with the given offset.
+     *
+     * @param byteOffset the absolute offset in the buffer
+     */
+    void seekToByte(int byteOffset) {
+        bitPosition = (long) byteOffset << 3;
+    }
+
+    boolean readBit() {
+        int byteIndex = (int) (bitPosition >>> 3);
+        if (byteIndex >= limit) {
+            throw new IllegalArgumentException("Could not uncompress and decode points");
+        }
+
+        boolean bit = (buffer.get(byteIndex) & (0x80 >>> (bitPosition & 7))) != 0;
+        bitPosition++;
+        return bit;
+    }
+
+    /**
+     * Reads the given amount of bits (most significant bit first). The bits are taken from the
+     * 64 bit word that starts at the current byte, so a single read is needed for up to 57 bits
+     * and a second one for the rest at the word boundary. Only the last bytes of the buffer are
+     * read bit by bit.
+     *
+     * @param amount the amount of bits to read, 0 to 64
+     * @return the bits in the lower part of the result
+     */
+    long readBits(int amount) {
+        if (amount == 0) {
+            return 0;
+        }
+
+        int byteIndex = (int) (bitPosition >>> 3);
+        int bitOffset = (int) (bitPosition & 7);
+        int remainingBits = amount - (64 - bitOffset);
+
+        if (byteIndex + Long.BYTES + (remainingBits > 0 ? 1 : 0) > limit) {
+            return readBitsOneByOne(amount);
+        }
+
+        // the lower bits of the shifted word are zero, so the remaining bits can simply be added
+        long result = (readWord(byteIndex) << bitOffset) >>> (64 - amount);
+        if (remainingBits > 0) {
+            result |= (buffer.get(byteIndex + Long.BYTES) & 0xFF) >>> (8 - remainingBits);
+        }
+
+        bitPosition += amount;
+        return result;
+    }
+
+    long readSignedBits(int amount) {
+        long bits = readBits(amount);
+        // sign extension of the two's complement with 'amount' bits
+        return (bits << (64 - amount)) >> (64 - amount);
+    }
+
+    private long readBitsOneByOne(int amount) {
+        long result = 0;
+        for (int i = 0; i < amount; i++) {
+            result = (result << 1) | (readBit() ? 1 : 0);
+        }
+        return result;
+    }
+
+    private long readWord(int byteIndex) {
+        long word = buffer.getLong(byteIndex);
+        return bigEndian ? word : Long.reverseBytes(word);
+    }
+}
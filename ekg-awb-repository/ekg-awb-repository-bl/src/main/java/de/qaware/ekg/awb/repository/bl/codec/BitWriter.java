@@ -0,0 +1,62 @@
+package de.qaware.ekg.awb.repository.bl.codec;
+
+import java.util.Arrays;
+
+/**
+ * Simple growing bit stream writer (most significant bit first)
+ */
+class BitWriter {
+
+    private byte[] buffer;
+
+    private int bitPosition;
+
+    BitWriter(int initialCapacity) {
+        buffer = new byte[Math.max(initialCapacity, 16)];
+    }
+
+    void writeBit(boolean bit) {
+        ensureCapacity(1);
+        if (bit) {
+            buffer[bitPosition >>> 3] |= (byte) (0x80 >>> (bitPosition & 7));
+        }
+        bitPosition++;
+    }
+
+    void writeBits(long bits, int amount) {
+        ensureCapacity(amount);
+        for (int i = amount - 1; i >= 0; i--) {
+            if (((bits >>> i) & 1) != 0) {
+                buffer[bitPosition >>> 3] |= (byte) (0x80 >>> (bitPosition & 7));
+            }
+            bitPosition++;
+        }
+    }
+
+    /**
+     * Skips the remaining bits of the current byte, so the next bit will written at a byte boundary.
+     */
+    void alignToByte() {
+        bitPosition = (bitPosition + 7) & ~7;
+    }
+
+    /**
+     * Returns the offset of the byte the next bit will be written to.
+     *
+     * @return the byte offset
+     */
+    int bytePosition() {
+        return bitPosition >>> 3;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, (bitPosition + 7) >>> 3);
+    }
+
+    private void ensureCapacity(int additionalBits) {
+        int requiredBytes = ((bitPosition + additionalBits) >>> 3) + 1;
+        if (requiredBytes > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(requiredBytes, buffer.length * 2));
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package de.qaware.ekg.awb.repository.bl.codec;
+
+import de.qaware.ekg.awb.sdk.core.DateValuePairMapper.ValuePairConsumer;
+import de.qaware.ekg.awb.sdk.datamodel.Value;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Codec that encodes the points of a time series to the binary payload stored in the
+ * ts_data field and decodes it back again.
+ *
+ * The current format (version {@value #CURRENT_VERSION}) starts with a header of the magic
+ * number with the version in its last byte, the amount of points (4 bytes) and the block size
+ * (4 bytes). The header is followed by the block index with one entry per block of
+ * {@link #BLOCK_SIZE} points: the first timestamp of the block (8 bytes) and its byte offset
+ * relative to the first block (4 bytes). Each block starts at a byte boundary with an uncompressed
+ * first point, the following points are a bit stream similar to the one described in the Facebook
+ * Gorilla paper: the timestamps are stored as delta-of-delta values with variable length prefix
+ * codes and the values as XOR against the previous value, so regular series with slowly changing
+ * values will cost only a few bits per point. The index allows {@link SeriesDataView} to seek to a
+ * timestamp without decoding the preceding blocks.
+ *
+ * The legacy formats are still read:
+ * <ul>
+ * <li>Version {@value #SEQUENTIAL_VERSION} has the same header without block size and index, all points
+ * are a single bit stream. Points that aren't in chronological order can't be indexed, so they are still
+ * written in this format.</li>
+ * <li>Version {@value #PLAIN_VERSION} are the payloads written before the introduction of this codec:
+ * plain 16 byte tuples of value and timestamp without header. The magic number is a NaN bit pattern
+ * that can't be produced by Double.doubleToLongBits(), so it never collides with the first value of
+ * a plain payload.</li>
+ * </ul>
+ */
+public final class SeriesDataCodec {
+
+    /**
+     * The format version written by {@link #encode(List)} for points in chronological order
+     */
+    public static final int CURRENT_VERSION = 2;
+
+    /**
+     * The format version without block index, written for points that aren't in chronological order
+     */
+    public static final int SEQUENTIAL_VERSION = 1;
+
+    /**
+     * The format version of payloads that consists of plain 16 byte tuples without header
+     */
+    public static final int PLAIN_VERSION = 0;
+
+    /**
+     * The amount of points per block of the indexed format
+     */
+    public static final int BLOCK_SIZE = 128;
+
+    /**
+     * The magic header without version (last byte). It's a non canonical NaN.
+     */
+    private static final long MAGIC = 0x7FF1_454B_4743_0000L;
+
+    private static final long MAGIC_MASK = 0xFFFF_FFFF_FFFF_0000L;
+
+    /**
+     * magic (8 bytes) + amount of points (4 bytes)
+     */
+    static final int HEADER_LENGTH = 12;
+
+    /**
+     * header + block size (4 bytes)
+     */
+    static final int INDEXED_HEADER_LENGTH = HEADER_LENGTH + 4;
+
+    /**
+     * first timestamp (8 bytes) + byte offset relative to the first block (4 bytes)
+     */
+    static final int INDEX_ENTRY_LENGTH = 12;
+
+    static final int PLAIN_TUPLE_LENGTH = 16;
+
+    private SeriesDataCodec() {
+        // static helper
+    }
+
+    /**
+     * Encodes the given values to the current compressed binary format.
+     * Values that aren't in chronological order will be encoded without block index.
+     *
+     * @param values the points of the time series
+     * @return the encoded payload
+     */
+    public static byte[] encode(List<Value> values) {
+        if (values == null) {
+            throw new IllegalArgumentException("Could not compress and encode points");
+        }
+
+        if (!isChronological(values)) {
+            BitWriter writer = new BitWriter(HEADER_LENGTH + 16 + values.size() * 2);
+            writer.writeBits(MAGIC | SEQUENTIAL_VERSION, 64);
+            writer.writeBits(values.size(), 32);
+            writePoints(writer, values, 0, values.size());
+
+            return writer.toByteArray();
+        }
+
+        int amountOfBlocks = (values.size() + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        long[] blockTimestamps = new long[amountOfBlocks];
+        int[] blockOffsets = new int[amountOfBlocks];
+
+        BitWriter writer = new BitWriter(16 + values.size() * 2);
+
+        for (int block = 0; block < amountOfBlocks; block++) {
+            int from = block * BLOCK_SIZE;
+            int to = Math.min(from + BLOCK_SIZE, values.size());
+
+            writer.alignToByte();
+            blockOffsets[block] = writer.bytePosition();
+            blockTimestamps[block] = values.get(from).getTimestamp();
+
+            writePoints(writer, values, from, to);
+        }
+
+        byte[] blocks = writer.toByteArray();
+
+        ByteBuffer buffer = ByteBuffer.allocate(INDEXED_HEADER_LENGTH + amountOfBlocks * INDEX_ENTRY_LENGTH + blocks.length);
+        buffer.putLong(MAGIC | CURRENT_VERSION);
+        buffer.putInt(values.size());
+        buffer.putInt(BLOCK_SIZE);
+
+        for (int block = 0; block < amountOfBlocks; block++) {
+            buffer.putLong(blockTimestamps[block]);
+            buffer.putInt(blockOffsets[block]);
+        }
+
+        buffer.put(blocks);
+
+        return buffer.array();
+    }
+
+    /**
+     * Decodes the given payload and hands over each point to the consumer.
+     * Payloads of all known format versions are supported.
+     *
+     * @param data the payload stored in ts_data
+     * @param consumer the consumer that will receive the points in stored order
+     */
+    public static void decode(byte[] data, ValuePairConsumer consumer) {
+        SeriesDataView.of(data).forEach(consumer);
+    }
+
+    /**
+     * Returns the amount of points stored in the given payload without decoding it.
+     *
+     * @param data the payload stored in ts_data
+     * @return the amount of points
+     */
+    public static int countValues(byte[] data) {
+        if (data == null) {
+            return 0;
+        }
+
+        if (resolveVersion(data) == PLAIN_VERSION) {
+            return data.length / PLAIN_TUPLE_LENGTH;
+        }
+
+        return (int) readLong(data, 8, 4);
+    }
+
+    /**
+     * Returns the format version of the given payload.
+     *
+     * @param data the payload stored in ts_data
+     * @return the format version or {@link #PLAIN_VERSION} for payloads without header
+     */
+    public static int resolveVersion(byte[] data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Could not uncompress and decode points");
+        }
+
+        if (data.length >= HEADER_LENGTH) {
+            long header = readLong(data, 0, 8);
+
+            if ((header & MAGIC_MASK) == MAGIC) {
+                return (int) (header & 0xFFFF);
+            }
+        }
+
+        return PLAIN_VERSION;
+    }
+
+    /**
+     * Writes the points in the given range as bit stream. The first point will be written
+     * uncompressed, all others as delta-of-delta timestamps and XOR values.
+     */
+    private static void writePoints(BitWriter writer, List<Value> values, int from, int to) {
+        long previousTimestamp = 0;
+        long previousDelta = 0;
+        long previousValueBits = 0;
+        int previousLeading = Integer.MAX_VALUE;
+        int previousTrailing = 0;
+
+        for (int index = from; index < to; index++) {
+            Value value = values.get(index);
+            long timestamp = value.getTimestamp();
+            long valueBits = Double.doubleToRawLongBits(value.getValue());
+
+            if (index == from) {
+                writer.writeBits(timestamp, 64);
+                writer.writeBits(valueBits, 64);
+
+            } else {
+                long delta = timestamp - previousTimestamp;
+                writeDeltaOfDelta(writer, delta - previousDelta);
+                previousDelta = delta;
+
+                long xor = valueBits ^ previousValueBits;
+
+                if (xor == 0) {
+                    writer.writeBit(false);
+                } else {
+                    writer.writeBit(true);
+
+                    int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+                    int trailing = Long.numberOfTrailingZeros(xor);
+
+                    if (leading >= previousLeading && trailing >= previousTrailing) {
+                        // meaningful bits fit into the window of the previous value
+                        writer.writeBit(false);
+                        writer.writeBits(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+                    } else {
+                        int significantBits = 64 - leading - trailing;
+
+                        writer.writeBit(true);
+                        writer.writeBits(leading, 5);
+                        // 64 significant bits doesn't fit into 6 bits and will be written as 0
+                        writer.writeBits(significantBits == 64 ? 0 : significantBits, 6);
+                        writer.writeBits(xor >>> trailing, significantBits);
+
+                        previousLeading = leading;
+                        previousTrailing = trailing;
+                    }
+                }
+            }
+
+            previousTimestamp = timestamp;
+            previousValueBits = valueBits;
+        }
+    }
+
+    private static boolean isChronological(List<Value> values) {
+        for (int index = 1; index < values.size(); index++) {
+            if (values.get(index - 1).getTimestamp() > values.get(index).getTimestamp()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static void writeDeltaOfDelta(BitWriter writer, long deltaOfDelta) {
+        if (deltaOfDelta == 0) {
+            writer.writeBit(false);
+        } else if (deltaOfDelta >= -64 && deltaOfDelta <= 63) {
+            writer.writeBits(0b10, 2);
+            writer.writeBits(deltaOfDelta, 7);
+        } else if (deltaOfDelta >= -256 && deltaOfDelta <= 255) {
+            writer.writeBits(0b110, 3);
+            writer.writeBits(deltaOfDelta, 9);
+        } else if (deltaOfDelta >= -2048 && deltaOfDelta <= 2047) {
+            writer.writeBits(0b1110, 4);
+            writer.writeBits(deltaOfDelta, 12);
+        } else {
+            writer.writeBits(0b1111, 4);
+            writer.writeBits(deltaOfDelta, 64);
+        }
+    }
+
+    static long readDeltaOfDelta(BitReader reader) {
+        if (!reader.readBit()) {
+            return 0;
+        } else if (!reader.readBit()) {
+            return reader.readSignedBits(7);
+        } else if (!reader.readBit()) {
+            return reader.readSignedBits(9);
+        } else if (!reader.readBit()) {
+            return reader.readSignedBits(12);
+        }
+
+        return reader.readBits(64);
+    }
+
+    private static long readLong(byte[] data, int offset, int length) {
+        long result = 0;
+        for (int i = offset; i < offset + length; i++) {
+            result = (result << 8) | (data[i] & 0xFF);
+        }
+        return result;
+    }
+}
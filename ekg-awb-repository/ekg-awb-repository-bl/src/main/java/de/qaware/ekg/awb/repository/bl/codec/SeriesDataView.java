@@ -0,0 +1,305 @@
+package de.qaware.ekg.awb.repository.bl.codec;
+
+import de.qaware.ekg.awb.sdk.core.DateValuePairMapper.ValuePairConsumer;
+
+import java.nio.ByteBuffer;
+
+import static de.qaware.ekg.awb.repository.bl.codec.SeriesDataCodec.*;
+
+/**
+ * Read-only view on a ts_data payload that decodes the points on demand.
+ * <p>
+ * The view wraps the payload without copying it and hands out the points as primitives, so no
+ * object per point will be allocated. Payloads of the indexed format (see {@link SeriesDataCodec#CURRENT_VERSION})
+ * are known to be in chronological order and provide a block index. For those a range query will
+ * binary search the block that contains the start of the range, decode only this block up to the start
+ * and stop at the end of the range. Payloads of older formats will be scanned completely.
+ * <p>
+ * The view is immutable and can be shared, the {@link Cursor} instances aren't thread safe.
+ */
+public final class SeriesDataView {
+
+    private final ByteBuffer buffer;
+
+    private final int version;
+
+    private final int size;
+
+    private final int blockSize;
+
+    private final int amountOfBlocks;
+
+    private final int firstBlockOffset;
+
+    private SeriesDataView(byte[] data) {
+        this.buffer = ByteBuffer.wrap(data).asReadOnlyBuffer();
+        this.version = resolveVersion(data);
+
+        if (version == PLAIN_VERSION && data.length % PLAIN_TUPLE_LENGTH != 0) {
+            throw new IllegalArgumentException("Could not uncompress and decode points");
+        }
+
+        if (version != PLAIN_VERSION && version != SEQUENTIAL_VERSION && version != CURRENT_VERSION) {
+            throw new IllegalArgumentException("Unsupported time series data format version " + version);
+        }
+
+        this.size = countValues(data);
+
+        if (version == CURRENT_VERSION) {
+            this.blockSize = buffer.getInt(HEADER_LENGTH);
+            this.amountOfBlocks = (size + blockSize - 1) / blockSize;
+            this.firstBlockOffset = INDEXED_HEADER_LENGTH + amountOfBlocks * INDEX_ENTRY_LENGTH;
+        } else {
+            this.blockSize = size;
+            this.amountOfBlocks = size == 0 ? 0 : 1;
+            this.firstBlockOffset = version == PLAIN_VERSION ? 0 : HEADER_LENGTH;
+        }
+    }
+
+    /**
+     * Creates a new view on the given payload.
+     *
+     * @param data the payload stored in ts_data
+     * @return the view on the payload
+     */
+    public static SeriesDataView of(byte[] data) {
+        return new SeriesDataView(data);
+    }
+
+    /**
+     * Returns the amount of points in the payload.
+     *
+     * @return the amount of points
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the format version of the payload.
+     *
+     * @return the format version
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Checks if the payload has a block index and is known to be in chronological order.
+     *
+     * @return true if seeking and range queries don't need to decode the whole payload
+     */
+    public boolean isIndexed() {
+        return version == CURRENT_VERSION;
+    }
+
+    /**
+     * Hands over all points to the consumer in stored order.
+     *
+     * @param consumer the consumer that will receive the points
+     */
+    public void forEach(ValuePairConsumer consumer) {
+        Cursor cursor = cursor();
+
+        while (cursor.next()) {
+            consumer.processValuePair(cursor.timestamp(), cursor.value());
+        }
+    }
+
+    /**
+     * Hands over all points with a timestamp inside the given range to the consumer in stored order.
+     *
+     * @param from the first timestamp of the range (inclusive)
+     * @param to the last timestamp of the range (inclusive)
+     * @param consumer the consumer that will receive the points
+     */
+    public void forEachInRange(long from, long to, ValuePairConsumer consumer) {
+        Cursor cursor = cursor();
+
+        if (!isIndexed()) {
+            while (cursor.next()) {
+                if (cursor.timestamp() >= from && cursor.timestamp() <= to) {
+                    consumer.processValuePair(cursor.timestamp(), cursor.value());
+                }
+            }
+
+            return;
+        }
+
+        cursor.seek(from);
+
+        while (cursor.next() && cursor.timestamp() <= to) {
+            consumer.processValuePair(cursor.timestamp(), cursor.value());
+        }
+    }
+
+    /**
+     * Creates a new cursor that is positioned before the first point.
+     *
+     * @return the new cursor
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Returns the index of the block that contains the first point with a timestamp >= the given one.
+     * That's the last block that starts before the timestamp (or the first block).
+     */
+    private int findBlock(long timestamp) {
+        int low = 0;
+        int high = amountOfBlocks - 1;
+
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+
+            if (blockTimestamp(mid) < timestamp) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        return low;
+    }
+
+    private long blockTimestamp(int block) {
+        return buffer.getLong(INDEXED_HEADER_LENGTH + block * INDEX_ENTRY_LENGTH);
+    }
+
+    private int blockOffset(int block) {
+        if (version != CURRENT_VERSION) {
+            return firstBlockOffset;
+        }
+
+        return firstBlockOffset + buffer.getInt(INDEXED_HEADER_LENGTH + block * INDEX_ENTRY_LENGTH + 8);
+    }
+
+    /**
+     * Forward iterator over the points of the view. The cursor decodes one point per call of
+     * {@link #next()} and provides it as primitives.
+     */
+    public final class Cursor {
+
+        private final BitReader reader = new BitReader(buffer, firstBlockOffset);
+
+        private int index = -1;
+
+        private boolean pending = false;
+
+        private long timestamp;
+
+        private long delta;
+
+        private long valueBits;
+
+        private int leading;
+
+        private int trailing;
+
+        private Cursor() {
+            // created by the view
+        }
+
+        /**
+         * Moves the cursor to the next point.
+         *
+         * @return true if there is a next point, false if all points are consumed
+         */
+        public boolean next() {
+            if (pending) {
+                pending = false;
+                return true;
+            }
+
+            if (index + 1 >= size) {
+                return false;
+            }
+
+            index++;
+            decodeCurrent();
+
+            return true;
+        }
+
+        /**
+         * Positions the cursor so that the next call of {@link #next()} moves to the first point
+         * with a timestamp >= the given one. Only points behind the current position are considered.
+         * <p>
+         * For indexed payloads the cursor jumps directly to the block that contains the point.
+         *
+         * @param target the timestamp to search for
+         */
+        public void seek(long target) {
+            if (isIndexed() && size > 0) {
+                int block = findBlock(target);
+
+                if (block * blockSize > index + 1) {
+                    pending = false;
+                    index = block * blockSize - 1;
+                }
+            }
+
+            while (next()) {
+                if (timestamp >= target) {
+                    pending = true;
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Returns the timestamp of the current point.
+         *
+         * @return the timestamp
+         */
+        public long timestamp() {
+            return timestamp;
+        }
+
+        /**
+         * Returns the value of the current point.
+         *
+         * @return the value
+         */
+        public double value() {
+            return Double.longBitsToDouble(valueBits);
+        }
+
+        private void decodeCurrent() {
+            if (version == PLAIN_VERSION) {
+                int offset = index * PLAIN_TUPLE_LENGTH;
+                valueBits = buffer.getLong(offset);
+                timestamp = buffer.getLong(offset + 8);
+                return;
+            }
+
+            if (index % blockSize == 0) {
+                reader.seekToByte(blockOffset(index / blockSize));
+
+                timestamp = reader.readBits(64);
+                valueBits = reader.readBits(64);
+                delta = 0;
+                leading = 0;
+                trailing = 0;
+                return;
+            }
+
+            delta += readDeltaOfDelta(reader);
+            timestamp += delta;
+
+            if (reader.readBit()) {
+                if (reader.readBit()) {
+                    leading = (int) reader.readBits(5);
+                    int significantBits = (int) reader.readBits(6);
+                    if (significantBits == 0) {
+                        significantBits = 64;
+                    }
+                    trailing = 64 - leading - significantBits;
+                }
+
+                valueBits ^= reader.readBits(64 - leading - trailing) << trailing;
+            }
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package de.qaware.ekg.awb.repository.bl.mapper;
+
+import de.qaware.ekg.awb.repository.bl.BinaryTimeSeries;
+import de.qaware.ekg.awb.repository.bl.codec.SeriesDataCodec;
+import de.qaware.ekg.awb.repository.bl.rollup.RollupBucket;
+import de.qaware.ekg.awb.repository.bl.rollup.RollupDataCodec;
+import de.qaware.ekg.awb.repository.bl.rollup.RollupLevel;
+import de.qaware.ekg.awb.repository.bl.summary.SeriesSummary;
+import de.qaware.ekg.awb.sdk.datamodel.TimeSeries;
+import de.qaware.ekg.awb.sdk.datamodel.Value;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Utils class for mapping TimeSeries of the public API to BinaryTimeSeries
+ * records that will persisted in the repository.
+ */
+public final class BinaryTimeSeriesMapper {
+
+    /**
+     * The default length of the time window covered by a single BinaryTimeSeries record (30 days)
+     */
+    public static final long DEFAULT_CHUNK_INTERVAL = 30 * 86_400_000L;
+
+    /**
+     * The minimum amount of buckets a rollup record should cover (if the series is long enough)
+     */
+    private static final int MIN_ROLLUP_BUCKETS_PER_CHUNK = 256;
+
+    /**
+     * Separator of the filter dimensions in the group key (a control character that won't occur in names)
+     */
+    private static final String GROUP_KEY_SEPARATOR = "\u001F";
+
+    private BinaryTimeSeriesMapper() {
+    }
+
+    /**
+     * Maps the given time series to all records that have to persisted for it: the raw value
+     * chunks (see {@link #mapToBinarySeriesChunks(TimeSeries, long)}) and the rollup records
+     * of each given level (see {@link #mapToRollupSeriesChunks(TimeSeries, RollupLevel, long)}).
+     *
+     * @param timeSeries the time series to map
+     * @param chunkInterval the length of the time window in milliseconds covered by each raw record
+     * @param rollupLevels the levels of rollup records that should be created
+     * @return a list with all records of the series
+     */
+    public static List<BinaryTimeSeries> mapToRecords(TimeSeries timeSeries, long chunkInterval,
+                                                      Collection<RollupLevel> rollupLevels) {
+
+        List<BinaryTimeSeries> records = new ArrayList<>(mapToBinarySeriesChunks(timeSeries, chunkInterval));
+
+        for (RollupLevel level : rollupLevels) {
+            records.addAll(mapToRollupSeriesChunks(timeSeries, level, chunkInterval));
+        }
+
+        return records;
+    }
+
+    /**
+     * Maps the given time series to a single BinaryTimeSeries record
+     * that holds all values of the series and their summary.
+     *
+     * @param timeSeries the time series to map
+     * @return the BinaryTimeSeries instance with the values of the series encoded
+     */
+    public static BinaryTimeSeries mapToBinarySeries(TimeSeries timeSeries) {
+        if (timeSeries == null) {
+            throw new IllegalArgumentException("Null was given as TimeSeries");
+        }
+
+        BinaryTimeSeries binaryTimeSeries = mapMetaData(timeSeries);
+        binaryTimeSeries.setStart(timeSeries.getStartDate());
+        binaryTimeSeries.setEnd(timeSeries.getEndDate());
+        binaryTimeSeries.setData(SeriesDataCodec.encode(timeSeries.getValues()));
+        binaryTimeSeries.setSummary(SeriesSummary.compute(timeSeries.getValues()));
+
+        return binaryTimeSeries;
+    }
+
+    /**
+     * Maps the given time series to one BinaryTimeSeries record per time window (chunk) that is covered
+     * by the series values. The windows are aligned to the epoch so that all series share the same
+     * boundaries. Each record gets the start and end of it's own values so range queries on
+     * ts_start/ts_stop will only match the chunks that overlap with the requested interval.
+     * The {@link SeriesSummary} of each record covers only the values of the record itself.
+     *
+     * Series without values (for example records of split source projects) will map to a single record.
+     *
+     * @param timeSeries the time series to map
+     * @param chunkInterval the length of the time window in milliseconds covered by each record
+     * @return a list with at least one BinaryTimeSeries in chronological order
+     */
+    public static List<BinaryTimeSeries> mapToBinarySeriesChunks(TimeSeries timeSeries, long chunkInterval) {
+        if (timeSeries == null) {
+            throw new IllegalArgumentException("Null was given as TimeSeries");
+        }
+
+        if (chunkInterval <= 0) {
+            throw new IllegalArgumentException("The chunk interval must be greater than zero");
+        }
+
+        List<Value> values = timeSeries.getValues();
+        if (values.isEmpty()) {
+            return List.of(mapToBinarySeries(timeSeries));
+        }
+
+        List<BinaryTimeSeries> chunks = new ArrayList<>();
+
+        int chunkStartIndex = 0;
+        long chunkWindow = Math.floorDiv(values.get(0).getTimestamp(), chunkInterval);
+
+        for (int i = 1; i < values.size(); i++) {
+            long window = Math.floorDiv(values.get(i).getTimestamp(), chunkInterval);
+
+            if (window != chunkWindow) {
+                chunks.add(mapChunk(timeSeries, values.subList(chunkStartIndex, i)));
+                chunkStartIndex = i;
+                chunkWindow = window;
+            }
+        }
+
+        chunks.add(mapChunk(timeSeries, values.subList(chunkStartIndex, values.size())));
+
+        return chunks;
+    }
+
+    /**
+     * Maps the given time series to rollup records of the specified level. Each record holds the
+     * min, max, sum and count of the raw values per bucket for a time window that is the larger
+     * one of the given chunk interval and 256 buckets. The start of the record is the start of it's first
+     * bucket and the end is the last millisecond of it's last bucket.
+     *
+     * Series without values will result in an empty list.
+     *
+     * @param timeSeries the time series to map
+     * @param level the rollup level that defines the bucket size
+     * @param chunkInterval the minimal length of the time window in milliseconds covered by each record
+     * @return the rollup records in chronological order
+     */
+    public static List<BinaryTimeSeries> mapToRollupSeriesChunks(TimeSeries timeSeries, RollupLevel level,
+                                                                 long chunkInterval) {
+        if (timeSeries == null) {
+            throw new IllegalArgumentException("Null was given as TimeSeries");
+        }
+
+        List<RollupBucket> buckets = RollupBucket.computeBuckets(timeSeries.getValues(), level);
+        if (buckets.isEmpty()) {
+            return List.of();
+        }
+
+        long rollupChunkInterval = Math.max(chunkInterval, level.getBucketSize() * MIN_ROLLUP_BUCKETS_PER_CHUNK);
+        List<BinaryTimeSeries> chunks = new ArrayList<>();
+
+        int chunkStartIndex = 0;
+        long chunkWindow = Math.floorDiv(buckets.get(0).getTimestamp(), rollupChunkInterval);
+
+        for (int i = 1; i <= buckets.size(); i++) {
+            long window = i < buckets.size() ? Math.floorDiv(buckets.get(i).getTimestamp(), rollupChunkInterval) : -1;
+
+            if (i == buckets.size() || window != chunkWindow) {
+                List<RollupBucket> chunkBuckets = buckets.subList(chunkStartIndex, i);
+
+                BinaryTimeSeries binaryTimeSeries = mapMetaData(timeSeries);
+                binaryTimeSeries.setAg(level.getAggregationLevel());
+                binaryTimeSeries.setStart(chunkBuckets.get(0).getTimestamp());
+                binaryTimeSeries.setEnd(chunkBuckets.get(chunkBuckets.size() - 1).getTimestamp() + level.getBucketSize() - 1);
+                binaryTimeSeries.setData(RollupDataCodec.encode(chunkBuckets), chunkBuckets.size());
+                chunks.add(binaryTimeSeries);
+
+                chunkStartIndex = i;
+                chunkWindow = window;
+            }
+        }
+
+        return chunks;
+    }
+
+    private static BinaryTimeSeries mapChunk(TimeSeries timeSeries, List<Value> chunkValues) {
+        long start = Long.MAX_VALUE;
+        long end = Long.MIN_VALUE;
+
+        for (Value value : chunkValues) {
+            start = Math.min(start, value.getTimestamp());
+            end = Math.max(end, value.getTimestamp());
+        }
+
+        BinaryTimeSeries binaryTimeSeries = mapMetaData(timeSeries);
+        binaryTimeSeries.setStart(start);
+        binaryTimeSeries.setEnd(end);
+        binaryTimeSeries.setData(SeriesDataCodec.encode(chunkValues));
+        binaryTimeSeries.setSummary(SeriesSummary.compute(chunkValues));
+
+        return binaryTimeSeries;
+    }
+
+    private static BinaryTimeSeries mapMetaData(TimeSeries timeSeries) {
+        BinaryTimeSeries binaryTimeSeries = new BinaryTimeSeries();
+
+        // physical metric filter attributes
+        binaryTimeSeries.setHost(timeSeries.getHost());
+        binaryTimeSeries.setHostGroup(timeSeries.getHostGroup());
+
+        // logical metric filter attributes
+        binaryTimeSeries.setNamespace(timeSeries.getNamespace());
+        binaryTimeSeries.setService(timeSeries.getService());
+        binaryTimeSeries.setPod(timeSeries.getPod());
+        binaryTimeSeries.setContainer(timeSeries.getContainer());
+
+        // common metric filter attributes
+        binaryTimeSeries.setMeasurement(timeSeries.getMeasurement());
+        binaryTimeSeries.setProcess(timeSeries.getProcess());
+        binaryTimeSeries.setMetric(timeSeries.getMetricName());
+        binaryTimeSeries.setMetricGroup(timeSeries.getMetricGroup());
+        binaryTimeSeries.setProjectName(timeSeries.getProject());
+
+        // other
+        binaryTimeSeries.setRemoteSeriesKey(timeSeries.getRemoteSeriesKey());
+        binaryTimeSeries.setGroupKeyHash(computeGroupKeyHash(binaryTimeSeries));
+        binaryTimeSeries.setFormatVersion(BinaryTimeSeries.CURRENT_FORMAT_VERSION);
+
+        return binaryTimeSeries;
+    }
+
+    /**
+     * Computes the hash of all filter dimensions and the metric name of the given record.
+     * All records of the same series (raw chunks and rollups) will get the same hash, independent
+     * of the time window they cover. Missing dimensions are treated as empty strings.
+     *
+     * @param binaryTimeSeries the record with the filter dimensions
+     * @return the group key hash of the record
+     */
+    public static int computeGroupKeyHash(BinaryTimeSeries binaryTimeSeries) {
+        String groupKey = String.join(GROUP_KEY_SEPARATOR,
+                StringUtils.defaultString(binaryTimeSeries.getHostGroup()),
+                StringUtils.defaultString(binaryTimeSeries.getHost()),
+                StringUtils.defaultString(binaryTimeSeries.getNamespace()),
+                StringUtils.defaultString(binaryTimeSeries.getService()),
+                StringUtils.defaultString(binaryTimeSeries.getPod()),
+                StringUtils.defaultString(binaryTimeSeries.getContainer()),
+                StringUtils.defaultString(binaryTimeSeries.getMeasurement()),
+                StringUtils.defaultString(binaryTimeSeries.getProcess()),
+                StringUtils.defaultString(binaryTimeSeries.getMetricGroup()),
+                StringUtils.defaultString(binaryTimeSeries.getMetricName()));
+
+        return groupKey.hashCode();
+    }
+}
@@ -0,0 +1,54 @@
+package de.qaware.ekg.awb.repository.bl.migration;
+
+import de.qaware.ekg.awb.repository.api.RepositoryClient;
+import de.qaware.ekg.awb.sdk.core.events.EkgEventBus;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Service that runs the {@link SeriesDataMigrationTask} of the embedded repository in a
+ * background thread. All writers that delete or add time series records (the imports, the
+ * MetricDataAccessService and the SeriesImportService) have to call {@link #awaitMigration()} before,
+ * so migrated records of deleted or replaced series won't written back.
+ */
+@Singleton
+public class SeriesDataMigrationService {
+
+    @Inject
+    private EkgEventBus eventBus;
+
+    private Thread migrationThread;
+
+    /**
+     * Starts the migration of the given repository in a background thread if not already started.
+     *
+     * @param repositoryClient the client of the repository to migrate
+     */
+    public synchronized void startMigration(RepositoryClient repositoryClient) {
+        if (migrationThread != null) {
+            return;
+        }
+
+        migrationThread = new Thread(new SeriesDataMigrationTask(repositoryClient, eventBus), "series-data-migration");
+        migrationThread.setDaemon(true);
+        migrationThread.start();
+    }
+
+    /**
+     * Blocks until a started migration is finished. Returns immediately if no migration was started.
+     *
+     * @throws InterruptedException thrown if the waiting thread is interrupted
+     */
+    public void awaitMigration() throws InterruptedException {
+        Thread thread;
+
+        synchronized (this) {
+            thread = migrationThread;
+        }
+
+        if (thread != null) {
+            thread.join();
+        }
+    }
+}
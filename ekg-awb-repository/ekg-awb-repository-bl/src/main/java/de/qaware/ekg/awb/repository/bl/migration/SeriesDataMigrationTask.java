@@ -0,0 +1,206 @@
+package de.qaware.ekg.awb.repository.bl.migration;
+
+import de.qaware.ekg.awb.repository.api.RepositoryClient;
+import de.qaware.ekg.awb.repository.api.dataobject.search.SearchParams;
+import de.qaware.ekg.awb.repository.api.dataobject.search.SearchResult;
+import de.qaware.ekg.awb.repository.api.dataobject.search.SortField;
+import de.qaware.ekg.awb.repository.api.schema.DocumentType;
+import de.qaware.ekg.awb.repository.bl.BinaryTimeSeries;
+import de.qaware.ekg.awb.repository.bl.codec.SeriesDataCodec;
+import de.qaware.ekg.awb.repository.bl.mapper.BinaryTimeSeriesMapper;
+import de.qaware.ekg.awb.repository.bl.rollup.RollupLevel;
+import de.qaware.ekg.awb.sdk.awbapi.repository.RepositoryException;
+import de.qaware.ekg.awb.sdk.core.events.AwbErrorEvent;
+import de.qaware.ekg.awb.sdk.core.events.EkgEventBus;
+import de.qaware.ekg.awb.sdk.core.events.ProgressEvent;
+import de.qaware.ekg.awb.sdk.core.log.EkgLogger;
+import de.qaware.ekg.awb.sdk.datamodel.TimeSeries;
+import de.qaware.ekg.awb.sdk.datamodel.Value;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import static de.qaware.ekg.awb.repository.api.dataobject.expr.ExprFactory.*;
+import static de.qaware.ekg.awb.repository.api.schema.EkgSchemaField.*;
+
+/**
+ * Task that rewrites all raw time series records of a repository that are written with an older
+ * record format (see {@link BinaryTimeSeries#CURRENT_FORMAT_VERSION}), so existing repositories benefit
+ * from a new payload layout without a new import. The records of older formats hold the whole history
+ * of a series, they are split into the chunk records of the current format and the rollup records of
+ * the series are created like at import time (see {@link BinaryTimeSeriesMapper#mapToRecords}).
+ * <p>
+ * The records are read page by page with a cursor and written back in batches of the page size, so only
+ * a single page is held in memory. The first chunk of a series replaces the old record (same id), so no
+ * record has to be deleted. Each written batch will committed, so the migration can interrupted at any
+ * time and continued later. The progress is published as {@link ProgressEvent}.
+ * <p>
+ * Writers of the time series records have to wait for the end of the migration (see
+ * {@link SeriesDataMigrationService#awaitMigration()}), otherwise the migration could write back
+ * series that are deleted or replaced in the meantime.
+ */
+public class SeriesDataMigrationTask implements Runnable {
+
+    private static final Logger LOGGER = EkgLogger.get();
+
+    /**
+     * The default amount of records read and written at once
+     */
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    private final RepositoryClient repositoryClient;
+
+    private final EkgEventBus eventBus;
+
+    private final int batchSize;
+
+    private long amountOfMigratedRecords;
+
+    /**
+     * Constructs a new task that migrates the records of the given repository with the default batch size.
+     *
+     * @param repositoryClient the client of the repository to migrate
+     * @param eventBus the event bus used to publish the progress
+     */
+    public SeriesDataMigrationTask(RepositoryClient repositoryClient, EkgEventBus eventBus) {
+        this(repositoryClient, eventBus, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Constructs a new task that migrates the records of the given repository.
+     *
+     * @param repositoryClient the client of the repository to migrate
+     * @param eventBus the event bus used to publish the progress
+     * @param batchSize the amount of records read and written at once
+     */
+    public SeriesDataMigrationTask(RepositoryClient repositoryClient, EkgEventBus eventBus, int batchSize) {
+        if (batchSize <= 0 || batchSize > SearchParams.MAX_ROWS_LIMIT) {
+            throw new IllegalArgumentException("The batch size must be between 1 and " + SearchParams.MAX_ROWS_LIMIT);
+        }
+
+        this.repositoryClient = repositoryClient;
+        this.eventBus = eventBus;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run() {
+        try {
+            migrate();
+        } catch (RepositoryException e) {
+            LOGGER.error("Migration of the stored time series failed.", e);
+            eventBus.publish(new AwbErrorEvent(this, "Migration of the stored time series failed.", e));
+        }
+    }
+
+    /**
+     * Migrates all records of older formats in the calling thread.
+     *
+     * @return the amount of migrated records
+     * @throws RepositoryException thrown if the repository isn't accessible
+     */
+    public long migrate() throws RepositoryException {
+        SearchParams searchParams = new SearchParams()
+                .withMaxRows(batchSize)
+                .withSortField(ID, SortField.SortMode.ASC)
+                .withFilterQueries(
+                        exactFilter(DOC_TYPE, DocumentType.TIME_SERIES.toString()),
+                        not(wildcardFilter(TS_AGGREGATION_LEVEL, "*")),
+                        not(numberRangeFilter(TS_DATA_FORMAT_VERSION, BinaryTimeSeries.CURRENT_FORMAT_VERSION, null)));
+
+        String cursor = "*";
+        long totalHits = -1;
+
+        while (!Thread.currentThread().isInterrupted()) {
+            SearchResult<BinaryTimeSeries> searchResult = repositoryClient.search(BinaryTimeSeries.class,
+                    searchParams.withCursor(cursor));
+
+            if (totalHits < 0) {
+                totalHits = searchResult.getQueryStatus().getNumberOfHits();
+
+                if (totalHits == 0) {
+                    return 0;
+                }
+
+                LOGGER.info("Start migration of {} time series records to format version {}.",
+                        totalHits, BinaryTimeSeries.CURRENT_FORMAT_VERSION);
+            }
+
+            List<BinaryTimeSeries> records = searchResult.getRows();
+            if (records.isEmpty()) {
+                break;
+            }
+
+            List<BinaryTimeSeries> migratedRecords = new ArrayList<>();
+            for (BinaryTimeSeries record : records) {
+                migratedRecords.addAll(migrateRecord(record));
+            }
+
+            repositoryClient.add(migratedRecords.iterator());
+            repositoryClient.commit();
+
+            amountOfMigratedRecords += records.size();
+            eventBus.publish(new ProgressEvent("Migrated " + amountOfMigratedRecords + " of " + totalHits
+                    + " stored time series", Math.min(1.0, (double) amountOfMigratedRecords / totalHits), this));
+
+            String nextCursor = searchResult.getQueryStatus().getCursor();
+            if (nextCursor == null || nextCursor.equals(cursor)) {
+                break;
+            }
+
+            cursor = nextCursor;
+        }
+
+        LOGGER.info("Finished migration of {} time series records.", amountOfMigratedRecords);
+        eventBus.publish(new ProgressEvent("", 1.0, this));
+
+        return amountOfMigratedRecords;
+    }
+
+    /**
+     * @return the amount of records migrated so far
+     */
+    public long getAmountOfMigratedRecords() {
+        return amountOfMigratedRecords;
+    }
+
+    /**
+     * Maps the given record of an older format to the records of the current format. The values are
+     * split into chunks and rolled up like at import time, the first chunk keeps the id of the given record.
+     * Records without data (like the ones of split source projects) are updated in place.
+     *
+     * @param record the record to migrate
+     * @return the records that replaces the given one
+     */
+    static List<BinaryTimeSeries> migrateRecord(BinaryTimeSeries record) {
+        if (record.getData() == null) {
+            record.setGroupKeyHash(BinaryTimeSeriesMapper.computeGroupKeyHash(record));
+            record.setFormatVersion(BinaryTimeSeries.CURRENT_FORMAT_VERSION);
+            return List.of(record);
+        }
+
+        List<Value> values = new ArrayList<>(record.getAmountOfSeriesValues());
+        SeriesDataCodec.decode(record.getData(), (timestamp, value) -> values.add(new Value(timestamp, value)));
+
+        TimeSeries timeSeries = mapToTimeSeries(record);
+        timeSeries.setSortedValues(values);
+
+        List<BinaryTimeSeries> records = BinaryTimeSeriesMapper.mapToRecords(timeSeries,
+                BinaryTimeSeriesMapper.DEFAULT_CHUNK_INTERVAL, EnumSet.allOf(RollupLevel.class));
+        records.get(0).setId(record.getId());
+
+        return records;
+    }
+
+    private static TimeSeries mapToTimeSeries(BinaryTimeSeries record) {
+        TimeSeries timeSeries = new TimeSeries(record.getProjectName(),
+                record.getHostGroup(), record.getHost(),
+                record.getNamespace(), record.getService(), record.getPod(), record.getContainer(),
+                record.getMeasurement(), record.getProcess(), record.getMetricGroup(), record.getMetricName());
+        timeSeries.setRemoteSeriesKey(record.getRemoteSeriesKey());
+
+        return timeSeries;
+    }
+}
@@ -0,0 +1,36 @@
+package de.qaware.ekg.awb.repository.bl.rollup;
+
+/**
+ * The aggregates that are stored for each bucket of a rollup record.
+ */
+public enum RollupAggregate {
+
+    MIN,
+
+    MAX,
+
+    SUM,
+
+    COUNT;
+
+    /**
+     * Returns the value of this aggregate of the given bucket
+     *
+     * @param bucket the bucket to read
+     * @return the aggregated value
+     */
+    public double valueOf(RollupBucket bucket) {
+        switch (this) {
+            case MIN:
+                return bucket.getMin();
+            case MAX:
+                return bucket.getMax();
+            case SUM:
+                return bucket.getSum();
+            case COUNT:
+                return bucket.getCount();
+            default:
+                throw new IllegalArgumentException("Unsupported rollup aggregate " + this);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package de.qaware.ekg.awb.repository.bl.rollup;
+
+import de.qaware.ekg.awb.sdk.datamodel.Value;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A single bucket of a rollup record with the min, max, sum
+ * and amount of all raw values inside the bucket interval.
+ */
+public class RollupBucket {
+
+    private final long timestamp;
+
+    private double min;
+
+    private double max;
+
+    private double sum;
+
+    private long count;
+
+    /**
+     * Creates a new bucket with already aggregated values
+     *
+     * @param timestamp the start of the bucket interval
+     * @param min the minimum of all values in the bucket
+     * @param max the maximum of all values in the bucket
+     * @param sum the sum of all values in the bucket
+     * @param count the amount of values in the bucket
+     */
+    public RollupBucket(long timestamp, double min, double max, double sum, long count) {
+        this.timestamp = timestamp;
+        this.min = min;
+        this.max = max;
+        this.sum = sum;
+        this.count = count;
+    }
+
+    /**
+     * Computes the buckets of the given level for the given raw values.
+     * Values that are NaN will be ignored.
+     *
+     * @param values the raw values of a time series in chronological order
+     * @param level the rollup level that defines the bucket size
+     * @return the buckets in chronological order
+     */
+    public static List<RollupBucket> computeBuckets(List<Value> values, RollupLevel level) {
+        List<RollupBucket> buckets = new ArrayList<>();
+        RollupBucket current = null;
+
+        for (Value value : values) {
+            if (Double.isNaN(value.getValue())) {
+                continue;
+            }
+
+            long bucketStart = level.bucketStart(value.getTimestamp());
+
+            if (current == null || current.timestamp != bucketStart) {
+                current = new RollupBucket(bucketStart, value.getValue(), value.getValue(), 0, 0);
+                buckets.add(current);
+            }
+
+            current.add(value.getValue());
+        }
+
+        return buckets;
+    }
+
+    private void add(double value) {
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        sum += value;
+        count++;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public long getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,105 @@
+package de.qaware.ekg.awb.repository.bl.rollup;
+
+import de.qaware.ekg.awb.repository.bl.codec.SeriesDataCodec;
+import de.qaware.ekg.awb.sdk.core.DateValuePairMapper.ValuePairConsumer;
+import de.qaware.ekg.awb.sdk.datamodel.Value;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Codec for the ts_data payload of rollup records. The payload consists of one
+ * {@link SeriesDataCodec} encoded block per {@link RollupAggregate} (in declaration order),
+ * each prefixed with it's length as int. All blocks share the bucket timestamps, which
+ * cost nearly nothing after the delta-of-delta encoding.
+ */
+public final class RollupDataCodec {
+
+    private RollupDataCodec() {
+        // static helper
+    }
+
+    /**
+     * Encodes the given buckets
+     *
+     * @param buckets the buckets in chronological order
+     * @return the encoded payload
+     */
+    public static byte[] encode(List<RollupBucket> buckets) {
+        RollupAggregate[] aggregates = RollupAggregate.values();
+        byte[][] blocks = new byte[aggregates.length][];
+        int length = 0;
+
+        for (RollupAggregate aggregate : aggregates) {
+            List<Value> values = new ArrayList<>(buckets.size());
+            for (RollupBucket bucket : buckets) {
+                values.add(new Value(bucket.getTimestamp(), aggregate.valueOf(bucket)));
+            }
+
+            blocks[aggregate.ordinal()] = SeriesDataCodec.encode(values);
+            length += Integer.BYTES + blocks[aggregate.ordinal()].length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        for (byte[] block : blocks) {
+            buffer.putInt(block.length);
+            buffer.put(block);
+        }
+
+        return buffer.array();
+    }
+
+    /**
+     * Decodes a single aggregate of the given payload and hands over each bucket value to the consumer.
+     *
+     * @param data the payload of a rollup record
+     * @param aggregate the aggregate that should be decoded
+     * @param consumer the consumer that receives bucket timestamp and the aggregated value
+     */
+    public static void decode(byte[] data, RollupAggregate aggregate, ValuePairConsumer consumer) {
+        if (data == null) {
+            throw new IllegalArgumentException("Could not uncompress and decode rollup buckets");
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+
+        for (int i = 0; i < aggregate.ordinal(); i++) {
+            int blockLength = buffer.getInt();
+            buffer.position(buffer.position() + blockLength);
+        }
+
+        int blockLength = buffer.getInt();
+        byte[] block = new byte[blockLength];
+        buffer.get(block);
+
+        SeriesDataCodec.decode(block, consumer);
+    }
+
+    /**
+     * Decodes all aggregates of the given payload
+     *
+     * @param data the payload of a rollup record
+     * @return the buckets in chronological order
+     */
+    public static List<RollupBucket> decode(byte[] data) {
+        List<List<Value>> columns = new ArrayList<>();
+
+        for (RollupAggregate aggregate : RollupAggregate.values()) {
+            List<Value> column = new ArrayList<>();
+            decode(data, aggregate, (timestamp, value) -> column.add(new Value(timestamp, value)));
+            columns.add(column);
+        }
+
+        List<RollupBucket> buckets = new ArrayList<>(columns.get(0).size());
+        for (int i = 0; i < columns.get(0).size(); i++) {
+            buckets.add(new RollupBucket(columns.get(0).get(i).getTimestamp(),
+                    columns.get(RollupAggregate.MIN.ordinal()).get(i).getValue(),
+                    columns.get(RollupAggregate.MAX.ordinal()).get(i).getValue(),
+                    columns.get(RollupAggregate.SUM.ordinal()).get(i).getValue(),
+                    (long) columns.get(RollupAggregate.COUNT.ordinal()).get(i).getValue()));
+        }
+
+        return buckets;
+    }
+}
@@ -0,0 +1,65 @@
+package de.qaware.ekg.awb.repository.bl.rollup;
+
+/**
+ * The aggregation levels of pre-computed rollup records that are written next to the
+ * raw time series records. The name of each level is stored in the ts_ag field.
+ *
+ * All buckets are aligned to the epoch (UTC) so rollups of different series
+ * and of different imports share the same bucket boundaries.
+ */
+public enum RollupLevel {
+
+    /**
+     * buckets with time interval of one hour
+     */
+    HOUR(3_600_000L),
+
+    /**
+     * buckets with time interval of one day
+     */
+    DAY(86_400_000L),
+
+    /**
+     * buckets with time interval of one week
+     */
+    WEEK(604_800_000L),
+
+    /**
+     * buckets with fix time interval of one month (same length as used by the series smoothing)
+     */
+    MONTH(2_628_000_000L);
+
+    private final long bucketSize;
+
+    RollupLevel(long bucketSize) {
+        this.bucketSize = bucketSize;
+    }
+
+    /**
+     * Returns the length of a single bucket of this level
+     *
+     * @return the bucket length in milliseconds
+     */
+    public long getBucketSize() {
+        return bucketSize;
+    }
+
+    /**
+     * Returns the value stored in the ts_ag field of rollup records with this level
+     *
+     * @return the aggregation level name
+     */
+    public String getAggregationLevel() {
+        return name();
+    }
+
+    /**
+     * Resolves the start timestamp of the bucket the given timestamp belongs to
+     *
+     * @param timestamp the timestamp to resolve the bucket for
+     * @return the start of the bucket
+     */
+    public long bucketStart(long timestamp) {
+        return Math.floorDiv(timestamp, bucketSize) * bucketSize;
+    }
+}
@@ -6,22 +6,33 @@ import de.qaware.ekg.awb.repository.api.dataobject.expr.Expression;
 import de.qaware.ekg.awb.repository.api.dataobject.search.SearchParams;
 import de.qaware.ekg.awb.repository.api.dataobject.search.SearchResult;
 import de.qaware.ekg.awb.repository.api.dataobject.search.SortField;
+import de.qaware.ekg.awb.repository.api.events.SeriesDataChangedEvent;
 import de.qaware.ekg.awb.repository.api.schema.DocumentType;
 import de.qaware.ekg.awb.repository.api.schema.EkgSchemaField;
 import de.qaware.ekg.awb.repository.bl.BinaryTimeSeries;
+import de.qaware.ekg.awb.repository.bl.mapper.BinaryTimeSeriesMapper;
+import de.qaware.ekg.awb.repository.bl.migration.SeriesDataMigrationService;
+import de.qaware.ekg.awb.repository.bl.rollup.RollupLevel;
 import de.qaware.ekg.awb.sdk.awbapi.repository.Repository;
 import de.qaware.ekg.awb.sdk.awbapi.repository.RepositoryException;
 import de.qaware.ekg.awb.sdk.awbapi.repository.SeriesImportService;
-import de.qaware.ekg.awb.sdk.core.DateValuePairMapper;
+import de.qaware.ekg.awb.sdk.core.events.EkgEventBus;
+import de.qaware.ekg.awb.sdk.core.lookup.EkgLookup;
 import de.qaware.ekg.awb.sdk.datamodel.TimeSeries;
 import org.apache.commons.lang3.StringUtils;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import static de.qaware.ekg.awb.repository.api.dataobject.expr.ExprFactory.exactFilter;
+import static de.qaware.ekg.awb.repository.api.dataobject.expr.ExprFactory.not;
+import static de.qaware.ekg.awb.repository.api.dataobject.expr.ExprFactory.wildcardFilter;
 import static de.qaware.ekg.awb.repository.api.schema.EkgSchemaField.*;
 
 public class SeriesImportServiceImpl implements SeriesImportService {
@@ -30,6 +41,13 @@ public class SeriesImportServiceImpl implements SeriesImportService {
 
     private Repository repository;
 
+    private long chunkInterval = BinaryTimeSeriesMapper.DEFAULT_CHUNK_INTERVAL;
+
+    private Set<RollupLevel> rollupLevels = EnumSet.allOf(RollupLevel.class);
+
+    // the projects with series added since the last commit
+    private final Set<String> changedProjects = ConcurrentHashMap.newKeySet();
+
     /**
      * Default constructor for CDI management
      */
@@ -63,6 +81,7 @@ public class SeriesImportServiceImpl implements SeriesImportService {
         // static parts that must always match
         filterExpressions.add(exactFilter(DOC_TYPE, DocumentType.TIME_SERIES.toString()));
         filterExpressions.add(exactFilter(PROJECT_NAME, seriesWithoutValues.getProject()));
+        filterExpressions.add(not(wildcardFilter(TS_AGGREGATION_LEVEL, "*")));
 
         // the facet filter for the different dimensions
         addWildcardExpressionIfNotNull(filterExpressions, TS_HOST_GROUP_NAME, seriesWithoutValues.getHostGroup());
@@ -99,12 +118,14 @@ public class SeriesImportServiceImpl implements SeriesImportService {
 
     @Override
     public void add(TimeSeries timeSeries) throws RepositoryException {
-        repositoryClient.add(mapToBinarySeries(timeSeries));
+        awaitMigration();
+        repositoryClient.add(mapToBinarySeriesChunks(timeSeries).iterator());
     }
 
     @Override
     public void add(Stream<TimeSeries> timeSeriesStream) throws RepositoryException {
-        repositoryClient.add(timeSeriesStream.map(SeriesImportServiceImpl::mapToBinarySeries).iterator());
+        awaitMigration();
+        repositoryClient.add(timeSeriesStream.flatMap(this::mapToBinarySeriesChunks).iterator());
     }
 
     @Override
@@ -115,38 +136,56 @@ public class SeriesImportServiceImpl implements SeriesImportService {
     @Override
     public void commit() throws RepositoryException {
         repositoryClient.commit();
-    }
 
-    private static BinaryTimeSeries mapToBinarySeries(TimeSeries timeSeries) {
-        if (timeSeries == null) {
-            throw new IllegalArgumentException("Null was given as TimeSeries");
+        // caches of the changed projects can drop their data as soon as the new series are visible
+        for (String projectName : changedProjects) {
+            changedProjects.remove(projectName);
+            EkgLookup.lookup(EkgEventBus.class).publish(new SeriesDataChangedEvent(this, projectName));
         }
+    }
 
-        BinaryTimeSeries binaryTimeSeries = new BinaryTimeSeries();
+    /**
+     * Sets the length of the time window covered by a single persisted time series record.
+     * Series with values in multiple windows will split into one record per window.
+     *
+     * @param chunkInterval the window length in milliseconds
+     */
+    public void setChunkInterval(long chunkInterval) {
+        if (chunkInterval <= 0) {
+            throw new IllegalArgumentException("The chunk interval must be greater than zero");
+        }
 
-        // physical metric filter attributes
-        binaryTimeSeries.setHost(timeSeries.getHost());
-        binaryTimeSeries.setHostGroup(timeSeries.getHostGroup());
+        this.chunkInterval = chunkInterval;
+    }
 
-        // logical metric filter attributes
-        binaryTimeSeries.setNamespace(timeSeries.getNamespace());
-        binaryTimeSeries.setService(timeSeries.getService());
-        binaryTimeSeries.setPod(timeSeries.getPod());
-        binaryTimeSeries.setContainer(timeSeries.getContainer());
+    /**
+     * Sets the levels of rollup records that will written next to the raw series records.
+     * An empty collection disables the creation of rollups.
+     *
+     * @param rollupLevels the rollup levels to write
+     */
+    public void setRollupLevels(Collection<RollupLevel> rollupLevels) {
+        this.rollupLevels = rollupLevels.isEmpty() ? EnumSet.noneOf(RollupLevel.class) : EnumSet.copyOf(rollupLevels);
+    }
 
-        // common metric filter attributes
-        binaryTimeSeries.setMeasurement(timeSeries.getMeasurement());
-        binaryTimeSeries.setProcess(timeSeries.getProcess());
-        binaryTimeSeries.setMetric(timeSeries.getMetricName());
-        binaryTimeSeries.setMetricGroup(timeSeries.getMetricGroup());
-        binaryTimeSeries.setStart(timeSeries.getStartDate());
-        binaryTimeSeries.setEnd(timeSeries.getEndDate());
-        binaryTimeSeries.setProjectName(timeSeries.getProject());
+    /**
+     * Blocks until the records of older formats are migrated, so the migration won't write
+     * back records of replaced series.
+     */
+    private void awaitMigration() throws RepositoryException {
+        try {
+            EkgLookup.lookup(SeriesDataMigrationService.class).awaitMigration();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RepositoryException("Interrupted while waiting for the migration of the time series", e);
+        }
+    }
 
-        // other
-        binaryTimeSeries.setRemoteSeriesKey(timeSeries.getRemoteSeriesKey());
-        binaryTimeSeries.setData(DateValuePairMapper.compressAndEncodeDataPlainBytes(timeSeries.getValues()));
+    private Stream<BinaryTimeSeries> mapToBinarySeriesChunks(TimeSeries timeSeries) {
+        if (timeSeries.getProject() != null) {
+            changedProjects.add(timeSeries.getProject());
+        }
 
-        return binaryTimeSeries;
+        return BinaryTimeSeriesMapper.mapToRecords(timeSeries, chunkInterval, rollupLevels).stream();
     }
 }
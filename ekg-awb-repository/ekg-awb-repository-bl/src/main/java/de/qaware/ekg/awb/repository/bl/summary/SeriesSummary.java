@@ -0,0 +1,122 @@
+package de.qaware.ekg.awb.repository.bl.summary;
+
+import de.qaware.ekg.awb.sdk.datamodel.Value;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.util.List;
+
+/**
+ * Summary statistics over the values of a time series record that will stored
+ * as separate fields beside the encoded series data. This allows to answer questions like
+ * "the maximum of the whole series" or "the top N series by total" with a single facet
+ * query without decoding the series data.
+ *
+ * NaN values are ignored in all statistics.
+ */
+public final class SeriesSummary {
+
+    private final double min;
+
+    private final double max;
+
+    private final double sum;
+
+    private final int count;
+
+    private final double first;
+
+    private final double last;
+
+    /**
+     * Constructs a new SeriesSummary with all statistics
+     *
+     * @param min the smallest value
+     * @param max the largest value
+     * @param sum the sum of all values
+     * @param count the amount of values that are not NaN
+     * @param first the first value in chronological order
+     * @param last the last value in chronological order
+     */
+    public SeriesSummary(double min, double max, double sum, int count, double first, double last) {
+        this.min = min;
+        this.max = max;
+        this.sum = sum;
+        this.count = count;
+        this.first = first;
+        this.last = last;
+    }
+
+    /**
+     * Computes the summary of the given values.
+     *
+     * @param values the values in chronological order
+     * @return the summary or null if there is no value that is not NaN
+     */
+    public static SeriesSummary compute(List<Value> values) {
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        double sum = 0;
+        int count = 0;
+        double first = Double.NaN;
+        double last = Double.NaN;
+
+        for (Value value : values) {
+            double v = value.getValue();
+            if (Double.isNaN(v)) {
+                continue;
+            }
+
+            if (count == 0) {
+                first = v;
+            }
+
+            min = Math.min(min, v);
+            max = Math.max(max, v);
+            sum += v;
+            last = v;
+            count++;
+        }
+
+        if (count == 0) {
+            return null;
+        }
+
+        return new SeriesSummary(min, max, sum, count, first, last);
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public double getFirst() {
+        return first;
+    }
+
+    public double getLast() {
+        return last;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("min", min)
+                .append("max", max)
+                .append("sum", sum)
+                .append("count", count)
+                .append("first", first)
+                .append("last", last)
+                .toString();
+    }
+}
@@ -0,0 +1,64 @@
+package de.qaware.ekg.awb.repository.bl.codec;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Unit test for the {@link BitReader} that reads the bits across the 64 bit word boundaries
+ */
+public class BitReaderTest {
+
+    private static final int AMOUNT_OF_READS = 10_000;
+
+    @Test
+    public void testReadAcrossWordBoundaries() {
+        Random random = new Random(42);
+        int[] amounts = new int[AMOUNT_OF_READS];
+        long[] bits = new long[AMOUNT_OF_READS];
+
+        BitWriter writer = new BitWriter(16);
+        for (int i = 0; i < AMOUNT_OF_READS; i++) {
+            amounts[i] = random.nextInt(65);
+            bits[i] = amounts[i] == 0 ? 0 : random.nextLong() >>> (64 - amounts[i]);
+            writer.writeBits(bits[i], amounts[i]);
+        }
+
+        byte[] data = writer.toByteArray();
+        assertReads(new BitReader(ByteBuffer.wrap(data), 0), amounts, bits);
+        assertReads(new BitReader(ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN), 0), amounts, bits);
+    }
+
+    @Test
+    public void testReadFullWordsAtEachBitOffset() {
+        for (int offset = 0; offset < 8; offset++) {
+            BitWriter writer = new BitWriter(16);
+            writer.writeBits(0, offset);
+            writer.writeBits(0x8123456789ABCDEFL, 64);
+            writer.writeBits(0xFEDCBA9876543210L, 64);
+
+            BitReader reader = new BitReader(ByteBuffer.wrap(writer.toByteArray()), 0);
+            assertThat(reader.readBits(offset), is(0L));
+            assertThat(reader.readBits(64), is(0x8123456789ABCDEFL));
+            assertThat(reader.readBits(64), is(0xFEDCBA9876543210L));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReadBehindTheEnd() {
+        BitReader reader = new BitReader(ByteBuffer.wrap(new byte[12]), 0);
+        reader.readBits(60);
+        reader.readBits(40);
+    }
+
+    private static void assertReads(BitReader reader, int[] amounts, long[] bits) {
+        for (int i = 0; i < amounts.length; i++) {
+            assertThat(reader.readBits(amounts[i]), is(bits[i]));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package de.qaware.ekg.awb.repository.bl.codec;
+
+import de.qaware.ekg.awb.sdk.core.DateValuePairMapper;
+import de.qaware.ekg.awb.sdk.datamodel.Value;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Unit test for the {@link SeriesDataCodec}
+ */
+public class SeriesDataCodecTest {
+
+    private static final long DAY = 86_400_000L;
+
+    @Test
+    public void testRoundTripRegularSeries() {
+        List<Value> values = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            values.add(new Value(1577836800000L + i * DAY, i < 100 ? 0 : i * 3.5));
+        }
+
+        byte[] data = SeriesDataCodec.encode(values);
+
+        assertThat(SeriesDataCodec.resolveVersion(data), is(SeriesDataCodec.CURRENT_VERSION));
+        assertThat(SeriesDataCodec.countValues(data), is(500));
+        assertThat(data.length, lessThan(values.size() * 16 / 4));
+        assertThat(decode(data), is(values));
+    }
+
+    @Test
+    public void testRoundTripIrregularSeries() {
+        Random random = new Random(42);
+        List<Value> values = new ArrayList<>();
+        long timestamp = 1577836800000L;
+
+        for (int i = 0; i < 1000; i++) {
+            timestamp += random.nextInt(5) == 0 ? random.nextInt(Integer.MAX_VALUE) : random.nextInt(3000);
+            double value = random.nextInt(10) == 0 ? Double.NaN : random.nextGaussian() * 1000;
+            values.add(new Value(timestamp, value));
+        }
+
+        byte[] data = SeriesDataCodec.encode(values);
+
+        assertThat(SeriesDataCodec.countValues(data), is(1000));
+        assertThat(decode(data), is(values));
+    }
+
+    @Test
+    public void testEmptySeries() {
+        byte[] data = SeriesDataCodec.encode(new ArrayList<>());
+
+        assertThat(SeriesDataCodec.countValues(data), is(0));
+        assertThat(decode(data), is(empty()));
+    }
+
+    @Test
+    public void testDecodePlainPayload() {
+        List<Value> values = List.of(new Value(1000, Double.NaN), new Value(2000, -1.5), new Value(3000, 7));
+
+        byte[] data = DateValuePairMapper.compressAndEncodeDataPlainBytes(values);
+
+        assertThat(SeriesDataCodec.resolveVersion(data), is(SeriesDataCodec.PLAIN_VERSION));
+        assertThat(SeriesDataCodec.countValues(data), is(3));
+        assertThat(decode(data), is(values));
+    }
+
+    private static List<Value> decode(byte[] data) {
+        List<Value> result = new ArrayList<>();
+        SeriesDataCodec.decode(data, (timestamp, value) -> result.add(new Value(timestamp, value)));
+        return result;
+    }
+}
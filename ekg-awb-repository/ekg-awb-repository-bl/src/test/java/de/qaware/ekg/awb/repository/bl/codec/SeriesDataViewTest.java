@@ -0,0 +1,100 @@
+package de.qaware.ekg.awb.repository.bl.codec;
+
+import de.qaware.ekg.awb.sdk.core.DateValuePairMapper;
+import de.qaware.ekg.awb.sdk.datamodel.Value;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Unit test for the {@link SeriesDataView}
+ */
+public class SeriesDataViewTest {
+
+    private static final long START = 1577836800000L;
+
+    private static final long HOUR = 3_600_000L;
+
+    @Test
+    public void testRangeAcrossBlockBoundaries() {
+        List<Value> values = createHourlySeries(1000);
+        SeriesDataView view = SeriesDataView.of(SeriesDataCodec.encode(values));
+
+        assertThat(view.isIndexed(), is(true));
+        assertThat(view.size(), is(1000));
+
+        // the range starts in the middle of the second block and ends in the fourth one
+        long from = START + 200 * HOUR;
+        long to = START + 400 * HOUR;
+
+        assertThat(decodeRange(view, from, to), is(values.subList(200, 401)));
+        assertThat(decodeRange(view, from - 1, to + 1), is(values.subList(200, 401)));
+        assertThat(decodeRange(view, START + 128 * HOUR, START + 128 * HOUR), is(values.subList(128, 129)));
+    }
+
+    @Test
+    public void testRangeOutsideOfSeries() {
+        List<Value> values = createHourlySeries(300);
+        SeriesDataView view = SeriesDataView.of(SeriesDataCodec.encode(values));
+
+        assertThat(decodeRange(view, START + 1000 * HOUR, Long.MAX_VALUE), is(empty()));
+        assertThat(decodeRange(view, Long.MIN_VALUE, START - 1), is(empty()));
+        assertThat(decodeRange(view, Long.MIN_VALUE, Long.MAX_VALUE), is(values));
+    }
+
+    @Test
+    public void testCursorSeek() {
+        List<Value> values = createHourlySeries(500);
+        SeriesDataView.Cursor cursor = SeriesDataView.of(SeriesDataCodec.encode(values)).cursor();
+
+        cursor.seek(START + 300 * HOUR - 1);
+        assertThat(cursor.next(), is(true));
+        assertThat(cursor.timestamp(), is(START + 300 * HOUR));
+        assertThat(cursor.value(), is(300.0));
+
+        // seeking backwards doesn't move the cursor
+        cursor.seek(START);
+        assertThat(cursor.next(), is(true));
+        assertThat(cursor.timestamp(), is(START + 301 * HOUR));
+
+        cursor.seek(START + 500 * HOUR);
+        assertThat(cursor.next(), is(false));
+    }
+
+    @Test
+    public void testRangeOfUnsortedSeries() {
+        List<Value> values = List.of(new Value(3000, 3), new Value(1000, 1), new Value(2000, 2), new Value(4000, 4));
+        SeriesDataView view = SeriesDataView.of(SeriesDataCodec.encode(values));
+
+        assertThat(view.getVersion(), is(SeriesDataCodec.SEQUENTIAL_VERSION));
+        assertThat(view.isIndexed(), is(false));
+        assertThat(decodeRange(view, 1500, 3000), contains(new Value(3000, 3), new Value(2000, 2)));
+    }
+
+    @Test
+    public void testRangeOfPlainPayload() {
+        List<Value> values = List.of(new Value(1000, Double.NaN), new Value(2000, -1.5), new Value(3000, 7));
+        SeriesDataView view = SeriesDataView.of(DateValuePairMapper.compressAndEncodeDataPlainBytes(values));
+
+        assertThat(view.getVersion(), is(SeriesDataCodec.PLAIN_VERSION));
+        assertThat(decodeRange(view, 2000, 5000), is(values.subList(1, 3)));
+    }
+
+    private static List<Value> createHourlySeries(int size) {
+        List<Value> values = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            values.add(new Value(START + i * HOUR, i));
+        }
+        return values;
+    }
+
+    private static List<Value> decodeRange(SeriesDataView view, long from, long to) {
+        List<Value> result = new ArrayList<>();
+        view.forEachInRange(from, to, (timestamp, value) -> result.add(new Value(timestamp, value)));
+        return result;
+    }
+}
@@ -0,0 +1,111 @@
+package de.qaware.ekg.awb.repository.bl.mapper;
+
+import de.qaware.ekg.awb.repository.bl.BinaryTimeSeries;
+import de.qaware.ekg.awb.repository.bl.codec.SeriesDataCodec;
+import de.qaware.ekg.awb.repository.bl.rollup.RollupLevel;
+import de.qaware.ekg.awb.repository.bl.summary.SeriesSummary;
+import de.qaware.ekg.awb.sdk.datamodel.TimeSeries;
+import de.qaware.ekg.awb.sdk.datamodel.Value;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Unit test for the {@link BinaryTimeSeriesMapper}
+ */
+public class BinaryTimeSeriesMapperTest {
+
+    private static final long DAY = 86_400_000L;
+
+    @Test
+    public void testChunksAlignedToWindows() {
+        TimeSeries timeSeries = createSeries(0, 100);
+
+        List<BinaryTimeSeries> chunks = BinaryTimeSeriesMapper.mapToBinarySeriesChunks(timeSeries, 30 * DAY);
+
+        assertThat(chunks, hasSize(4));
+        assertThat(chunks.get(0).getStart(), is(0L));
+        assertThat(chunks.get(0).getEnd(), is(29 * DAY));
+        assertThat(chunks.get(1).getStart(), is(30 * DAY));
+        assertThat(chunks.get(3).getEnd(), is(99 * DAY));
+
+        List<Value> decoded = new ArrayList<>();
+        for (BinaryTimeSeries chunk : chunks) {
+            assertThat(chunk.getMetricName(), is("cases"));
+            assertThat(chunk.getProjectName(), is("OWID"));
+            SeriesDataCodec.decode(chunk.getData(), (timestamp, value) -> decoded.add(new Value(timestamp, value)));
+        }
+
+        assertThat(decoded, is(timeSeries.getValues()));
+        assertThat(chunks.stream().mapToInt(BinaryTimeSeries::getAmountOfSeriesValues).sum(), is(100));
+    }
+
+    @Test
+    public void testSeriesInsideSingleWindow() {
+        TimeSeries timeSeries = createSeries(31 * DAY, 10);
+
+        List<BinaryTimeSeries> chunks = BinaryTimeSeriesMapper.mapToBinarySeriesChunks(timeSeries, 30 * DAY);
+
+        assertThat(chunks, hasSize(1));
+        assertThat(chunks.get(0).getAmountOfSeriesValues(), is(10));
+    }
+
+    @Test
+    public void testChunkSummaries() {
+        TimeSeries timeSeries = createSeries(0, 40);
+        timeSeries.addValue(new Value(40 * DAY, Double.NaN));
+
+        List<BinaryTimeSeries> chunks = BinaryTimeSeriesMapper.mapToBinarySeriesChunks(timeSeries, 30 * DAY);
+
+        SeriesSummary summary = chunks.get(1).getSummary();
+        assertThat(summary.getMin(), is(30.0));
+        assertThat(summary.getMax(), is(39.0));
+        assertThat(summary.getSum(), is(345.0));
+        assertThat(summary.getCount(), is(10));
+        assertThat(summary.getFirst(), is(30.0));
+        assertThat(summary.getLast(), is(39.0));
+        assertThat(chunks.get(1).getAmountOfSeriesValues(), is(11));
+    }
+
+    @Test
+    public void testSeriesWithoutValues() {
+        TimeSeries timeSeries = createSeries(0, 0);
+
+        List<BinaryTimeSeries> chunks = BinaryTimeSeriesMapper.mapToBinarySeriesChunks(timeSeries, 30 * DAY);
+
+        assertThat(chunks, hasSize(1));
+        assertThat(chunks.get(0).getSummary(), is(nullValue()));
+    }
+
+    @Test
+    public void testGroupKeyHashOfAllRecords() {
+        TimeSeries timeSeries = createSeries(0, 100);
+
+        List<BinaryTimeSeries> records = BinaryTimeSeriesMapper.mapToRecords(timeSeries, 30 * DAY,
+                List.of(RollupLevel.DAY));
+        int groupKeyHash = BinaryTimeSeriesMapper.computeGroupKeyHash(records.get(0));
+
+        for (BinaryTimeSeries record : records) {
+            assertThat(record.getGroupKeyHash(), is(groupKeyHash));
+        }
+
+        TimeSeries otherSeries = new TimeSeries("OWID", "Europe", "France", null, null, null, null,
+                null, null, "covid", "cases");
+        assertThat(BinaryTimeSeriesMapper.mapToBinarySeries(otherSeries).getGroupKeyHash(), is(not(groupKeyHash)));
+    }
+
+    private static TimeSeries createSeries(long start, int amountOfValues) {
+        TimeSeries timeSeries = new TimeSeries("OWID", "Europe", "Germany", null, null, null, null,
+                null, null, "covid", "cases");
+
+        for (int i = 0; i < amountOfValues; i++) {
+            timeSeries.addValue(new Value(start + i * DAY, i));
+        }
+
+        return timeSeries;
+    }
+}
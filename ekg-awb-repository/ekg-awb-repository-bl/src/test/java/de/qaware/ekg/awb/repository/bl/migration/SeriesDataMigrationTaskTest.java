@@ -0,0 +1,132 @@
+package de.qaware.ekg.awb.repository.bl.migration;
+
+import de.qaware.ekg.awb.repository.api.RepositoryClient;
+import de.qaware.ekg.awb.repository.api.dataobject.search.SearchParams;
+import de.qaware.ekg.awb.repository.api.dataobject.search.SearchResult;
+import de.qaware.ekg.awb.repository.api.dataobject.status.QueryStatus;
+import de.qaware.ekg.awb.repository.bl.BinaryTimeSeries;
+import de.qaware.ekg.awb.repository.bl.codec.SeriesDataCodec;
+import de.qaware.ekg.awb.repository.bl.mapper.BinaryTimeSeriesMapper;
+import de.qaware.ekg.awb.repository.bl.rollup.RollupLevel;
+import de.qaware.ekg.awb.sdk.core.DateValuePairMapper;
+import de.qaware.ekg.awb.sdk.core.events.EkgEventBus;
+import de.qaware.ekg.awb.sdk.core.events.ProgressEvent;
+import de.qaware.ekg.awb.sdk.datamodel.Value;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit test for the {@link SeriesDataMigrationTask}
+ */
+public class SeriesDataMigrationTaskTest {
+
+    private static final List<Value> VALUES = List.of(new Value(1000, 1), new Value(2000, Double.NaN), new Value(3000, 3));
+
+    @Test
+    public void testMigrateRecord() {
+        BinaryTimeSeries record = createLegacyRecord();
+
+        List<BinaryTimeSeries> records = SeriesDataMigrationTask.migrateRecord(record);
+
+        // a single raw chunk that replaces the legacy record and one rollup record per level
+        assertThat(records, hasSize(1 + RollupLevel.values().length));
+        BinaryTimeSeries chunk = records.get(0);
+        assertThat(chunk.getId(), is("legacy-id"));
+        assertThat(chunk.getAg(), nullValue());
+        assertThat(SeriesDataCodec.resolveVersion(chunk.getData()), is(SeriesDataCodec.CURRENT_VERSION));
+        assertThat(chunk.getAmountOfSeriesValues(), is(3));
+        assertThat(chunk.getFormatVersion(), is(BinaryTimeSeries.CURRENT_FORMAT_VERSION));
+        assertThat(chunk.getGroupKeyHash(), is(BinaryTimeSeriesMapper.computeGroupKeyHash(record)));
+        assertThat(chunk.getSummary().getCount(), is(2));
+        assertThat(chunk.getSummary().getSum(), is(4.0));
+
+        List<Value> decoded = new ArrayList<>();
+        SeriesDataCodec.decode(chunk.getData(), (timestamp, value) -> decoded.add(new Value(timestamp, value)));
+        assertThat(decoded, is(VALUES));
+
+        for (BinaryTimeSeries rollup : records.subList(1, records.size())) {
+            assertThat(rollup.getAg(), notNullValue());
+            assertThat(rollup.getGroupKeyHash(), is(chunk.getGroupKeyHash()));
+        }
+    }
+
+    @Test
+    public void testMigrateRecordSplitsHistoryIntoChunks() {
+        long chunkInterval = BinaryTimeSeriesMapper.DEFAULT_CHUNK_INTERVAL;
+        BinaryTimeSeries record = createLegacyRecord(List.of(new Value(1000, 1),
+                new Value(chunkInterval + 1000, 2), new Value(2 * chunkInterval + 1000, 3)));
+
+        List<BinaryTimeSeries> chunks = SeriesDataMigrationTask.migrateRecord(record).stream()
+                .filter(migrated -> migrated.getAg() == null)
+                .collect(Collectors.toList());
+
+        assertThat(chunks, hasSize(3));
+        assertThat(chunks.get(0).getId(), is("legacy-id"));
+        assertThat(chunks.get(1).getId(), nullValue());
+        assertThat(chunks.get(2).getStart(), is(2 * chunkInterval + 1000));
+    }
+
+    @Test
+    public void testMigrateRecordWithoutData() {
+        BinaryTimeSeries record = createLegacyRecord();
+        record.setData(null);
+
+        assertThat(SeriesDataMigrationTask.migrateRecord(record), contains(sameInstance(record)));
+        assertThat(record.getFormatVersion(), is(BinaryTimeSeries.CURRENT_FORMAT_VERSION));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testMigrateInBatches() throws Exception {
+        RepositoryClient client = mock(RepositoryClient.class);
+        EkgEventBus eventBus = mock(EkgEventBus.class);
+
+        when(client.search(eq(BinaryTimeSeries.class), any(SearchParams.class))).thenReturn(
+                new SearchResult<>(List.of(createLegacyRecord(), createLegacyRecord()), new QueryStatus(3, 0, "c1")),
+                new SearchResult<>(List.of(createLegacyRecord()), new QueryStatus(3, 0, "c2")),
+                new SearchResult<>(List.of(), new QueryStatus(3, 0, "c2")));
+
+        long migrated = new SeriesDataMigrationTask(client, eventBus, 2).migrate();
+
+        assertThat(migrated, is(3L));
+        verify(client, times(2)).add(any(Iterator.class));
+        verify(client, times(2)).commit();
+        verify(eventBus, times(3)).publish(any(ProgressEvent.class));
+    }
+
+    @Test
+    public void testNothingToMigrate() throws Exception {
+        RepositoryClient client = mock(RepositoryClient.class);
+
+        when(client.search(eq(BinaryTimeSeries.class), any(SearchParams.class)))
+                .thenReturn(new SearchResult<>(List.of(), new QueryStatus(0, 0, "*")));
+
+        assertThat(new SeriesDataMigrationTask(client, mock(EkgEventBus.class)).migrate(), is(0L));
+        verify(client, never()).commit();
+    }
+
+    private static BinaryTimeSeries createLegacyRecord() {
+        return createLegacyRecord(VALUES);
+    }
+
+    private static BinaryTimeSeries createLegacyRecord(List<Value> values) {
+        BinaryTimeSeries record = new BinaryTimeSeries();
+        record.setId("legacy-id");
+        record.setProjectName("OWID");
+        record.setHost("Germany");
+        record.setMetric("cases");
+        record.setData(DateValuePairMapper.compressAndEncodeDataPlainBytes(values));
+
+        return record;
+    }
+}
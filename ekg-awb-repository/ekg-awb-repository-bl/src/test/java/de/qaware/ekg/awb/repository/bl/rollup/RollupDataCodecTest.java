@@ -0,0 +1,47 @@
+package de.qaware.ekg.awb.repository.bl.rollup;
+
+import de.qaware.ekg.awb.sdk.datamodel.Value;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Unit test for the {@link RollupBucket} computation and the {@link RollupDataCodec}
+ */
+public class RollupDataCodecTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    @Test
+    public void testComputeAndRoundTrip() {
+        List<Value> values = new ArrayList<>();
+        for (int i = 0; i < 48 * 6; i++) {
+            values.add(new Value(i * HOUR / 6, i % 6));
+        }
+        values.add(new Value(48 * HOUR, Double.NaN));
+
+        List<RollupBucket> buckets = RollupBucket.computeBuckets(values, RollupLevel.DAY);
+
+        assertThat(buckets, hasSize(2));
+        assertThat(buckets.get(1).getTimestamp(), is(RollupLevel.DAY.getBucketSize()));
+        assertThat(buckets.get(1).getMin(), is(0.0));
+        assertThat(buckets.get(1).getMax(), is(5.0));
+        assertThat(buckets.get(1).getSum(), is(24 * 15.0));
+        assertThat(buckets.get(1).getCount(), is(144L));
+
+        List<RollupBucket> decoded = RollupDataCodec.decode(RollupDataCodec.encode(buckets));
+
+        assertThat(decoded, hasSize(2));
+        assertThat(decoded.get(0).getTimestamp(), is(0L));
+        assertThat(decoded.get(0).getSum(), is(24 * 15.0));
+        assertThat(decoded.get(1).getCount(), is(144L));
+
+        List<Double> maxValues = new ArrayList<>();
+        RollupDataCodec.decode(RollupDataCodec.encode(buckets), RollupAggregate.MAX, (timestamp, value) -> maxValues.add(value));
+        assertThat(maxValues, contains(5.0, 5.0));
+    }
+}